@@ -0,0 +1,39 @@
+package ee.openeid.siga.auth;
+
+import com.google.common.cache.CacheBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caches services in the memory of the SiGa node when the node does not join the Ignite cluster, i.e. sessions are
+ * stored in memory or accessed with the Ignite thin client. Cached services expire after the same duration as in the
+ * AUTH_SERVICES Ignite cache.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnExpression("'${siga.ignite.session-store:IGNITE}' != 'IGNITE'")
+public class InMemoryCacheConfiguration implements CachingConfigurer {
+    private static final Duration AUTH_SERVICES_EXPIRY = Duration.ofSeconds(300);
+    private static final int AUTH_SERVICES_MAX_SIZE = 1000;
+
+    @Bean
+    @Override
+    public CacheManager cacheManager() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new ConcurrentMapCache("AUTH_SERVICES", CacheBuilder.newBuilder()
+                .expireAfterWrite(AUTH_SERVICES_EXPIRY)
+                .maximumSize(AUTH_SERVICES_MAX_SIZE)
+                .build()
+                .asMap(), false)));
+        return cacheManager;
+    }
+}
@@ -4,6 +4,7 @@ import static java.time.Instant.ofEpochMilli;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,6 +25,7 @@ import lombok.RequiredArgsConstructor;
 public class SigaEventLoggingFilter extends OncePerRequestFilter {
     private static final String REQUEST_LENGTH_PARAM_NAME = "request_length";
     private static final String REQUEST_URI_PARAM_NAME = "request_uri";
+    private static final String ASYNC_EVENTS_ATTRIBUTE = SigaEventLoggingFilter.class.getName() + ".ASYNC_EVENTS";
     private final SigaEventLogger sigaEventLogger;
 
     @Override
@@ -33,17 +35,39 @@ public class SigaEventLoggingFilter extends OncePerRequestFilter {
         boolean isFirstRequest = !isAsyncDispatch(request);
         if (isFirstRequest) {
             beforeRequest(request);
+        } else {
+            resumeRequest(request);
         }
 
         try {
             filterChain.doFilter(request, response);
         } finally {
-            if (!isAsyncStarted(request)) {
+            if (isAsyncStarted(request)) {
+                request.setAttribute(ASYNC_EVENTS_ATTRIBUTE, sigaEventLogger.detachEvents());
+            } else {
                 afterRequest(request, response);
             }
         }
     }
 
+    /**
+     * Asynchronously processed requests, like long polling status requests, are logged once the request is dispatched
+     * back to a request thread to write the response.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void resumeRequest(HttpServletRequest request) {
+        List<SigaEvent> events = (List<SigaEvent>) request.getAttribute(ASYNC_EVENTS_ATTRIBUTE);
+        request.removeAttribute(ASYNC_EVENTS_ATTRIBUTE);
+        if (events != null) {
+            sigaEventLogger.attachEvents(events);
+        }
+    }
+
     protected void beforeRequest(HttpServletRequest request) {
         SigaEvent event = sigaEventLogger.logStartEvent(SigaEventName.REQUEST);
         String xAuthorizationServiceUuid = request.getHeader(HmacHeader.X_AUTHORIZATION_SERVICE_UUID.getValue());
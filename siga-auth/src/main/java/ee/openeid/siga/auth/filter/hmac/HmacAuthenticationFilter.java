@@ -19,6 +19,7 @@ import org.springframework.security.web.authentication.SimpleUrlAuthenticationSu
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.util.UriUtils;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -48,6 +49,15 @@ public class HmacAuthenticationFilter extends AbstractAuthenticationProcessingFi
         setAuthenticationSuccessHandler(noRedirectAuthenticationSuccessHandler());
     }
 
+    /**
+     * Requests dispatched back to a request thread after asynchronous processing have already been authenticated, and
+     * the authentication is restored from the request.
+     */
+    @Override
+    protected boolean requiresAuthentication(HttpServletRequest request, HttpServletResponse response) {
+        return request.getDispatcherType() != DispatcherType.ASYNC && super.requiresAuthentication(request, response);
+    }
+
     @Override
     public Authentication attemptAuthentication(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
         sigaEventLogger.logStartEvent(SigaEventName.AUTHENTICATION);
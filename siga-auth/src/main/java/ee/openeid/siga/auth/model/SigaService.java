@@ -45,6 +45,7 @@ public class SigaService {
     private long maxConnectionsSize;
     private long maxConnectionSize;
     private boolean inactive;
+    private String callbackUrl;
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY, mappedBy = "service")
     @ToString.Exclude
     private Set<SigaIpPermission> ipPermissions = new HashSet<>();
@@ -36,6 +36,7 @@ public class SigaUserDetailsService implements UserDetailsService {
                 .skRelyingPartyUuid(service.getSkRelyingPartyUuid())
                 .smartIdRelyingPartyName(service.getSmartIdRelyingPartyName())
                 .smartIdRelyingPartyUuid(service.getSmartIdRelyingPartyUuid())
+                .callbackUrl(service.getCallbackUrl())
                 .serviceType(serviceType)
                 .active(!service.isInactive())
                 .build();
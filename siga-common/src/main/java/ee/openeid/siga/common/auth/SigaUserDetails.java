@@ -25,6 +25,7 @@ public class SigaUserDetails implements UserDetails {
     private ServiceType serviceType;
     private String smartIdRelyingPartyName;
     private String smartIdRelyingPartyUuid;
+    private String callbackUrl;
     @Builder.Default()
     private boolean active = true;
     @Builder.Default()
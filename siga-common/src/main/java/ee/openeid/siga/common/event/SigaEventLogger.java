@@ -168,6 +168,20 @@ public class SigaEventLogger {
         return event;
     }
 
+    /**
+     * Removes the events of the current thread to be continued on another thread with {@link #attachEvents(List)},
+     * as when an asynchronously processed request is dispatched back to a request thread.
+     */
+    public List<SigaEvent> detachEvents() {
+        List<SigaEvent> events = threadScopeEvents.get();
+        threadScopeEvents.remove();
+        return events;
+    }
+
+    public void attachEvents(List<SigaEvent> events) {
+        threadScopeEvents.set(new ArrayList<>(events));
+    }
+
     public void logEvents() {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
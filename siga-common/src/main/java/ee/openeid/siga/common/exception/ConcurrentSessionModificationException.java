@@ -0,0 +1,8 @@
+package ee.openeid.siga.common.exception;
+
+public class ConcurrentSessionModificationException extends InvalidSessionDataException {
+
+    public ConcurrentSessionModificationException(String message) {
+        super(message);
+    }
+}
@@ -2,11 +2,12 @@ package ee.openeid.siga.common.model;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
-public class HashcodeSignatureWrapper {
+public class HashcodeSignatureWrapper implements Serializable {
     private String generatedSignatureId;
     private byte[] signature;
     private List<SignatureHashcodeDataFile> dataFiles = new ArrayList<>();
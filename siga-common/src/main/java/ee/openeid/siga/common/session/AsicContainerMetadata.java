@@ -0,0 +1,62 @@
+package ee.openeid.siga.common.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Metadata of the data files, signatures and timestamps of a datafile container, stored in the container session so
+ * that they can be listed without loading and parsing the container. Nested data files, signatures and timestamps of
+ * composite ASiC-S containers are included the same way as when listing them from the container.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsicContainerMetadata implements Serializable {
+    @Builder.Default
+    private List<DataFileMetadata> dataFiles = new ArrayList<>();
+    @Builder.Default
+    private List<SignatureMetadata> signatures = new ArrayList<>();
+    @Builder.Default
+    private List<TimestampMetadata> timestamps = new ArrayList<>();
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DataFileMetadata implements Serializable {
+        private String fileName;
+        private long fileSize;
+        private String fileHashSha256;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SignatureMetadata implements Serializable {
+        private String id;
+        /**
+         * Hash code of the AdES signature, as held in {@link AsicContainerSession#getSignatureIdHolder()}
+         */
+        private int signatureHashCode;
+        private String signerInfo;
+        private String signatureProfile;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TimestampMetadata implements Serializable {
+        private String id;
+        private Date creationTime;
+    }
+}
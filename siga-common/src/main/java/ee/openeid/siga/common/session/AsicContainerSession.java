@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.security.cert.X509Certificate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @Getter
@@ -25,8 +26,19 @@ public class AsicContainerSession implements Session {
     @NonNull
     private String sessionId;
     @NonNull
-    @Setter
     private byte [] container;
+    /**
+     * Loader of the container as it was read from the session store. It is kept after the container has been loaded,
+     * so that an unmodified container can be written back in its stored form.
+     */
+    private transient Supplier<byte[]> containerLoader;
+    private transient boolean containerModified;
+    /**
+     * Metadata of the container, updated together with the container. Sessions created before container metadata
+     * was introduced have none.
+     */
+    @Setter
+    private AsicContainerMetadata containerMetadata;
     @Builder.Default
     private Map<String, Integer> signatureIdHolder = new HashMap<>();
 
@@ -39,6 +51,30 @@ public class AsicContainerSession implements Session {
     private transient Map<String, CertificateSession> certificateSessions = new HashMap<>();
     @Builder.Default
     private Map<String, X509Certificate> certificateHolder = new HashMap<>();
+    @Setter
+    private long version;
+
+    public byte[] getContainer() {
+        if (container == null && containerLoader != null) {
+            container = containerLoader.get();
+        }
+        return container;
+    }
+
+    public void setContainer(@NonNull byte[] container) {
+        this.container = container;
+        this.containerModified = true;
+    }
+
+    /**
+     * Sets the loader of the container, so that the container is loaded from the session store only when it is first
+     * accessed.
+     */
+    public void setContainerLoader(Supplier<byte[]> containerLoader) {
+        this.container = null;
+        this.containerLoader = containerLoader;
+        this.containerModified = false;
+    }
 
     @Override
     public void addSignatureSession(String signatureId, SignatureSession signatureSession) {
@@ -79,6 +115,7 @@ public class AsicContainerSession implements Session {
     public void clearSigningSession(String signatureId) {
         SignatureSession signatureSession = signatureSessions.get(signatureId);
         signatureSession.setDataToSign(null);
+        signatureSession.setSignatureParameters(null);
         signatureSession.setDataFilesHash(null);
     }
 
@@ -4,12 +4,17 @@ import ee.openeid.siga.common.model.RelyingPartyInfo;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.Serializable;
+import java.security.cert.X509Certificate;
+
 @Data
 @Builder
-public class CertificateSession {
+public class CertificateSession implements Serializable {
     private RelyingPartyInfo relyingPartyInfo;
     private String sessionCode;
     private String documentNumber;
+    private X509Certificate certificate;
+    private String callbackUrl;
     @Builder.Default
     private SessionStatus sessionStatus = SessionStatus.builder().build();
 
@@ -35,6 +35,8 @@ public class HashcodeContainerSession implements Session {
     private transient Map<String, CertificateSession> certificateSessions = new HashMap<>();
     @Builder.Default
     private Map<String, X509Certificate> certificateHolder = new HashMap<>();
+    @Setter
+    private long version;
 
     @Override
     public void addSignatureSession(String signatureId, SignatureSession signatureSession) {
@@ -70,6 +72,7 @@ public class HashcodeContainerSession implements Session {
     public void clearSigningSession(String signatureId) {
         SignatureSession signatureSession = signatureSessions.get(signatureId);
         signatureSession.setDataToSign(null);
+        signatureSession.setSignatureParameters(null);
         signatureSession.setDataFilesHash(null);
     }
 
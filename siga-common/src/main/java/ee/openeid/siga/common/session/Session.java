@@ -1,9 +1,10 @@
 package ee.openeid.siga.common.session;
 
+import java.io.Serializable;
 import java.security.cert.X509Certificate;
 import java.util.Map;
 
-public interface Session {
+public interface Session extends Serializable {
     String getClientName();
 
     String getServiceName();
@@ -12,6 +13,10 @@ public interface Session {
 
     String getSessionId();
 
+    long getVersion();
+
+    void setVersion(long version);
+
     void addSignatureSession(String signatureId, SignatureSession signatureSession);
 
     void addCertificateSession(String certificateId, CertificateSession certificateSession);
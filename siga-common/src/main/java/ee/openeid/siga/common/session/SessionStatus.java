@@ -2,6 +2,7 @@ package ee.openeid.siga.common.session;
 
 import lombok.*;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 import static ee.openeid.siga.common.session.ProcessingStatus.PROCESSING;
@@ -9,7 +10,7 @@ import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 
 @Data
 @Builder
-public class SessionStatus {
+public class SessionStatus implements Serializable {
     private String status;
     private StatusError statusError;
     @Builder.Default
@@ -36,7 +37,7 @@ public class SessionStatus {
 
     @Value
     @Builder
-    public static class StatusError {
+    public static class StatusError implements Serializable {
         String errorCode;
         String errorMessage;
     }
@@ -2,6 +2,7 @@ package ee.openeid.siga.common.session;
 
 import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.util.CertificateUtil;
 import lombok.Builder;
 import lombok.Data;
 import lombok.SneakyThrows;
@@ -10,18 +11,44 @@ import org.apache.ignite.binary.BinaryReader;
 import org.apache.ignite.binary.BinaryWriter;
 import org.apache.ignite.binary.Binarylizable;
 import org.digidoc4j.DataToSign;
+import org.digidoc4j.DigestAlgorithm;
+import org.digidoc4j.EncryptionAlgorithm;
+import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.SignatureProfile;
 
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Signing session of a single signature.
+ * <p>
+ * Instead of the whole digidoc4j {@link org.digidoc4j.DataToSign} object graph (which includes data files and
+ * configuration), only the data to be signed and the signature parameters are stored. The signature finalizer is
+ * rebuilt from the data files of the container session when the signature is finalized.
+ * <p>
+ * A Mobile-ID or Smart-ID signature is {@code finalized} when it has already been added to the container by the
+ * status polling task, and the status request only has to remove the signing session.
+ * <p>
+ * Signature sessions written by earlier versions, which stored the Java serialized {@link org.digidoc4j.DataToSign}
+ * instead, are still read, so that signings in progress during a rolling upgrade can be finalized.
+ */
 @Data
 @Builder
-public class SignatureSession implements Binarylizable {
+public class SignatureSession implements Binarylizable, Serializable {
+    private static final String LEGACY_DATA_TO_SIGN_FIELD = "dataToSignSerialized";
+
     private String sessionCode;
     private byte[] signature;
     @Builder.Default
     private SessionStatus sessionStatus = SessionStatus.builder().build();
-    private DataToSign dataToSign;
+    private byte[] dataToSign;
+    private SignatureParameters signatureParameters;
     private SigningType signingType;
     private String dataFilesHash;
     private RelyingPartyInfo relyingPartyInfo;
+    private boolean finalized;
+    private String callbackUrl;
 
     @Override
     @SneakyThrows
@@ -29,10 +56,13 @@ public class SignatureSession implements Binarylizable {
         writer.writeString("sessionCode", sessionCode);
         writer.writeByteArray("signature", signature);
         writer.writeObject("sessionStatus", sessionStatus);
-        writer.writeByteArray("dataToSignSerialized", SerializationUtils.serialize(dataToSign));
+        writer.writeByteArray("dataToSign", dataToSign);
+        writeSignatureParameters(writer);
         writer.writeObject("signingType", signingType);
         writer.writeString("dataFilesHash", dataFilesHash);
         writer.writeObject("relyingPartyInfo", relyingPartyInfo);
+        writer.writeBoolean("finalized", finalized);
+        writer.writeString("callbackUrl", callbackUrl);
     }
 
     @Override
@@ -41,12 +71,77 @@ public class SignatureSession implements Binarylizable {
         sessionCode = reader.readString("sessionCode");
         signature = reader.readByteArray("signature");
         sessionStatus = reader.readObject("sessionStatus");
-        dataToSign = SerializationUtils.deserialize(reader.readByteArray("dataToSignSerialized"));
+        dataToSign = reader.readByteArray("dataToSign");
+        signatureParameters = readSignatureParameters(reader);
+        readLegacyDataToSign(reader);
         signingType = reader.readObject("signingType");
         dataFilesHash = reader.readString("dataFilesHash");
         relyingPartyInfo = reader.readObject("relyingPartyInfo");
+        finalized = reader.readBoolean("finalized");
+        callbackUrl = reader.readString("callbackUrl");
     }
+
     public void setPollingStatus(ProcessingStatus status) {
         sessionStatus.setProcessingStatus(status);
     }
+
+    @SneakyThrows
+    private void writeSignatureParameters(BinaryWriter writer) {
+        writer.writeBoolean("signatureParameters", signatureParameters != null);
+        if (signatureParameters == null) {
+            return;
+        }
+        writer.writeString("signatureId", signatureParameters.getSignatureId());
+        writer.writeString("signatureProfile", nameOf(signatureParameters.getSignatureProfile()));
+        writer.writeString("signatureDigestAlgorithm", nameOf(signatureParameters.getSignatureDigestAlgorithm()));
+        writer.writeString("dataFileDigestAlgorithm", nameOf(signatureParameters.getDataFileDigestAlgorithm()));
+        writer.writeString("encryptionAlgorithm", nameOf(signatureParameters.getEncryptionAlgorithm()));
+        writer.writeByteArray("signingCertificate", signatureParameters.getSigningCertificate() == null
+                ? null : signatureParameters.getSigningCertificate().getEncoded());
+        writer.writeDate("claimedSigningDate", signatureParameters.getClaimedSigningDate());
+        writer.writeString("city", signatureParameters.getCity());
+        writer.writeString("stateOrProvince", signatureParameters.getStateOrProvince());
+        writer.writeString("postalCode", signatureParameters.getPostalCode());
+        writer.writeString("country", signatureParameters.getCountry());
+        writer.writeStringArray("roles", signatureParameters.getRoles() == null
+                ? null : signatureParameters.getRoles().toArray(new String[0]));
+    }
+
+    private void readLegacyDataToSign(BinaryReader reader) {
+        byte[] serializedDataToSign = reader.readByteArray(LEGACY_DATA_TO_SIGN_FIELD);
+        if (dataToSign != null || serializedDataToSign == null) {
+            return;
+        }
+        DataToSign legacyDataToSign = SerializationUtils.deserialize(serializedDataToSign);
+        dataToSign = legacyDataToSign.getDataToSign();
+        signatureParameters = legacyDataToSign.getSignatureParameters();
+    }
+
+    private static SignatureParameters readSignatureParameters(BinaryReader reader) {
+        if (!reader.readBoolean("signatureParameters")) {
+            return null;
+        }
+        SignatureParameters parameters = new SignatureParameters();
+        parameters.setSignatureId(reader.readString("signatureId"));
+        parameters.setSignatureProfile(valueOf(reader.readString("signatureProfile"), SignatureProfile::valueOf));
+        parameters.setSignatureDigestAlgorithm(valueOf(reader.readString("signatureDigestAlgorithm"), DigestAlgorithm::valueOf));
+        parameters.setDataFileDigestAlgorithm(valueOf(reader.readString("dataFileDigestAlgorithm"), DigestAlgorithm::valueOf));
+        parameters.setEncryptionAlgorithm(valueOf(reader.readString("encryptionAlgorithm"), EncryptionAlgorithm::valueOf));
+        parameters.setSigningCertificate(valueOf(reader.readByteArray("signingCertificate"), CertificateUtil::createX509Certificate));
+        parameters.setClaimedSigningDate(reader.readDate("claimedSigningDate"));
+        parameters.setCity(reader.readString("city"));
+        parameters.setStateOrProvince(reader.readString("stateOrProvince"));
+        parameters.setPostalCode(reader.readString("postalCode"));
+        parameters.setCountry(reader.readString("country"));
+        parameters.setRoles(valueOf(reader.readStringArray("roles"), Arrays::asList));
+        return parameters;
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static <T, R> R valueOf(T value, Function<T, R> converter) {
+        return value == null ? null : converter.apply(value);
+    }
 }
@@ -5,9 +5,7 @@ import org.apache.commons.io.IOUtils;
 import org.digidoc4j.Container;
 import org.digidoc4j.ContainerBuilder;
 import org.digidoc4j.DataFile;
-import org.digidoc4j.DataToSign;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 
 import java.io.IOException;
 
@@ -121,7 +119,7 @@ class AsicContainerSessionTest {
     void addDataToSignToContainerSession() throws IOException {
         AsicContainerSession sessionHolder = generateDefaultSessionHolder();
 
-        SignatureSession signatureSession = SignatureSession.builder().dataToSign(generateDefaultDataToSign()).signingType(SigningType.REMOTE).build();
+        SignatureSession signatureSession = SignatureSession.builder().dataToSign("hello".getBytes()).signingType(SigningType.REMOTE).build();
         sessionHolder.addSignatureSession(DEFAULT_MOCK_SIGNATURE_ID, signatureSession);
 
         SignatureSession sessionSignatureSession = sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID);
@@ -134,19 +132,13 @@ class AsicContainerSessionTest {
     void addDataToSignAndThenRemoveItFromContainer() throws Exception {
         AsicContainerSession sessionHolder = generateDefaultSessionHolder();
 
-        SignatureSession signatureSession = SignatureSession.builder().dataToSign(generateDefaultDataToSign()).signingType(SigningType.REMOTE).build();
+        SignatureSession signatureSession = SignatureSession.builder().dataToSign("hello".getBytes()).signingType(SigningType.REMOTE).build();
         sessionHolder.addSignatureSession(DEFAULT_MOCK_SIGNATURE_ID, signatureSession);
         assertNotNull(sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID));
         sessionHolder.clearSigningSession(DEFAULT_MOCK_SIGNATURE_ID);
         assertNull(sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID));
     }
 
-    private DataToSign generateDefaultDataToSign() {
-        DataToSign dataToSignMock = Mockito.mock(DataToSign.class);
-        Mockito.doReturn("hello".getBytes()).when(dataToSignMock).getDataToSign();
-        return dataToSignMock;
-    }
-
     private AsicContainerSession generateDefaultSessionHolder() throws IOException {
         Container container = ContainerBuilder
                 .aContainer()
@@ -4,9 +4,7 @@ import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
 import ee.openeid.siga.common.model.SigningType;
-import org.digidoc4j.DataToSign;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 
 import java.util.Collections;
 
@@ -120,7 +118,7 @@ class HashcodeContainerSessionTest {
     void addDataToSignToContainerSession() {
         HashcodeContainerSession sessionHolder = generateDefaultSessionHolder();
 
-        SignatureSession signatureSession = SignatureSession.builder().dataToSign(generateDefaultDataToSign()).signingType(SigningType.REMOTE).build();
+        SignatureSession signatureSession = SignatureSession.builder().dataToSign("hello".getBytes()).signingType(SigningType.REMOTE).build();
         sessionHolder.addSignatureSession(DEFAULT_MOCK_SIGNATURE_ID, signatureSession);
 
         SignatureSession sessionSignatureSession = sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID);
@@ -133,19 +131,13 @@ class HashcodeContainerSessionTest {
     void addDataToSignAndThenRemoveItFromContainer() {
         HashcodeContainerSession sessionHolder = generateDefaultSessionHolder();
 
-        SignatureSession signatureSession = SignatureSession.builder().dataToSign(generateDefaultDataToSign()).signingType(SigningType.REMOTE).build();
+        SignatureSession signatureSession = SignatureSession.builder().dataToSign("hello".getBytes()).signingType(SigningType.REMOTE).build();
         sessionHolder.addSignatureSession(DEFAULT_MOCK_SIGNATURE_ID, signatureSession);
         assertNotNull(sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID));
         sessionHolder.clearSigningSession(DEFAULT_MOCK_SIGNATURE_ID);
         assertNull(sessionHolder.getSignatureSession(DEFAULT_MOCK_SIGNATURE_ID));
     }
 
-    private DataToSign generateDefaultDataToSign() {
-        DataToSign dataToSignMock = Mockito.mock(DataToSign.class);
-        Mockito.doReturn("hello".getBytes()).when(dataToSignMock).getDataToSign();
-        return dataToSignMock;
-    }
-
     private HashcodeContainerSession generateDefaultSessionHolder() {
         return HashcodeContainerSession
                 .builder()
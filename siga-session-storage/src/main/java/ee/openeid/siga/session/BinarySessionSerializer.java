@@ -0,0 +1,192 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.IgniteBinary;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Converts sessions to and from the binary form stored in Ignite. Containers of datafile container sessions are
+ * compressed or moved to the container blob store, as configured. A container that has not been modified since it
+ * was read is written back in its stored form, without loading it.
+ */
+@RequiredArgsConstructor
+class BinarySessionSerializer {
+    private static final String CONTAINER_FIELD = "container";
+    private static final String CONTAINER_ORIGINAL_SIZE_FIELD = "containerOriginalSize";
+    private static final String CONTAINER_BLOB_ID_FIELD = "containerBlobId";
+
+    private final IgniteBinary binary;
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+    private final ContainerCompressor containerCompressor;
+    /**
+     * {@code null} if the store does not support storing containers as blobs
+     */
+    private final ContainerBlobStore containerBlobStore;
+
+    BinaryObject toBinary(Object value) {
+        return binary.toBinary(value);
+    }
+
+    BinaryObject serializeContainer(Session session) {
+        if (!(session instanceof AsicContainerSession asicContainerSession)) {
+            return binary.toBinary(session);
+        }
+        StoredContainer storedContainer = getUnmodifiedStoredContainer(asicContainerSession);
+        if (storedContainer != null) {
+            // Written back as it is stored, without loading a lazily loaded container
+            BinaryObject binarySession = binary.toBinary(session);
+            return storedContainer.writeTo(binarySession.toBuilder()).build();
+        }
+        byte[] container = asicContainerSession.getContainer();
+        BinaryObject binarySession = binary.toBinary(session);
+        if (containerBlobStore != null && sessionConfigurationProperties.isContainerBlobStoreEnabled()) {
+            return binarySession.toBuilder()
+                    .removeField(CONTAINER_FIELD)
+                    .setField(CONTAINER_BLOB_ID_FIELD, containerBlobStore.store(container), String.class)
+                    .build();
+        }
+        byte[] compressedContainer = containerCompressor.compress(container);
+        if (compressedContainer != null) {
+            return binarySession.toBuilder()
+                    .setField(CONTAINER_FIELD, compressedContainer)
+                    .setField(CONTAINER_ORIGINAL_SIZE_FIELD, container.length, Integer.class)
+                    .build();
+        }
+        return binarySession;
+    }
+
+    /**
+     * Completes writing a session whose container has been serialized. If the session was written, the reference to its
+     * previously stored container blob is released and the container is marked as unmodified, so that writing the
+     * session again does not store or compress the container again. Otherwise the reference to the newly stored
+     * container blob is released.
+     */
+    void completeContainerWrite(Session session, BinaryObject binarySession, boolean written) {
+        if (!(session instanceof AsicContainerSession asicContainerSession)
+                || getUnmodifiedStoredContainer(asicContainerSession) != null) {
+            return;
+        }
+        byte[] container = asicContainerSession.getContainer();
+        StoredContainer writtenContainer = StoredContainer.of(binarySession, storedForm -> container);
+        if (!written) {
+            releaseBlob(writtenContainer);
+            return;
+        }
+        if (asicContainerSession.getContainerLoader() instanceof StoredContainer previousContainer) {
+            releaseBlob(previousContainer);
+        }
+        if (writtenContainer != null) {
+            asicContainerSession.setContainerLoader(writtenContainer);
+        }
+    }
+
+    /**
+     * Releases the reference of a removed session to its container blob.
+     */
+    void completeSessionRemoval(BinaryObject binarySession) {
+        releaseBlob(StoredContainer.of(binarySession, storedForm -> null));
+    }
+
+    /**
+     * @param loadContainer whether a container stored as a blob or compressed is loaded immediately. Otherwise it is
+     *                      loaded when it is first accessed.
+     */
+    Session deserializeContainer(BinaryObject binarySession, boolean loadContainer) {
+        Session session = binarySession.deserialize();
+        if (!(session instanceof AsicContainerSession asicContainerSession)) {
+            return session;
+        }
+        StoredContainer storedContainer = StoredContainer.of(binarySession, this::loadContainer);
+        if (storedContainer == null || (storedContainer.blobId() != null && containerBlobStore == null)) {
+            return session;
+        }
+        asicContainerSession.setContainerLoader(storedContainer);
+        if (loadContainer) {
+            asicContainerSession.getContainer();
+        } else if (storedContainer.blobId() != null) {
+            containerBlobStore.touch(storedContainer.blobId());
+        }
+        return session;
+    }
+
+    private static StoredContainer getUnmodifiedStoredContainer(AsicContainerSession session) {
+        return session.getContainerLoader() instanceof StoredContainer storedContainer && !session.isContainerModified()
+                ? storedContainer
+                : null;
+    }
+
+    private void releaseBlob(StoredContainer storedContainer) {
+        if (storedContainer != null && storedContainer.blobId() != null && containerBlobStore != null) {
+            containerBlobStore.release(storedContainer.blobId());
+        }
+    }
+
+    private byte[] loadContainer(StoredContainer storedContainer) {
+        return storedContainer.blobId() != null
+                ? containerBlobStore.load(storedContainer.blobId())
+                : containerCompressor.decompress(storedContainer.compressedContainer(), storedContainer.originalSize());
+    }
+
+    <T> Map<String, BinaryObject> serializeValues(Map<String, T> values) {
+        Map<String, BinaryObject> binaryValues = new HashMap<>();
+        values.forEach((key, value) -> binaryValues.put(key, binary.toBinary(value)));
+        return binaryValues;
+    }
+
+    static <T> Map<String, T> deserializeValues(Map<String, BinaryObject> binaryValues) {
+        Map<String, T> values = new HashMap<>();
+        if (binaryValues != null) {
+            binaryValues.forEach((key, value) -> values.put(key, value.deserialize()));
+        }
+        return values;
+    }
+
+    /**
+     * Container of a session in the form it is stored in, either as a blob or compressed.
+     */
+    private record StoredContainer(String blobId, byte[] compressedContainer, Integer originalSize,
+                                   Function<StoredContainer, byte[]> loader) implements Supplier<byte[]> {
+
+        /**
+         * @return {@code null} if the container is stored as it is
+         */
+        static StoredContainer of(BinaryObject binarySession, Function<StoredContainer, byte[]> loader) {
+            String blobId = binarySession.hasField(CONTAINER_BLOB_ID_FIELD) ? binarySession.field(CONTAINER_BLOB_ID_FIELD) : null;
+            if (blobId != null) {
+                return new StoredContainer(blobId, null, null, loader);
+            }
+            Integer originalSize = binarySession.hasField(CONTAINER_ORIGINAL_SIZE_FIELD)
+                    ? binarySession.field(CONTAINER_ORIGINAL_SIZE_FIELD)
+                    : null;
+            if (originalSize != null) {
+                return new StoredContainer(null, binarySession.field(CONTAINER_FIELD), originalSize, loader);
+            }
+            return null;
+        }
+
+        @Override
+        public byte[] get() {
+            return loader.apply(this);
+        }
+
+        BinaryObjectBuilder writeTo(BinaryObjectBuilder sessionBuilder) {
+            if (blobId != null) {
+                return sessionBuilder
+                        .removeField(CONTAINER_FIELD)
+                        .setField(CONTAINER_BLOB_ID_FIELD, blobId, String.class);
+            }
+            return sessionBuilder
+                    .setField(CONTAINER_FIELD, compressedContainer)
+                    .setField(CONTAINER_ORIGINAL_SIZE_FIELD, originalSize, Integer.class);
+        }
+    }
+}
@@ -3,5 +3,9 @@ package ee.openeid.siga.session;
 public enum CacheName {
     CONTAINER_SESSION,
     SIGNATURE_SESSION,
-    CERTIFICATE_SESSION
+    CERTIFICATE_SESSION,
+    CONTAINER_BLOB,
+    SESSION_LOCK,
+    SESSION_STATUS_INDEX,
+    REPROCESSING_NODE
 }
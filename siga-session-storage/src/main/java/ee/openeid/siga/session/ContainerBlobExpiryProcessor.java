@@ -0,0 +1,31 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+
+/**
+ * Rewrites a container blob that no container session refers to, so that it expires after the update expiry of the
+ * expiry policy the processor is invoked with. A blob that is referred to again is left unchanged.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+public class ContainerBlobExpiryProcessor implements CacheEntryProcessor<String, BinaryObject, Void> {
+
+    @Override
+    public Void process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        if (!entry.exists() || entry.getValue() == null) {
+            return null;
+        }
+        BinaryObject blob = entry.getValue();
+        Integer references = blob.hasField(ContainerBlobReferenceProcessor.REFERENCES_FIELD)
+                ? blob.field(ContainerBlobReferenceProcessor.REFERENCES_FIELD)
+                : null;
+        if (references != null && references == 0) {
+            entry.setValue(blob);
+        }
+        return null;
+    }
+}
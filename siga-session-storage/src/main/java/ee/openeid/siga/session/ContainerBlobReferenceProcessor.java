@@ -0,0 +1,41 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+
+/**
+ * Changes the number of container sessions referring to a container blob, without transferring the blob. A blob no
+ * session refers to is not removed here, as sessions read before its last reference was released may still load it.
+ * Blobs stored without a reference count are not counted.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+public class ContainerBlobReferenceProcessor implements CacheEntryProcessor<String, BinaryObject, Integer> {
+    static final String REFERENCES_FIELD = "references";
+    static final int NOT_COUNTED = Integer.MAX_VALUE;
+    private final int referenceDelta;
+
+    /**
+     * @return number of sessions referring to the blob after the change, {@link #NOT_COUNTED} if the blob has no
+     * reference count, or {@code null} if the blob does not exist
+     */
+    @Override
+    public Integer process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        if (!entry.exists() || entry.getValue() == null) {
+            return null;
+        }
+        BinaryObject blob = entry.getValue();
+        Integer references = blob.hasField(REFERENCES_FIELD) ? blob.field(REFERENCES_FIELD) : null;
+        if (references == null) {
+            return NOT_COUNTED;
+        }
+        int updatedReferences = Math.max(0, references + referenceDelta);
+        entry.setValue(blob.toBuilder().setField(REFERENCES_FIELD, updatedReferences, Integer.class).build());
+        return updatedReferences;
+    }
+}
@@ -0,0 +1,112 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.ResourceNotFoundException;
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Stores containers of container sessions in a separate cache, keyed by the SHA-256 digest of the container.
+ * <p>
+ * A container that is already stored is not transferred again, so session metadata changes do not rewrite the
+ * container and identical containers of different sessions are stored once. Blobs count the container sessions
+ * referring to them. When the last of them has replaced its container or has been removed, the blob expires after the
+ * release grace period, so that sessions read before that, whose containers are loaded lazily, can still load it.
+ * Blobs of expired sessions expire after they have not been accessed for the expiry duration of the
+ * {@code CONTAINER_BLOB} cache, which must not be shorter than that of the {@code CONTAINER_SESSION} cache.
+ */
+@RequiredArgsConstructor
+public class ContainerBlobStore {
+    static final String BLOB_TYPE_NAME = "ContainerBlob";
+    private static final String PAYLOAD_FIELD = "payload";
+    private static final String ORIGINAL_SIZE_FIELD = "originalSize";
+
+    private final Ignite ignite;
+    private final ContainerCompressor containerCompressor;
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+
+    /**
+     * Stores the container or adds a reference to the already stored container. The reference must be released when
+     * the session referring to the container is not written or no longer refers to it.
+     *
+     * @return identifier of the stored container
+     */
+    public String store(byte[] container) {
+        String blobId = createBlobId(container);
+        IgniteCache<String, BinaryObject> blobCache = getBlobCache();
+        while (blobCache.invoke(blobId, new ContainerBlobReferenceProcessor(1)) == null) {
+            if (blobCache.putIfAbsent(blobId, createBlob(container))) {
+                break;
+            }
+        }
+        return blobId;
+    }
+
+    /**
+     * Releases a reference to the stored container. If no session refers to the container any more, it expires after
+     * the release grace period unless it is referred to again.
+     */
+    public void release(String blobId) {
+        IgniteCache<String, BinaryObject> blobCache = getBlobCache();
+        Integer references = blobCache.invoke(blobId, new ContainerBlobReferenceProcessor(-1));
+        if (references != null && references == 0) {
+            long gracePeriod = sessionConfigurationProperties.getContainerBlobReleaseGracePeriod().toMillis();
+            blobCache.withExpiryPolicy(new ModifiedExpiryPolicy(new Duration(MILLISECONDS, gracePeriod)))
+                    .invoke(blobId, new ContainerBlobExpiryProcessor());
+        }
+    }
+
+    /**
+     * Resets the expiry of the stored container without transferring it, so that it does not expire before a session
+     * referring to it.
+     */
+    public void touch(String blobId) {
+        getBlobCache().invoke(blobId, new ContainerBlobTouchProcessor());
+    }
+
+    public byte[] load(String blobId) {
+        BinaryObject blob = Optional.ofNullable(getBlobCache().get(blobId))
+                .orElseThrow(() -> new ResourceNotFoundException("Session not found"));
+        byte[] payload = blob.field(PAYLOAD_FIELD);
+        Integer originalSize = blob.hasField(ORIGINAL_SIZE_FIELD) ? blob.field(ORIGINAL_SIZE_FIELD) : null;
+        return originalSize == null ? payload : containerCompressor.decompress(payload, originalSize);
+    }
+
+    private BinaryObject createBlob(byte[] container) {
+        BinaryObjectBuilder blobBuilder = ignite.binary().builder(BLOB_TYPE_NAME)
+                .setField(ContainerBlobReferenceProcessor.REFERENCES_FIELD, 1, Integer.class);
+        byte[] compressedContainer = containerCompressor.compress(container);
+        if (compressedContainer == null) {
+            blobBuilder.setField(PAYLOAD_FIELD, container);
+        } else {
+            blobBuilder.setField(PAYLOAD_FIELD, compressedContainer);
+            blobBuilder.setField(ORIGINAL_SIZE_FIELD, container.length, Integer.class);
+        }
+        return blobBuilder.build();
+    }
+
+    private IgniteCache<String, BinaryObject> getBlobCache() {
+        return ignite.getOrCreateCache(CacheName.CONTAINER_BLOB.name()).withKeepBinary();
+    }
+
+    private static String createBlobId(byte[] container) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(container));
+        } catch (NoSuchAlgorithmException e) {
+            throw new TechnicalException("Unable to create container blob id", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+
+/**
+ * Checks whether a container blob exists on the node owning it, without transferring the blob. Reading the blob
+ * refreshes its expiry, so a blob shared by several sessions does not expire while any of them is still written.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+public class ContainerBlobTouchProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        return entry.exists() && entry.getValue() != null;
+    }
+}
@@ -0,0 +1,72 @@
+package ee.openeid.siga.session;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class ContainerCompressionMetrics implements MeterBinder {
+    static final String WRITES_METRIC_NAME = "siga.session.container.compression.writes";
+    static final String BYTES_METRIC_NAME = "siga.session.container.compression.bytes";
+    static final String RATIO_METRIC_NAME = "siga.session.container.compression.ratio";
+    private final LongAdder compressedWrites = new LongAdder();
+    private final LongAdder bypassedWrites = new LongAdder();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+
+    public void recordCompression(int originalSize, int compressedSize) {
+        compressedWrites.increment();
+        originalBytes.add(originalSize);
+        compressedBytes.add(compressedSize);
+    }
+
+    public void recordBypass() {
+        bypassedWrites.increment();
+    }
+
+    public long getCompressedWriteCount() {
+        return compressedWrites.sum();
+    }
+
+    public long getBypassedWriteCount() {
+        return bypassedWrites.sum();
+    }
+
+    /**
+     * @return compressed size divided by original size of all compressed containers, or {@code NaN} if no container
+     * has been compressed
+     */
+    public double getCompressionRatio() {
+        long original = originalBytes.sum();
+        return original == 0 ? Double.NaN : (double) compressedBytes.sum() / original;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(WRITES_METRIC_NAME, compressedWrites, LongAdder::sum)
+                .tag("result", "compressed")
+                .description("Container session writes with compressed container")
+                .register(registry);
+        FunctionCounter.builder(WRITES_METRIC_NAME, bypassedWrites, LongAdder::sum)
+                .tag("result", "bypassed")
+                .description("Container session writes with container left uncompressed because it did not compress well")
+                .register(registry);
+        FunctionCounter.builder(BYTES_METRIC_NAME, originalBytes, LongAdder::sum)
+                .tag("size", "original")
+                .baseUnit("bytes")
+                .description("Original size of compressed containers")
+                .register(registry);
+        FunctionCounter.builder(BYTES_METRIC_NAME, compressedBytes, LongAdder::sum)
+                .tag("size", "compressed")
+                .baseUnit("bytes")
+                .description("Compressed size of compressed containers")
+                .register(registry);
+        Gauge.builder(RATIO_METRIC_NAME, this, ContainerCompressionMetrics::getCompressionRatio)
+                .description("Compressed size divided by original size of compressed containers")
+                .register(registry);
+    }
+}
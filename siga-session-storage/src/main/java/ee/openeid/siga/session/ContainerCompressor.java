@@ -0,0 +1,93 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses container bytes of container sessions before they are stored in Ignite.
+ * <p>
+ * Containers smaller than the configured threshold are stored as is. Containers that do not compress below the
+ * configured ratio are stored as is as well, so that reading them does not cost decompression. For large containers
+ * the ratio is first estimated from a sample, so that already compressed data files are not compressed in full.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContainerCompressor {
+    static final int SAMPLE_SIZE = 64 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+    private final ContainerCompressionMetrics compressionMetrics;
+
+    /**
+     * @return compressed container, or {@code null} if the container should be stored uncompressed
+     */
+    public byte[] compress(byte[] container) {
+        if (!sessionConfigurationProperties.isContainerCompressionEnabled()
+                || container.length < sessionConfigurationProperties.getContainerCompressionThreshold()) {
+            return null;
+        }
+        if (container.length > SAMPLE_SIZE && !isCompressedEnough(deflate(container, SAMPLE_SIZE).length, SAMPLE_SIZE)) {
+            compressionMetrics.recordBypass();
+            return null;
+        }
+        byte[] compressed = deflate(container, container.length);
+        if (!isCompressedEnough(compressed.length, container.length)) {
+            compressionMetrics.recordBypass();
+            return null;
+        }
+        compressionMetrics.recordCompression(container.length, compressed.length);
+        return compressed;
+    }
+
+    public byte[] decompress(byte[] compressed, int originalSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] container = new byte[originalSize];
+            int length = 0;
+            while (length < originalSize && !inflater.finished()) {
+                int inflated = inflater.inflate(container, length, originalSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != originalSize || !inflater.finished()) {
+                throw new TechnicalException("Unable to decompress container. Unexpected container size");
+            }
+            return container;
+        } catch (DataFormatException e) {
+            throw new TechnicalException("Unable to decompress container", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private boolean isCompressedEnough(int compressedSize, int originalSize) {
+        return compressedSize <= originalSize * sessionConfigurationProperties.getContainerCompressionMaxRatio();
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length / 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stores sessions in an external Ignite cluster.
+ * <p>
+ * Signature and certificate sessions awaiting a status are indexed in the {@code SESSION_STATUS_INDEX} cache, so that
+ * status reprocessing reads only the sessions that are due instead of scanning all sessions. The index is updated
+ * whenever a signature or certificate session is written.
+ * <p>
+ * Locks are entries of the {@code SESSION_LOCK} cache, expiring after the configured lease duration since they were
+ * acquired or last renewed, so that a lock held by a node that has left the cluster is eventually released.
+ * <p>
+ * Signature and certificate sessions reaching a result on any SiGa node are listened to with continuous queries, whose
+ * remote filter is loaded into Ignite server nodes via peer class loading.
+ */
+@Component
+@ConditionalOnProperty(prefix = "siga.ignite", name = "session-store", havingValue = "IGNITE", matchIfMissing = true)
+public class IgniteSessionStore implements SessionStore {
+    private static final List<String> SESSION_CACHE_NAMES = List.of(
+            CacheName.CONTAINER_SESSION.name(),
+            CacheName.SIGNATURE_SESSION.name(),
+            CacheName.CERTIFICATE_SESSION.name());
+
+    private final Ignite ignite;
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+    private final SessionNearCacheMetrics nearCacheMetrics;
+    private final BinarySessionSerializer sessionSerializer;
+    private final List<QueryCursor<?>> sessionResultCursors = new ArrayList<>();
+
+    public IgniteSessionStore(Ignite ignite, SessionConfigurationProperties sessionConfigurationProperties,
+                              SessionNearCacheMetrics nearCacheMetrics, ContainerCompressor containerCompressor,
+                              SessionResultListener sessionResultListener) {
+        this.ignite = ignite;
+        this.sessionConfigurationProperties = sessionConfigurationProperties;
+        this.nearCacheMetrics = nearCacheMetrics;
+        this.sessionSerializer = new BinarySessionSerializer(ignite.binary(), sessionConfigurationProperties,
+                containerCompressor, new ContainerBlobStore(ignite, containerCompressor, sessionConfigurationProperties));
+        listenToSessionResults(CacheName.SIGNATURE_SESSION, sessionResultListener);
+        listenToSessionResults(CacheName.CERTIFICATE_SESSION, sessionResultListener);
+    }
+
+    @PreDestroy
+    public void onDestroy() {
+        sessionResultCursors.forEach(QueryCursor::close);
+    }
+
+    /**
+     * With {@code COLOCATED} session access mode, signature and certificate sessions are always read in the same round
+     * trip as the container session.
+     */
+    @Override
+    public Optional<Session> findSession(String sessionId, Set<SessionPart> parts) {
+        return isColocatedAccessMode()
+                ? findColocatedSession(sessionId, parts)
+                : findSessionPerCache(sessionId, parts);
+    }
+
+    @Override
+    public boolean writeSession(Session session, long expectedVersion) {
+        BinaryObject binaryContainer = sessionSerializer.serializeContainer(session);
+        boolean written = isColocatedAccessMode()
+                ? writeColocatedSession(session, expectedVersion, binaryContainer)
+                : writeSessionPerCache(session, expectedVersion, binaryContainer);
+        sessionSerializer.completeContainerWrite(session, binaryContainer, written);
+        if (written && expectedVersion == 0) {
+            indexSessionStatuses(session);
+        }
+        return written;
+    }
+
+    @Override
+    public void removeSession(String sessionId) {
+        if (sessionConfigurationProperties.isContainerBlobStoreEnabled()) {
+            Optional.ofNullable(getBinaryContainerCache().getAndRemove(sessionId))
+                    .ifPresent(sessionSerializer::completeSessionRemoval);
+        } else {
+            getContainerCache().remove(sessionId);
+        }
+        getSignatureSessionCache().remove(sessionId);
+        getCertificateSessionCache().remove(sessionId);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return ignite.cache(CacheName.CONTAINER_SESSION.name()).size(CachePeekMode.ALL);
+    }
+
+    @Override
+    public void putSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        updateSessionEntry(CacheName.SIGNATURE_SESSION, sessionId,
+                SessionEntryUpdateProcessor.put(signatureId, sessionSerializer.toBinary(signatureSession)));
+        indexSessionStatus(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession.getSessionStatus());
+    }
+
+    @Override
+    public boolean replaceSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        boolean replaced = updateSessionEntry(CacheName.SIGNATURE_SESSION, sessionId,
+                SessionEntryUpdateProcessor.replace(signatureId, sessionSerializer.toBinary(signatureSession)));
+        if (replaced) {
+            indexSessionStatus(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession.getSessionStatus());
+        }
+        return replaced;
+    }
+
+    @Override
+    public void removeSignatureSession(String sessionId, String signatureId) {
+        updateSessionEntry(CacheName.SIGNATURE_SESSION, sessionId, SessionEntryUpdateProcessor.remove(signatureId));
+        indexSessionStatus(CacheName.SIGNATURE_SESSION, sessionId, signatureId, null);
+    }
+
+    @Override
+    public void putCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        updateSessionEntry(CacheName.CERTIFICATE_SESSION, sessionId,
+                SessionEntryUpdateProcessor.put(certificateId, sessionSerializer.toBinary(certificateSession)));
+        indexSessionStatus(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession.getSessionStatus());
+    }
+
+    @Override
+    public boolean replaceCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        boolean replaced = updateSessionEntry(CacheName.CERTIFICATE_SESSION, sessionId,
+                SessionEntryUpdateProcessor.replace(certificateId, sessionSerializer.toBinary(certificateSession)));
+        if (replaced) {
+            indexSessionStatus(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession.getSessionStatus());
+        }
+        return replaced;
+    }
+
+    @Override
+    public void removeCertificateSession(String sessionId, String certificateId) {
+        updateSessionEntry(CacheName.CERTIFICATE_SESSION, sessionId, SessionEntryUpdateProcessor.remove(certificateId));
+        indexSessionStatus(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, null);
+    }
+
+    @Override
+    public void forEachSessionIdWithSignatureStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(CacheName.SIGNATURE_SESSION, filter, partitions, action);
+    }
+
+    @Override
+    public void forEachSessionIdWithCertificateStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(CacheName.CERTIFICATE_SESSION, filter, partitions, action);
+    }
+
+    @Override
+    public Set<String> renewReprocessingLease(String nodeId, java.time.Duration leaseDuration) {
+        IgniteCache<String, Map<String, BinaryObject>> leaseCache = getReprocessingNodeCache();
+        leaseCache.invoke(ReprocessingNodeLeases.CACHE_KEY, SessionEntryUpdateProcessor.put(nodeId,
+                sessionSerializer.toBinary(ReprocessingNodeLeases.newLease(leaseDuration))));
+        Map<String, BinaryObject> leases = leaseCache.get(ReprocessingNodeLeases.CACHE_KEY);
+        ReprocessingNodeLeases.getExpiredNodeIds(leases).forEach(expiredNodeId ->
+                leaseCache.invoke(ReprocessingNodeLeases.CACHE_KEY, SessionEntryUpdateProcessor.remove(expiredNodeId)));
+        return ReprocessingNodeLeases.getLiveNodeIds(leases);
+    }
+
+    @Override
+    public void releaseReprocessingLease(String nodeId) {
+        getReprocessingNodeCache().invoke(ReprocessingNodeLeases.CACHE_KEY, SessionEntryUpdateProcessor.remove(nodeId));
+    }
+
+    @Override
+    public Optional<SessionLock> tryLock(String lockId) {
+        IgniteCache<String, String> lockCache = getLockCache();
+        String ownerId = ignite.cluster().localNode().id() + ":" + UUID.randomUUID();
+        return lockCache.putIfAbsent(lockId, ownerId)
+                ? Optional.of(SessionLock.of(() -> lockCache.replace(lockId, ownerId, ownerId), () -> lockCache.remove(lockId, ownerId)))
+                : Optional.empty();
+    }
+
+    private void listenToSessionResults(CacheName cacheName, SessionResultListener sessionResultListener) {
+        ContinuousQuery<String, Map<String, BinaryObject>> query = new ContinuousQuery<>();
+        query.setRemoteFilterFactory(new SessionResultEventFilterFactory());
+        query.setLocalListener(events -> SessionResultEvents.notifyListener(cacheName, events, sessionResultListener));
+        sessionResultCursors.add(ignite.getOrCreateCache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .query(query));
+    }
+
+    private void forEachSessionIdWithStatus(CacheName cacheName, SessionStatusFilter filter, Set<Integer> partitions,
+                                            Consumer<String> action) {
+        Map<String, Set<String>> bucketKeySets = this.<Set<String>>getStatusIndexCache().getAll(
+                SessionStatusIndex.getDueBucketKeySetKeys(cacheName, filter, partitions,
+                        sessionConfigurationProperties.getSessionStatusIndexRetention()));
+        List<String> dueEntryKeys = SessionStatusIndex.getDueEntryKeys(bucketKeySets, filter);
+        if (dueEntryKeys.isEmpty()) {
+            return;
+        }
+        Map<String, BinaryObject> indexEntries = this.<BinaryObject>getStatusIndexCache().getAll(new LinkedHashSet<>(dueEntryKeys));
+        dueEntryKeys.stream()
+                .filter(entryKey -> !indexEntries.containsKey(entryKey))
+                .forEach(this::removeStatusIndexEntry);
+        List<SessionStatusIndex.DueEntry> dueEntries = SessionStatusIndex.getDueEntries(dueEntryKeys, indexEntries, filter);
+        if (dueEntries.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, BinaryObject>> sessionEntries = ignite.getOrCreateCache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .getAll(dueEntries.stream().map(SessionStatusIndex.DueEntry::sessionId).collect(Collectors.toSet()));
+        Set<String> dueSessionIds = new LinkedHashSet<>();
+        for (SessionStatusIndex.DueEntry dueEntry : dueEntries) {
+            if (SessionStatusIndex.isCurrent(dueEntry, sessionEntries)) {
+                dueSessionIds.add(dueEntry.sessionId());
+            } else {
+                removeStatusIndexEntry(dueEntry.entryKey());
+            }
+        }
+        dueSessionIds.forEach(action);
+    }
+
+    private void indexSessionStatuses(Session session) {
+        session.getSignatureSessions().forEach((signatureId, signatureSession) -> indexSessionStatus(
+                CacheName.SIGNATURE_SESSION, session.getSessionId(), signatureId, signatureSession.getSessionStatus()));
+        session.getCertificateSessions().forEach((certificateId, certificateSession) -> indexSessionStatus(
+                CacheName.CERTIFICATE_SESSION, session.getSessionId(), certificateId, certificateSession.getSessionStatus()));
+    }
+
+    /**
+     * Replaces the index entry of the signature or certificate session with one matching its status, or removes it if
+     * the status is not indexed.
+     */
+    private void indexSessionStatus(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus) {
+        IgniteCache<String, Object> statusIndexCache = getStatusIndexCache();
+        String referenceKey = SessionStatusIndex.getReferenceKey(cacheName, sessionId, entryId);
+        String previousEntryKey;
+        if (SessionStatusIndex.isIndexed(sessionStatus)) {
+            String entryKey = SessionStatusIndex.getEntryKey(cacheName, sessionId, entryId, sessionStatus);
+            statusIndexCache.put(entryKey, sessionSerializer.toBinary(new SessionStatusIndex.IndexEntry(sessionId, entryId, sessionStatus)));
+            this.<Set<String>>getStatusIndexCache().invoke(SessionStatusIndex.getBucketKeySetKey(entryKey),
+                    SessionStatusIndexKeySetProcessor.add(SessionStatusIndex.getIndexEntryId(entryKey)));
+            previousEntryKey = (String) statusIndexCache.getAndPut(referenceKey, entryKey);
+            if (entryKey.equals(previousEntryKey)) {
+                return;
+            }
+        } else {
+            previousEntryKey = (String) statusIndexCache.getAndRemove(referenceKey);
+        }
+        if (previousEntryKey != null) {
+            removeStatusIndexEntry(previousEntryKey);
+        }
+    }
+
+    private void removeStatusIndexEntry(String entryKey) {
+        getStatusIndexCache().remove(entryKey);
+        this.<Set<String>>getStatusIndexCache().invoke(SessionStatusIndex.getBucketKeySetKey(entryKey),
+                SessionStatusIndexKeySetProcessor.remove(SessionStatusIndex.getIndexEntryId(entryKey)));
+    }
+
+    private Optional<Session> findSessionPerCache(String sessionId, Set<SessionPart> parts) {
+        if (sessionConfigurationProperties.isNearCacheEnabled()) {
+            recordNearCacheAccess(sessionId);
+        }
+        BinaryObject binarySession = getBinaryContainerCache().get(sessionId);
+        if (binarySession == null) {
+            return Optional.empty();
+        }
+        Session container = sessionSerializer.deserializeContainer(binarySession, parts.contains(SessionPart.CONTAINER));
+        container.setSignatureSessions(loadPart(parts, SessionPart.SIGNATURE_SESSIONS,
+                () -> getSignatureSessionCache().get(sessionId)));
+        container.setCertificateSessions(loadPart(parts, SessionPart.CERTIFICATE_SESSIONS,
+                () -> getCertificateSessionCache().get(sessionId)));
+        return Optional.of(container);
+    }
+
+    private void recordNearCacheAccess(String sessionId) {
+        BinaryObject nearSession = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .<String, BinaryObject>withKeepBinary()
+                .localPeek(sessionId, CachePeekMode.NEAR);
+        if (nearSession != null) {
+            nearCacheMetrics.recordHit();
+        } else {
+            nearCacheMetrics.recordMiss();
+        }
+    }
+
+    private Optional<Session> findColocatedSession(String sessionId, Set<SessionPart> parts) {
+        SessionParts sessionParts = ignite.compute().affinityCall(SESSION_CACHE_NAMES, sessionId, new SessionReadJob(sessionId));
+        if (sessionParts == null) {
+            return Optional.empty();
+        }
+        Session container = sessionSerializer.deserializeContainer(sessionParts.getContainer(), parts.contains(SessionPart.CONTAINER));
+        container.setSignatureSessions(BinarySessionSerializer.deserializeValues(sessionParts.getSignatureSessions()));
+        container.setCertificateSessions(BinarySessionSerializer.deserializeValues(sessionParts.getCertificateSessions()));
+        return Optional.of(container);
+    }
+
+    private static <V> Map<String, V> loadPart(Set<SessionPart> parts, SessionPart part, Supplier<Map<String, V>> loader) {
+        if (!parts.contains(part)) {
+            return new LazyLoadingMap<>(loader);
+        }
+        return Optional.ofNullable(loader.get()).orElseGet(HashMap::new);
+    }
+
+    private boolean writeSessionPerCache(Session session, long expectedVersion, BinaryObject binaryContainer) {
+        Boolean updated = getBinaryContainerCache()
+                .invoke(session.getSessionId(), new VersionedSessionUpdateProcessor(expectedVersion, binaryContainer));
+        if (!Boolean.TRUE.equals(updated)) {
+            return false;
+        }
+        if (expectedVersion == 0) {
+            getSignatureSessionCache().put(session.getSessionId(), session.getSignatureSessions());
+            getCertificateSessionCache().put(session.getSessionId(), session.getCertificateSessions());
+        }
+        return true;
+    }
+
+    private boolean writeColocatedSession(Session session, long expectedVersion, BinaryObject binaryContainer) {
+        Map<String, BinaryObject> signatureSessions = null;
+        Map<String, BinaryObject> certificateSessions = null;
+        if (expectedVersion == 0) {
+            signatureSessions = sessionSerializer.serializeValues(session.getSignatureSessions());
+            certificateSessions = sessionSerializer.serializeValues(session.getCertificateSessions());
+        }
+        SessionParts sessionParts = new SessionParts(binaryContainer, signatureSessions, certificateSessions);
+        return Boolean.TRUE.equals(ignite.compute().affinityCall(SESSION_CACHE_NAMES, session.getSessionId(),
+                new SessionWriteJob(session.getSessionId(), expectedVersion, sessionParts)));
+    }
+
+    private boolean updateSessionEntry(CacheName cacheName, String sessionId, SessionEntryUpdateProcessor processor) {
+        Boolean updated = ignite.getOrCreateCache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .invoke(sessionId, processor);
+        return Boolean.TRUE.equals(updated);
+    }
+
+    private <V> IgniteCache<String, V> getStatusIndexCache() {
+        long retentionMillis = sessionConfigurationProperties.getSessionStatusIndexRetention().toMillis();
+        return ignite.getOrCreateCache(CacheName.SESSION_STATUS_INDEX.name())
+                .<String, V>withKeepBinary()
+                .withExpiryPolicy(new ModifiedExpiryPolicy(new Duration(TimeUnit.MILLISECONDS, retentionMillis)));
+    }
+
+    private IgniteCache<String, String> getLockCache() {
+        long leaseMillis = sessionConfigurationProperties.getLockLeaseDuration().toMillis();
+        return ignite.<String, String>getOrCreateCache(CacheName.SESSION_LOCK.name())
+                .withExpiryPolicy(new ModifiedExpiryPolicy(new Duration(TimeUnit.MILLISECONDS, leaseMillis)));
+    }
+
+    private IgniteCache<String, Map<String, BinaryObject>> getReprocessingNodeCache() {
+        return ignite.getOrCreateCache(CacheName.REPROCESSING_NODE.name())
+                .withKeepBinary();
+    }
+
+    private boolean isColocatedAccessMode() {
+        return sessionConfigurationProperties.getSessionAccessMode() == SessionAccessMode.COLOCATED;
+    }
+
+    private Cache<String, Session> getContainerCache() {
+        return ignite.getOrCreateCache(CacheName.CONTAINER_SESSION.name());
+    }
+
+    private IgniteCache<String, BinaryObject> getBinaryContainerCache() {
+        return ignite.getOrCreateCache(CacheName.CONTAINER_SESSION.name()).withKeepBinary();
+    }
+
+    private Cache<String, Map<String, SignatureSession>> getSignatureSessionCache() {
+        return ignite.getOrCreateCache(CacheName.SIGNATURE_SESSION.name());
+    }
+
+    private Cache<String, Map<String, CertificateSession>> getCertificateSessionCache() {
+        return ignite.getOrCreateCache(CacheName.CERTIFICATE_SESSION.name());
+    }
+}
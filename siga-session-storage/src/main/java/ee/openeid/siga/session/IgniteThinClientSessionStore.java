@@ -0,0 +1,415 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.ConcurrentSessionModificationException;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.client.ClientCache;
+import org.apache.ignite.client.ClientCacheConfiguration;
+import org.apache.ignite.client.IgniteClient;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.cache.Cache;
+import javax.cache.event.EventType;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stores sessions in an external Ignite cluster, connecting to it with the Ignite thin client instead of joining the
+ * cluster as a client node.
+ * <p>
+ * The thin client can not execute entry processors or use Ignite semaphores, so:
+ * <ul>
+ *     <li>container sessions and signature and certificate session entries are updated by replacing the value that
+ *     was read, retrying if it has been modified meanwhile;</li>
+ *     <li>locks are entries of the {@code SESSION_LOCK} cache, expiring after the configured lease duration since they
+ *     were acquired or last renewed, so that a lock held by a node that has stopped is eventually released;</li>
+ *     <li>sessions due for status reprocessing are checked against their status on the SiGa node.</li>
+ * </ul>
+ * Expired container sessions and signature and certificate sessions reaching a result are listened to with continuous
+ * queries, which require {@link SessionExpiryEventFilterFactory} and {@link SessionResultEventFilterFactory} on the
+ * classpath of Ignite server nodes.
+ */
+@Slf4j
+public class IgniteThinClientSessionStore implements SessionStore {
+    private static final String SESSION_ID_FIELD = "sessionId";
+
+    private final IgniteClient igniteClient;
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+    private final Consumer<String> sessionExpiryListener;
+    private final SessionResultListener sessionResultListener;
+    private final BinarySessionSerializer sessionSerializer;
+    private final ClientCache<String, String> lockCache;
+    private final ClientCache<String, Object> statusIndexCache;
+    private final ClientCache<String, Map<String, BinaryObject>> reprocessingNodeCache;
+    private final Map<CacheName, QueryCursor<Cache.Entry<String, Map<String, BinaryObject>>>> sessionResultCursors = new ConcurrentHashMap<>();
+    private volatile QueryCursor<Cache.Entry<String, BinaryObject>> sessionExpiryCursor;
+
+    /**
+     * @param sessionExpiryListener receives the IDs of container sessions that have expired
+     * @param sessionResultListener receives signature and certificate sessions that have reached a result
+     */
+    public IgniteThinClientSessionStore(IgniteClient igniteClient, SessionConfigurationProperties sessionConfigurationProperties,
+                                        ContainerCompressor containerCompressor, Consumer<String> sessionExpiryListener,
+                                        SessionResultListener sessionResultListener) {
+        this.igniteClient = igniteClient;
+        this.sessionConfigurationProperties = sessionConfigurationProperties;
+        this.sessionExpiryListener = sessionExpiryListener;
+        this.sessionResultListener = sessionResultListener;
+        this.sessionSerializer = new BinarySessionSerializer(igniteClient.binary(), sessionConfigurationProperties,
+                containerCompressor, null);
+        long leaseMillis = sessionConfigurationProperties.getLockLeaseDuration().toMillis();
+        this.lockCache = igniteClient.<String, String>getOrCreateCache(new ClientCacheConfiguration()
+                        .setName(CacheName.SESSION_LOCK.name())
+                        .setBackups(1))
+                .withExpirePolicy(new ModifiedExpiryPolicy(new Duration(TimeUnit.MILLISECONDS, leaseMillis)));
+        long retentionMillis = sessionConfigurationProperties.getSessionStatusIndexRetention().toMillis();
+        this.statusIndexCache = igniteClient.getOrCreateCache(new ClientCacheConfiguration()
+                        .setName(CacheName.SESSION_STATUS_INDEX.name())
+                        .setBackups(1))
+                .<String, Object>withKeepBinary()
+                .withExpirePolicy(new ModifiedExpiryPolicy(new Duration(TimeUnit.MILLISECONDS, retentionMillis)));
+        this.reprocessingNodeCache = igniteClient.getOrCreateCache(new ClientCacheConfiguration()
+                        .setName(CacheName.REPROCESSING_NODE.name())
+                        .setBackups(1))
+                .withKeepBinary();
+        listenToSessionExpiry();
+        listenToSessionResults(CacheName.SIGNATURE_SESSION);
+        listenToSessionResults(CacheName.CERTIFICATE_SESSION);
+    }
+
+    @Override
+    public Optional<Session> findSession(String sessionId, Set<SessionPart> parts) {
+        BinaryObject binarySession = this.<BinaryObject>getBinaryCache(CacheName.CONTAINER_SESSION).get(sessionId);
+        if (binarySession == null) {
+            return Optional.empty();
+        }
+        Session container = sessionSerializer.deserializeContainer(binarySession, parts.contains(SessionPart.CONTAINER));
+        container.setSignatureSessions(loadPart(parts, SessionPart.SIGNATURE_SESSIONS, sessionId, CacheName.SIGNATURE_SESSION));
+        container.setCertificateSessions(loadPart(parts, SessionPart.CERTIFICATE_SESSIONS, sessionId, CacheName.CERTIFICATE_SESSION));
+        return Optional.of(container);
+    }
+
+    @Override
+    public boolean writeSession(Session session, long expectedVersion) {
+        ClientCache<String, BinaryObject> containerCache = getBinaryCache(CacheName.CONTAINER_SESSION);
+        BinaryObject storedSession = containerCache.get(session.getSessionId());
+        long storedVersion = 0;
+        if (storedSession != null) {
+            Long version = storedSession.field(VersionedSessionUpdateProcessor.VERSION_FIELD);
+            storedVersion = version == null ? 0 : version;
+        }
+        if (storedVersion != expectedVersion) {
+            return false;
+        }
+        BinaryObject newSession = sessionSerializer.serializeContainer(session);
+        boolean written = storedSession == null
+                ? containerCache.putIfAbsent(session.getSessionId(), newSession)
+                : containerCache.replace(session.getSessionId(), storedSession, newSession);
+        sessionSerializer.completeContainerWrite(session, newSession, written);
+        if (written && expectedVersion == 0) {
+            getBinaryCache(CacheName.SIGNATURE_SESSION)
+                    .put(session.getSessionId(), sessionSerializer.serializeValues(session.getSignatureSessions()));
+            getBinaryCache(CacheName.CERTIFICATE_SESSION)
+                    .put(session.getSessionId(), sessionSerializer.serializeValues(session.getCertificateSessions()));
+            session.getSignatureSessions().forEach((signatureId, signatureSession) -> indexSessionStatus(
+                    CacheName.SIGNATURE_SESSION, session.getSessionId(), signatureId, signatureSession.getSessionStatus()));
+            session.getCertificateSessions().forEach((certificateId, certificateSession) -> indexSessionStatus(
+                    CacheName.CERTIFICATE_SESSION, session.getSessionId(), certificateId, certificateSession.getSessionStatus()));
+        }
+        return written;
+    }
+
+    @Override
+    public void removeSession(String sessionId) {
+        igniteClient.cache(CacheName.CONTAINER_SESSION.name()).remove(sessionId);
+        igniteClient.cache(CacheName.SIGNATURE_SESSION.name()).remove(sessionId);
+        igniteClient.cache(CacheName.CERTIFICATE_SESSION.name()).remove(sessionId);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return igniteClient.cache(CacheName.CONTAINER_SESSION.name()).size(CachePeekMode.PRIMARY);
+    }
+
+    @Override
+    public void putSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        putSessionEntry(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession, signatureSession.getSessionStatus(), false);
+    }
+
+    @Override
+    public boolean replaceSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        return putSessionEntry(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession, signatureSession.getSessionStatus(), true);
+    }
+
+    @Override
+    public void removeSignatureSession(String sessionId, String signatureId) {
+        updateSessionEntry(getBinaryCache(CacheName.SIGNATURE_SESSION), sessionId, signatureId, null, true);
+        indexSessionStatus(CacheName.SIGNATURE_SESSION, sessionId, signatureId, null);
+    }
+
+    @Override
+    public void putCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        putSessionEntry(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession, certificateSession.getSessionStatus(), false);
+    }
+
+    @Override
+    public boolean replaceCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        return putSessionEntry(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession, certificateSession.getSessionStatus(), true);
+    }
+
+    @Override
+    public void removeCertificateSession(String sessionId, String certificateId) {
+        updateSessionEntry(getBinaryCache(CacheName.CERTIFICATE_SESSION), sessionId, certificateId, null, true);
+        indexSessionStatus(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, null);
+    }
+
+    @Override
+    public void forEachSessionIdWithSignatureStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(CacheName.SIGNATURE_SESSION, filter, partitions, action);
+    }
+
+    @Override
+    public void forEachSessionIdWithCertificateStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(CacheName.CERTIFICATE_SESSION, filter, partitions, action);
+    }
+
+    @Override
+    public Set<String> renewReprocessingLease(String nodeId, java.time.Duration leaseDuration) {
+        updateSessionEntry(reprocessingNodeCache, ReprocessingNodeLeases.CACHE_KEY, nodeId,
+                sessionSerializer.toBinary(ReprocessingNodeLeases.newLease(leaseDuration)), false);
+        Map<String, BinaryObject> leases = reprocessingNodeCache.get(ReprocessingNodeLeases.CACHE_KEY);
+        ReprocessingNodeLeases.getExpiredNodeIds(leases).forEach(expiredNodeId ->
+                updateSessionEntry(reprocessingNodeCache, ReprocessingNodeLeases.CACHE_KEY, expiredNodeId, null, true));
+        return ReprocessingNodeLeases.getLiveNodeIds(leases);
+    }
+
+    @Override
+    public void releaseReprocessingLease(String nodeId) {
+        updateSessionEntry(reprocessingNodeCache, ReprocessingNodeLeases.CACHE_KEY, nodeId, null, true);
+    }
+
+    @Override
+    public Optional<SessionLock> tryLock(String lockId) {
+        String ownerId = UUID.randomUUID().toString();
+        return lockCache.putIfAbsent(lockId, ownerId)
+                ? Optional.of(SessionLock.of(() -> lockCache.replace(lockId, ownerId, ownerId), () -> lockCache.remove(lockId, ownerId)))
+                : Optional.empty();
+    }
+
+    /**
+     * Registers the session expiry listener again if it has been disconnected from the cluster.
+     */
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void ensureSessionExpiryListener() {
+        if (sessionExpiryCursor == null) {
+            listenToSessionExpiry();
+        }
+    }
+
+    /**
+     * Registers the session result listeners again if they have been disconnected from the cluster.
+     */
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void ensureSessionResultListeners() {
+        for (CacheName cacheName : List.of(CacheName.SIGNATURE_SESSION, CacheName.CERTIFICATE_SESSION)) {
+            if (!sessionResultCursors.containsKey(cacheName)) {
+                listenToSessionResults(cacheName);
+            }
+        }
+    }
+
+    private synchronized void listenToSessionExpiry() {
+        ContinuousQuery<String, BinaryObject> query = new ContinuousQuery<>();
+        query.setIncludeExpired(true);
+        query.setRemoteFilterFactory(new SessionExpiryEventFilterFactory());
+        query.setLocalListener(events -> events.forEach(event -> {
+            if (event.getEventType() == EventType.EXPIRED && event.getOldValue() != null) {
+                log.info("Container session expired: sessionId={}", event.getKey());
+                sessionExpiryListener.accept(event.getOldValue().field(SESSION_ID_FIELD));
+            }
+        }));
+        try {
+            sessionExpiryCursor = this.<BinaryObject>getBinaryCache(CacheName.CONTAINER_SESSION).query(query, e -> {
+                log.warn("Container session expiry listener disconnected from Ignite cluster", e);
+                sessionExpiryCursor = null;
+                ensureSessionExpiryListener();
+            });
+        } catch (RuntimeException e) {
+            log.error("Unable to listen to container session expiry. Retrying later", e);
+        }
+    }
+
+    private synchronized void listenToSessionResults(CacheName cacheName) {
+        ContinuousQuery<String, Map<String, BinaryObject>> query = new ContinuousQuery<>();
+        query.setRemoteFilterFactory(new SessionResultEventFilterFactory());
+        query.setLocalListener(events -> SessionResultEvents.notifyListener(cacheName, events, sessionResultListener));
+        try {
+            sessionResultCursors.put(cacheName, this.<Map<String, BinaryObject>>getBinaryCache(cacheName).query(query, e -> {
+                log.warn("{} result listener disconnected from Ignite cluster", cacheName, e);
+                sessionResultCursors.remove(cacheName);
+            }));
+        } catch (RuntimeException e) {
+            log.error("Unable to listen to {} results. Retrying later", cacheName, e);
+        }
+    }
+
+    private void forEachSessionIdWithStatus(CacheName cacheName, SessionStatusFilter filter, Set<Integer> partitions,
+                                            Consumer<String> action) {
+        Map<String, Set<String>> bucketKeySets = new HashMap<>();
+        statusIndexCache.getAll(SessionStatusIndex.getDueBucketKeySetKeys(cacheName, filter, partitions,
+                        sessionConfigurationProperties.getSessionStatusIndexRetention()))
+                .forEach((bucketKeySetKey, indexEntryIds) -> bucketKeySets.put(bucketKeySetKey, toStringSet(indexEntryIds)));
+        List<String> dueEntryKeys = SessionStatusIndex.getDueEntryKeys(bucketKeySets, filter);
+        if (dueEntryKeys.isEmpty()) {
+            return;
+        }
+        Map<String, BinaryObject> indexEntries = new HashMap<>();
+        statusIndexCache.getAll(new LinkedHashSet<>(dueEntryKeys))
+                .forEach((entryKey, indexEntry) -> indexEntries.put(entryKey, (BinaryObject) indexEntry));
+        dueEntryKeys.stream()
+                .filter(entryKey -> !indexEntries.containsKey(entryKey))
+                .forEach(this::removeStatusIndexEntry);
+        List<SessionStatusIndex.DueEntry> dueEntries = SessionStatusIndex.getDueEntries(dueEntryKeys, indexEntries, filter);
+        if (dueEntries.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, BinaryObject>> sessionEntries = this.<Map<String, BinaryObject>>getBinaryCache(cacheName)
+                .getAll(dueEntries.stream().map(SessionStatusIndex.DueEntry::sessionId).collect(Collectors.toSet()));
+        Set<String> dueSessionIds = new LinkedHashSet<>();
+        for (SessionStatusIndex.DueEntry dueEntry : dueEntries) {
+            if (SessionStatusIndex.isCurrent(dueEntry, sessionEntries)) {
+                dueSessionIds.add(dueEntry.sessionId());
+            } else {
+                removeStatusIndexEntry(dueEntry.entryKey());
+            }
+        }
+        dueSessionIds.forEach(action);
+    }
+
+    private boolean putSessionEntry(CacheName cacheName, String sessionId, String entryId, Object entryValue,
+                                    SessionStatus sessionStatus, boolean existingEntryOnly) {
+        boolean updated = updateSessionEntry(getBinaryCache(cacheName), sessionId, entryId, sessionSerializer.toBinary(entryValue), existingEntryOnly);
+        if (updated) {
+            indexSessionStatus(cacheName, sessionId, entryId, sessionStatus);
+        }
+        return updated;
+    }
+
+    /**
+     * Replaces the index entry of the signature or certificate session with one matching its status, or removes it if
+     * the status is not indexed.
+     */
+    private void indexSessionStatus(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus) {
+        String referenceKey = SessionStatusIndex.getReferenceKey(cacheName, sessionId, entryId);
+        String previousEntryKey;
+        if (SessionStatusIndex.isIndexed(sessionStatus)) {
+            String entryKey = SessionStatusIndex.getEntryKey(cacheName, sessionId, entryId, sessionStatus);
+            statusIndexCache.put(entryKey, sessionSerializer.toBinary(new SessionStatusIndex.IndexEntry(sessionId, entryId, sessionStatus)));
+            updateStatusIndexKeySet(entryKey, true);
+            previousEntryKey = (String) statusIndexCache.getAndPut(referenceKey, entryKey);
+            if (entryKey.equals(previousEntryKey)) {
+                return;
+            }
+        } else {
+            previousEntryKey = (String) statusIndexCache.getAndRemove(referenceKey);
+        }
+        if (previousEntryKey != null) {
+            removeStatusIndexEntry(previousEntryKey);
+        }
+    }
+
+    private void removeStatusIndexEntry(String entryKey) {
+        statusIndexCache.remove(entryKey);
+        updateStatusIndexKeySet(entryKey, false);
+    }
+
+    private void updateStatusIndexKeySet(String entryKey, boolean added) {
+        String bucketKeySetKey = SessionStatusIndex.getBucketKeySetKey(entryKey);
+        String indexEntryId = SessionStatusIndex.getIndexEntryId(entryKey);
+        for (int attempt = 1; attempt <= sessionConfigurationProperties.getSessionUpdateMaxAttempts(); attempt++) {
+            Object storedIndexEntryIds = statusIndexCache.get(bucketKeySetKey);
+            Set<String> indexEntryIds = storedIndexEntryIds == null ? Set.of() : toStringSet(storedIndexEntryIds);
+            if (indexEntryIds.contains(indexEntryId) == added) {
+                return;
+            }
+            Set<String> updatedIndexEntryIds = new HashSet<>(indexEntryIds);
+            if (added) {
+                updatedIndexEntryIds.add(indexEntryId);
+            } else {
+                updatedIndexEntryIds.remove(indexEntryId);
+            }
+            boolean updated;
+            if (storedIndexEntryIds == null) {
+                updated = statusIndexCache.putIfAbsent(bucketKeySetKey, updatedIndexEntryIds);
+            } else if (updatedIndexEntryIds.isEmpty()) {
+                updated = statusIndexCache.remove(bucketKeySetKey, storedIndexEntryIds);
+            } else {
+                updated = statusIndexCache.replace(bucketKeySetKey, storedIndexEntryIds, updatedIndexEntryIds);
+            }
+            if (updated) {
+                return;
+            }
+        }
+        log.warn("Session status index bucket has been modified concurrently: {}", bucketKeySetKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> toStringSet(Object indexEntryIds) {
+        return (Set<String>) indexEntryIds;
+    }
+
+    private <V> Map<String, V> loadPart(Set<SessionPart> parts, SessionPart part, String sessionId, CacheName cacheName) {
+        Supplier<Map<String, V>> loader = () -> BinarySessionSerializer.deserializeValues(
+                this.<Map<String, BinaryObject>>getBinaryCache(cacheName).get(sessionId));
+        return parts.contains(part) ? loader.get() : new LazyLoadingMap<>(loader);
+    }
+
+    private boolean updateSessionEntry(ClientCache<String, Map<String, BinaryObject>> cache, String sessionId, String entryId,
+                                       BinaryObject entryValue, boolean existingEntryOnly) {
+        for (int attempt = 1; attempt <= sessionConfigurationProperties.getSessionUpdateMaxAttempts(); attempt++) {
+            Map<String, BinaryObject> storedEntries = cache.get(sessionId);
+            Map<String, BinaryObject> entries = storedEntries == null ? Map.of() : storedEntries;
+            if (existingEntryOnly && !entries.containsKey(entryId)) {
+                return false;
+            }
+            Map<String, BinaryObject> updatedEntries = new HashMap<>(entries);
+            if (entryValue == null) {
+                updatedEntries.remove(entryId);
+            } else {
+                updatedEntries.put(entryId, entryValue);
+            }
+            boolean updated = storedEntries == null
+                    ? cache.putIfAbsent(sessionId, updatedEntries)
+                    : cache.replace(sessionId, storedEntries, updatedEntries);
+            if (updated) {
+                return true;
+            }
+        }
+        throw new ConcurrentSessionModificationException("Session has been modified concurrently: " + sessionId);
+    }
+
+    private <V> ClientCache<String, V> getBinaryCache(CacheName cacheName) {
+        return igniteClient.cache(cacheName.name()).withKeepBinary();
+    }
+}
@@ -0,0 +1,290 @@
+package ee.openeid.siga.session;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionConfiguration;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Stores sessions in the memory of the SiGa node, so that no Ignite cluster is needed. Suitable for single node
+ * deployments only.
+ * <p>
+ * Sessions are copied when they are written and read, so that sessions returned by the store are independent copies,
+ * like sessions read from Ignite. As in the Ignite cache configuration, container sessions expire when they have not
+ * been accessed and signature and certificate sessions expire when they have not been modified for the configured
+ * duration. The number of stored sessions is bounded. When the bound is reached, least recently used sessions are
+ * evicted. Expired sessions are removed by {@link #cleanUp()}, scheduled by {@link SessionConfiguration}.
+ * <p>
+ * Locks expire after the configured lease duration since they were acquired or last renewed, like locks of the Ignite
+ * session stores.
+ */
+@Slf4j
+public class InMemorySessionStore implements SessionStore {
+    private final Cache<String, Session> containerSessions;
+    private final Cache<String, Map<String, SignatureSession>> signatureSessions;
+    private final Cache<String, Map<String, CertificateSession>> certificateSessions;
+    private final Map<String, HeldLock> heldLocks = new ConcurrentHashMap<>();
+    private final Ticker ticker;
+    private final long lockLeaseNanos;
+    private final Map<String, Long> reprocessingLeases = new ConcurrentHashMap<>();
+    private final SessionResultListener sessionResultListener;
+
+    /**
+     * @param sessionExpiryListener receives the IDs of container sessions that have expired or have been evicted
+     * @param sessionResultListener receives signature and certificate sessions that have reached a result
+     */
+    public InMemorySessionStore(SessionConfigurationProperties sessionConfigurationProperties,
+                                Consumer<String> sessionExpiryListener, SessionResultListener sessionResultListener) {
+        this(sessionConfigurationProperties, sessionExpiryListener, sessionResultListener, Ticker.systemTicker());
+    }
+
+    InMemorySessionStore(SessionConfigurationProperties sessionConfigurationProperties,
+                         Consumer<String> sessionExpiryListener, SessionResultListener sessionResultListener, Ticker ticker) {
+        this.sessionResultListener = sessionResultListener;
+        this.ticker = ticker;
+        this.lockLeaseNanos = sessionConfigurationProperties.getLockLeaseDuration().toNanos();
+        Duration expiry = sessionConfigurationProperties.getInMemorySessionExpiry();
+        long maxSessions = sessionConfigurationProperties.getInMemoryMaxSessions();
+        containerSessions = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxSessions)
+                .expireAfterAccess(expiry)
+                .removalListener((RemovalNotification<String, Session> notification) -> {
+                    if (notification.wasEvicted()) {
+                        log.info("Container session removed from memory: sessionId={}, cause={}",
+                                notification.getKey(), notification.getCause());
+                        sessionExpiryListener.accept(notification.getKey());
+                    }
+                })
+                .build();
+        signatureSessions = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxSessions)
+                .expireAfterWrite(expiry)
+                .build();
+        certificateSessions = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxSessions)
+                .expireAfterWrite(expiry)
+                .build();
+    }
+
+    /**
+     * Sessions are loaded with all parts, as they are held in memory anyway.
+     */
+    @Override
+    public Optional<Session> findSession(String sessionId, Set<SessionPart> parts) {
+        Session storedSession = containerSessions.getIfPresent(sessionId);
+        if (storedSession == null) {
+            return Optional.empty();
+        }
+        Session session = SessionCopier.copy(storedSession);
+        session.setSignatureSessions(SessionCopier.copyValues(signatureSessions.getIfPresent(sessionId), SessionCopier::copy));
+        session.setCertificateSessions(SessionCopier.copyValues(certificateSessions.getIfPresent(sessionId), SessionCopier::copy));
+        return Optional.of(session);
+    }
+
+    @Override
+    public boolean writeSession(Session session, long expectedVersion) {
+        Session newSession = SessionCopier.copy(session);
+        AtomicBoolean written = new AtomicBoolean();
+        containerSessions.asMap().compute(session.getSessionId(), (sessionId, storedSession) -> {
+            long storedVersion = storedSession == null ? 0 : storedSession.getVersion();
+            if (storedVersion != expectedVersion) {
+                return storedSession;
+            }
+            written.set(true);
+            return newSession;
+        });
+        if (written.get() && expectedVersion == 0) {
+            signatureSessions.put(session.getSessionId(), SessionCopier.copyValues(session.getSignatureSessions(), SessionCopier::copy));
+            certificateSessions.put(session.getSessionId(), SessionCopier.copyValues(session.getCertificateSessions(), SessionCopier::copy));
+        }
+        return written.get();
+    }
+
+    @Override
+    public void removeSession(String sessionId) {
+        containerSessions.invalidate(sessionId);
+        signatureSessions.invalidate(sessionId);
+        certificateSessions.invalidate(sessionId);
+    }
+
+    @Override
+    public int getSessionCount() {
+        return (int) containerSessions.size();
+    }
+
+    @Override
+    public void putSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        updateEntry(signatureSessions, sessionId, signatureId, SessionCopier.copy(signatureSession), false);
+        notifyResult(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession.getSessionStatus());
+    }
+
+    @Override
+    public boolean replaceSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        boolean replaced = updateEntry(signatureSessions, sessionId, signatureId, SessionCopier.copy(signatureSession), true);
+        if (replaced) {
+            notifyResult(CacheName.SIGNATURE_SESSION, sessionId, signatureId, signatureSession.getSessionStatus());
+        }
+        return replaced;
+    }
+
+    @Override
+    public void removeSignatureSession(String sessionId, String signatureId) {
+        updateEntry(signatureSessions, sessionId, signatureId, null, true);
+    }
+
+    @Override
+    public void putCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        updateEntry(certificateSessions, sessionId, certificateId, SessionCopier.copy(certificateSession), false);
+        notifyResult(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession.getSessionStatus());
+    }
+
+    @Override
+    public boolean replaceCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        boolean replaced = updateEntry(certificateSessions, sessionId, certificateId, SessionCopier.copy(certificateSession), true);
+        if (replaced) {
+            notifyResult(CacheName.CERTIFICATE_SESSION, sessionId, certificateId, certificateSession.getSessionStatus());
+        }
+        return replaced;
+    }
+
+    @Override
+    public void removeCertificateSession(String sessionId, String certificateId) {
+        updateEntry(certificateSessions, sessionId, certificateId, null, true);
+    }
+
+    @Override
+    public void forEachSessionIdWithSignatureStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(signatureSessions, SignatureSession::getSessionStatus, filter, partitions, action);
+    }
+
+    @Override
+    public void forEachSessionIdWithCertificateStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action) {
+        forEachSessionIdWithStatus(certificateSessions, CertificateSession::getSessionStatus, filter, partitions, action);
+    }
+
+    @Override
+    public Set<String> renewReprocessingLease(String nodeId, Duration leaseDuration) {
+        long now = System.currentTimeMillis();
+        reprocessingLeases.put(nodeId, now + leaseDuration.toMillis());
+        reprocessingLeases.values().removeIf(expiryTimestamp -> expiryTimestamp <= now);
+        return Set.copyOf(reprocessingLeases.keySet());
+    }
+
+    @Override
+    public void releaseReprocessingLease(String nodeId) {
+        reprocessingLeases.remove(nodeId);
+    }
+
+    @Override
+    public Optional<SessionLock> tryLock(String lockId) {
+        HeldLock lock = new HeldLock(ticker.read() + lockLeaseNanos);
+        HeldLock currentLock = heldLocks.compute(lockId, (id, heldLock) ->
+                heldLock == null || heldLock.isExpired(ticker.read()) ? lock : heldLock);
+        return currentLock == lock
+                ? Optional.of(SessionLock.of(() -> renewLock(lockId, lock), () -> heldLocks.remove(lockId, lock)))
+                : Optional.empty();
+    }
+
+    /**
+     * Removes expired sessions, so that the expiry listener is notified even if the store is not otherwise accessed,
+     * and expired locks.
+     */
+    @Scheduled(fixedRate = 10, timeUnit = TimeUnit.SECONDS)
+    public void cleanUp() {
+        containerSessions.cleanUp();
+        signatureSessions.cleanUp();
+        certificateSessions.cleanUp();
+        heldLocks.keySet().forEach(lockId -> heldLocks.computeIfPresent(lockId,
+                (id, heldLock) -> heldLock.isExpired(ticker.read()) ? null : heldLock));
+    }
+
+    private boolean renewLock(String lockId, HeldLock lock) {
+        AtomicBoolean renewed = new AtomicBoolean();
+        heldLocks.computeIfPresent(lockId, (id, heldLock) -> {
+            long now = ticker.read();
+            if (heldLock == lock && !lock.isExpired(now)) {
+                lock.expiryNanos = now + lockLeaseNanos;
+                renewed.set(true);
+            }
+            return heldLock;
+        });
+        return renewed.get();
+    }
+
+    private void notifyResult(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus) {
+        if (sessionStatus != null && sessionStatus.getProcessingStatus() != ProcessingStatus.PROCESSING) {
+            sessionResultListener.onResult(cacheName, sessionId, entryId, sessionStatus);
+        }
+    }
+
+    private static <T> boolean updateEntry(Cache<String, Map<String, T>> cache, String sessionId, String entryId,
+                                           T entryValue, boolean existingEntryOnly) {
+        AtomicBoolean updated = new AtomicBoolean();
+        cache.asMap().compute(sessionId, (id, storedEntries) -> {
+            Map<String, T> entries = storedEntries == null ? Map.of() : storedEntries;
+            if (existingEntryOnly && !entries.containsKey(entryId)) {
+                return storedEntries;
+            }
+            Map<String, T> updatedEntries = new HashMap<>(entries);
+            if (entryValue == null) {
+                updatedEntries.remove(entryId);
+            } else {
+                updatedEntries.put(entryId, entryValue);
+            }
+            updated.set(true);
+            return updatedEntries;
+        });
+        return updated.get();
+    }
+
+    private static <T> void forEachSessionIdWithStatus(Cache<String, Map<String, T>> cache,
+                                                       Function<T, SessionStatus> sessionStatus,
+                                                       SessionStatusFilter filter, Set<Integer> partitions,
+                                                       Consumer<String> action) {
+        List<String> sessionIds = cache.asMap().entrySet().stream()
+                .filter(entry -> partitions.contains(SessionStatusPartitions.getPartition(entry.getKey())))
+                .filter(entry -> entry.getValue().values().stream()
+                        .map(sessionStatus)
+                        .anyMatch(status -> filter.isApplicable(status.getProcessingStatus(),
+                                status.getProcessingStatusTimestamp(), status.getProcessingCounter())))
+                .map(Map.Entry::getKey)
+                .toList();
+        sessionIds.forEach(action);
+    }
+
+    private static final class HeldLock {
+        private long expiryNanos;
+
+        private HeldLock(long expiryNanos) {
+            this.expiryNanos = expiryNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - expiryNanos >= 0;
+        }
+    }
+}
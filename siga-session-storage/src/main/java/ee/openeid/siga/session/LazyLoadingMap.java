@@ -0,0 +1,26 @@
+package ee.openeid.siga.session;
+
+import com.google.common.collect.ForwardingMap;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Map of signature or certificate sessions that is loaded from the session store when it is first accessed.
+ */
+@RequiredArgsConstructor
+class LazyLoadingMap<V> extends ForwardingMap<String, V> {
+    private final Supplier<Map<String, V>> loader;
+    private Map<String, V> loadedMap;
+
+    @Override
+    protected Map<String, V> delegate() {
+        if (loadedMap == null) {
+            Map<String, V> storedMap = loader.get();
+            loadedMap = storedMap == null ? new HashMap<>() : new HashMap<>(storedMap);
+        }
+        return loadedMap;
+    }
+}
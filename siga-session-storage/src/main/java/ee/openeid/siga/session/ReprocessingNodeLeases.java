@@ -0,0 +1,49 @@
+package ee.openeid.siga.session;
+
+import lombok.Value;
+import org.apache.ignite.binary.BinaryObject;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Leases of SiGa nodes taking part in status reprocessing, stored as entries of a single {@code REPROCESSING_NODE}
+ * cache entry, so that the nodes can be listed without a scan query.
+ */
+class ReprocessingNodeLeases {
+    static final String CACHE_KEY = "REPROCESSING_NODES";
+
+    private ReprocessingNodeLeases() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static Lease newLease(Duration leaseDuration) {
+        return new Lease(System.currentTimeMillis() + leaseDuration.toMillis());
+    }
+
+    static Set<String> getLiveNodeIds(Map<String, BinaryObject> leases) {
+        return getNodeIds(leases, true);
+    }
+
+    static Set<String> getExpiredNodeIds(Map<String, BinaryObject> leases) {
+        return getNodeIds(leases, false);
+    }
+
+    private static Set<String> getNodeIds(Map<String, BinaryObject> leases, boolean live) {
+        if (leases == null) {
+            return Set.of();
+        }
+        long now = System.currentTimeMillis();
+        return leases.entrySet().stream()
+                .filter(lease -> (lease.getValue().<Lease>deserialize().getExpiryTimestamp() > now) == live)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Value
+    static class Lease {
+        long expiryTimestamp;
+    }
+}
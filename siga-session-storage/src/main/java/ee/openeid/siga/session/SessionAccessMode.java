@@ -0,0 +1,12 @@
+package ee.openeid.siga.session;
+
+public enum SessionAccessMode {
+    /**
+     * Each session part is read from and written to its own cache with a separate request.
+     */
+    PER_CACHE,
+    /**
+     * All session parts are read and written by a single job executed on the primary node of the session key.
+     */
+    COLOCATED
+}
@@ -0,0 +1,200 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.model.HashcodeDataFile;
+import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
+import ee.openeid.siga.common.model.RelyingPartyInfo;
+import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import org.digidoc4j.SignatureParameters;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copies sessions field by field, so that sessions held in memory are not shared with their readers and writers.
+ * Mutable values, including byte arrays, are copied. Certificates, strings and enums are immutable and shared.
+ * Signature and certificate sessions of a container session are not copied with it, as they are stored separately.
+ */
+class SessionCopier {
+
+    private SessionCopier() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static Session copy(Session session) {
+        Session copy;
+        if (session instanceof HashcodeContainerSession hashcodeSession) {
+            copy = copy(hashcodeSession);
+        } else if (session instanceof AsicContainerSession asicSession) {
+            copy = copy(asicSession);
+        } else {
+            throw new IllegalArgumentException("Unsupported session type: " + session.getClass().getName());
+        }
+        copy.setVersion(session.getVersion());
+        return copy;
+    }
+
+    static SignatureSession copy(SignatureSession signatureSession) {
+        return SignatureSession.builder()
+                .sessionCode(signatureSession.getSessionCode())
+                .signature(copy(signatureSession.getSignature()))
+                .sessionStatus(copy(signatureSession.getSessionStatus()))
+                .dataToSign(copy(signatureSession.getDataToSign()))
+                .signatureParameters(copy(signatureSession.getSignatureParameters()))
+                .signingType(signatureSession.getSigningType())
+                .dataFilesHash(signatureSession.getDataFilesHash())
+                .relyingPartyInfo(copy(signatureSession.getRelyingPartyInfo()))
+                .finalized(signatureSession.isFinalized())
+                .callbackUrl(signatureSession.getCallbackUrl())
+                .build();
+    }
+
+    static CertificateSession copy(CertificateSession certificateSession) {
+        return CertificateSession.builder()
+                .relyingPartyInfo(copy(certificateSession.getRelyingPartyInfo()))
+                .sessionCode(certificateSession.getSessionCode())
+                .documentNumber(certificateSession.getDocumentNumber())
+                .certificate(certificateSession.getCertificate())
+                .callbackUrl(certificateSession.getCallbackUrl())
+                .sessionStatus(copy(certificateSession.getSessionStatus()))
+                .build();
+    }
+
+    static <T> Map<String, T> copyValues(Map<String, T> values, UnaryOperator<T> copier) {
+        Map<String, T> copies = new HashMap<>();
+        if (values != null) {
+            values.forEach((key, value) -> copies.put(key, copier.apply(value)));
+        }
+        return copies;
+    }
+
+    private static HashcodeContainerSession copy(HashcodeContainerSession session) {
+        return HashcodeContainerSession.builder()
+                .clientName(session.getClientName())
+                .serviceName(session.getServiceName())
+                .serviceUuid(session.getServiceUuid())
+                .sessionId(session.getSessionId())
+                .dataFiles(session.getDataFiles() == null ? null : copyList(session.getDataFiles(), SessionCopier::copy))
+                .signatures(copyList(session.getSignatures(), SessionCopier::copy))
+                .certificateHolder(new HashMap<>(session.getCertificateHolder()))
+                .build();
+    }
+
+    private static AsicContainerSession copy(AsicContainerSession session) {
+        return AsicContainerSession.builder()
+                .containerName(session.getContainerName())
+                .clientName(session.getClientName())
+                .serviceName(session.getServiceName())
+                .serviceUuid(session.getServiceUuid())
+                .sessionId(session.getSessionId())
+                .container(copy(session.getContainer()))
+                .containerMetadata(copy(session.getContainerMetadata()))
+                .signatureIdHolder(new HashMap<>(session.getSignatureIdHolder()))
+                .certificateHolder(new HashMap<>(session.getCertificateHolder()))
+                .build();
+    }
+
+    private static HashcodeDataFile copy(HashcodeDataFile dataFile) {
+        HashcodeDataFile copy = new HashcodeDataFile();
+        copy.setFileName(dataFile.getFileName());
+        copy.setFileHashSha256(dataFile.getFileHashSha256());
+        copy.setFileHashSha512(dataFile.getFileHashSha512());
+        copy.setMimeType(dataFile.getMimeType());
+        copy.setFileSize(dataFile.getFileSize());
+        return copy;
+    }
+
+    private static HashcodeSignatureWrapper copy(HashcodeSignatureWrapper signature) {
+        HashcodeSignatureWrapper copy = new HashcodeSignatureWrapper();
+        copy.setGeneratedSignatureId(signature.getGeneratedSignatureId());
+        copy.setSignature(copy(signature.getSignature()));
+        copy.setDataFiles(copyList(signature.getDataFiles(), SessionCopier::copy));
+        return copy;
+    }
+
+    private static SignatureHashcodeDataFile copy(SignatureHashcodeDataFile dataFile) {
+        SignatureHashcodeDataFile copy = new SignatureHashcodeDataFile();
+        copy.setFileName(dataFile.getFileName());
+        copy.setHashAlgo(dataFile.getHashAlgo());
+        return copy;
+    }
+
+    private static AsicContainerMetadata copy(AsicContainerMetadata metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        return AsicContainerMetadata.builder()
+                .dataFiles(copyList(metadata.getDataFiles(), dataFile -> new AsicContainerMetadata.DataFileMetadata(
+                        dataFile.getFileName(), dataFile.getFileSize(), dataFile.getFileHashSha256())))
+                .signatures(copyList(metadata.getSignatures(), signature -> new AsicContainerMetadata.SignatureMetadata(
+                        signature.getId(), signature.getSignatureHashCode(), signature.getSignerInfo(), signature.getSignatureProfile())))
+                .timestamps(copyList(metadata.getTimestamps(), timestamp -> new AsicContainerMetadata.TimestampMetadata(
+                        timestamp.getId(), copy(timestamp.getCreationTime()))))
+                .build();
+    }
+
+    private static SessionStatus copy(SessionStatus sessionStatus) {
+        if (sessionStatus == null) {
+            return null;
+        }
+        return SessionStatus.builder()
+                .status(sessionStatus.getStatus())
+                .statusError(sessionStatus.getStatusError())
+                .processingStatus(sessionStatus.getProcessingStatus())
+                .processingCounter(sessionStatus.getProcessingCounter())
+                .processingStatusTimestamp(sessionStatus.getProcessingStatusTimestamp())
+                .build();
+    }
+
+    private static SignatureParameters copy(SignatureParameters parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        SignatureParameters copy = new SignatureParameters();
+        copy.setSignatureId(parameters.getSignatureId());
+        copy.setSignatureProfile(parameters.getSignatureProfile());
+        copy.setSignatureDigestAlgorithm(parameters.getSignatureDigestAlgorithm());
+        copy.setDataFileDigestAlgorithm(parameters.getDataFileDigestAlgorithm());
+        copy.setEncryptionAlgorithm(parameters.getEncryptionAlgorithm());
+        copy.setSigningCertificate(parameters.getSigningCertificate());
+        copy.setClaimedSigningDate(copy(parameters.getClaimedSigningDate()));
+        copy.setPolicy(parameters.getPolicy());
+        copy.setCity(parameters.getCity());
+        copy.setStateOrProvince(parameters.getStateOrProvince());
+        copy.setPostalCode(parameters.getPostalCode());
+        copy.setCountry(parameters.getCountry());
+        copy.setRoles(parameters.getRoles() == null ? null : new ArrayList<>(parameters.getRoles()));
+        return copy;
+    }
+
+    private static RelyingPartyInfo copy(RelyingPartyInfo relyingPartyInfo) {
+        return relyingPartyInfo == null ? null : RelyingPartyInfo.builder()
+                .name(relyingPartyInfo.getName())
+                .uuid(relyingPartyInfo.getUuid())
+                .build();
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+
+    private static byte[] copy(byte[] bytes) {
+        return bytes == null ? null : bytes.clone();
+    }
+
+    private static <T> List<T> copyList(List<T> values, UnaryOperator<T> copier) {
+        List<T> copies = new ArrayList<>(values.size());
+        values.forEach(value -> copies.add(copier.apply(value)));
+        return copies;
+    }
+}
@@ -0,0 +1,53 @@
+package ee.openeid.siga.session;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds, replaces or removes a single signature or certificate session entry in place on the node owning the session,
+ * without transferring the rest of the session. A replacement is only applied if the entry still exists, so a status
+ * update can not resurrect a session entry that has been removed or expired meanwhile.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SessionEntryUpdateProcessor implements CacheEntryProcessor<String, Map<String, BinaryObject>, Boolean> {
+    private final String entryId;
+    private final BinaryObject entryValue;
+    private final boolean existingEntryOnly;
+
+    public static SessionEntryUpdateProcessor put(String entryId, BinaryObject entryValue) {
+        return new SessionEntryUpdateProcessor(entryId, entryValue, false);
+    }
+
+    public static SessionEntryUpdateProcessor replace(String entryId, BinaryObject entryValue) {
+        return new SessionEntryUpdateProcessor(entryId, entryValue, true);
+    }
+
+    public static SessionEntryUpdateProcessor remove(String entryId) {
+        return new SessionEntryUpdateProcessor(entryId, null, true);
+    }
+
+    @Override
+    public Boolean process(MutableEntry<String, Map<String, BinaryObject>> entry, Object... arguments) {
+        Map<String, BinaryObject> entries = entry.exists() ? entry.getValue() : Map.of();
+        if (existingEntryOnly && !entries.containsKey(entryId)) {
+            return false;
+        }
+        Map<String, BinaryObject> updatedEntries = new HashMap<>(entries);
+        if (entryValue == null) {
+            updatedEntries.remove(entryId);
+        } else {
+            updatedEntries.put(entryId, entryValue);
+        }
+        entry.setValue(updatedEntries);
+        return true;
+    }
+}
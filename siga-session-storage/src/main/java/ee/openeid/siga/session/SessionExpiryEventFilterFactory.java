@@ -0,0 +1,22 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+
+import javax.cache.configuration.Factory;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.EventType;
+
+/**
+ * Creates a continuous query filter passing only expiry events of container sessions, so that listening SiGa nodes
+ * are not sent every session update.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes. Thin clients can not use peer class loading, so it must be
+ * deployed on the classpath of Ignite server nodes. If possible, avoid making changes in this class and in its dependencies!
+ */
+public class SessionExpiryEventFilterFactory implements Factory<CacheEntryEventFilter<String, BinaryObject>> {
+
+    @Override
+    public CacheEntryEventFilter<String, BinaryObject> create() {
+        return event -> event.getEventType() == EventType.EXPIRED;
+    }
+}
@@ -0,0 +1,34 @@
+package ee.openeid.siga.session;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lock acquired from {@link SessionStore#tryLock(String)}.
+ */
+public interface SessionLock extends AutoCloseable {
+
+    /**
+     * Extends the lease of the lock by the configured lease duration, if the lock is still held. A lock held for longer
+     * than its lease, e.g. while long polling a session status, must be renewed before the lease expires.
+     *
+     * @return {@code false} if the lease has expired or the lock has been released, so that it may be held by someone else
+     */
+    boolean renew();
+
+    @Override
+    void close();
+
+    static SessionLock of(BooleanSupplier renewal, Runnable release) {
+        return new SessionLock() {
+            @Override
+            public boolean renew() {
+                return renewal.getAsBoolean();
+            }
+
+            @Override
+            public void close() {
+                release.run();
+            }
+        };
+    }
+}
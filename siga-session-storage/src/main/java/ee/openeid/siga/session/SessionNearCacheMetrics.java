@@ -0,0 +1,45 @@
+package ee.openeid.siga.session;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class SessionNearCacheMetrics implements MeterBinder {
+    static final String GETS_METRIC_NAME = "siga.session.near.cache.gets";
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(GETS_METRIC_NAME, hits, LongAdder::sum)
+                .tag("cache", CacheName.CONTAINER_SESSION.name())
+                .tag("result", "hit")
+                .description("Container session reads served from the local near cache")
+                .register(registry);
+        FunctionCounter.builder(GETS_METRIC_NAME, misses, LongAdder::sum)
+                .tag("cache", CacheName.CONTAINER_SESSION.name())
+                .tag("result", "miss")
+                .description("Container session reads not found in the local near cache")
+                .register(registry);
+    }
+}
@@ -0,0 +1,20 @@
+package ee.openeid.siga.session;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Parts of a container session that can be loaded separately. Session metadata (e.g. data files of hashcode container
+ * sessions and signature IDs) is always loaded. Parts that are not requested are loaded when they are first accessed.
+ */
+public enum SessionPart {
+    /**
+     * Container of a datafile container session
+     */
+    CONTAINER,
+    SIGNATURE_SESSIONS,
+    CERTIFICATE_SESSIONS;
+
+    public static final Set<SessionPart> ALL = Collections.unmodifiableSet(EnumSet.allOf(SessionPart.class));
+}
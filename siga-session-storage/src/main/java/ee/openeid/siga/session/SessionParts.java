@@ -0,0 +1,19 @@
+package ee.openeid.siga.session;
+
+import lombok.Value;
+import org.apache.ignite.binary.BinaryObject;
+
+import java.util.Map;
+
+/**
+ * Binary form of the container, signature and certificate session parts stored under the same session ID.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@Value
+public class SessionParts {
+    BinaryObject container;
+    Map<String, BinaryObject> signatureSessions;
+    Map<String, BinaryObject> certificateSessions;
+}
@@ -0,0 +1,39 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import java.util.Map;
+
+/**
+ * Reads all session parts on the primary node of the session key.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+public class SessionReadJob implements IgniteCallable<SessionParts> {
+    private final String sessionId;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public SessionParts call() {
+        BinaryObject container = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .<String, BinaryObject>withKeepBinary()
+                .get(sessionId);
+        if (container == null) {
+            return null;
+        }
+        Map<String, BinaryObject> signatureSessions = ignite.cache(CacheName.SIGNATURE_SESSION.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .get(sessionId);
+        Map<String, BinaryObject> certificateSessions = ignite.cache(CacheName.CERTIFICATE_SESSION.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .get(sessionId);
+        return new SessionParts(container, signatureSessions, certificateSessions);
+    }
+}
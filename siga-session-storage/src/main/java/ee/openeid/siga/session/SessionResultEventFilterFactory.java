@@ -0,0 +1,56 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+
+import javax.cache.configuration.Factory;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.EventType;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates a continuous query filter passing only updates of signature and certificate sessions that have reached the
+ * {@code RESULT} or {@code EXCEPTION} processing status, so that listening SiGa nodes are not sent every status poll.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes. Thin clients can not use peer class loading, so it must be
+ * deployed on the classpath of Ignite server nodes. If possible, avoid making changes in this class and in its dependencies!
+ */
+public class SessionResultEventFilterFactory implements Factory<CacheEntryEventFilter<String, Map<String, BinaryObject>>> {
+    private static final String SESSION_STATUS_FIELD = "sessionStatus";
+    private static final String PROCESSING_STATUS_FIELD = "processingStatus";
+    private static final Set<String> RESULT_PROCESSING_STATUSES = Set.of("RESULT", "EXCEPTION");
+
+    @Override
+    public CacheEntryEventFilter<String, Map<String, BinaryObject>> create() {
+        return event -> (event.getEventType() == EventType.CREATED || event.getEventType() == EventType.UPDATED)
+                && hasNewResult(event.getValue(), event.getOldValue());
+    }
+
+    /**
+     * @return whether any of the entries has reached the result since the old entries were stored
+     */
+    static boolean hasNewResult(Map<String, BinaryObject> entries, Map<String, BinaryObject> oldEntries) {
+        if (entries == null) {
+            return false;
+        }
+        for (Map.Entry<String, BinaryObject> entry : entries.entrySet()) {
+            BinaryObject oldEntry = oldEntries == null ? null : oldEntries.get(entry.getKey());
+            if (isResult(entry.getValue()) && !entry.getValue().equals(oldEntry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isResult(BinaryObject entry) {
+        if (entry == null || !entry.hasField(SESSION_STATUS_FIELD)) {
+            return false;
+        }
+        BinaryObject sessionStatus = entry.field(SESSION_STATUS_FIELD);
+        if (sessionStatus == null || !sessionStatus.hasField(PROCESSING_STATUS_FIELD)) {
+            return false;
+        }
+        BinaryObject processingStatus = sessionStatus.field(PROCESSING_STATUS_FIELD);
+        return processingStatus != null && RESULT_PROCESSING_STATUSES.contains(processingStatus.enumName());
+    }
+}
@@ -0,0 +1,36 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+
+import javax.cache.event.CacheEntryEvent;
+import java.util.Map;
+
+/**
+ * Passes signature and certificate sessions of continuous query events filtered by
+ * {@link SessionResultEventFilterFactory} to the {@link SessionResultListener}.
+ */
+class SessionResultEvents {
+    private static final String SESSION_STATUS_FIELD = "sessionStatus";
+
+    private SessionResultEvents() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static void notifyListener(CacheName cacheName, Iterable<? extends CacheEntryEvent<? extends String, ? extends Map<String, BinaryObject>>> events,
+                               SessionResultListener sessionResultListener) {
+        for (CacheEntryEvent<? extends String, ? extends Map<String, BinaryObject>> event : events) {
+            Map<String, BinaryObject> entries = event.getValue();
+            Map<String, BinaryObject> oldEntries = event.getOldValue();
+            if (entries == null) {
+                continue;
+            }
+            entries.forEach((entryId, entry) -> {
+                BinaryObject oldEntry = oldEntries == null ? null : oldEntries.get(entryId);
+                if (SessionResultEventFilterFactory.isResult(entry) && !entry.equals(oldEntry)) {
+                    sessionResultListener.onResult(cacheName, event.getKey(), entryId,
+                            entry.<BinaryObject>field(SESSION_STATUS_FIELD).deserialize());
+                }
+            });
+        }
+    }
+}
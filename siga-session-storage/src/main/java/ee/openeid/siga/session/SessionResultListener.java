@@ -0,0 +1,19 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.SessionStatus;
+
+/**
+ * Receives signature and certificate sessions reaching the {@code RESULT} or {@code EXCEPTION} processing status.
+ * Sessions stored in Ignite are received from all SiGa nodes sharing the cluster.
+ */
+@FunctionalInterface
+public interface SessionResultListener {
+
+    /**
+     * Called on a thread of the session store, so must not block.
+     *
+     * @param cacheName {@link CacheName#SIGNATURE_SESSION} or {@link CacheName#CERTIFICATE_SESSION}
+     * @param entryId   ID of the signature or certificate session
+     */
+    void onResult(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus);
+}
@@ -0,0 +1,69 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.SessionStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Completes the waits of status requests when the awaited signature or certificate session reaches a result in the
+ * session store, so that status requests can be held open without occupying a request thread.
+ */
+@Component
+public class SessionResultNotifier implements SessionResultListener {
+    private final Map<WaiterKey, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Waits until the signature or certificate session reaches the {@code RESULT} or {@code EXCEPTION} processing
+     * status with a session status accepted by the condition. The result reached before this method is called is not
+     * received, so the caller must check the current session status after calling this method.
+     * <p>
+     * Completing or cancelling the returned future stops waiting.
+     *
+     * @param cacheName {@link CacheName#SIGNATURE_SESSION} or {@link CacheName#CERTIFICATE_SESSION}
+     * @param entryId   ID of the signature or certificate session
+     */
+    public CompletableFuture<Void> awaitResult(CacheName cacheName, String sessionId, String entryId,
+                                               Predicate<SessionStatus> condition) {
+        WaiterKey waiterKey = new WaiterKey(cacheName, sessionId, entryId);
+        Waiter waiter = new Waiter(new CompletableFuture<>(), condition);
+        waiters.compute(waiterKey, (key, keyWaiters) -> {
+            Set<Waiter> updatedWaiters = keyWaiters == null ? ConcurrentHashMap.newKeySet() : keyWaiters;
+            updatedWaiters.add(waiter);
+            return updatedWaiters;
+        });
+        waiter.result().whenComplete((result, e) -> waiters.computeIfPresent(waiterKey, (key, keyWaiters) -> {
+            keyWaiters.remove(waiter);
+            return keyWaiters.isEmpty() ? null : keyWaiters;
+        }));
+        return waiter.result();
+    }
+
+    @Override
+    public void onResult(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus) {
+        Set<Waiter> keyWaiters = waiters.get(new WaiterKey(cacheName, sessionId, entryId));
+        if (keyWaiters == null) {
+            return;
+        }
+        keyWaiters.stream()
+                .filter(waiter -> waiter.condition().test(sessionStatus))
+                .forEach(waiter -> waiter.result().complete(null));
+    }
+
+    /**
+     * @return number of signature and certificate sessions being waited for on this node
+     */
+    public int getAwaitedSessionCount() {
+        return waiters.size();
+    }
+
+    private record WaiterKey(CacheName cacheName, String sessionId, String entryId) {
+    }
+
+    private record Waiter(CompletableFuture<Void> result, Predicate<SessionStatus> condition) {
+    }
+}
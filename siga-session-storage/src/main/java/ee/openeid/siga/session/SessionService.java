@@ -1,5 +1,6 @@
 package ee.openeid.siga.session;
 
+import ee.openeid.siga.common.exception.ConcurrentSessionModificationException;
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.exception.ResourceNotFoundException;
 import ee.openeid.siga.common.session.CertificateSession;
@@ -8,74 +9,134 @@ import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.cache.CachePeekMode;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import javax.cache.Cache;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 @EnableConfigurationProperties({SessionConfigurationProperties.class})
 @RequiredArgsConstructor
 public class SessionService {
-    private final Ignite ignite;
+    private final SessionStore sessionStore;
     private final SessionConfigurationProperties sessionConfigurationProperties;
 
     public Session getContainer(String containerId) {
+        return getContainer(containerId, SessionPart.ALL);
+    }
+
+    /**
+     * Loads the container session with only the given parts. Other parts are loaded when they are first accessed.
+     */
+    public Session getContainer(String containerId, Set<SessionPart> parts) {
         String sessionId = getSessionId(containerId);
-        return getContainerBySessionId(sessionId);
+        return getContainerBySessionId(sessionId, parts);
     }
 
     public Session getContainerBySessionId(String sessionId) {
-        Session container = Optional.ofNullable(getContainerCache().get(sessionId))
+        return getContainerBySessionId(sessionId, SessionPart.ALL);
+    }
+
+    /**
+     * Loads the container session with only the given parts. Other parts are loaded when they are first accessed.
+     */
+    public Session getContainerBySessionId(String sessionId, Set<SessionPart> parts) {
+        Session container = sessionStore.findSession(sessionId, parts)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found"));
         log.debug("Found container with container ID [{}]", container.getSessionId());
-        container.setSignatureSessions(Optional
-                .ofNullable(getSignatureSessionCache().get(sessionId))
-                .orElseGet(HashMap::new));
-        container.setCertificateSessions(Optional
-                .ofNullable(getCertificateSessionCache().get(sessionId))
-                .orElseGet(HashMap::new));
         return container;
     }
 
+    /**
+     * Writes the container session if it has not been modified since it was read, and increments its version.
+     * Signature and certificate sessions are written together with the container session only when the session is
+     * created. Afterwards they are changed through the entry level methods of this service, so that concurrent
+     * signing flows and status polling of the same container do not overwrite each other.
+     * <p>
+     * Existing sessions should be modified with {@link #update(Session, Consumer)}, which retries the modification
+     * instead of failing the request when the session has been modified concurrently.
+     *
+     * @throws ConcurrentSessionModificationException if the session has been modified or removed since it was read
+     */
     public void update(Session session) {
-        getContainerCache().put(session.getSessionId(), session);
-        getSignatureSessionCache().put(session.getSessionId(), session.getSignatureSessions());
-        getCertificateSessionCache().put(session.getSessionId(), session.getCertificateSessions());
+        long expectedVersion = session.getVersion();
+        session.setVersion(expectedVersion + 1);
+        if (!sessionStore.writeSession(session, expectedVersion)) {
+            session.setVersion(expectedVersion);
+            throw new ConcurrentSessionModificationException("Session has been modified concurrently: " + session.getSessionId());
+        }
     }
 
-    public void removeByContainerId(String containerId) {
-        String sessionId = getSessionId(containerId);
-        removeBySessionId(sessionId);
+    /**
+     * Applies the modification to the session and writes it. If the session has been modified concurrently, the
+     * modification is applied to a freshly read session and written again, up to the configured number of attempts.
+     */
+    public void update(Session session, Consumer<Session> modification) {
+        Session currentSession = session;
+        for (int attempt = 1; ; attempt++) {
+            modification.accept(currentSession);
+            try {
+                update(currentSession);
+                return;
+            } catch (ConcurrentSessionModificationException e) {
+                if (attempt >= sessionConfigurationProperties.getSessionUpdateMaxAttempts()) {
+                    throw e;
+                }
+                log.debug("Retrying concurrently modified session update. Session id: {}, Attempt: {}",
+                        session.getSessionId(), attempt);
+                currentSession = getContainerBySessionId(session.getSessionId());
+            }
+        }
     }
 
-    public void removeBySessionId(String sessionId) {
-        getContainerCache().remove(sessionId);
-        getSignatureSessionCache().remove(sessionId);
-        getCertificateSessionCache().remove(sessionId);
+    public void addSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        sessionStore.putSignatureSession(sessionId, signatureId, signatureSession);
+    }
+
+    /**
+     * Replaces a single signature session of the given session without rewriting the container session.
+     *
+     * @return {@code true} if the signature session existed and was replaced, {@code false} otherwise
+     */
+    public boolean updateSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession) {
+        return sessionStore.replaceSignatureSession(sessionId, signatureId, signatureSession);
+    }
+
+    public void removeSignatureSession(String sessionId, String signatureId) {
+        sessionStore.removeSignatureSession(sessionId, signatureId);
     }
 
-    private Cache<String, Session> getContainerCache() {
-        return ignite.getOrCreateCache(CacheName.CONTAINER_SESSION.name());
+    public void addCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        sessionStore.putCertificateSession(sessionId, certificateId, certificateSession);
     }
 
-    private Cache<String, Map<String, SignatureSession>> getSignatureSessionCache() {
-        return ignite.getOrCreateCache(CacheName.SIGNATURE_SESSION.name());
+    /**
+     * Replaces a single certificate session of the given session without rewriting the container session.
+     *
+     * @return {@code true} if the certificate session existed and was replaced, {@code false} otherwise
+     */
+    public boolean updateCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession) {
+        return sessionStore.replaceCertificateSession(sessionId, certificateId, certificateSession);
     }
 
-    private Cache<String, Map<String, CertificateSession>> getCertificateSessionCache() {
-        return ignite.getOrCreateCache(CacheName.CERTIFICATE_SESSION.name());
+    public void removeCertificateSession(String sessionId, String certificateId) {
+        sessionStore.removeCertificateSession(sessionId, certificateId);
+    }
+
+    public void removeByContainerId(String containerId) {
+        String sessionId = getSessionId(containerId);
+        removeBySessionId(sessionId);
+    }
+
+    public void removeBySessionId(String sessionId) {
+        sessionStore.removeSession(sessionId);
     }
 
     public int getCacheSize() {
-        return ignite.cache(CacheName.CONTAINER_SESSION.name()).size(CachePeekMode.ALL);
+        return sessionStore.getSessionCount();
     }
 
     public String getSessionId(String containerId) {
@@ -0,0 +1,24 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Selects signature and certificate sessions by their processing status.
+ */
+public interface SessionStatusFilter {
+
+    boolean isApplicable(ProcessingStatus processingStatus, LocalDateTime processingStatusTimestamp, int processingCounter);
+
+    /**
+     * Allows the store to look up only the sessions that may be accepted, instead of all sessions with the given
+     * processing status.
+     *
+     * @return latest processing status timestamp that may be accepted for the given processing status, or
+     * {@code null} if sessions with the given processing status are never accepted
+     */
+    default LocalDateTime getLatestApplicableTimestamp(ProcessingStatus processingStatus) {
+        return LocalDateTime.MAX;
+    }
+}
@@ -0,0 +1,200 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.SessionStatus;
+import lombok.Value;
+import org.apache.ignite.binary.BinaryObject;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of signature and certificate sessions awaiting a status, so that the sessions due for status reprocessing can
+ * be looked up without scanning and deserializing all sessions.
+ * <p>
+ * Every index entry is a separate cache entry, keyed by its bucket and index entry ID. Buckets group index entries by
+ * session type, processing status, {@link SessionStatusPartitions partition} of the container session and processing
+ * status timestamp, spanning a minute. The IDs of the index entries of a bucket are kept in a bucket key set, and
+ * carry the processing status timestamp, so that a lookup reads the key sets of the buckets of the requested
+ * partitions up to the latest timestamp accepted by the status filter, and then only the index entries that are due.
+ * <p>
+ * A reference to the current index entry of every signature and certificate session is kept, so that the previous
+ * index entry is removed when the status of the session changes. Index entries whose session has been removed or
+ * whose removal has been missed are removed when they are looked up, and all keys expire after the configured
+ * retention.
+ */
+class SessionStatusIndex {
+    private static final long BUCKET_SECONDS = 60;
+    private static final String DELIMITER = ":";
+    private static final String BUCKET_KEY_SET_SUFFIX = DELIMITER + "keys";
+    private static final String REFERENCE_PREFIX = "current" + DELIMITER;
+    private static final String SESSION_STATUS_FIELD = "sessionStatus";
+
+    private SessionStatusIndex() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static boolean isIndexed(SessionStatus sessionStatus) {
+        return sessionStatus != null && sessionStatus.getProcessingStatus() != ProcessingStatus.RESULT;
+    }
+
+    /**
+     * @return key of the index entry of the signature or certificate session with the given status
+     */
+    static String getEntryKey(CacheName cacheName, String sessionId, String entryId, SessionStatus sessionStatus) {
+        LocalDateTime timestamp = sessionStatus.getProcessingStatusTimestamp();
+        String bucket = getBucket(cacheName, sessionStatus.getProcessingStatus(), SessionStatusPartitions.getPartition(sessionId),
+                toBucket(timestamp));
+        return bucket + DELIMITER + timestamp.toInstant(ZoneOffset.UTC).toEpochMilli() + DELIMITER + sessionId + DELIMITER + entryId;
+    }
+
+    /**
+     * @return key of the key set of the bucket the index entry belongs to
+     */
+    static String getBucketKeySetKey(String entryKey) {
+        return getBucketOf(entryKey) + BUCKET_KEY_SET_SUFFIX;
+    }
+
+    /**
+     * @return ID of the index entry in the key set of its bucket
+     */
+    static String getIndexEntryId(String entryKey) {
+        return entryKey.substring(getBucketOf(entryKey).length() + DELIMITER.length());
+    }
+
+    /**
+     * @return key of the reference to the current index entry of the signature or certificate session
+     */
+    static String getReferenceKey(CacheName cacheName, String sessionId, String entryId) {
+        return REFERENCE_PREFIX + cacheName.name() + DELIMITER + sessionId + DELIMITER + entryId;
+    }
+
+    /**
+     * @param retention how long index entries are retained, so that older buckets are not looked up
+     */
+    static Set<String> getDueBucketKeySetKeys(CacheName cacheName, SessionStatusFilter filter, Set<Integer> partitions,
+                                              Duration retention) {
+        LocalDateTime now = LocalDateTime.now();
+        long firstBucket = toBucket(now.minus(retention));
+        Set<String> bucketKeySetKeys = new HashSet<>();
+        for (ProcessingStatus processingStatus : ProcessingStatus.values()) {
+            LocalDateTime latestTimestamp = filter.getLatestApplicableTimestamp(processingStatus);
+            if (processingStatus == ProcessingStatus.RESULT || latestTimestamp == null) {
+                continue;
+            }
+            long lastBucket = toBucket(latestTimestamp.isAfter(now) ? now : latestTimestamp);
+            for (int partition : partitions) {
+                for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                    bucketKeySetKeys.add(getBucket(cacheName, processingStatus, partition, bucket) + BUCKET_KEY_SET_SUFFIX);
+                }
+            }
+        }
+        return bucketKeySetKeys;
+    }
+
+    /**
+     * @param bucketKeySets index entry IDs by bucket key set key
+     * @return keys of the index entries with a timestamp accepted by the filter, oldest first
+     */
+    static List<String> getDueEntryKeys(Map<String, ? extends Set<String>> bucketKeySets, SessionStatusFilter filter) {
+        List<DueEntryKey> dueEntryKeys = new ArrayList<>();
+        bucketKeySets.forEach((bucketKeySetKey, indexEntryIds) -> {
+            String bucket = bucketKeySetKey.substring(0, bucketKeySetKey.length() - BUCKET_KEY_SET_SUFFIX.length());
+            LocalDateTime latestTimestamp = filter.getLatestApplicableTimestamp(getProcessingStatusOf(bucket));
+            for (String indexEntryId : indexEntryIds) {
+                long timestamp = Long.parseLong(indexEntryId.substring(0, indexEntryId.indexOf(DELIMITER)));
+                if (latestTimestamp != null
+                        && !LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC).isAfter(latestTimestamp)) {
+                    dueEntryKeys.add(new DueEntryKey(bucket + DELIMITER + indexEntryId, timestamp));
+                }
+            }
+        });
+        return dueEntryKeys.stream()
+                .sorted(Comparator.comparingLong(DueEntryKey::timestamp))
+                .map(DueEntryKey::entryKey)
+                .toList();
+    }
+
+    /**
+     * @param indexEntries index entries by key
+     * @return index entries with status accepted by the filter, in the order of the given keys
+     */
+    static List<DueEntry> getDueEntries(List<String> entryKeys, Map<String, BinaryObject> indexEntries, SessionStatusFilter filter) {
+        List<DueEntry> dueEntries = new ArrayList<>();
+        for (String entryKey : entryKeys) {
+            BinaryObject binaryIndexEntry = indexEntries.get(entryKey);
+            if (binaryIndexEntry == null) {
+                continue;
+            }
+            IndexEntry indexEntry = binaryIndexEntry.deserialize();
+            SessionStatus sessionStatus = indexEntry.getSessionStatus();
+            if (filter.isApplicable(sessionStatus.getProcessingStatus(), sessionStatus.getProcessingStatusTimestamp(),
+                    sessionStatus.getProcessingCounter())) {
+                dueEntries.add(new DueEntry(entryKey, indexEntry.getSessionId(), indexEntry.getEntryId(), sessionStatus));
+            }
+        }
+        return dueEntries;
+    }
+
+    /**
+     * @param sessionEntries signature or certificate sessions by container session ID
+     * @return whether the signature or certificate session still has the status of the index entry
+     */
+    static boolean isCurrent(DueEntry dueEntry, Map<String, Map<String, BinaryObject>> sessionEntries) {
+        Map<String, BinaryObject> entries = sessionEntries.get(dueEntry.sessionId());
+        BinaryObject entry = entries == null ? null : entries.get(dueEntry.entryId());
+        if (entry == null) {
+            return false;
+        }
+        SessionStatus sessionStatus = entry.<BinaryObject>field(SESSION_STATUS_FIELD).deserialize();
+        return sessionStatus.getProcessingStatus() == dueEntry.sessionStatus().getProcessingStatus()
+                && sessionStatus.getProcessingStatusTimestamp().equals(dueEntry.sessionStatus().getProcessingStatusTimestamp());
+    }
+
+    private static String getBucket(CacheName cacheName, ProcessingStatus processingStatus, int partition, long bucket) {
+        return cacheName.name() + DELIMITER + processingStatus.name() + DELIMITER + partition + DELIMITER + bucket;
+    }
+
+    /**
+     * @return bucket of the index entry key, consisting of the first four parts of the key
+     */
+    private static String getBucketOf(String entryKey) {
+        int end = -1;
+        for (int i = 0; i < 4; i++) {
+            end = entryKey.indexOf(DELIMITER, end + 1);
+        }
+        return entryKey.substring(0, end);
+    }
+
+    private static ProcessingStatus getProcessingStatusOf(String bucket) {
+        return ProcessingStatus.valueOf(bucket.split(DELIMITER)[1]);
+    }
+
+    private static long toBucket(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), BUCKET_SECONDS);
+    }
+
+    /**
+     * Signature or certificate session of a container session, with its status when it was indexed.
+     */
+    @Value
+    static class IndexEntry {
+        String sessionId;
+        String entryId;
+        SessionStatus sessionStatus;
+    }
+
+    record DueEntry(String entryKey, String sessionId, String entryId, SessionStatus sessionStatus) {
+    }
+
+    private record DueEntryKey(String entryKey, long timestamp) {
+    }
+}
@@ -0,0 +1,50 @@
+package ee.openeid.siga.session;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Adds or removes an index entry ID in the key set of a session status index bucket in place on the node owning the
+ * bucket. A key set becoming empty is removed.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SessionStatusIndexKeySetProcessor implements CacheEntryProcessor<String, Set<String>, Void> {
+    private final String indexEntryId;
+    private final boolean added;
+
+    public static SessionStatusIndexKeySetProcessor add(String indexEntryId) {
+        return new SessionStatusIndexKeySetProcessor(indexEntryId, true);
+    }
+
+    public static SessionStatusIndexKeySetProcessor remove(String indexEntryId) {
+        return new SessionStatusIndexKeySetProcessor(indexEntryId, false);
+    }
+
+    @Override
+    public Void process(MutableEntry<String, Set<String>> entry, Object... arguments) {
+        Set<String> indexEntryIds = entry.exists() ? entry.getValue() : Set.of();
+        if (indexEntryIds.contains(indexEntryId) == added) {
+            return null;
+        }
+        Set<String> updatedIndexEntryIds = new HashSet<>(indexEntryIds);
+        if (added) {
+            updatedIndexEntryIds.add(indexEntryId);
+        } else {
+            updatedIndexEntryIds.remove(indexEntryId);
+        }
+        if (updatedIndexEntryIds.isEmpty()) {
+            entry.remove();
+        } else {
+            entry.setValue(updatedIndexEntryIds);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package ee.openeid.siga.session;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Divides container sessions into a fixed number of partitions, so that status reprocessing can be shared between
+ * SiGa nodes by assigning each partition to a single node.
+ */
+public class SessionStatusPartitions {
+    public static final int COUNT = 16;
+    public static final Set<Integer> ALL = IntStream.range(0, COUNT).boxed().collect(Collectors.toUnmodifiableSet());
+
+    private SessionStatusPartitions() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static int getPartition(String sessionId) {
+        return Math.floorMod(sessionId.hashCode(), COUNT);
+    }
+}
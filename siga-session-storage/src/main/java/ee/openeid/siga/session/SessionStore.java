@@ -0,0 +1,108 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SignatureSession;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage of container sessions together with their signature and certificate sessions.
+ * <p>
+ * Container sessions expire when they have not been accessed for the configured duration. Signature and certificate
+ * sessions expire when they have not been modified for the configured duration. Sessions returned by the store are
+ * copies, so modifying them does not affect the stored sessions before they are written.
+ */
+public interface SessionStore {
+
+    /**
+     * @return container session with its signature and certificate sessions, or empty if the session does not exist
+     */
+    default Optional<Session> findSession(String sessionId) {
+        return findSession(sessionId, SessionPart.ALL);
+    }
+
+    /**
+     * Loads the container session with the given parts. Parts that are not requested are loaded from the store when
+     * they are first accessed, so they may reflect a later state of the session than the requested parts.
+     *
+     * @return container session, or empty if the session does not exist
+     */
+    Optional<Session> findSession(String sessionId, Set<SessionPart> parts);
+
+    /**
+     * Writes the container session if the stored session still has the expected version. Signature and certificate
+     * sessions are written together with the container session only when the session is created (expected version 0).
+     *
+     * @return {@code true} if the session was written, {@code false} if the stored session has another version
+     */
+    boolean writeSession(Session session, long expectedVersion);
+
+    void removeSession(String sessionId);
+
+    int getSessionCount();
+
+    void putSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession);
+
+    /**
+     * @return {@code true} if the signature session existed and was replaced, {@code false} otherwise
+     */
+    boolean replaceSignatureSession(String sessionId, String signatureId, SignatureSession signatureSession);
+
+    void removeSignatureSession(String sessionId, String signatureId);
+
+    void putCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession);
+
+    /**
+     * @return {@code true} if the certificate session existed and was replaced, {@code false} otherwise
+     */
+    boolean replaceCertificateSession(String sessionId, String certificateId, CertificateSession certificateSession);
+
+    void removeCertificateSession(String sessionId, String certificateId);
+
+    /**
+     * Passes the IDs of sessions having at least one signature session with status accepted by the filter to the action.
+     */
+    default void forEachSessionIdWithSignatureStatus(SessionStatusFilter filter, Consumer<String> action) {
+        forEachSessionIdWithSignatureStatus(filter, SessionStatusPartitions.ALL, action);
+    }
+
+    /**
+     * Passes the IDs of sessions in the given {@link SessionStatusPartitions partitions} having at least one signature
+     * session with status accepted by the filter to the action.
+     */
+    void forEachSessionIdWithSignatureStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action);
+
+    /**
+     * Passes the IDs of sessions having at least one certificate session with status accepted by the filter to the action.
+     */
+    default void forEachSessionIdWithCertificateStatus(SessionStatusFilter filter, Consumer<String> action) {
+        forEachSessionIdWithCertificateStatus(filter, SessionStatusPartitions.ALL, action);
+    }
+
+    /**
+     * Passes the IDs of sessions in the given {@link SessionStatusPartitions partitions} having at least one
+     * certificate session with status accepted by the filter to the action.
+     */
+    void forEachSessionIdWithCertificateStatus(SessionStatusFilter filter, Set<Integer> partitions, Consumer<String> action);
+
+    /**
+     * Registers the SiGa node as taking part in status reprocessing, or extends its existing lease.
+     *
+     * @return IDs of all SiGa nodes with an unexpired lease, including the given node
+     */
+    Set<String> renewReprocessingLease(String nodeId, Duration leaseDuration);
+
+    void releaseReprocessingLease(String nodeId);
+
+    /**
+     * Acquires the lock with the given ID if it is not held by anyone else. The lock is released when it is closed,
+     * when the node holding it leaves the cluster or, depending on the store, when its lease expires.
+     *
+     * @return acquired lock, or empty if the lock is held by someone else
+     */
+    Optional<SessionLock> tryLock(String lockId);
+}
@@ -0,0 +1,17 @@
+package ee.openeid.siga.session;
+
+public enum SessionStoreType {
+    /**
+     * Sessions are stored in an external Ignite cluster, shared by all SiGa nodes.
+     */
+    IGNITE,
+    /**
+     * Sessions are stored in an external Ignite cluster, shared by all SiGa nodes, which connect to it with the Ignite
+     * thin client instead of joining the cluster.
+     */
+    IGNITE_THIN_CLIENT,
+    /**
+     * Sessions are stored in the memory of the SiGa node. Suitable for single node deployments only.
+     */
+    IN_MEMORY
+}
@@ -0,0 +1,42 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Writes the session parts on the primary node of the session key. The signature and certificate session parts are
+ * only written if they are present and the version check of the container session succeeds.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+public class SessionWriteJob implements IgniteCallable<Boolean> {
+    private final String sessionId;
+    private final long expectedVersion;
+    private final SessionParts sessionParts;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public Boolean call() {
+        Boolean updated = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .<String, BinaryObject>withKeepBinary()
+                .invoke(sessionId, new VersionedSessionUpdateProcessor(expectedVersion, sessionParts.getContainer()));
+        if (!Boolean.TRUE.equals(updated)) {
+            return false;
+        }
+        if (sessionParts.getSignatureSessions() != null) {
+            ignite.cache(CacheName.SIGNATURE_SESSION.name()).withKeepBinary()
+                    .put(sessionId, sessionParts.getSignatureSessions());
+        }
+        if (sessionParts.getCertificateSessions() != null) {
+            ignite.cache(CacheName.CERTIFICATE_SESSION.name()).withKeepBinary()
+                    .put(sessionId, sessionParts.getCertificateSessions());
+        }
+        return true;
+    }
+}
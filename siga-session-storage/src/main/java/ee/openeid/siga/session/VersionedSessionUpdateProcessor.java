@@ -0,0 +1,36 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+
+/**
+ * Replaces the container session only if the stored session still has the version the new session was derived from.
+ * A session that has been removed or expired meanwhile is only written again if it is created anew (expected version 0).
+ * Sessions stored without a version are treated as version 0.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+public class VersionedSessionUpdateProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+    static final String VERSION_FIELD = "version";
+    private final long expectedVersion;
+    private final BinaryObject session;
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        long storedVersion = 0;
+        if (entry.exists()) {
+            Long version = entry.getValue().field(VERSION_FIELD);
+            storedVersion = version == null ? 0 : version;
+        }
+        if (storedVersion != expectedVersion) {
+            return false;
+        }
+        entry.setValue(session);
+        return true;
+    }
+}
@@ -4,19 +4,29 @@ import ee.openeid.siga.auth.model.SigaService;
 import ee.openeid.siga.auth.repository.ConnectionRepository;
 import ee.openeid.siga.auth.repository.ServiceRepository;
 import ee.openeid.siga.session.CacheName;
+import ee.openeid.siga.session.ContainerCompressor;
+import ee.openeid.siga.session.IgniteThinClientSessionStore;
+import ee.openeid.siga.session.InMemorySessionStore;
+import ee.openeid.siga.session.SessionResultNotifier;
 import ee.openeid.siga.session.SessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.eviction.lru.LruEvictionPolicyFactory;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.apache.ignite.configuration.NearCacheConfiguration;
 import org.apache.ignite.events.CacheEvent;
 import org.apache.ignite.events.EventType;
 import org.apache.ignite.internal.binary.builder.BinaryObjectBuilderImpl;
 import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -27,6 +37,7 @@ import static org.apache.ignite.IgniteSystemProperties.IGNITE_NO_SHUTDOWN_HOOK;
 @Profile("!test")
 @SpringBootConfiguration
 @EnableConfigurationProperties({SessionConfigurationProperties.class})
+@EnableScheduling
 @RequiredArgsConstructor
 public class SessionConfiguration {
     private final SessionConfigurationProperties sessionConfigurationProperties;
@@ -34,15 +45,19 @@ public class SessionConfiguration {
     private final ServiceRepository serviceRepository;
 
     @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "siga.ignite", name = "session-store", havingValue = "IGNITE", matchIfMissing = true)
     public Ignite ignite() {
         System.setProperty(IGNITE_NO_SHUTDOWN_HOOK, "true"); // Graceful shutdown is controlled by SessionStatusService
         Ignition.setClientMode(true);
         Ignite ignite = Ignition.start(sessionConfigurationProperties.getConfigurationLocation());
+        if (sessionConfigurationProperties.isNearCacheEnabled()) {
+            startContainerNearCache(ignite, sessionConfigurationProperties.getNearCacheMaxSize());
+        }
 
         ignite.events(ignite.cluster().forCacheNodes(CacheName.CONTAINER_SESSION.name())).remoteListen((UUID uuid, CacheEvent event) -> {
             log.info(String.format("CACHE_OBJECT_EXPIRED event received: cacheName=%s, key=%s", event.cacheName(), event.key().toString()));
             if (CacheName.CONTAINER_SESSION.name().equals(event.cacheName())) {
-                removeContainerConnectionData((BinaryObject) event.oldValue());
+                removeContainerConnectionData(BinaryObjectBuilderImpl.wrap((BinaryObject) event.oldValue()).getField("sessionId"));
             }
             return true;
         }, null, EventType.EVT_CACHE_OBJECT_EXPIRED);
@@ -50,8 +65,43 @@ public class SessionConfiguration {
         return ignite;
     }
 
-    private void removeContainerConnectionData(BinaryObject sessionObject) {
-        String sessionId = BinaryObjectBuilderImpl.wrap(sessionObject).getField("sessionId");
+    @Bean
+    @ConditionalOnProperty(prefix = "siga.ignite", name = "session-store", havingValue = "IN_MEMORY")
+    public InMemorySessionStore inMemorySessionStore(SessionResultNotifier sessionResultNotifier) {
+        log.info("Storing sessions in memory. Sessions are not shared with other SiGa nodes");
+        return new InMemorySessionStore(sessionConfigurationProperties, this::removeContainerConnectionData,
+                sessionResultNotifier);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "siga.ignite", name = "session-store", havingValue = "IGNITE_THIN_CLIENT")
+    public IgniteClient igniteClient() {
+        ClientConfiguration clientConfiguration = new ClientConfiguration()
+                .setAddresses(sessionConfigurationProperties.getThinClientAddresses().toArray(String[]::new))
+                .setPartitionAwarenessEnabled(true);
+        return Ignition.startClient(clientConfiguration);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "siga.ignite", name = "session-store", havingValue = "IGNITE_THIN_CLIENT")
+    public IgniteThinClientSessionStore igniteThinClientSessionStore(IgniteClient igniteClient,
+                                                                     ContainerCompressor containerCompressor,
+                                                                     SessionResultNotifier sessionResultNotifier) {
+        return new IgniteThinClientSessionStore(igniteClient, sessionConfigurationProperties, containerCompressor,
+                this::removeContainerConnectionData, sessionResultNotifier);
+    }
+
+    /**
+     * Starts a bounded near cache of container sessions on the local client node. Must be called before the container
+     * session cache is otherwise accessed on this node.
+     */
+    public static void startContainerNearCache(Ignite ignite, int maxSize) {
+        ignite.getOrCreateNearCache(CacheName.CONTAINER_SESSION.name(), new NearCacheConfiguration<>()
+                .setNearEvictionPolicyFactory(new LruEvictionPolicyFactory<>(maxSize)));
+        log.info("Started container session near cache with max size {}", maxSize);
+    }
+
+    private void removeContainerConnectionData(String sessionId) {
         if (sessionId == null) {
             log.debug("Session with ID " + sessionId + " not found. No need to delete it.");
             return;
@@ -1,11 +1,23 @@
 package ee.openeid.siga.session.configuration;
 
+import ee.openeid.siga.session.SessionAccessMode;
+import ee.openeid.siga.session.SessionStoreType;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Getter
 @Setter
@@ -13,8 +25,50 @@ import jakarta.validation.constraints.NotBlank;
 @Validated
 @ConfigurationProperties(prefix = "siga.ignite")
 public class SessionConfigurationProperties {
-    @NotBlank(message = "siga.ignite.configuration-location propery must be set")
+    @NotNull(message = "siga.ignite.session-store property must be set")
+    private SessionStoreType sessionStore = SessionStoreType.IGNITE;
     private String configurationLocation;
     @NotBlank(message = "siga.ignite.application-cache-version propery must be set")
     private String applicationCacheVersion;
+    @NotNull(message = "siga.ignite.session-access-mode property must be set")
+    private SessionAccessMode sessionAccessMode = SessionAccessMode.PER_CACHE;
+    @Min(value = 1, message = "siga.ignite.session-update-max-attempts must be at least 1")
+    private int sessionUpdateMaxAttempts = 10;
+    private boolean nearCacheEnabled;
+    @Min(value = 1, message = "siga.ignite.near-cache-max-size must be at least 1")
+    private int nearCacheMaxSize = 1000;
+    private boolean containerCompressionEnabled;
+    @Min(value = 0, message = "siga.ignite.container-compression-threshold must not be negative")
+    private int containerCompressionThreshold = 16384;
+    @DecimalMin(value = "0.0", message = "siga.ignite.container-compression-max-ratio must be between 0 and 1")
+    @DecimalMax(value = "1.0", message = "siga.ignite.container-compression-max-ratio must be between 0 and 1")
+    private double containerCompressionMaxRatio = 0.9;
+    private boolean containerBlobStoreEnabled;
+    @NotNull(message = "siga.ignite.container-blob-release-grace-period property must be set")
+    private Duration containerBlobReleaseGracePeriod = Duration.ofSeconds(300);
+    @NotNull(message = "siga.ignite.in-memory-session-expiry property must be set")
+    private Duration inMemorySessionExpiry = Duration.ofSeconds(300);
+    @Min(value = 1, message = "siga.ignite.in-memory-max-sessions must be at least 1")
+    private int inMemoryMaxSessions = 10000;
+    private List<String> thinClientAddresses = new ArrayList<>();
+    @NotNull(message = "siga.ignite.lock-lease-duration property must be set")
+    private Duration lockLeaseDuration = Duration.ofSeconds(120);
+    @NotNull(message = "siga.ignite.session-status-index-retention property must be set")
+    private Duration sessionStatusIndexRetention = Duration.ofSeconds(300);
+
+    @AssertTrue(message = "siga.ignite.configuration-location propery must be set")
+    public boolean isConfigurationLocationSet() {
+        return sessionStore != SessionStoreType.IGNITE || StringUtils.isNotBlank(configurationLocation);
+    }
+
+    @AssertTrue(message = "siga.ignite.thin-client-addresses property must be set")
+    public boolean isThinClientAddressesSet() {
+        return sessionStore != SessionStoreType.IGNITE_THIN_CLIENT || !thinClientAddresses.isEmpty();
+    }
+
+    @AssertTrue(message = "COLOCATED session access mode, near cache and container blob store are not supported with IGNITE_THIN_CLIENT session store")
+    public boolean isThinClientCompatible() {
+        return sessionStore != SessionStoreType.IGNITE_THIN_CLIENT
+                || (sessionAccessMode == SessionAccessMode.PER_CACHE && !nearCacheEnabled && !containerBlobStoreEnabled);
+    }
 }
@@ -0,0 +1,87 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerCompressorTest {
+    private static final byte[] COMPRESSIBLE_CONTAINER = "<ds:Reference URI=\"test.txt\"/>".repeat(4000).getBytes(StandardCharsets.UTF_8);
+
+    private SessionConfigurationProperties sessionConfigurationProperties;
+    private ContainerCompressionMetrics compressionMetrics;
+    private ContainerCompressor containerCompressor;
+
+    @BeforeEach
+    void setUp() {
+        sessionConfigurationProperties = new SessionConfigurationProperties();
+        sessionConfigurationProperties.setContainerCompressionEnabled(true);
+        compressionMetrics = new ContainerCompressionMetrics();
+        containerCompressor = new ContainerCompressor(sessionConfigurationProperties, compressionMetrics);
+    }
+
+    @Test
+    void compressibleContainerIsCompressed() {
+        byte[] compressed = containerCompressor.compress(COMPRESSIBLE_CONTAINER);
+
+        assertNotNull(compressed);
+        assertTrue(compressed.length < COMPRESSIBLE_CONTAINER.length / 10);
+        assertArrayEquals(COMPRESSIBLE_CONTAINER, containerCompressor.decompress(compressed, COMPRESSIBLE_CONTAINER.length));
+        assertEquals(1, compressionMetrics.getCompressedWriteCount());
+        assertEquals((double) compressed.length / COMPRESSIBLE_CONTAINER.length, compressionMetrics.getCompressionRatio());
+    }
+
+    @Test
+    void containerIsNotCompressedWhenCompressionDisabled() {
+        sessionConfigurationProperties.setContainerCompressionEnabled(false);
+
+        assertNull(containerCompressor.compress(COMPRESSIBLE_CONTAINER));
+        assertEquals(0, compressionMetrics.getCompressedWriteCount());
+    }
+
+    @Test
+    void containerBelowThresholdIsNotCompressed() {
+        sessionConfigurationProperties.setContainerCompressionThreshold(COMPRESSIBLE_CONTAINER.length + 1);
+
+        assertNull(containerCompressor.compress(COMPRESSIBLE_CONTAINER));
+        assertEquals(0, compressionMetrics.getBypassedWriteCount());
+    }
+
+    @Test
+    void incompressibleContainerIsBypassed() {
+        assertNull(containerCompressor.compress(randomBytes(ContainerCompressor.SAMPLE_SIZE / 2)));
+        assertEquals(1, compressionMetrics.getBypassedWriteCount());
+    }
+
+    @Test
+    void largeIncompressibleContainerIsBypassedBySample() {
+        byte[] container = randomBytes(ContainerCompressor.SAMPLE_SIZE * 4);
+        System.arraycopy(COMPRESSIBLE_CONTAINER, 0, container, ContainerCompressor.SAMPLE_SIZE, COMPRESSIBLE_CONTAINER.length);
+
+        assertNull(containerCompressor.compress(container));
+        assertEquals(1, compressionMetrics.getBypassedWriteCount());
+    }
+
+    @Test
+    void decompressingWithWrongSizeThrows() {
+        byte[] compressed = containerCompressor.compress(COMPRESSIBLE_CONTAINER);
+
+        assertThrows(TechnicalException.class, () -> containerCompressor.decompress(compressed, COMPRESSIBLE_CONTAINER.length + 1));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(1).nextBytes(bytes);
+        return bytes;
+    }
+}
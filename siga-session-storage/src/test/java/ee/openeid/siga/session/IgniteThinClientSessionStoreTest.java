@@ -0,0 +1,226 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.cache.expiry.CreatedExpiryPolicy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = {IgniteConfiguration.class})
+@ActiveProfiles({"test"})
+class IgniteThinClientSessionStoreTest {
+    private final List<String> expiredSessionIds = new CopyOnWriteArrayList<>();
+    private final SessionResultNotifier sessionResultNotifier = new SessionResultNotifier();
+    private SessionConfigurationProperties sessionConfigurationProperties;
+    private IgniteClient igniteClient;
+    private IgniteThinClientSessionStore sessionStore;
+
+    @Autowired
+    private Ignite ignite;
+
+    @BeforeEach
+    void setUp() {
+        sessionConfigurationProperties = new SessionConfigurationProperties();
+        sessionConfigurationProperties.setContainerCompressionEnabled(true);
+        sessionConfigurationProperties.setLockLeaseDuration(Duration.ofMillis(500));
+        igniteClient = Ignition.startClient(new ClientConfiguration()
+                .setAddresses("127.0.0.1:10800..10809")
+                .setPartitionAwarenessEnabled(true));
+        sessionStore = new IgniteThinClientSessionStore(igniteClient, sessionConfigurationProperties,
+                new ContainerCompressor(sessionConfigurationProperties, new ContainerCompressionMetrics()), expiredSessionIds::add,
+                sessionResultNotifier);
+    }
+
+    @AfterEach
+    void tearDown() {
+        igniteClient.close();
+    }
+
+    @Test
+    void writtenSessionFoundWithCompressedContainer() {
+        byte[] container = "<ds:Reference URI=\"test.txt\"/>".repeat(4000).getBytes(StandardCharsets.UTF_8);
+        AsicContainerSession session = AsicContainerSession.builder()
+                .sessionId("v1_user_name_" + UUIDGenerator.generateUUID())
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .containerName("test.asice")
+                .container(container)
+                .build();
+        session.addSignatureSession("signatureId", SignatureSession.builder().dataFilesHash("hash").build());
+        assertTrue(sessionStore.writeSession(session, 0));
+
+        AsicContainerSession foundSession = (AsicContainerSession) sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertArrayEquals(container, foundSession.getContainer());
+        assertEquals("hash", foundSession.getSignatureSession("signatureId").getDataFilesHash());
+    }
+
+    @Test
+    void unrequestedPartsLoadedOnFirstAccess() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+
+        Session foundSession = sessionStore.findSession(session.getSessionId(), Set.of(SessionPart.CONTAINER)).orElseThrow();
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build());
+
+        assertEquals(1, foundSession.getSignatureSessions().size());
+    }
+
+    @Test
+    void sessionWrittenOnlyWithExpectedVersion() {
+        Session session = createSession();
+        session.setVersion(1);
+        assertTrue(sessionStore.writeSession(session, 0));
+        assertFalse(sessionStore.writeSession(session, 0));
+
+        session.setVersion(2);
+        assertFalse(sessionStore.writeSession(session, 2));
+        assertTrue(sessionStore.writeSession(session, 1));
+        assertEquals(2, sessionStore.findSession(session.getSessionId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void sessionEntriesUpdated() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+
+        assertFalse(sessionStore.replaceCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build()));
+        sessionStore.putCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build());
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build());
+        assertTrue(sessionStore.replaceCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().sessionCode("code").build()));
+        assertEquals("code", sessionStore.findSession(session.getSessionId()).orElseThrow().getCertificateSession("certificateId").getSessionCode());
+
+        sessionStore.removeCertificateSession(session.getSessionId(), "certificateId");
+        Session foundSession = sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertNull(foundSession.getCertificateSession("certificateId"));
+        assertEquals(1, foundSession.getSignatureSessions().size());
+    }
+
+    @Test
+    void sessionIdsFoundByStatus() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(ProcessingStatus.EXCEPTION);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus(
+                (status, timestamp, counter) -> status == ProcessingStatus.EXCEPTION && counter == 1, sessionIds::add);
+
+        assertTrue(sessionIds.contains(session.getSessionId()));
+    }
+
+    @Test
+    void sessionIdNotFoundByPreviousStatus() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(ProcessingStatus.EXCEPTION);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+        sessionStore.replaceSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus((status, timestamp, counter) -> true, sessionIds::add);
+
+        assertFalse(sessionIds.contains(session.getSessionId()));
+    }
+
+    @Test
+    void lockHeldUntilClosedOrLeaseExpired() throws InterruptedException {
+        String lockId = UUIDGenerator.generateUUID();
+        Optional<SessionLock> lock = sessionStore.tryLock(lockId);
+        assertTrue(lock.isPresent());
+        assertTrue(sessionStore.tryLock(lockId).isEmpty());
+        lock.get().close();
+
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+    }
+
+    @Test
+    void lockLeaseExtendedWhenRenewed() throws InterruptedException {
+        String lockId = UUIDGenerator.generateUUID();
+        SessionLock lock = sessionStore.tryLock(lockId).orElseThrow();
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertTrue(lock.renew());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertTrue(sessionStore.tryLock(lockId).isEmpty());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertFalse(lock.renew());
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+    }
+
+    @Test
+    void awaitedSignatureResultReceived() throws Exception {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        CompletableFuture<Void> result = sessionResultNotifier.awaitResult(CacheName.SIGNATURE_SESSION,
+                session.getSessionId(), "signatureId", sessionStatus -> true);
+
+        signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+        sessionStore.replaceSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+
+        result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void expiredSessionReportedToListener() throws InterruptedException {
+        Session session = createSession();
+        ignite.<String, Session>cache(CacheName.CONTAINER_SESSION.name())
+                .withExpiryPolicy(new CreatedExpiryPolicy(new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, 200)))
+                .put(session.getSessionId(), session);
+
+        for (int i = 0; i < 50 && !expiredSessionIds.contains(session.getSessionId()); i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        assertTrue(expiredSessionIds.contains(session.getSessionId()));
+    }
+
+    private static Session createSession() {
+        return HashcodeContainerSession.builder()
+                .sessionId("v1_user_name_" + UUIDGenerator.generateUUID())
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .dataFiles(Collections.emptyList())
+                .build();
+    }
+}
@@ -0,0 +1,293 @@
+package ee.openeid.siga.session;
+
+import com.google.common.base.Ticker;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemorySessionStoreTest {
+    private final AtomicLong currentNanos = new AtomicLong();
+    private final List<String> expiredSessionIds = new ArrayList<>();
+    private final SessionResultNotifier sessionResultNotifier = new SessionResultNotifier();
+    private SessionConfigurationProperties sessionConfigurationProperties;
+    private InMemorySessionStore sessionStore;
+
+    @BeforeEach
+    void setUp() {
+        sessionConfigurationProperties = new SessionConfigurationProperties();
+        sessionConfigurationProperties.setInMemorySessionExpiry(Duration.ofSeconds(300));
+        sessionConfigurationProperties.setInMemoryMaxSessions(2);
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return currentNanos.get();
+            }
+        };
+        sessionStore = new InMemorySessionStore(sessionConfigurationProperties, expiredSessionIds::add, sessionResultNotifier, ticker);
+    }
+
+    @Test
+    void writtenSessionFoundAsCopy() {
+        Session session = createSession();
+        session.addSignatureSession("signatureId", SignatureSession.builder().dataFilesHash("hash").build());
+        session.setVersion(1);
+        assertTrue(sessionStore.writeSession(session, 0));
+
+        Session foundSession = sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertEquals(1, foundSession.getVersion());
+        assertEquals("hash", foundSession.getSignatureSession("signatureId").getDataFilesHash());
+        foundSession.addCertificate("document", null);
+        foundSession.getSignatureSession("signatureId").setDataFilesHash("changed");
+
+        Session foundAgain = sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertNull(foundAgain.getCertificate("document"));
+        assertEquals("hash", foundAgain.getSignatureSession("signatureId").getDataFilesHash());
+    }
+
+    @Test
+    void containerCopiedWhenWrittenAndFound() {
+        byte[] container = "container".getBytes(StandardCharsets.UTF_8);
+        Session session = AsicContainerSession.builder()
+                .sessionId("v1_user_name_" + UUIDGenerator.generateUUID())
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .containerName("test.asice")
+                .container(container)
+                .build();
+        sessionStore.writeSession(session, 0);
+        container[0] = 'X';
+
+        AsicContainerSession foundSession = (AsicContainerSession) sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertArrayEquals("container".getBytes(StandardCharsets.UTF_8), foundSession.getContainer());
+        foundSession.getContainer()[0] = 'X';
+
+        AsicContainerSession foundAgain = (AsicContainerSession) sessionStore.findSession(session.getSessionId()).orElseThrow();
+        assertArrayEquals("container".getBytes(StandardCharsets.UTF_8), foundAgain.getContainer());
+        assertEquals("test.asice", foundAgain.getContainerName());
+    }
+
+    @Test
+    void sessionNotWrittenWithUnexpectedVersion() {
+        Session session = createSession();
+        session.setVersion(1);
+        sessionStore.writeSession(session, 0);
+
+        session.setVersion(3);
+        assertFalse(sessionStore.writeSession(session, 2));
+        assertFalse(sessionStore.writeSession(session, 0));
+        assertEquals(1, sessionStore.findSession(session.getSessionId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void containerSessionExpiresWhenNotAccessed() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+
+        advanceSeconds(200);
+        assertTrue(sessionStore.findSession(session.getSessionId()).isPresent());
+        advanceSeconds(200);
+        assertTrue(sessionStore.findSession(session.getSessionId()).isPresent());
+        advanceSeconds(301);
+        sessionStore.cleanUp();
+
+        assertTrue(sessionStore.findSession(session.getSessionId()).isEmpty());
+        assertEquals(List.of(session.getSessionId()), expiredSessionIds);
+    }
+
+    @Test
+    void expiredSessionsEvictedByCleanUp() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build());
+
+        advanceSeconds(301);
+        sessionStore.cleanUp();
+
+        assertEquals(0, sessionStore.getSessionCount());
+        assertEquals(List.of(session.getSessionId()), expiredSessionIds);
+    }
+
+    @Test
+    void signatureSessionExpiresWhenNotModified() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build());
+
+        advanceSeconds(200);
+        assertEquals(1, sessionStore.findSession(session.getSessionId()).orElseThrow().getSignatureSessions().size());
+        advanceSeconds(200);
+
+        assertTrue(sessionStore.findSession(session.getSessionId()).orElseThrow().getSignatureSessions().isEmpty());
+    }
+
+    @Test
+    void leastRecentlyUsedSessionEvictedWhenMaxSessionsReached() {
+        Session firstSession = createSession();
+        Session secondSession = createSession();
+        Session thirdSession = createSession();
+        sessionStore.writeSession(firstSession, 0);
+        sessionStore.writeSession(secondSession, 0);
+        sessionStore.findSession(firstSession.getSessionId());
+
+        sessionStore.writeSession(thirdSession, 0);
+
+        assertEquals(2, sessionStore.getSessionCount());
+        assertTrue(sessionStore.findSession(secondSession.getSessionId()).isEmpty());
+        assertEquals(List.of(secondSession.getSessionId()), expiredSessionIds);
+    }
+
+    @Test
+    void missingEntryNotReplaced() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+
+        assertFalse(sessionStore.replaceSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build()));
+        assertFalse(sessionStore.replaceCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build()));
+        sessionStore.putCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build());
+        assertTrue(sessionStore.replaceCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().sessionCode("code").build()));
+        assertEquals("code", sessionStore.findSession(session.getSessionId()).orElseThrow().getCertificateSession("certificateId").getSessionCode());
+
+        sessionStore.removeCertificateSession(session.getSessionId(), "certificateId");
+        assertNull(sessionStore.findSession(session.getSessionId()).orElseThrow().getCertificateSession("certificateId"));
+    }
+
+    @Test
+    void sessionIdsFoundByStatus() {
+        Session session = createSession();
+        Session otherSession = createSession();
+        sessionStore.writeSession(session, 0);
+        sessionStore.writeSession(otherSession, 0);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(ProcessingStatus.EXCEPTION);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        sessionStore.putSignatureSession(otherSession.getSessionId(), "signatureId", SignatureSession.builder().build());
+        sessionStore.putCertificateSession(otherSession.getSessionId(), "certificateId", CertificateSession.builder().build());
+
+        List<String> signatureSessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus(
+                (status, timestamp, counter) -> status == ProcessingStatus.EXCEPTION && counter == 1, signatureSessionIds::add);
+        List<String> certificateSessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithCertificateStatus(
+                (status, timestamp, counter) -> status == ProcessingStatus.PROCESSING, certificateSessionIds::add);
+
+        assertEquals(List.of(session.getSessionId()), signatureSessionIds);
+        assertEquals(List.of(otherSession.getSessionId()), certificateSessionIds);
+    }
+
+    @Test
+    void sessionIdsFoundByStatusInRequestedPartitionsOnly() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(ProcessingStatus.EXCEPTION);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        int partition = SessionStatusPartitions.getPartition(session.getSessionId());
+
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus((status, timestamp, counter) -> true,
+                Set.of((partition + 1) % SessionStatusPartitions.COUNT), sessionIds::add);
+        assertTrue(sessionIds.isEmpty());
+
+        sessionStore.forEachSessionIdWithSignatureStatus((status, timestamp, counter) -> true, Set.of(partition), sessionIds::add);
+        assertEquals(List.of(session.getSessionId()), sessionIds);
+    }
+
+    @Test
+    void awaitedResultsReceived() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", SignatureSession.builder().build());
+        sessionStore.putCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build());
+        CompletableFuture<Void> signatureResult = sessionResultNotifier.awaitResult(CacheName.SIGNATURE_SESSION,
+                session.getSessionId(), "signatureId", sessionStatus -> true);
+        CompletableFuture<Void> certificateResult = sessionResultNotifier.awaitResult(CacheName.CERTIFICATE_SESSION,
+                session.getSessionId(), "certificateId", sessionStatus -> true);
+
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(ProcessingStatus.EXCEPTION);
+        sessionStore.replaceSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        sessionStore.replaceCertificateSession(session.getSessionId(), "certificateId", CertificateSession.builder().build());
+
+        assertTrue(signatureResult.isDone());
+        assertFalse(certificateResult.isDone());
+        assertEquals(1, sessionResultNotifier.getAwaitedSessionCount());
+    }
+
+    @Test
+    void lockHeldUntilClosed() {
+        Optional<SessionLock> lock = sessionStore.tryLock("signatureId");
+        assertTrue(lock.isPresent());
+        assertTrue(sessionStore.tryLock("signatureId").isEmpty());
+        assertTrue(sessionStore.tryLock("otherSignatureId").isPresent());
+
+        lock.get().close();
+
+        assertTrue(sessionStore.tryLock("signatureId").isPresent());
+    }
+
+    @Test
+    void lockReleasedWhenLeaseExpires() {
+        SessionLock lock = sessionStore.tryLock("signatureId").orElseThrow();
+
+        advanceSeconds(100);
+        assertTrue(lock.renew());
+        advanceSeconds(100);
+        assertTrue(sessionStore.tryLock("signatureId").isEmpty());
+        advanceSeconds(21);
+
+        SessionLock otherLock = sessionStore.tryLock("signatureId").orElseThrow();
+        assertFalse(lock.renew());
+        lock.close();
+        assertTrue(sessionStore.tryLock("signatureId").isEmpty());
+        assertTrue(otherLock.renew());
+    }
+
+    @Test
+    void removedSessionNotFound() {
+        Session session = createSession();
+        sessionStore.writeSession(session, 0);
+
+        sessionStore.removeSession(session.getSessionId());
+
+        assertTrue(sessionStore.findSession(session.getSessionId()).isEmpty());
+        assertTrue(expiredSessionIds.isEmpty());
+    }
+
+    private void advanceSeconds(long seconds) {
+        currentNanos.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    private static Session createSession() {
+        return HashcodeContainerSession.builder()
+                .sessionId("v1_user_name_" + UUIDGenerator.generateUUID())
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .dataFiles(Collections.emptyList())
+                .build();
+    }
+}
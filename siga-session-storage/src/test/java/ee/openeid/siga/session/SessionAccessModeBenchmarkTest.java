@@ -0,0 +1,125 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the latency of reading a container session with its signature and certificate sessions, as every status
+ * request does, in {@code PER_CACHE} and {@code COLOCATED} session access modes. Sessions are read from a client node
+ * of a single server node cluster running in the same JVM, so the round trips go over the loopback interface.
+ * <p>
+ * Run with {@code mvn test -pl siga-session-storage -am -Dtest=SessionAccessModeBenchmarkTest -Dsiga.benchmark=true}.
+ */
+@Slf4j
+@SpringBootTest(classes = {IgniteConfiguration.class})
+@ActiveProfiles({"test"})
+@EnabledIfSystemProperty(named = "siga.benchmark", matches = "true")
+class SessionAccessModeBenchmarkTest {
+    private static final int SESSIONS = 500;
+    private static final int READS_PER_SESSION = 10;
+
+    @Autowired
+    private Ignite ignite;
+    private Ignite clientIgnite;
+
+    @BeforeEach
+    void setUp() {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+        ipFinder.setAddresses(List.of("127.0.0.1:47500..47509"));
+        clientIgnite = Ignition.start(new org.apache.ignite.configuration.IgniteConfiguration()
+                .setIgniteInstanceName("siga-ignite-benchmark-client")
+                .setClientMode(true)
+                .setDiscoverySpi(new TcpDiscoverySpi().setIpFinder(ipFinder)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientIgnite.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SessionAccessMode.class)
+    void readSessionLatency(SessionAccessMode sessionAccessMode) {
+        SessionConfigurationProperties sessionConfigurationProperties = new SessionConfigurationProperties();
+        sessionConfigurationProperties.setSessionAccessMode(sessionAccessMode);
+        IgniteSessionStore sessionStore = new IgniteSessionStore(clientIgnite, sessionConfigurationProperties,
+                new SessionNearCacheMetrics(), new ContainerCompressor(sessionConfigurationProperties, new ContainerCompressionMetrics()),
+                new SessionResultNotifier());
+        try {
+            SessionService sessionService = new SessionService(sessionStore, sessionConfigurationProperties);
+            List<String> sessionIds = IntStream.range(0, SESSIONS)
+                    .mapToObj(i -> createSession(sessionService))
+                    .toList();
+
+            readSessions(sessionService, sessionIds); // Warm-up
+            long[] latencies = readSessions(sessionService, sessionIds);
+
+            Arrays.sort(latencies);
+            log.info("{} session reads in {} mode: p50 {} ms, p99 {} ms, max {} ms", latencies.length, sessionAccessMode,
+                    percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1] / 1_000_000.0);
+            assertEquals(SESSIONS * READS_PER_SESSION, latencies.length);
+        } finally {
+            sessionStore.onDestroy();
+        }
+    }
+
+    private static String createSession(SessionService sessionService) {
+        String sessionId = "v1_benchmark_" + UUIDGenerator.generateUUID();
+        Session session = HashcodeContainerSession.builder()
+                .sessionId(sessionId)
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .dataFiles(Collections.emptyList())
+                .signatures(Collections.emptyList())
+                .build();
+        session.addSignatureSession(UUIDGenerator.generateUUID(), SignatureSession.builder().build());
+        sessionService.update(session);
+        return sessionId;
+    }
+
+    /**
+     * @return latency of every read in nanoseconds
+     */
+    private static long[] readSessions(SessionService sessionService, List<String> sessionIds) {
+        long[] latencies = new long[sessionIds.size() * READS_PER_SESSION];
+        int i = 0;
+        for (int read = 0; read < READS_PER_SESSION; read++) {
+            for (String sessionId : sessionIds) {
+                long start = System.nanoTime();
+                Session session = sessionService.getContainerBySessionId(sessionId);
+                latencies[i++] = System.nanoTime() - start;
+                assertEquals(1, session.getSignatureSessions().size());
+            }
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sortedLatencies, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+    }
+}
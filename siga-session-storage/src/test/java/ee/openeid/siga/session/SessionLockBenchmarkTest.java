@@ -0,0 +1,96 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteSemaphore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the throughput of status polling locks acquired as lease entries of the {@code SESSION_LOCK} cache with
+ * locks acquired as Ignite semaphores, as they were acquired before. Every signing session takes the lock of its
+ * signature a number of times, as status polling does.
+ * <p>
+ * Run with {@code mvn test -pl siga-session-storage -am -Dtest=SessionLockBenchmarkTest -Dsiga.benchmark=true}.
+ */
+@Slf4j
+@SpringBootTest(classes = {IgniteConfiguration.class})
+@ActiveProfiles({"test"})
+@EnabledIfSystemProperty(named = "siga.benchmark", matches = "true")
+class SessionLockBenchmarkTest {
+    private static final int SIGNING_SESSIONS = 5000;
+    private static final int POLLS_PER_SESSION = 4;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private Ignite ignite;
+
+    @Test
+    void leaseLockThroughput() throws Exception {
+        IgniteSessionStore sessionStore = new IgniteSessionStore(ignite, new SessionConfigurationProperties(),
+                new SessionNearCacheMetrics(), new ContainerCompressor(new SessionConfigurationProperties(), new ContainerCompressionMetrics()),
+                new SessionResultNotifier());
+        runBenchmark("SESSION_LOCK lease", sessionStore::tryLock);
+    }
+
+    @Test
+    void semaphoreLockThroughput() throws Exception {
+        runBenchmark("IgniteSemaphore", lockId -> {
+            IgniteSemaphore semaphore = ignite.semaphore(lockId, 1, true, true);
+            return semaphore.tryAcquire() ? Optional.of(SessionLock.of(() -> true, semaphore::close)) : Optional.empty();
+        });
+    }
+
+    private void runBenchmark(String lockType, Function<String, Optional<SessionLock>> tryLock) throws Exception {
+        List<String> lockIds = IntStream.range(0, SIGNING_SESSIONS).mapToObj(i -> UUIDGenerator.generateUUID()).toList();
+        runPolls(lockIds, 1, tryLock); // Warm-up
+        long start = System.nanoTime();
+        int acquired = runPolls(lockIds, POLLS_PER_SESSION, tryLock);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        log.info("{}: {} lock acquire/release cycles of {} signing sessions with {} threads in {} ms ({} per second)",
+                lockType, acquired, SIGNING_SESSIONS, THREADS, elapsedMillis, acquired * 1000L / elapsedMillis);
+        assertEquals(SIGNING_SESSIONS * POLLS_PER_SESSION, acquired);
+    }
+
+    private static int runPolls(List<String> lockIds, int pollsPerSession,
+                                Function<String, Optional<SessionLock>> tryLock) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger acquired = new AtomicInteger();
+        try {
+            List<Future<?>> polls = lockIds.stream()
+                    .<Future<?>>map(lockId -> executor.submit(() -> {
+                        for (int poll = 0; poll < pollsPerSession; poll++) {
+                            Optional<SessionLock> lock = tryLock.apply(lockId);
+                            if (lock.isPresent()) {
+                                acquired.incrementAndGet();
+                                lock.get().close();
+                            }
+                        }
+                    }))
+                    .toList();
+            for (Future<?> poll : polls) {
+                poll.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return acquired.get();
+    }
+}
@@ -2,12 +2,28 @@ package ee.openeid.siga.session;
 
 
 import ee.openeid.siga.common.auth.SigaUserDetails;
+import ee.openeid.siga.common.exception.ConcurrentSessionModificationException;
 import ee.openeid.siga.common.exception.ResourceNotFoundException;
+import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfiguration;
 import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,25 +34,56 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+@Slf4j
 @SpringBootTest(classes = {IgniteConfiguration.class})
 @ActiveProfiles({"test"})
 public class SessionServiceTest {
     private SessionService sessionService;
+    private IgniteSessionStore sessionStore;
+    private SessionConfigurationProperties sessionConfigurationProperties;
+    private ContainerCompressionMetrics compressionMetrics;
+    private SessionResultNotifier sessionResultNotifier;
 
     @Autowired
     private Ignite ignite;
 
     @BeforeEach
     public void setUp() {
-        SessionConfigurationProperties sessionConfigurationProperties = new SessionConfigurationProperties();
+        sessionConfigurationProperties = new SessionConfigurationProperties();
         sessionConfigurationProperties.setApplicationCacheVersion("v1");
-        sessionService = new SessionService(ignite, sessionConfigurationProperties);
+        compressionMetrics = new ContainerCompressionMetrics();
+        sessionResultNotifier = new SessionResultNotifier();
+        sessionStore = new IgniteSessionStore(ignite, sessionConfigurationProperties, new SessionNearCacheMetrics(),
+                new ContainerCompressor(sessionConfigurationProperties, compressionMetrics), sessionResultNotifier);
+        sessionService = new SessionService(sessionStore, sessionConfigurationProperties);
         Authentication authentication = Mockito.mock(Authentication.class);
         SecurityContext securityContext = Mockito.mock(SecurityContext.class);
         when(securityContext.getAuthentication()).thenReturn(authentication);
@@ -45,6 +92,11 @@ public class SessionServiceTest {
         when(SecurityContextHolder.getContext().getAuthentication().getName()).thenReturn("user_name");
     }
 
+    @AfterEach
+    public void tearDown() {
+        sessionStore.onDestroy();
+    }
+
     @Test
     public void noContainerInSession() {
         assertThrows(
@@ -64,6 +116,443 @@ public class SessionServiceTest {
         assertEquals("v1_user_name_" + containerId, session.getSessionId());
     }
 
+    @Test
+    public void noContainerInSessionWithColocatedAccessMode() {
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.COLOCATED);
+        assertThrows(
+                ResourceNotFoundException.class,
+                () -> sessionService.getContainer(UUIDGenerator.generateUUID())
+        );
+    }
+
+    @Test
+    public void containerInsertedAndFoundWithColocatedAccessMode() {
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.COLOCATED);
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        insertedSession.addSignatureSession("signatureId", SignatureSession.builder()
+                .signingType(SigningType.SMART_ID)
+                .sessionCode("signatureSessionCode")
+                .dataFilesHash("dataFilesHash")
+                .build());
+        insertedSession.addCertificateSession("certificateId", CertificateSession.builder()
+                .sessionCode("certificateSessionCode")
+                .build());
+        sessionService.update(insertedSession);
+
+        Session session = sessionService.getContainer(containerId);
+        assertEquals("Client_name", session.getClientName());
+        assertEquals("v1_user_name_" + containerId, session.getSessionId());
+        assertEquals(SigningType.SMART_ID, session.getSignatureSession("signatureId").getSigningType());
+        assertEquals("signatureSessionCode", session.getSignatureSession("signatureId").getSessionCode());
+        assertEquals("certificateSessionCode", session.getCertificateSession("certificateId").getSessionCode());
+    }
+
+    @Test
+    public void containerInsertedWithColocatedAccessModeAndFoundPerCache() {
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.COLOCATED);
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        insertedSession.addSignatureSession("signatureId", SignatureSession.builder()
+                .sessionCode("signatureSessionCode")
+                .dataFilesHash("dataFilesHash")
+                .build());
+        sessionService.update(insertedSession);
+
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.PER_CACHE);
+        Session session = sessionService.getContainer(containerId);
+        assertEquals("signatureSessionCode", session.getSignatureSession("signatureId").getSessionCode());
+        assertEquals(0, session.getCertificateSessions().size());
+    }
+
+    @Test
+    public void signatureSessionUpdatedWithoutRewritingContainer() {
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        insertedSession.addSignatureSession("signatureId", SignatureSession.builder()
+                .sessionCode("signatureSessionCode")
+                .dataFilesHash("dataFilesHash")
+                .build());
+        sessionService.update(insertedSession);
+        SignatureSession signatureSession = insertedSession.getSignatureSession("signatureId");
+        signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+        signatureSession.getSessionStatus().setStatus("SIGNATURE");
+
+        assertTrue(sessionService.updateSignatureSession(insertedSession.getSessionId(), "signatureId", signatureSession));
+
+        SessionStatus sessionStatus = sessionService.getContainer(containerId).getSignatureSessionStatus("signatureId");
+        assertEquals(ProcessingStatus.RESULT, sessionStatus.getProcessingStatus());
+        assertEquals("SIGNATURE", sessionStatus.getStatus());
+    }
+
+    @Test
+    public void removedSignatureSessionNotRecreatedByUpdate() {
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        sessionService.update(insertedSession);
+
+        assertFalse(sessionService.updateSignatureSession(insertedSession.getSessionId(), "signatureId",
+                SignatureSession.builder().dataFilesHash("dataFilesHash").build()));
+
+        assertNull(sessionService.getContainer(containerId).getSignatureSession("signatureId"));
+    }
+
+    @Test
+    public void certificateSessionUpdatedWithoutRewritingContainer() {
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        insertedSession.addCertificateSession("certificateId", CertificateSession.builder()
+                .sessionCode("certificateSessionCode")
+                .build());
+        sessionService.update(insertedSession);
+        CertificateSession certificateSession = insertedSession.getCertificateSession("certificateId");
+        certificateSession.setDocumentNumber("PNOEE-30303039914-MOCK-Q");
+
+        assertTrue(sessionService.updateCertificateSession(insertedSession.getSessionId(), "certificateId", certificateSession));
+
+        assertEquals("PNOEE-30303039914-MOCK-Q",
+                sessionService.getContainer(containerId).getCertificateSession("certificateId").getDocumentNumber());
+    }
+
+    @Test
+    public void staleSessionUpdateThrowsConcurrentSessionModificationException() {
+        String containerId = UUIDGenerator.generateUUID();
+        sessionService.update(createDefaultSession(containerId));
+        Session session = sessionService.getContainer(containerId);
+        Session staleSession = sessionService.getContainer(containerId);
+
+        sessionService.update(session);
+
+        assertThrows(ConcurrentSessionModificationException.class, () -> sessionService.update(staleSession));
+        assertEquals(1, staleSession.getVersion());
+        assertEquals(2, sessionService.getContainer(containerId).getVersion());
+    }
+
+    @Test
+    public void staleSessionUpdateRetriedWithCurrentSession() {
+        String containerId = UUIDGenerator.generateUUID();
+        sessionService.update(createDefaultSession(containerId));
+        Session staleSession = sessionService.getContainer(containerId);
+        sessionService.update(sessionService.getContainer(containerId),
+                session -> session.addCertificate("document1", null));
+
+        sessionService.update(staleSession, session -> session.addCertificate("document2", null));
+
+        HashcodeContainerSession session = (HashcodeContainerSession) sessionService.getContainer(containerId);
+        assertEquals(Set.of("document1", "document2"), session.getCertificateHolder().keySet());
+        assertEquals(3, session.getVersion());
+    }
+
+    @Test
+    public void concurrentSignaturesOnSingleContainerWithPerCacheAccessMode() throws Exception {
+        assertConcurrentSignaturesOnSingleContainer(SessionAccessMode.PER_CACHE);
+    }
+
+    @Test
+    public void concurrentSignaturesOnSingleContainerWithColocatedAccessMode() throws Exception {
+        assertConcurrentSignaturesOnSingleContainer(SessionAccessMode.COLOCATED);
+    }
+
+    @Test
+    public void containerReadFromNearCacheOnClientNode() {
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        sessionService.update(insertedSession);
+
+        try (Ignite clientIgnite = startClientNode()) {
+            SessionConfigurationProperties clientConfigurationProperties = new SessionConfigurationProperties();
+            clientConfigurationProperties.setApplicationCacheVersion("v1");
+            clientConfigurationProperties.setNearCacheEnabled(true);
+            SessionConfiguration.startContainerNearCache(clientIgnite, 10);
+            SessionNearCacheMetrics nearCacheMetrics = new SessionNearCacheMetrics();
+            SessionService clientSessionService = new SessionService(new IgniteSessionStore(clientIgnite, clientConfigurationProperties,
+                    nearCacheMetrics, new ContainerCompressor(clientConfigurationProperties, new ContainerCompressionMetrics()),
+                    new SessionResultNotifier()), clientConfigurationProperties);
+
+            clientSessionService.getContainerBySessionId(insertedSession.getSessionId());
+            Session session = clientSessionService.getContainerBySessionId(insertedSession.getSessionId());
+            assertEquals(1, nearCacheMetrics.getMissCount());
+            assertEquals(1, nearCacheMetrics.getHitCount());
+
+            sessionService.update(session, s -> s.addCertificate("document", null));
+            assertEquals(2, clientSessionService.getContainerBySessionId(insertedSession.getSessionId()).getVersion());
+        }
+    }
+
+    @Test
+    public void compressedContainerInsertedAndFound() {
+        assertCompressedContainerInsertedAndFound();
+    }
+
+    @Test
+    public void compressedContainerInsertedAndFoundWithColocatedAccessMode() {
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.COLOCATED);
+        assertCompressedContainerInsertedAndFound();
+    }
+
+    @Test
+    public void blobStoredContainerInsertedAndFound() {
+        assertBlobStoredContainerInsertedAndFound();
+    }
+
+    @Test
+    public void blobStoredContainerInsertedAndFoundWithColocatedAccessMode() {
+        sessionConfigurationProperties.setSessionAccessMode(SessionAccessMode.COLOCATED);
+        assertBlobStoredContainerInsertedAndFound();
+    }
+
+    @Test
+    public void unrequestedSignatureSessionsLoadedOnFirstAccess() {
+        String containerId = UUIDGenerator.generateUUID();
+        Session insertedSession = createDefaultSession(containerId);
+        sessionService.update(insertedSession);
+        sessionService.addSignatureSession(insertedSession.getSessionId(), "signatureId",
+                SignatureSession.builder().dataFilesHash("dataFilesHash").build());
+
+        Session session = sessionService.getContainer(containerId, Set.of(SessionPart.CERTIFICATE_SESSIONS));
+        sessionService.addSignatureSession(insertedSession.getSessionId(), "otherSignatureId",
+                SignatureSession.builder().dataFilesHash("dataFilesHash").build());
+
+        assertEquals(2, session.getSignatureSessions().size());
+        assertEquals(0, session.getCertificateSessions().size());
+    }
+
+    @Test
+    public void unrequestedCompressedContainerLoadedOnFirstAccessAndKeptOnUpdate() {
+        sessionConfigurationProperties.setContainerCompressionEnabled(true);
+        assertUnrequestedContainerLoadedOnFirstAccessAndKeptOnUpdate();
+    }
+
+    @Test
+    public void unmodifiedCompressedContainerNotCompressedAgainOnUpdate() {
+        sessionConfigurationProperties.setContainerCompressionEnabled(true);
+        String containerId = UUIDGenerator.generateUUID();
+        byte[] container = "<xades:SignedProperties/>".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        AsicContainerSession insertedSession = createDefaultAsicSession(containerId, container);
+        sessionService.update(insertedSession);
+        sessionService.update(insertedSession, s -> s.addCertificate("document", null));
+
+        Session unloadedSession = sessionService.getContainer(containerId, Set.of(SessionPart.SIGNATURE_SESSIONS));
+        sessionService.update(unloadedSession, s -> s.addCertificate("document", null));
+        AsicContainerSession loadedSession = (AsicContainerSession) sessionService.getContainer(containerId);
+        assertArrayEquals(container, loadedSession.getContainer());
+        sessionService.update(loadedSession, s -> s.addCertificate("document", null));
+
+        assertEquals(1, compressionMetrics.getCompressedWriteCount());
+        assertArrayEquals(container, ((AsicContainerSession) sessionService.getContainer(containerId)).getContainer());
+    }
+
+    @Test
+    public void unrequestedBlobStoredContainerLoadedOnFirstAccessAndKeptOnUpdate() {
+        sessionConfigurationProperties.setContainerBlobStoreEnabled(true);
+        assertUnrequestedContainerLoadedOnFirstAccessAndKeptOnUpdate();
+    }
+
+    @Test
+    public void sessionsDueForReprocessingFoundFromStatusIndex() {
+        Session exceptionSession = createDefaultSession(UUIDGenerator.generateUUID());
+        Session processingSession = createDefaultSession(UUIDGenerator.generateUUID());
+        Session resultSession = createDefaultSession(UUIDGenerator.generateUUID());
+        sessionService.update(exceptionSession);
+        sessionService.update(processingSession);
+        sessionService.update(resultSession);
+        sessionStore.putSignatureSession(exceptionSession.getSessionId(), "signatureId", createSignatureSession(ProcessingStatus.EXCEPTION));
+        sessionStore.putSignatureSession(processingSession.getSessionId(), "signatureId", createSignatureSession(ProcessingStatus.PROCESSING));
+        sessionStore.putSignatureSession(resultSession.getSessionId(), "signatureId", createSignatureSession(ProcessingStatus.RESULT));
+
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus(createProcessingTimeoutFilter(Duration.ofMinutes(1)), sessionIds::add);
+
+        assertTrue(sessionIds.contains(exceptionSession.getSessionId()));
+        assertFalse(sessionIds.contains(processingSession.getSessionId()));
+        assertFalse(sessionIds.contains(resultSession.getSessionId()));
+    }
+
+    @Test
+    public void previousStatusIndexEntryRemovedWhenStatusChanges() {
+        Session session = createDefaultSession(UUIDGenerator.generateUUID());
+        sessionService.update(session);
+        SignatureSession signatureSession = createSignatureSession(ProcessingStatus.EXCEPTION);
+        String entryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, session.getSessionId(), "signatureId",
+                signatureSession.getSessionStatus());
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        assertTrue(ignite.cache(CacheName.SESSION_STATUS_INDEX.name()).containsKey(entryKey));
+
+        sessionStore.replaceSignatureSession(session.getSessionId(), "signatureId", createSignatureSession(ProcessingStatus.RESULT));
+
+        assertFalse(ignite.cache(CacheName.SESSION_STATUS_INDEX.name()).containsKey(entryKey));
+        Set<String> bucketKeySet = ignite.cache(CacheName.SESSION_STATUS_INDEX.name())
+                .<String, Set<String>>withKeepBinary()
+                .get(SessionStatusIndex.getBucketKeySetKey(entryKey));
+        assertTrue(bucketKeySet == null || !bucketKeySet.contains(SessionStatusIndex.getIndexEntryId(entryKey)));
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus(createProcessingTimeoutFilter(Duration.ZERO), sessionIds::add);
+        assertFalse(sessionIds.contains(session.getSessionId()));
+    }
+
+    @Test
+    public void staleStatusIndexEntryRemovedWhenLookedUp() {
+        Session session = createDefaultSession(UUIDGenerator.generateUUID());
+        sessionService.update(session);
+        SignatureSession signatureSession = createSignatureSession(ProcessingStatus.EXCEPTION);
+        String entryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, session.getSessionId(), "signatureId",
+                signatureSession.getSessionStatus());
+        sessionStore.putSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        sessionStore.removeSession(session.getSessionId());
+
+        List<String> sessionIds = new ArrayList<>();
+        sessionStore.forEachSessionIdWithSignatureStatus(createProcessingTimeoutFilter(Duration.ZERO), sessionIds::add);
+
+        assertFalse(sessionIds.contains(session.getSessionId()));
+        assertFalse(ignite.cache(CacheName.SESSION_STATUS_INDEX.name()).containsKey(entryKey));
+    }
+
+    @Test
+    public void lockLeaseExtendedWhenRenewed() throws InterruptedException {
+        sessionConfigurationProperties.setLockLeaseDuration(Duration.ofMillis(500));
+        String lockId = UUIDGenerator.generateUUID();
+        SessionLock lock = sessionStore.tryLock(lockId).orElseThrow();
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertTrue(lock.renew());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertTrue(sessionStore.tryLock(lockId).isEmpty());
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertFalse(lock.renew());
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+    }
+
+    @Test
+    public void awaitedSignatureResultReceived() throws Exception {
+        Session session = createDefaultSession(UUIDGenerator.generateUUID());
+        sessionService.update(session);
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        sessionService.addSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        CompletableFuture<Void> result = sessionResultNotifier.awaitResult(CacheName.SIGNATURE_SESSION,
+                session.getSessionId(), "signatureId", sessionStatus -> true);
+
+        signatureSession.getSessionStatus().setStatus("OUTSTANDING_TRANSACTION");
+        sessionService.updateSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertFalse(result.isDone());
+
+        signatureSession.getSessionStatus().setStatus("SIGNATURE");
+        signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+        sessionService.updateSignatureSession(session.getSessionId(), "signatureId", signatureSession);
+        result.get(5, TimeUnit.SECONDS);
+        assertEquals(0, sessionResultNotifier.getAwaitedSessionCount());
+    }
+
+    @Test
+    public void certificateResultNotAcceptedByConditionNotReceived() throws Exception {
+        Session session = createDefaultSession(UUIDGenerator.generateUUID());
+        sessionService.update(session);
+        CertificateSession certificateSession = CertificateSession.builder().build();
+        sessionService.addCertificateSession(session.getSessionId(), "certificateId", certificateSession);
+        CompletableFuture<Void> exceptionResult = sessionResultNotifier.awaitResult(CacheName.CERTIFICATE_SESSION,
+                session.getSessionId(), "certificateId", sessionStatus -> sessionStatus.getProcessingStatus() == ProcessingStatus.EXCEPTION);
+        CompletableFuture<Void> result = sessionResultNotifier.awaitResult(CacheName.CERTIFICATE_SESSION,
+                session.getSessionId(), "certificateId", sessionStatus -> sessionStatus.getProcessingStatus() == ProcessingStatus.RESULT);
+
+        certificateSession.setPollingStatus(ProcessingStatus.RESULT);
+        sessionService.updateCertificateSession(session.getSessionId(), "certificateId", certificateSession);
+        result.get(5, TimeUnit.SECONDS);
+        assertFalse(exceptionResult.isDone());
+
+        exceptionResult.cancel(false);
+        assertEquals(0, sessionResultNotifier.getAwaitedSessionCount());
+    }
+
+    @Test
+    public void reprocessingNodesListedUntilLeaseExpiredOrReleased() throws InterruptedException {
+        String nodeId = UUIDGenerator.generateUUID();
+        String expiringNodeId = UUIDGenerator.generateUUID();
+        String releasedNodeId = UUIDGenerator.generateUUID();
+        sessionStore.renewReprocessingLease(expiringNodeId, Duration.ofMillis(100));
+        sessionStore.renewReprocessingLease(releasedNodeId, Duration.ofMinutes(1));
+        assertTrue(sessionStore.renewReprocessingLease(nodeId, Duration.ofMinutes(1)).containsAll(Set.of(expiringNodeId, releasedNodeId)));
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        sessionStore.releaseReprocessingLease(releasedNodeId);
+        Set<String> nodeIds = sessionStore.renewReprocessingLease(nodeId, Duration.ofMinutes(1));
+
+        assertTrue(nodeIds.contains(nodeId));
+        assertFalse(nodeIds.contains(expiringNodeId));
+        assertFalse(nodeIds.contains(releasedNodeId));
+    }
+
+    @Test
+    public void lockHeldUntilClosedOrLeaseExpired() throws InterruptedException {
+        sessionConfigurationProperties.setLockLeaseDuration(Duration.ofMillis(500));
+        String lockId = UUIDGenerator.generateUUID();
+        Optional<SessionLock> lock = sessionStore.tryLock(lockId);
+        assertTrue(lock.isPresent());
+        assertTrue(sessionStore.tryLock(lockId).isEmpty());
+        lock.get().close();
+
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertTrue(sessionStore.tryLock(lockId).isPresent());
+    }
+
+    @Test
+    public void identicalContainersOfDifferentSessionsStoredOnce() throws InterruptedException, NoSuchAlgorithmException {
+        sessionConfigurationProperties.setContainerBlobStoreEnabled(true);
+        sessionConfigurationProperties.setContainerBlobReleaseGracePeriod(Duration.ofMillis(200));
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        int initialBlobCount = ignite.cache(CacheName.CONTAINER_BLOB.name()).size(CachePeekMode.ALL);
+        String firstContainerId = UUIDGenerator.generateUUID();
+        String secondContainerId = UUIDGenerator.generateUUID();
+
+        sessionService.update(createDefaultAsicSession(firstContainerId, container));
+        sessionService.update(createDefaultAsicSession(secondContainerId, container));
+
+        assertEquals(initialBlobCount + 1, ignite.cache(CacheName.CONTAINER_BLOB.name()).size(CachePeekMode.ALL));
+        sessionService.removeByContainerId(firstContainerId);
+        TimeUnit.MILLISECONDS.sleep(400);
+        assertArrayEquals(container, ((AsicContainerSession) sessionService.getContainer(secondContainerId)).getContainer());
+        sessionService.removeByContainerId(secondContainerId);
+        assertTrue(containerBlobExists(container));
+        TimeUnit.MILLISECONDS.sleep(400);
+        assertFalse(containerBlobExists(container));
+    }
+
+    @Test
+    public void replacedContainerBlobsExpireAfterReleaseGracePeriod() throws InterruptedException, NoSuchAlgorithmException {
+        sessionConfigurationProperties.setContainerBlobStoreEnabled(true);
+        sessionConfigurationProperties.setContainerBlobReleaseGracePeriod(Duration.ofMillis(200));
+        String containerId = UUIDGenerator.generateUUID();
+        sessionService.update(createDefaultAsicSession(containerId, (containerId + 0).getBytes(StandardCharsets.UTF_8)));
+
+        for (int i = 1; i <= 5; i++) {
+            byte[] container = (containerId + i).getBytes(StandardCharsets.UTF_8);
+            sessionService.update(sessionService.getContainer(containerId), s -> ((AsicContainerSession) s).setContainer(container));
+        }
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(containerBlobExists((containerId + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        assertArrayEquals((containerId + 5).getBytes(StandardCharsets.UTF_8),
+                ((AsicContainerSession) sessionService.getContainer(containerId)).getContainer());
+    }
+
+    @Test
+    public void lazilyLoadedContainerFoundAfterContainerReplacedConcurrently() {
+        sessionConfigurationProperties.setContainerBlobStoreEnabled(true);
+        String containerId = UUIDGenerator.generateUUID();
+        byte[] originalContainer = (containerId + 0).getBytes(StandardCharsets.UTF_8);
+        byte[] replacedContainer = (containerId + 1).getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createDefaultAsicSession(containerId, originalContainer));
+
+        AsicContainerSession staleSession = (AsicContainerSession) sessionService.getContainer(containerId, Set.of(SessionPart.SIGNATURE_SESSIONS));
+        sessionService.update(sessionService.getContainer(containerId), s -> ((AsicContainerSession) s).setContainer(replacedContainer));
+
+        assertArrayEquals(originalContainer, staleSession.getContainer());
+        assertThrows(ConcurrentSessionModificationException.class, () -> sessionService.update(staleSession));
+        assertArrayEquals(replacedContainer, ((AsicContainerSession) sessionService.getContainer(containerId)).getContainer());
+    }
+
     @Test
     public void getMultipleSessionsCacheSize() {
         int initialCacheSize = 0;
@@ -89,6 +578,127 @@ public class SessionServiceTest {
         assertEquals(initialCacheSize, cacheSize);
     }
 
+    private void assertConcurrentSignaturesOnSingleContainer(SessionAccessMode sessionAccessMode) throws Exception {
+        int signatureCount = 32;
+        sessionConfigurationProperties.setSessionAccessMode(sessionAccessMode);
+        sessionConfigurationProperties.setSessionUpdateMaxAttempts(signatureCount);
+        Session insertedSession = HashcodeContainerSession.builder()
+                .sessionId(sessionService.getSessionId(UUIDGenerator.generateUUID()))
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("Service_uuid")
+                .dataFiles(Collections.emptyList())
+                .build();
+        String sessionId = insertedSession.getSessionId();
+        sessionService.update(insertedSession);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(signatureCount);
+        List<Callable<Void>> signingFlows = IntStream.range(0, signatureCount)
+                .mapToObj(i -> (Callable<Void>) () -> {
+                    String signatureId = "signature" + i;
+                    SignatureSession signatureSession = SignatureSession.builder().dataFilesHash("dataFilesHash").build();
+                    sessionService.addSignatureSession(sessionId, signatureId, signatureSession);
+                    signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+                    sessionService.updateSignatureSession(sessionId, signatureId, signatureSession);
+                    HashcodeSignatureWrapper signatureWrapper = new HashcodeSignatureWrapper();
+                    signatureWrapper.setGeneratedSignatureId(signatureId);
+                    sessionService.update(sessionService.getContainerBySessionId(sessionId),
+                            session -> ((HashcodeContainerSession) session).getSignatures().add(signatureWrapper));
+                    return null;
+                })
+                .toList();
+        long startTime = System.nanoTime();
+        try {
+            for (Future<Void> signingFlow : executorService.invokeAll(signingFlows)) {
+                signingFlow.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        log.info("{} concurrent signatures on a single container with {} access mode: {} ms, {} signatures/s",
+                signatureCount, sessionAccessMode, elapsedMillis, signatureCount * 1000 / elapsedMillis);
+
+        HashcodeContainerSession session = (HashcodeContainerSession) sessionService.getContainerBySessionId(sessionId);
+        assertEquals(signatureCount, session.getSignatures().size());
+        assertEquals(signatureCount + 1, session.getVersion());
+        assertEquals(signatureCount, session.getSignatureSessions().size());
+        session.getSignatureSessions().values().forEach(signatureSession ->
+                assertEquals(ProcessingStatus.RESULT, signatureSession.getSessionStatus().getProcessingStatus()));
+    }
+
+    private void assertCompressedContainerInsertedAndFound() {
+        sessionConfigurationProperties.setContainerCompressionEnabled(true);
+        String containerId = UUIDGenerator.generateUUID();
+        byte[] container = "<xades:SignedProperties/>".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createDefaultAsicSession(containerId, container));
+        assertEquals(1, compressionMetrics.getCompressedWriteCount());
+
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainer(containerId);
+        assertArrayEquals(container, session.getContainer());
+        sessionService.update(session, s -> s.addCertificate("document", null));
+        assertArrayEquals(container, ((AsicContainerSession) sessionService.getContainer(containerId)).getContainer());
+        assertTrue(compressionMetrics.getCompressionRatio() < 0.1);
+    }
+
+    private void assertBlobStoredContainerInsertedAndFound() {
+        sessionConfigurationProperties.setContainerBlobStoreEnabled(true);
+        String containerId = UUIDGenerator.generateUUID();
+        byte[] container = ("<xades:SignedProperties Id=\"" + containerId + "\"/>").getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createDefaultAsicSession(containerId, container));
+
+        BinaryObject binarySession = ignite.cache(CacheName.CONTAINER_SESSION.name()).<String, BinaryObject>withKeepBinary()
+                .get(sessionService.getSessionId(containerId));
+        assertNull(binarySession.field("container"));
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainer(containerId);
+        assertArrayEquals(container, session.getContainer());
+        sessionService.update(session, s -> s.addCertificate("document", null));
+        assertArrayEquals(container, ((AsicContainerSession) sessionService.getContainer(containerId)).getContainer());
+    }
+
+    private void assertUnrequestedContainerLoadedOnFirstAccessAndKeptOnUpdate() {
+        String containerId = UUIDGenerator.generateUUID();
+        byte[] container = ("<xades:SignedProperties Id=\"" + containerId + "\"/>").repeat(100).getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createDefaultAsicSession(containerId, container));
+
+        Session session = sessionService.getContainer(containerId, Set.of(SessionPart.SIGNATURE_SESSIONS));
+        sessionService.update(session, s -> s.addCertificate("document", null));
+
+        AsicContainerSession updatedSession = (AsicContainerSession) sessionService.getContainer(containerId, Set.of(SessionPart.SIGNATURE_SESSIONS));
+        assertArrayEquals(container, updatedSession.getContainer());
+    }
+
+    private static Ignite startClientNode() {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+        ipFinder.setAddresses(List.of("127.0.0.1:47500..47509"));
+        return Ignition.start(new org.apache.ignite.configuration.IgniteConfiguration()
+                .setIgniteInstanceName("siga-ignite-client")
+                .setClientMode(true)
+                .setDiscoverySpi(new TcpDiscoverySpi().setIpFinder(ipFinder)));
+    }
+
+    private static SignatureSession createSignatureSession(ProcessingStatus processingStatus) {
+        SignatureSession signatureSession = SignatureSession.builder().build();
+        signatureSession.setPollingStatus(processingStatus);
+        return signatureSession;
+    }
+
+    private static SessionStatusFilter createProcessingTimeoutFilter(Duration processingTimeout) {
+        LocalDateTime processingTimeoutTimestamp = LocalDateTime.now().minus(processingTimeout);
+        return new SessionStatusFilter() {
+            @Override
+            public boolean isApplicable(ProcessingStatus processingStatus, LocalDateTime processingStatusTimestamp, int processingCounter) {
+                return processingStatus == ProcessingStatus.EXCEPTION
+                        || (processingStatus == ProcessingStatus.PROCESSING && processingStatusTimestamp.isBefore(processingTimeoutTimestamp));
+            }
+
+            @Override
+            public LocalDateTime getLatestApplicableTimestamp(ProcessingStatus processingStatus) {
+                return processingStatus == ProcessingStatus.PROCESSING ? processingTimeoutTimestamp : LocalDateTime.MAX;
+            }
+        };
+    }
+
     private SigaUserDetails createDefaultUserDetails() {
         return SigaUserDetails.builder()
                 .clientName("Client_name")
@@ -96,6 +706,23 @@ public class SessionServiceTest {
                 .serviceUuid("Service_uuid").build();
     }
 
+    private boolean containerBlobExists(byte[] container) throws NoSuchAlgorithmException {
+        String blobId = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(container));
+        return ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(blobId);
+    }
+
+    private AsicContainerSession createDefaultAsicSession(String containerId, byte[] container) {
+        SigaUserDetails authenticatedUser = (SigaUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return AsicContainerSession.builder()
+                .sessionId(sessionService.getSessionId(containerId))
+                .clientName(authenticatedUser.getClientName())
+                .serviceName(authenticatedUser.getServiceName())
+                .serviceUuid(authenticatedUser.getServiceUuid())
+                .containerName("test.asice")
+                .container(container)
+                .build();
+    }
+
     private Session createDefaultSession(String containerId) {
         String sessionId = sessionService.getSessionId(containerId);
         SigaUserDetails authenticatedUser = (SigaUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
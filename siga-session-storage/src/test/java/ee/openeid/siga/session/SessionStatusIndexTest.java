@@ -0,0 +1,75 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.SessionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStatusIndexTest {
+
+    @Test
+    void dueBucketKeysLimitedToRetention() {
+        Set<String> bucketKeySetKeys = SessionStatusIndex.getDueBucketKeySetKeys(CacheName.SIGNATURE_SESSION,
+                (status, timestamp, counter) -> true, SessionStatusPartitions.ALL, Duration.ofSeconds(300));
+
+        // 6 one-minute buckets for each partition and for PROCESSING and EXCEPTION processing statuses
+        assertEquals(6 * SessionStatusPartitions.COUNT * 2, bucketKeySetKeys.size());
+    }
+
+    @Test
+    void currentStatusFoundInDueBuckets() {
+        String entryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, "v1_user_containerId", "signatureId",
+                createSessionStatus(LocalDateTime.now()));
+
+        Set<String> bucketKeySetKeys = SessionStatusIndex.getDueBucketKeySetKeys(CacheName.SIGNATURE_SESSION,
+                (status, timestamp, counter) -> true, SessionStatusPartitions.ALL, Duration.ofSeconds(300));
+
+        assertTrue(bucketKeySetKeys.contains(SessionStatusIndex.getBucketKeySetKey(entryKey)));
+    }
+
+    @Test
+    void onlyEntriesNotAfterLatestApplicableTimestampDue() {
+        LocalDateTime now = LocalDateTime.now();
+        String dueEntryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, "v1_user_containerId", "signature1",
+                createSessionStatus(now.minusSeconds(20)));
+        String olderDueEntryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, "v1_user_containerId", "signature2",
+                createSessionStatus(now.minusSeconds(40)));
+        String notDueEntryKey = SessionStatusIndex.getEntryKey(CacheName.SIGNATURE_SESSION, "v1_user_containerId", "signature3",
+                createSessionStatus(now));
+        SessionStatusFilter filter = new SessionStatusFilter() {
+            @Override
+            public boolean isApplicable(ProcessingStatus processingStatus, LocalDateTime processingStatusTimestamp, int processingCounter) {
+                return true;
+            }
+
+            @Override
+            public LocalDateTime getLatestApplicableTimestamp(ProcessingStatus processingStatus) {
+                return now.minusSeconds(10);
+            }
+        };
+        Map<String, Set<String>> bucketKeySets = new HashMap<>();
+        for (String entryKey : List.of(dueEntryKey, olderDueEntryKey, notDueEntryKey)) {
+            bucketKeySets.computeIfAbsent(SessionStatusIndex.getBucketKeySetKey(entryKey), key -> new HashSet<>())
+                    .add(SessionStatusIndex.getIndexEntryId(entryKey));
+        }
+
+        assertEquals(List.of(olderDueEntryKey, dueEntryKey), SessionStatusIndex.getDueEntryKeys(bucketKeySets, filter));
+    }
+
+    private static SessionStatus createSessionStatus(LocalDateTime processingStatusTimestamp) {
+        return SessionStatus.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .processingStatusTimestamp(processingStatusTimestamp)
+                .build();
+    }
+}
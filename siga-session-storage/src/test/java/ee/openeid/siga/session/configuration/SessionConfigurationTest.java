@@ -0,0 +1,69 @@
+package ee.openeid.siga.session.configuration;
+
+import ee.openeid.siga.auth.model.SigaService;
+import ee.openeid.siga.auth.repository.ConnectionRepository;
+import ee.openeid.siga.auth.repository.ServiceRepository;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.session.InMemorySessionStore;
+import ee.openeid.siga.session.SessionResultNotifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = {SessionConfiguration.class, SessionResultNotifier.class}, properties = {
+        "siga.ignite.session-store=IN_MEMORY",
+        "siga.ignite.application-cache-version=v1",
+        "siga.ignite.in-memory-session-expiry=10ms"
+})
+class SessionConfigurationTest {
+    @Autowired
+    private InMemorySessionStore sessionStore;
+    @Autowired
+    private ScheduledTaskHolder scheduledTaskHolder;
+    @MockBean
+    private ConnectionRepository connectionRepository;
+    @MockBean
+    private ServiceRepository serviceRepository;
+
+    @Test
+    void expiredInMemorySessionsEvictedByScheduledCleanUp() throws InterruptedException {
+        SigaService service = new SigaService();
+        service.setId(1);
+        when(serviceRepository.findByUuid("serviceUuid")).thenReturn(Optional.of(service));
+        Session session = HashcodeContainerSession.builder()
+                .sessionId("v1_serviceUuid_containerId")
+                .clientName("Client_name")
+                .serviceName("Service_name")
+                .serviceUuid("serviceUuid")
+                .dataFiles(Collections.emptyList())
+                .build();
+        sessionStore.writeSession(session, 0);
+        Thread.sleep(50);
+
+        getScheduledCleanUp().getTask().getRunnable().run();
+
+        assertEquals(0, sessionStore.getSessionCount());
+        verify(connectionRepository).deleteByContainerIdAndServiceId("containerId", 1);
+    }
+
+    private ScheduledTask getScheduledCleanUp() {
+        return scheduledTaskHolder.getScheduledTasks().stream()
+                .filter(task -> task.getTask().getRunnable() instanceof ScheduledMethodRunnable runnable
+                        && runnable.getTarget() == sessionStore
+                        && runnable.getMethod().getName().equals("cleanUp"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,27 @@
+package ee.openeid.siga.service.signature.callback;
+
+import ee.openeid.siga.common.model.SigningType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Completion of a Mobile-ID or Smart-ID signing or Smart-ID certificate choice, sent to the callback URL of the
+ * service. The event only tells the client which status to request, and carries no signature or certificate data.
+ */
+@Value
+@Builder
+public class SigningCallbackEvent {
+    Type type;
+    String containerId;
+    String id;
+    SigningType signingType;
+    String status;
+    Instant completedAt;
+
+    public enum Type {
+        SIGNATURE,
+        CERTIFICATE_CHOICE
+    }
+}
@@ -0,0 +1,200 @@
+package ee.openeid.siga.service.signature.callback;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.openeid.siga.auth.filter.hmac.HmacAlgorithm;
+import ee.openeid.siga.auth.filter.hmac.HmacHeader;
+import ee.openeid.siga.auth.filter.hmac.HmacSignature;
+import ee.openeid.siga.auth.service.SigaUserDetailsService;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.configuration.SigningCallbackProperties;
+import ee.openeid.siga.session.SessionService;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Posts Mobile-ID and Smart-ID completion events to the callback URL of the service, so that the client can request
+ * the signing or certificate choice status once, instead of polling it.
+ * <p>
+ * Events are queued up to {@code siga.signing-callback.queue-capacity} and sent asynchronously in batches per
+ * callback URL. Failed requests are retried with backoff, except on client errors. Events that can not be queued or
+ * sent are dropped, as the status can still be polled by the client.
+ * <p>
+ * Requests are signed with the signing secret of the service the same way as requests of the service to SiGa, so that
+ * the service can authenticate them. The signed URI is the path and query of the callback URL.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SigningCallbackProperties.class)
+public class SigningCallbackNotifier {
+    private final SigningCallbackProperties signingCallbackProperties;
+    private final SigaUserDetailsService userDetailsService;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final WebClient webClient;
+    private final Sinks.Many<PendingCallback> pendingCallbacks;
+
+    public SigningCallbackNotifier(SigningCallbackProperties signingCallbackProperties,
+                                   SigaUserDetailsService userDetailsService) {
+        this.signingCallbackProperties = signingCallbackProperties;
+        this.userDetailsService = userDetailsService;
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) signingCallbackProperties.getConnectTimeout().toMillis())
+                        .responseTimeout(signingCallbackProperties.getResponseTimeout())))
+                .build();
+        this.pendingCallbacks = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<PendingCallback>get(signingCallbackProperties.getQueueCapacity()).get());
+        pendingCallbacks.asFlux()
+                .bufferTimeout(signingCallbackProperties.getBatchSize(), signingCallbackProperties.getBatchInterval())
+                .flatMap(this::sendBatch)
+                .subscribe();
+    }
+
+    public void notifySigningCompleted(String sessionId, String signatureId, SignatureSession signatureSession) {
+        if (StringUtils.isBlank(signatureSession.getCallbackUrl())) {
+            return;
+        }
+        notify(signatureSession.getCallbackUrl(), sessionId, SigningCallbackEvent.builder()
+                .type(SigningCallbackEvent.Type.SIGNATURE)
+                .containerId(SessionService.parseContainerId(sessionId))
+                .id(signatureId)
+                .signingType(signatureSession.getSigningType())
+                .status(signatureSession.getSessionStatus().getStatus())
+                .completedAt(Instant.now())
+                .build());
+    }
+
+    public void notifyCertificateChoiceCompleted(String sessionId, String certificateId, CertificateSession certificateSession) {
+        if (StringUtils.isBlank(certificateSession.getCallbackUrl())) {
+            return;
+        }
+        notify(certificateSession.getCallbackUrl(), sessionId, SigningCallbackEvent.builder()
+                .type(SigningCallbackEvent.Type.CERTIFICATE_CHOICE)
+                .containerId(SessionService.parseContainerId(sessionId))
+                .id(certificateId)
+                .status(certificateSession.getSessionStatus().getStatus())
+                .completedAt(Instant.now())
+                .build());
+    }
+
+    @PreDestroy
+    public synchronized void onDestroy() {
+        pendingCallbacks.tryEmitComplete();
+    }
+
+    // Emissions to the sink must not overlap
+    private synchronized void notify(String callbackUrl, String sessionId, SigningCallbackEvent event) {
+        CallbackTarget target = new CallbackTarget(callbackUrl, SessionService.parseServiceUuid(sessionId));
+        Sinks.EmitResult emitResult = pendingCallbacks.tryEmitNext(new PendingCallback(target, event));
+        if (emitResult.isFailure()) {
+            log.warn("Signing callback event dropped: {}. Container id: {}, Id: {}", emitResult, event.getContainerId(), event.getId());
+        }
+    }
+
+    private Flux<Void> sendBatch(List<PendingCallback> batch) {
+        Map<CallbackTarget, List<SigningCallbackEvent>> eventsByTarget = batch.stream()
+                .collect(groupingBy(PendingCallback::target, LinkedHashMap::new, mapping(PendingCallback::event, toList())));
+        return Flux.fromIterable(eventsByTarget.entrySet())
+                .flatMap(callback -> send(callback.getKey(), callback.getValue()));
+    }
+
+    private Mono<Void> send(CallbackTarget target, List<SigningCallbackEvent> events) {
+        String callbackUrl = target.callbackUrl();
+        return Mono.fromCallable(() -> createSignedRequest(target, events))
+                // Signing secret of the service may be loaded from the database
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(request -> webClient.post()
+                        .uri(callbackUrl)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(headers -> headers.addAll(request.headers()))
+                        .bodyValue(request.body())
+                        .retrieve()
+                        .toBodilessEntity()
+                        .then()
+                        .retryWhen(Retry.backoff(signingCallbackProperties.getMaxAttempts() - 1L, signingCallbackProperties.getRetryDelay())
+                                .filter(SigningCallbackNotifier::isRetryable)))
+                .doOnSuccess(ignored -> log.debug("Sent {} signing callback events to {}", events.size(), callbackUrl))
+                .onErrorResume(e -> {
+                    Throwable cause = Exceptions.isRetryExhausted(e) ? e.getCause() : e;
+                    log.warn("Unable to send {} signing callback events to {}: {}", events.size(), callbackUrl, cause.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private SignedRequest createSignedRequest(CallbackTarget target, List<SigningCallbackEvent> events)
+            throws JsonProcessingException, NoSuchAlgorithmException, InvalidKeyException {
+        byte[] body = objectMapper.writeValueAsBytes(new SigningCallbackRequest(events));
+        String signingSecret = userDetailsService.loadUserByUsername(target.serviceUuid()).getSigningSecret();
+        String timestamp = String.valueOf(Instant.now().getEpochSecond());
+        String hmacAlgorithm = HmacAlgorithm.HMAC_SHA_256.getValue();
+        String signature = HmacSignature.builder()
+                .macAlgorithm(hmacAlgorithm)
+                .serviceUuid(target.serviceUuid())
+                .requestMethod(HttpMethod.POST.name())
+                .uri(getSignedUri(target.callbackUrl()))
+                .timestamp(timestamp)
+                .payload(body)
+                .build()
+                .getSignature(signingSecret);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HmacHeader.X_AUTHORIZATION_TIMESTAMP.getValue(), timestamp);
+        headers.set(HmacHeader.X_AUTHORIZATION_SERVICE_UUID.getValue(), target.serviceUuid());
+        headers.set(HmacHeader.X_AUTHORIZATION_SIGNATURE.getValue(), signature);
+        headers.set(HmacHeader.X_AUTHORIZATION_HMAC_ALGORITHM.getValue(), hmacAlgorithm);
+        return new SignedRequest(headers, body);
+    }
+
+    private static String getSignedUri(String callbackUrl) {
+        URI uri = URI.create(callbackUrl);
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return !(e instanceof WebClientResponseException responseException)
+                || !responseException.getStatusCode().is4xxClientError();
+    }
+
+    record SigningCallbackRequest(List<SigningCallbackEvent> events) {
+    }
+
+    private record SignedRequest(HttpHeaders headers, byte[] body) {
+    }
+
+    private record CallbackTarget(String callbackUrl, String serviceUuid) {
+    }
+
+    private record PendingCallback(CallbackTarget target, SigningCallbackEvent event) {
+    }
+}
@@ -0,0 +1,111 @@
+package ee.openeid.siga.service.signature.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Waits for Mobile-ID or Smart-ID sessions to complete by long polling their session status on a non-blocking HTTP
+ * client, so that no thread is held while the user is confirming the operation.
+ * <p>
+ * The final status itself is not mapped here. Once the session is no longer running, it is fetched with the Mobile-ID
+ * or Smart-ID client library, which then returns without waiting.
+ */
+@Slf4j
+public class SessionCompletionPoller {
+    private static final String RUNNING_STATE = "RUNNING";
+    private static final Duration READ_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+    private static final Duration REPEAT_DELAY = Duration.ofSeconds(1);
+    private static final int MAX_REPEATS = 20;
+
+    private final WebClient webClient;
+    private final String statusPath;
+    private final Duration longPollingTimeout;
+
+    /**
+     * @param statusPath         session status path relative to the service URL, with {@code {sessionCode}} variable
+     * @param longPollingTimeout how long the service may hold a status request until the session completes
+     */
+    public SessionCompletionPoller(String url, KeyStore trustStore, Duration connectTimeout, Duration longPollingTimeout,
+                                   String statusPath) {
+        this.webClient = WebClient.builder()
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(createHttpClient(trustStore, connectTimeout, longPollingTimeout)))
+                .build();
+        this.statusPath = statusPath;
+        this.longPollingTimeout = longPollingTimeout;
+    }
+
+    /**
+     * Errors are not propagated, as they are mapped when the final status is fetched with the client library.
+     *
+     * @param beforeEachPoll called on a worker thread before every status request, e.g. to renew the lease of a lock
+     *                       held while waiting. Waiting stops if it returns {@code false}.
+     * @return completes when the session is no longer running, when its status could not be polled or when waiting
+     * has been stopped
+     */
+    public Mono<Void> awaitCompletion(String sessionCode, BooleanSupplier beforeEachPoll) {
+        return Mono.fromCallable(beforeEachPoll::getAsBoolean)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(proceed -> proceed
+                        ? getSessionState(sessionCode)
+                        : Mono.error(new IllegalStateException("Waiting stopped before status request")))
+                .filter(sessionState -> !RUNNING_STATE.equals(sessionState.state()))
+                .repeatWhenEmpty(MAX_REPEATS, repeats -> repeats.delayElements(REPEAT_DELAY))
+                .onErrorResume(e -> {
+                    log.debug("Unable to await completion of session {}: {}", sessionCode, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<SessionState> getSessionState(String sessionCode) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(statusPath)
+                        .queryParam("timeoutMs", longPollingTimeout.toMillis())
+                        .build(sessionCode))
+                .retrieve()
+                .bodyToMono(SessionState.class);
+    }
+
+    private static HttpClient createHttpClient(KeyStore trustStore, Duration connectTimeout, Duration longPollingTimeout) {
+        long readTimeoutMillis = longPollingTimeout.plus(READ_TIMEOUT_MARGIN).toMillis();
+        return HttpClient.create()
+                .secure(t -> t.sslContext(createSslContext(trustStore)))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .doOnConnected(connection -> connection.addHandlerLast(
+                        new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS)));
+    }
+
+    private static SslContext createSslContext(KeyStore trustStore) {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore);
+            return SslContextBuilder.forClient()
+                    .trustManager(trustManagerFactory)
+                    .build();
+        } catch (GeneralSecurityException | SSLException e) {
+            throw new IllegalStateException("Failed to build SSL context", e);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SessionState(String state) {
+    }
+}
@@ -0,0 +1,72 @@
+package ee.openeid.siga.service.signature.client;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Configurable;
+import jakarta.ws.rs.core.Configuration;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Delegate;
+
+import java.util.Map;
+
+/**
+ * JAX-RS client shared by the Mobile-ID or Smart-ID clients of all relying parties, so that its connections and TLS
+ * sessions are reused between requests.
+ * <p>
+ * The Mobile-ID and Smart-ID client libraries register their logging filter on the client before every request. As
+ * the client is shared, its components are registered only when it is built, and later registrations are ignored.
+ */
+@RequiredArgsConstructor
+public class SharedClient implements Client {
+    @Delegate(types = Client.class, excludes = Configurable.class)
+    private final Client client;
+
+    @Override
+    public Configuration getConfiguration() {
+        return client.getConfiguration();
+    }
+
+    @Override
+    public Client property(String name, Object value) {
+        return this;
+    }
+
+    @Override
+    public Client register(Class<?> componentClass) {
+        return this;
+    }
+
+    @Override
+    public Client register(Class<?> componentClass, int priority) {
+        return this;
+    }
+
+    @Override
+    public Client register(Class<?> componentClass, Class<?>... contracts) {
+        return this;
+    }
+
+    @Override
+    public Client register(Class<?> componentClass, Map<Class<?>, Integer> contracts) {
+        return this;
+    }
+
+    @Override
+    public Client register(Object component) {
+        return this;
+    }
+
+    @Override
+    public Client register(Object component, int priority) {
+        return this;
+    }
+
+    @Override
+    public Client register(Object component, Class<?>... contracts) {
+        return this;
+    }
+
+    @Override
+    public Client register(Object component, Map<Class<?>, Integer> contracts) {
+        return this;
+    }
+}
@@ -0,0 +1,14 @@
+package ee.openeid.siga.service.signature.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "siga.container-cache")
+public class ContainerCacheProperties {
+    private DataSize maxWeight = DataSize.ofMegabytes(256);
+    private Duration expireAfterAccess = Duration.ofMinutes(5);
+}
@@ -0,0 +1,14 @@
+package ee.openeid.siga.service.signature.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "siga.data-file-storage")
+public class DataFileStorageProperties {
+    private DataSize fileThreshold = DataSize.ofMegabytes(10);
+    private Path temporaryDirectory;
+}
@@ -11,4 +11,5 @@ public class SessionStatusReprocessingProperties {
     private Integer maxProcessingAttempts = 10;
     private Duration processingTimeout = Duration.ofMillis(30000);
     private Duration exceptionTimeout = Duration.ofMillis(5000);
+    private Duration nodeLeaseDuration = Duration.ofSeconds(15);
 }
@@ -0,0 +1,18 @@
+package ee.openeid.siga.service.signature.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "siga.signing-callback")
+public class SigningCallbackProperties {
+    private int queueCapacity = 10000;
+    private int batchSize = 50;
+    private Duration batchInterval = Duration.ofMillis(500);
+    private int maxAttempts = 3;
+    private Duration retryDelay = Duration.ofSeconds(1);
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration responseTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,27 @@
+package ee.openeid.siga.service.signature.configuration;
+
+import jakarta.validation.constraints.AssertTrue;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@ConfigurationProperties(prefix = "siga.status-polling")
+public class StatusPollingProperties {
+    private boolean virtualThreads = false;
+    private boolean backgroundFinalization = false;
+    private Duration shutdownTimeout = Duration.ofSeconds(300);
+    private int maxBacklog = 50000;
+    private Duration jitter = Duration.ofMillis(250);
+    private Duration backoffInitialDelay = Duration.ofSeconds(1);
+    private Duration backoffMaxDelay = Duration.ofSeconds(30);
+    private Duration longPollingTimeout = Duration.ofSeconds(25);
+
+    @AssertTrue(message = "siga.status-polling.virtual-threads requires Java 21 or later")
+    public boolean isVirtualThreadsSupported() {
+        return !virtualThreads || Runtime.version().feature() >= 21;
+    }
+}
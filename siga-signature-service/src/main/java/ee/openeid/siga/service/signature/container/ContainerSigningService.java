@@ -1,39 +1,55 @@
 package ee.openeid.siga.service.signature.container;
 
+import ee.openeid.siga.common.auth.SigaUserDetails;
 import ee.openeid.siga.common.event.SigaEvent;
 import ee.openeid.siga.common.event.SigaEventLogger;
 import ee.openeid.siga.common.event.SigaEventName;
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
+import ee.openeid.siga.common.exception.SigaApiException;
 import ee.openeid.siga.common.exception.SignatureCreationException;
 import ee.openeid.siga.common.model.DataToSignWrapper;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.CertificateSession;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.service.signature.callback.SigningCallbackNotifier;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.mobileid.MobileIdApiClient;
 import ee.openeid.siga.service.signature.smartid.SmartIdApiClient;
+import ee.openeid.siga.session.CacheName;
+import ee.openeid.siga.session.SessionPart;
+import ee.openeid.siga.session.SessionResultNotifier;
 import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStore;
+import eu.europa.esig.dss.model.DSSException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Delegate;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
 import org.digidoc4j.*;
 import org.digidoc4j.exceptions.CertificateValidationException;
+import org.digidoc4j.exceptions.DigiDoc4JException;
 import org.digidoc4j.exceptions.NetworkException;
 import org.digidoc4j.exceptions.OCSPRequestFailedException;
 import org.digidoc4j.exceptions.TechnicalException;
 import org.digidoc4j.impl.ServiceAccessListener;
 import org.digidoc4j.impl.ServiceAccessScope;
+import org.digidoc4j.impl.SignatureFinalizer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static ee.openeid.siga.common.event.SigaEvent.EventResultType.EXCEPTION;
@@ -41,6 +57,10 @@ import static ee.openeid.siga.common.event.SigaEventName.ErrorCode.SIGNATURE_FIN
 import static ee.openeid.siga.common.event.SigaEventName.ErrorCode.SIGNATURE_FINALIZING_REQUEST_ERROR;
 import static ee.openeid.siga.common.event.SigaEventName.EventParam.*;
 import static ee.openeid.siga.common.event.SigaEventName.FINALIZE_SIGNATURE;
+import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
+import static ee.openeid.siga.session.SessionPart.CERTIFICATE_SESSIONS;
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
+import static ee.openeid.siga.session.SessionPart.SIGNATURE_SESSIONS;
 
 @Slf4j
 @Getter(AccessLevel.PACKAGE)
@@ -57,29 +77,33 @@ public abstract class ContainerSigningService {
     private SmartIdClientConfigurationProperties smartIdConfigurationProperties;
     private MobileIdClientConfigurationProperties mobileIdConfigurationProperties;
     private SessionStatusReprocessingProperties reprocessingProperties;
+    private StatusPollingProperties statusPollingProperties;
     @Getter
     private SessionService sessionService;
     private SigaEventLogger sigaEventLogger;
     private MobileIdApiClient mobileIdApiClient;
     private SmartIdApiClient smartIdApiClient;
-    private ThreadPoolTaskExecutor taskExecutor;
-    private Ignite ignite;
+    private StatusPollingExecutor statusPollingExecutor;
+    private StatusPollingScheduler statusPollingScheduler;
+    private SigningCallbackNotifier signingCallbackNotifier;
+    private SessionStore sessionStore;
+    private SessionResultNotifier sessionResultNotifier;
 
     public DataToSignWrapper createDataToSign(String containerId, SignatureParameters signatureParameters) {
-        Session sessionHolder = getSession(containerId);
+        Session sessionHolder = getSession(containerId, Set.of(CONTAINER));
         verifySigningObjectExistence(sessionHolder);
 
         DataToSign dataToSign = buildDataToSign(sessionHolder, signatureParameters);
 
         String generatedSignatureId = UUIDGenerator.generateUUID();
         SignatureSession signatureSession = SignatureSession.builder()
-                .dataToSign(dataToSign)
+                .dataToSign(dataToSign.getDataToSign())
+                .signatureParameters(dataToSign.getSignatureParameters())
                 .signingType(SigningType.REMOTE)
                 .dataFilesHash(generateDataFilesHash(sessionHolder))
                 .build();
 
-        sessionHolder.addSignatureSession(generatedSignatureId, signatureSession);
-        sessionService.update(sessionHolder);
+        sessionService.addSignatureSession(sessionHolder.getSessionId(), generatedSignatureId, signatureSession);
 
         return DataToSignWrapper.builder()
                 .dataToSign(dataToSign)
@@ -88,28 +112,29 @@ public abstract class ContainerSigningService {
     }
 
     public Result finalizeSigning(String containerId, String signatureId, String signatureValue) {
-        Session sessionHolder = getSession(containerId);
+        Session sessionHolder = getSession(containerId, Set.of(CONTAINER, SIGNATURE_SESSIONS));
         SignatureSession signatureSession = sessionHolder.getSignatureSession(signatureId);
         validateSession(signatureSession, signatureId, SigningType.REMOTE);
 
         byte[] base64Decoded = Base64.getDecoder().decode(signatureValue.getBytes());
         Signature signature = finalizeSignature(sessionHolder, signatureId, base64Decoded);
 
-        addSignatureToSession(sessionHolder, signature, signatureId);
-        sessionService.update(sessionHolder);
+        sessionService.update(sessionHolder, session -> addSignatureToSession(session, signature, signatureId));
+        sessionHolder.clearSigningSession(signatureId);
+        sessionService.updateSignatureSession(sessionHolder.getSessionId(), signatureId, signatureSession);
         return Result.OK;
     }
 
     protected Signature finalizeSignature(Session session, String signatureId, byte[] base64Decoded) {
         validateContainerDataFilesUnchanged(session, signatureId);
-        DataToSign dataToSign = session.getSignatureSession(signatureId).getDataToSign();
-        SigaEvent startEvent = sigaEventLogger.logStartEvent(FINALIZE_SIGNATURE).addEventParameter(SIGNATURE_ID, dataToSign.getSignatureParameters().getSignatureId());
+        SignatureParameters signatureParameters = session.getSignatureSession(signatureId).getSignatureParameters();
+        SigaEvent startEvent = sigaEventLogger.logStartEvent(FINALIZE_SIGNATURE).addEventParameter(SIGNATURE_ID, signatureParameters.getSignatureId());
 
         Signature signature;
         ServiceAccessListener listener = createServiceAccessListener();
 
         try (ServiceAccessScope ignored = new ServiceAccessScope(listener)) {
-            signature = dataToSign.finalize(base64Decoded);
+            signature = buildSignatureFinalizer(session, signatureParameters).finalizeSignature(base64Decoded);
             validateFinalizedSignature(signature, startEvent);
             logSignatureFinalizationEndEvent(startEvent, signature);
         } catch (CertificateValidationException | TechnicalException e) {
@@ -131,6 +156,79 @@ public abstract class ContainerSigningService {
         return signature;
     }
 
+    /**
+     * Finalizes a Mobile-ID or Smart-ID signature in the status polling task as soon as the signature value is
+     * received, if {@code siga.status-polling.background-finalization} is enabled.
+     *
+     * @return whether the signature was added to the container. If not, the signature is finalized on the status
+     * request, which reports the finalization error to the client.
+     */
+    boolean finalizeSignatureInBackground(String sessionId, String signatureId, byte[] signatureValue) {
+        if (!statusPollingProperties.isBackgroundFinalization()) {
+            return false;
+        }
+        try {
+            Session session = sessionService.getContainerBySessionId(sessionId, Set.of(CONTAINER, SIGNATURE_SESSIONS));
+            Signature signature = finalizeSignature(session, signatureId, signatureValue);
+            sessionService.update(session, s -> addSignatureToSession(s, signature, signatureId));
+            return true;
+        } catch (SigaApiException | ee.openeid.siga.common.exception.TechnicalException | DigiDoc4JException | DSSException e) {
+            log.warn("Unable to finalize signature in background. Signature id: {}. Signature will be finalized on status request",
+                    signatureId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits until the Mobile-ID or Smart-ID signing status request would return the final status of the signature,
+     * but no longer than {@code siga.status-polling.long-polling-timeout}. The returned future completes normally also
+     * on timeout and when there is no such signature session, after which the status request reports the status.
+     */
+    public CompletableFuture<Void> awaitSignatureStatus(String containerId, String signatureId) {
+        return awaitStatus(containerId, signatureId, CacheName.SIGNATURE_SESSION, SIGNATURE_SESSIONS,
+                session -> session.getSignatureSessionStatus(signatureId));
+    }
+
+    /**
+     * Waits until the Smart-ID certificate choice status request would return the final status of the certificate
+     * choice, but no longer than {@code siga.status-polling.long-polling-timeout}.
+     *
+     * @see #awaitSignatureStatus(String, String)
+     */
+    public CompletableFuture<Void> awaitCertificateStatus(String containerId, String certificateId) {
+        return awaitStatus(containerId, certificateId, CacheName.CERTIFICATE_SESSION, CERTIFICATE_SESSIONS, session -> {
+            CertificateSession certificateSession = session.getCertificateSession(certificateId);
+            return certificateSession == null ? null : certificateSession.getSessionStatus();
+        });
+    }
+
+    private CompletableFuture<Void> awaitStatus(String containerId, String entryId, CacheName cacheName,
+                                                SessionPart sessionPart, Function<Session, SessionStatus> sessionStatusGetter) {
+        Predicate<SessionStatus> isFinalStatus = sessionStatus -> sessionStatus.getProcessingStatus() == RESULT
+                || sessionStatus.getProcessingCounter() >= reprocessingProperties.getMaxProcessingAttempts();
+        // Register the wait before reading the session, so that a result stored in between is not missed
+        CompletableFuture<Void> result = sessionResultNotifier.awaitResult(cacheName, sessionService.getSessionId(containerId), entryId, isFinalStatus);
+        try {
+            Session session = getSession(containerId, Set.of(sessionPart));
+            SessionStatus sessionStatus = session == null ? null : sessionStatusGetter.apply(session);
+            if (sessionStatus == null || isFinalStatus.test(sessionStatus)) {
+                result.complete(null);
+            }
+        } catch (RuntimeException e) {
+            result.cancel(false);
+            throw e;
+        }
+        return result.completeOnTimeout(null, statusPollingProperties.getLongPollingTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return callback URL of the service, to which Mobile-ID and Smart-ID completion events are sent
+     */
+    static String getCallbackUrl() {
+        SigaUserDetails sigaUserDetails = (SigaUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return sigaUserDetails.getCallbackUrl();
+    }
+
     void validateContainerDataFilesUnchanged(Session session, String signatureId) {
         SignatureSession signatureSession = session.getSignatureSession(signatureId);
 
@@ -140,7 +238,7 @@ public abstract class ContainerSigningService {
 
         if (!generateDataFilesHash(session).equals(signatureSession.getDataFilesHash())) {
             session.clearSigningSession(signatureId);
-            sessionService.update(session);
+            sessionService.updateSignatureSession(session.getSessionId(), signatureId, signatureSession);
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". Container data files have been changed after signing was initiated. Repeat signing process");
         }
     }
@@ -223,7 +321,13 @@ public abstract class ContainerSigningService {
 
     protected abstract DataToSign buildDataToSign(Session session, SignatureParameters signatureParameters);
 
-    protected abstract Session getSession(String containerId);
+    /**
+     * Rebuilds the signature finalizer of the data to sign from the data files of the session, which have been
+     * verified to be unchanged since the data to sign was built.
+     */
+    protected abstract SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters);
+
+    protected abstract Session getSession(String containerId, Set<SessionPart> parts);
 
     protected abstract void addSignatureToSession(Session sessionHolder, Signature signature, String signatureId);
 
@@ -16,28 +16,27 @@ import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.mobileid.InitMidSignatureResponse;
 import ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus;
 import ee.openeid.siga.service.signature.mobileid.MobileIdStatusResponse;
+import ee.openeid.siga.session.SessionLock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureParameters;
-import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Mono;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 
 import static ee.openeid.siga.common.exception.ErrorResponseCode.INTERNAL_SERVER_ERROR;
 import static ee.openeid.siga.common.model.SigningType.MOBILE_ID;
 import static ee.openeid.siga.common.session.ProcessingStatus.EXCEPTION;
 import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 import static ee.openeid.siga.service.signature.container.ContainerSigningService.UNABLE_TO_FINALIZE_SIGNATURE;
-import static java.util.concurrent.CompletableFuture.delayedExecutor;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
+import static ee.openeid.siga.session.SessionPart.SIGNATURE_SESSIONS;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -53,7 +52,7 @@ public class MobileIdSigningDelegate {
     }
 
     public SigningChallenge startMobileIdSigning(String containerId, MobileIdInformation mobileIdInformation, SignatureParameters signatureParameters) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(CONTAINER));
         containerSigningService.verifySigningObjectExistence(session);
         RelyingPartyInfo relyingPartyInfo = getRelyingPartyInfo();
         X509Certificate certificate = containerSigningService.getMobileIdApiClient().getCertificate(relyingPartyInfo, mobileIdInformation);
@@ -65,16 +64,17 @@ public class MobileIdSigningDelegate {
         String generatedSignatureId = UUIDGenerator.generateUUID();
         SignatureSession signatureSession = SignatureSession.builder()
                 .relyingPartyInfo(relyingPartyInfo)
-                .dataToSign(dataToSign)
+                .dataToSign(dataToSign.getDataToSign())
+                .signatureParameters(dataToSign.getSignatureParameters())
                 .signingType(MOBILE_ID)
                 .sessionCode(initMidSignatureResponse.getSessionCode())
                 .dataFilesHash(containerSigningService.generateDataFilesHash(session))
+                .callbackUrl(ContainerSigningService.getCallbackUrl())
                 .build();
 
-        session.addSignatureSession(generatedSignatureId, signatureSession);
+        containerSigningService.getSessionService().addSignatureSession(session.getSessionId(), generatedSignatureId, signatureSession);
         pollMobileIdSignatureStatus(session.getSessionId(), generatedSignatureId,
                 containerSigningService.getMobileIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
 
         return SigningChallenge.builder()
                 .challengeId(initMidSignatureResponse.getChallengeId())
@@ -83,7 +83,7 @@ public class MobileIdSigningDelegate {
     }
 
     public String getMobileIdSignatureStatus(String containerId, String signatureId) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(SIGNATURE_SESSIONS));
         if (session == null || session.getSignatureSessionStatus(signatureId) == null) {
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". No data to sign with signature Id: " + signatureId);
         }
@@ -95,13 +95,13 @@ public class MobileIdSigningDelegate {
 
         if (sessionStatus.getProcessingStatus() == RESULT) {
             try {
-                if (MobileIdSessionStatus.SIGNATURE.name().equals(status)) {
+                if (MobileIdSessionStatus.SIGNATURE.name().equals(status) && !signatureSession.isFinalized()) {
                     Signature signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
-                    containerSigningService.addSignatureToSession(session, signature, signatureId);
+                    containerSigningService.getSessionService().update(session,
+                            s -> containerSigningService.addSignatureToSession(s, signature, signatureId));
                 }
             } finally {
-                session.removeSigningSession(signatureId);
-                containerSigningService.getSessionService().update(session);
+                containerSigningService.getSessionService().removeSignatureSession(session.getSessionId(), signatureId);
             }
             return status;
         } else {
@@ -117,30 +117,24 @@ public class MobileIdSigningDelegate {
     }
 
     public void pollMobileIdSignatureStatus(String sessionId, String signatureId, Duration pollingDelay) {
-        Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore semaphore = containerSigningService.getIgnite().semaphore(signatureId, 1, true, true);
-            if (semaphore.tryAcquire()) {
-                try (semaphore) {
-                    pollSignatureStatus(sessionId, signatureId);
-                } catch (Exception ex) {
-                    setPollingException(sessionId, signatureId, ex);
-                } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
-                    containerSigningService.getSigaEventLogger().logEvents();
-                    log.debug("Status polling unlocked for signature id: {}", signatureId);
-                }
-            } else {
-                log.debug("Status polling semaphore not acquired for signature id: {}", signatureId);
-            }
-        };
-        DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        StatusPolling.schedule(containerSigningService, signatureId, MOBILE_ID, pollingDelay,
+                lock -> awaitSignatureCompletion(sessionId, signatureId, lock),
+                () -> pollSignatureStatus(sessionId, signatureId),
+                ex -> setPollingException(sessionId, signatureId, ex));
+    }
+
+    private Mono<Void> awaitSignatureCompletion(String sessionId, String signatureId, SessionLock lock) {
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
+        SignatureSession signatureSession = session.getSignatureSession(signatureId);
+        if (signatureSession == null) {
+            return Mono.empty();
+        }
+        return containerSigningService.getMobileIdApiClient().awaitSignatureCompletion(signatureSession.getSessionCode(), lock::renew);
     }
 
     private void pollSignatureStatus(String sessionId, String signatureId) {
         log.debug("Status polling locked for signature id: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         SignatureSession signatureSession = session.getSignatureSession(signatureId);
         if (signatureSession == null) {
             log.warn("Unable to poll signature status. Container {} signature session {} is expired!", sessionId, signatureId);
@@ -149,20 +143,12 @@ public class MobileIdSigningDelegate {
         RelyingPartyInfo relyingPartyInfo = signatureSession.getRelyingPartyInfo();
         String sessionCode = signatureSession.getSessionCode();
         MobileIdStatusResponse statusResponse = containerSigningService.getMobileIdApiClient().getSignatureStatus(relyingPartyInfo, sessionCode);
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processMobileIdStatusResponse(sessionId, signatureId, statusResponse);
-            } else {
-                log.error("Unprocessed MobileId signature status response due to SIGA-424. Container session id: {}, Signature session id: {}",
-                        sessionId, signatureId);
-            }
-        }
+        processMobileIdStatusResponse(sessionId, signatureId, statusResponse);
     }
 
     private void processMobileIdStatusResponse(String sessionId, String signatureId, MobileIdStatusResponse mobileIdStatusResponse) {
         log.debug("Processing MobileId response for signature: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         if (session == null) {
             log.warn("Unable to process signature status response. Container session expired: {}", sessionId);
             return;
@@ -175,14 +161,20 @@ public class MobileIdSigningDelegate {
             MobileIdSessionStatus mobileIdSessionStatus = mobileIdStatusResponse.getStatus();
             SessionStatus sessionStatus = signatureSession.getSessionStatus();
             sessionStatus.setStatus(mobileIdSessionStatus.name());
-            containerSigningService.getSessionService().update(session);
+            if (mobileIdSessionStatus == MobileIdSessionStatus.SIGNATURE) {
+                // Result is stored only after finalization, so that the status request does not finalize concurrently
+                signatureSession.setFinalized(containerSigningService.finalizeSignatureInBackground(
+                        sessionId, signatureId, mobileIdStatusResponse.getSignature()));
+            }
+            containerSigningService.getSessionService().updateSignatureSession(sessionId, signatureId, signatureSession);
+            containerSigningService.getSigningCallbackNotifier().notifySigningCompleted(sessionId, signatureId, signatureSession);
         }
     }
 
     private void setPollingException(String sessionId, String signatureId, Exception ex) {
         log.error("MobileId status polling exception. Session id: {}, Signature id: {}",
                 sessionId, signatureId, ex);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         SignatureSession signatureSession = session.getSignatureSession(signatureId);
         SessionStatus sessionStatus = signatureSession.getSessionStatus();
         sessionStatus.setProcessingStatus(EXCEPTION);
@@ -190,7 +182,8 @@ public class MobileIdSigningDelegate {
                 .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
                 .errorMessage(ex.getMessage())
                 .build());
-        containerSigningService.getSessionService().update(session);
+        containerSigningService.getSessionService().updateSignatureSession(sessionId, signatureId, signatureSession);
+        containerSigningService.getSigningCallbackNotifier().notifySigningCompleted(sessionId, signatureId, signatureSession);
     }
 
     private void ensureSigningTypeIsMobileId(SignatureSession signatureSession) {
@@ -18,21 +18,20 @@ import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.smartid.InitSmartIdSignatureResponse;
 import ee.openeid.siga.service.signature.smartid.SmartIdSessionStatus;
 import ee.openeid.siga.service.signature.smartid.SmartIdStatusResponse;
+import ee.openeid.siga.session.SessionLock;
 import ee.sk.smartid.SmartIdCertificate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureParameters;
-import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Mono;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 
 import static ee.openeid.siga.common.exception.ErrorResponseCode.INTERNAL_SERVER_ERROR;
 import static ee.openeid.siga.common.exception.ErrorResponseCode.SMARTID_EXCEPTION;
@@ -40,8 +39,9 @@ import static ee.openeid.siga.common.model.SigningType.SMART_ID;
 import static ee.openeid.siga.common.session.ProcessingStatus.EXCEPTION;
 import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 import static ee.openeid.siga.service.signature.container.ContainerSigningService.UNABLE_TO_FINALIZE_SIGNATURE;
-import static java.util.concurrent.CompletableFuture.delayedExecutor;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static ee.openeid.siga.session.SessionPart.CERTIFICATE_SESSIONS;
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
+import static ee.openeid.siga.session.SessionPart.SIGNATURE_SESSIONS;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -57,7 +57,7 @@ public class SmartIdSigningDelegate {
     }
 
     public SigningChallenge startSmartIdSigning(String containerId, SmartIdInformation smartIdInformation, SignatureParameters signatureParameters) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(CONTAINER));
         containerSigningService.verifySigningObjectExistence(session);
         X509Certificate certificate = session.getCertificate(smartIdInformation.getDocumentNumber());
         RelyingPartyInfo relyingPartyInfo = getRelyingPartyInfo();
@@ -74,17 +74,21 @@ public class SmartIdSigningDelegate {
         String generatedSignatureId = UUIDGenerator.generateUUID();
         SignatureSession signatureSession = SignatureSession.builder()
                 .relyingPartyInfo(relyingPartyInfo)
-                .dataToSign(dataToSign)
+                .dataToSign(dataToSign.getDataToSign())
+                .signatureParameters(dataToSign.getSignatureParameters())
                 .signingType(SMART_ID)
                 .sessionCode(initSmartIdSignatureResponse.getSessionCode())
                 .dataFilesHash(containerSigningService.generateDataFilesHash(session))
+                .callbackUrl(ContainerSigningService.getCallbackUrl())
                 .build();
 
-        session.addSignatureSession(generatedSignatureId, signatureSession);
-        session.clearCertificate(smartIdInformation.getDocumentNumber());
+        containerSigningService.getSessionService().addSignatureSession(session.getSessionId(), generatedSignatureId, signatureSession);
+        if (session.getCertificate(smartIdInformation.getDocumentNumber()) != null) {
+            containerSigningService.getSessionService().update(session,
+                    s -> s.clearCertificate(smartIdInformation.getDocumentNumber()));
+        }
         pollSmartIdSignatureStatus(session.getSessionId(), generatedSignatureId,
                 containerSigningService.getSmartIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
 
         return SigningChallenge.builder()
                 .challengeId(initSmartIdSignatureResponse.getChallengeId())
@@ -93,23 +97,24 @@ public class SmartIdSigningDelegate {
     }
 
     public String initSmartIdCertificateChoice(String containerId, SmartIdInformation smartIdInformation) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(CONTAINER));
         containerSigningService.verifySigningObjectExistence(session);
         RelyingPartyInfo relyingPartyInfo = getRelyingPartyInfo();
         String smartIdSessionId = containerSigningService.getSmartIdApiClient().initiateCertificateChoice(relyingPartyInfo, smartIdInformation);
         String generatedCertificateId = UUIDGenerator.generateUUID();
-        session.addCertificateSession(generatedCertificateId, CertificateSession.builder()
-                .relyingPartyInfo(relyingPartyInfo)
-                .sessionCode(smartIdSessionId)
-                .build());
+        containerSigningService.getSessionService().addCertificateSession(session.getSessionId(), generatedCertificateId,
+                CertificateSession.builder()
+                        .relyingPartyInfo(relyingPartyInfo)
+                        .sessionCode(smartIdSessionId)
+                        .callbackUrl(ContainerSigningService.getCallbackUrl())
+                        .build());
         pollSmartIdCertificateStatus(session.getSessionId(), generatedCertificateId,
                 containerSigningService.getSmartIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
         return generatedCertificateId;
     }
 
     public CertificateStatus getSmartIdCertificateStatus(String containerId, String certificateId) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(CERTIFICATE_SESSIONS));
         if (session == null || session.getCertificateSession(certificateId) == null) {
             throw new InvalidSessionDataException("No session found for certificate Id: " + certificateId);
         }
@@ -118,8 +123,11 @@ public class SmartIdSigningDelegate {
         String status = sessionStatus.getStatus();
         StatusError statusError = sessionStatus.getStatusError();
         if (sessionStatus.getProcessingStatus() == RESULT) {
-            session.removeCertificateSession(certificateId);
-            containerSigningService.getSessionService().update(session);
+            if (certificateSession.getCertificate() != null) {
+                containerSigningService.getSessionService().update(session,
+                        s -> s.addCertificate(certificateSession.getDocumentNumber(), certificateSession.getCertificate()));
+            }
+            containerSigningService.getSessionService().removeCertificateSession(session.getSessionId(), certificateId);
             return CertificateStatus.builder()
                     .status(status)
                     .documentNumber(certificateSession.getDocumentNumber())
@@ -139,47 +147,33 @@ public class SmartIdSigningDelegate {
     }
 
     public void pollSmartIdCertificateStatus(String sessionId, String certificateId, Duration pollingDelay) {
-        Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore semaphore = containerSigningService.getIgnite().semaphore(certificateId, 1, true, true);
-            if (semaphore.tryAcquire()) {
-                try (semaphore) {
-                    pollCertificateStatus(sessionId, certificateId);
-                } catch (Exception ex) {
-                    setPollingException(sessionId, certificateId, ex);
-                } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
-                    containerSigningService.getSigaEventLogger().logEvents();
-                    log.debug("Status polling unlocked for certificate id: {}", certificateId);
-                }
-            } else {
-                log.debug("Status polling semaphore not acquired for certificate id: {}", certificateId);
-            }
-        };
-        DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        StatusPolling.schedule(containerSigningService, certificateId, SMART_ID, pollingDelay,
+                lock -> awaitCertificateCompletion(sessionId, certificateId, lock),
+                () -> pollCertificateStatus(sessionId, certificateId),
+                ex -> setCertificatePollingException(sessionId, certificateId, ex));
+    }
+
+    private Mono<Void> awaitCertificateCompletion(String sessionId, String certificateId, SessionLock lock) {
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(CERTIFICATE_SESSIONS));
+        CertificateSession certificateSession = session.getCertificateSession(certificateId);
+        if (certificateSession == null) {
+            return Mono.empty();
+        }
+        return containerSigningService.getSmartIdApiClient().awaitSessionCompletion(certificateSession.getSessionCode(), lock::renew);
     }
 
     private void pollCertificateStatus(String sessionId, String certificateId) {
         log.debug("Status polling locked for certificate id: {}", certificateId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(CERTIFICATE_SESSIONS));
         CertificateSession certificateSession = session.getCertificateSession(certificateId);
         RelyingPartyInfo relyingPartyInfo = certificateSession.getRelyingPartyInfo();
         SmartIdStatusResponse statusResponse = containerSigningService.getSmartIdApiClient()
                 .getCertificateStatus(relyingPartyInfo, certificateSession.getSessionCode());
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processSmartIdCertificateStatusResponse(sessionId, certificateId, statusResponse);
-            } else {
-                log.error("Unprocessed SmartId certificate status response due to SIGA-424. Container session id: {}, Certificate session id: {}",
-                        sessionId, certificateId);
-            }
-        }
+        processSmartIdCertificateStatusResponse(sessionId, certificateId, statusResponse);
     }
 
     private void processSmartIdCertificateStatusResponse(String sessionId, String certificateId, SmartIdStatusResponse statusResponse) {
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(CERTIFICATE_SESSIONS));
         if (session == null) {
             log.warn("Unable to process certificate status response. Container session expired: {}", sessionId);
             return;
@@ -194,19 +188,20 @@ public class SmartIdSigningDelegate {
                 if (smartIdCertificate == null) {
                     sessionStatus.setStatusError(SMARTID_EXCEPTION.name(), "No certificate found from Smart-id response");
                 } else {
-                    session.addCertificate(smartIdCertificate.getDocumentNumber(), smartIdCertificate.getCertificate());
-                    certificateSession.setDocumentNumber(statusResponse.getSmartIdCertificate().getDocumentNumber());
+                    certificateSession.setCertificate(smartIdCertificate.getCertificate());
+                    certificateSession.setDocumentNumber(smartIdCertificate.getDocumentNumber());
                 }
             }
             sessionStatus.setStatus(statusResponse.getStatus().getSigaCertificateMessage());
-            containerSigningService.getSessionService().update(session);
+            containerSigningService.getSessionService().updateCertificateSession(sessionId, certificateId, certificateSession);
+            containerSigningService.getSigningCallbackNotifier().notifyCertificateChoiceCompleted(sessionId, certificateId, certificateSession);
         } else {
             log.warn("Certificate session expired! Container session id: {}, Certificate session id: {}", sessionId, certificateId);
         }
     }
 
     public String getSmartIdSignatureStatus(String containerId, String signatureId) {
-        Session session = containerSigningService.getSession(containerId);
+        Session session = containerSigningService.getSession(containerId, Set.of(SIGNATURE_SESSIONS));
         if (session == null || session.getSignatureSessionStatus(signatureId) == null) {
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". No data to sign with signature Id: " + signatureId);
         }
@@ -217,13 +212,13 @@ public class SmartIdSigningDelegate {
         StatusError statusError = sessionStatus.getStatusError();
         if (sessionStatus.getProcessingStatus() == RESULT) {
             try {
-                if (SmartIdSessionStatus.OK.getSigaSigningMessage().equals(status)) {
+                if (SmartIdSessionStatus.OK.getSigaSigningMessage().equals(status) && !signatureSession.isFinalized()) {
                     Signature signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
-                    containerSigningService.addSignatureToSession(session, signature, signatureId);
+                    containerSigningService.getSessionService().update(session,
+                            s -> containerSigningService.addSignatureToSession(s, signature, signatureId));
                 }
             } finally {
-                session.removeSigningSession(signatureId);
-                containerSigningService.getSessionService().update(session);
+                containerSigningService.getSessionService().removeSignatureSession(session.getSessionId(), signatureId);
             }
             return status;
         } else {
@@ -238,30 +233,24 @@ public class SmartIdSigningDelegate {
     }
 
     public void pollSmartIdSignatureStatus(String sessionId, String signatureId, Duration pollingDelay) {
-        Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore signatureSemaphore = containerSigningService.getIgnite().semaphore(signatureId, 1, true, true);
-            if (signatureSemaphore.tryAcquire()) {
-                try (signatureSemaphore) {
-                    pollSignatureStatus(sessionId, signatureId);
-                } catch (Exception ex) {
-                    setPollingException(sessionId, signatureId, ex);
-                } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
-                    containerSigningService.getSigaEventLogger().logEvents();
-                    log.debug("Status polling unlocked for signature id: {}", signatureId);
-                }
-            } else {
-                log.debug("Status polling semaphore not acquired for signature id: {}", signatureId);
-            }
-        };
-        DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        StatusPolling.schedule(containerSigningService, signatureId, SMART_ID, pollingDelay,
+                lock -> awaitSignatureCompletion(sessionId, signatureId, lock),
+                () -> pollSignatureStatus(sessionId, signatureId),
+                ex -> setPollingException(sessionId, signatureId, ex));
+    }
+
+    private Mono<Void> awaitSignatureCompletion(String sessionId, String signatureId, SessionLock lock) {
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
+        SignatureSession signatureSession = session.getSignatureSession(signatureId);
+        if (signatureSession == null) {
+            return Mono.empty();
+        }
+        return containerSigningService.getSmartIdApiClient().awaitSessionCompletion(signatureSession.getSessionCode(), lock::renew);
     }
 
     private void pollSignatureStatus(String sessionId, String signatureId) {
         log.debug("Status polling locked for signature id: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         SignatureSession signatureSession = session.getSignatureSession(signatureId);
         if (signatureSession == null) {
             log.warn("Unable to poll signature status. Container {} signature session {} is expired!", sessionId, signatureId);
@@ -270,20 +259,12 @@ public class SmartIdSigningDelegate {
         RelyingPartyInfo relyingPartyInfo = signatureSession.getRelyingPartyInfo();
         String sessionCode = signatureSession.getSessionCode();
         SmartIdStatusResponse statusResponse = containerSigningService.getSmartIdApiClient().getSignatureStatus(relyingPartyInfo, sessionCode);
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processSmartIdSignatureStatusResponse(sessionId, signatureId, statusResponse);
-            } else {
-                log.error("Unprocessed SmartId signature status response due to SIGA-424. Container session id: {}, Signature session id: {}",
-                        sessionId, signatureId);
-            }
-        }
+        processSmartIdSignatureStatusResponse(sessionId, signatureId, statusResponse);
     }
 
     private void processSmartIdSignatureStatusResponse(String sessionId, String signatureId, SmartIdStatusResponse sessionResponse) {
         log.debug("Processing response for signature: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         if (session == null) {
             log.warn("Unable to process signature status response. Container session expired: {}", sessionId);
             return;
@@ -296,7 +277,13 @@ public class SmartIdSigningDelegate {
             SessionStatus sessionStatus = signatureSession.getSessionStatus();
             sessionStatus.setStatus(sidStatus.getSigaSigningMessage());
             sessionStatus.setStatusError(null);
-            containerSigningService.getSessionService().update(session);
+            if (sidStatus == SmartIdSessionStatus.OK) {
+                // Result is stored only after finalization, so that the status request does not finalize concurrently
+                signatureSession.setFinalized(containerSigningService.finalizeSignatureInBackground(
+                        sessionId, signatureId, sessionResponse.getSignature()));
+            }
+            containerSigningService.getSessionService().updateSignatureSession(sessionId, signatureId, signatureSession);
+            containerSigningService.getSigningCallbackNotifier().notifySigningCompleted(sessionId, signatureId, signatureSession);
         } else {
             log.warn("Signature session expired! Container session id: {}, Signature session id: {}", sessionId, signatureId);
         }
@@ -305,7 +292,7 @@ public class SmartIdSigningDelegate {
     private void setPollingException(String sessionId, String statusSessionId, Exception ex) {
         log.error("SmartId status polling exception. Container session id: {}, Status session id: {}",
                 sessionId, statusSessionId, ex);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         SignatureSession signatureSession = session.getSignatureSession(statusSessionId);
         SessionStatus sessionStatus = signatureSession.getSessionStatus();
         sessionStatus.setProcessingStatus(EXCEPTION);
@@ -313,7 +300,27 @@ public class SmartIdSigningDelegate {
                 .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
                 .errorMessage(ex.getMessage())
                 .build());
-        containerSigningService.getSessionService().update(session);
+        containerSigningService.getSessionService().updateSignatureSession(sessionId, statusSessionId, signatureSession);
+        containerSigningService.getSigningCallbackNotifier().notifySigningCompleted(sessionId, statusSessionId, signatureSession);
+    }
+
+    private void setCertificatePollingException(String sessionId, String certificateId, Exception ex) {
+        log.error("SmartId certificate status polling exception. Container session id: {}, Certificate id: {}",
+                sessionId, certificateId, ex);
+        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId, Set.of(CERTIFICATE_SESSIONS));
+        CertificateSession certificateSession = session.getCertificateSession(certificateId);
+        if (certificateSession == null) {
+            log.warn("Certificate session expired! Container session id: {}, Certificate session id: {}", sessionId, certificateId);
+            return;
+        }
+        SessionStatus sessionStatus = certificateSession.getSessionStatus();
+        sessionStatus.setProcessingStatus(EXCEPTION);
+        sessionStatus.setStatusError(StatusError.builder()
+                .errorCode(INTERNAL_SERVER_ERROR.name())
+                .errorMessage(ex.getMessage())
+                .build());
+        containerSigningService.getSessionService().updateCertificateSession(sessionId, certificateId, certificateSession);
+        containerSigningService.getSigningCallbackNotifier().notifyCertificateChoiceCompleted(sessionId, certificateId, certificateSession);
     }
 
     private void ensureSigningTypeIsSmartId(SignatureSession signatureSession) {
@@ -0,0 +1,88 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.session.SessionLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Polls Mobile-ID and Smart-ID session statuses while holding the status polling lock of the signature or certificate
+ * session.
+ * <p>
+ * The long-poll waiting for the user to complete the session runs on the non-blocking HTTP client without holding a
+ * task executor thread. Only the final status is then fetched and processed on the task executor.
+ * <p>
+ * The lock is renewed before every long-poll request and before the final status is fetched, so that its lease only
+ * has to outlast a single long-poll request. If the lease has expired meanwhile, the session may already be polled by
+ * status reprocessing, so polling is abandoned.
+ */
+@Slf4j
+class StatusPolling {
+
+    private StatusPolling() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param provider        Mobile-ID or Smart-ID, whose polling failures back off its later polls
+     * @param awaitCompletion completes when the session is no longer running. Renews the given lock before every request
+     * @param pollStatus      fetches and processes the final status
+     * @param onException     records the polling exception in the session
+     */
+    static void schedule(ContainerSigningService containerSigningService, String lockId, SigningType provider,
+                         Duration pollingDelay, Function<SessionLock, Mono<Void>> awaitCompletion, Runnable pollStatus, Consumer<Exception> onException) {
+        Runnable pollingRunnable = () -> {
+            // If lock is not acquired it will be re-processed by SessionStatusReprocessingService
+            Optional<SessionLock> lock = containerSigningService.getSessionStore().tryLock(lockId);
+            if (lock.isEmpty()) {
+                log.debug("Status polling lock not acquired for id: {}", lockId);
+                return;
+            }
+            Runnable statusRunnable = new DelegatingSecurityContextRunnable(() -> {
+                try (SessionLock ignored = lock.get()) {
+                    if (!lock.get().renew()) {
+                        log.warn("Status polling lock lease expired for id: {}. Status will be re-processed", lockId);
+                        return;
+                    }
+                    pollStatus.run();
+                    containerSigningService.getStatusPollingScheduler().recordPollResult(provider, true);
+                } catch (Exception ex) {
+                    containerSigningService.getStatusPollingScheduler().recordPollResult(provider, false);
+                    onException.accept(ex);
+                } finally {
+                    // Lock release conditions 1) Normal execution 2) Exception occurs 3) Lock lease expires, e.g. node has stopped
+                    containerSigningService.getSigaEventLogger().logEvents();
+                    log.debug("Status polling unlocked for id: {}", lockId);
+                }
+            });
+            Mono<Void> completion;
+            try {
+                completion = awaitCompletion.apply(lock.get());
+            } catch (Exception ex) {
+                statusRunnable.run();
+                return;
+            }
+            completion.subscribe(null, null, () -> executeStatusPolling(containerSigningService, lockId, lock.get(), statusRunnable));
+        };
+        // If backlog is full it will be re-processed by SessionStatusReprocessingService
+        containerSigningService.getStatusPollingScheduler()
+                .schedule(lockId, provider, pollingDelay, new DelegatingSecurityContextRunnable(pollingRunnable));
+    }
+
+    private static void executeStatusPolling(ContainerSigningService containerSigningService, String lockId,
+                                             SessionLock lock, Runnable statusRunnable) {
+        try {
+            containerSigningService.getStatusPollingExecutor().execute(statusRunnable);
+        } catch (TaskRejectedException ex) {
+            log.warn("Status polling rejected for id: {}. Status will be re-processed", lockId);
+            lock.close();
+        }
+    }
+}
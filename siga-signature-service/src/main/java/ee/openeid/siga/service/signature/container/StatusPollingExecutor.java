@@ -0,0 +1,91 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Mobile-ID and Smart-ID status polling and re-processing tasks, either on the application task executor or on
+ * virtual threads, when {@code siga.status-polling.virtual-threads} is enabled.
+ * <p>
+ * Delayed status polls are held by the {@link StatusPollingScheduler} until they are due, so that no task executor
+ * thread is occupied during the polling delay.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(StatusPollingProperties.class)
+public class StatusPollingExecutor {
+    private final TaskExecutor taskExecutor;
+    private int activeCount;
+
+    public StatusPollingExecutor(@Qualifier("applicationTaskExecutor") TaskExecutor applicationTaskExecutor,
+                                 StatusPollingProperties statusPollingProperties) {
+        this.taskExecutor = statusPollingProperties.isVirtualThreads()
+                ? createVirtualThreadExecutor()
+                : applicationTaskExecutor;
+    }
+
+    /**
+     * @throws TaskRejectedException if the task executor does not accept the task
+     */
+    public void execute(Runnable task) {
+        taskStarted();
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    taskFinished();
+                }
+            });
+        } catch (RuntimeException e) {
+            taskFinished();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of submitted tasks that have not finished yet
+     */
+    public synchronized int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return whether all submitted tasks finished before the timeout
+     */
+    public synchronized boolean awaitActiveTasks(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long remaining;
+        while (activeCount > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+            log.info("Nr. of active status polling jobs left: {}. Timeout in: {} s", activeCount,
+                    TimeUnit.NANOSECONDS.toSeconds(remaining));
+            TimeUnit.NANOSECONDS.timedWait(this, Math.min(remaining, TimeUnit.SECONDS.toNanos(10)));
+        }
+        return activeCount == 0;
+    }
+
+    private synchronized void taskStarted() {
+        activeCount++;
+    }
+
+    private synchronized void taskFinished() {
+        if (--activeCount == 0) {
+            notifyAll();
+        }
+    }
+
+    private static TaskExecutor createVirtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("status-polling-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
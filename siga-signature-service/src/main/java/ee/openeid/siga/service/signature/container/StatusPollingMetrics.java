@@ -0,0 +1,115 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.common.model.SigningType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class StatusPollingMetrics implements MeterBinder {
+    static final String BACKLOG_METRIC_NAME = "siga.status.polling.backlog";
+    static final String POLLS_METRIC_NAME = "siga.status.polling.polls";
+    static final String LATENESS_METRIC_NAME = "siga.status.polling.lateness";
+    static final String BACKOFF_METRIC_NAME = "siga.status.polling.backoff";
+    private static final SigningType[] PROVIDERS = {SigningType.MOBILE_ID, SigningType.SMART_ID};
+    private final Map<SigningType, ProviderMetrics> providerMetrics = new EnumMap<>(SigningType.class);
+
+    public StatusPollingMetrics() {
+        for (SigningType provider : PROVIDERS) {
+            providerMetrics.put(provider, new ProviderMetrics());
+        }
+    }
+
+    public void recordScheduled(SigningType provider) {
+        get(provider).backlog.incrementAndGet();
+    }
+
+    public void recordCoalesced(SigningType provider) {
+        get(provider).coalesced.increment();
+    }
+
+    public void recordOverflow(SigningType provider) {
+        get(provider).overflowed.increment();
+    }
+
+    public void recordDispatched(SigningType provider, Duration lateness) {
+        ProviderMetrics metrics = get(provider);
+        metrics.backlog.decrementAndGet();
+        metrics.dispatched.increment();
+        metrics.latenessMillis.add(Math.max(0, lateness.toMillis()));
+    }
+
+    public void recordBackoff(SigningType provider, Duration backoff) {
+        get(provider).backoffMillis.set(backoff.toMillis());
+    }
+
+    public int getBacklog(SigningType provider) {
+        return get(provider).backlog.get();
+    }
+
+    public long getOverflowCount(SigningType provider) {
+        return get(provider).overflowed.sum();
+    }
+
+    public long getCoalescedCount(SigningType provider) {
+        return get(provider).coalesced.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        providerMetrics.forEach((provider, metrics) -> {
+            String providerTag = provider.name();
+            Gauge.builder(BACKLOG_METRIC_NAME, metrics.backlog, AtomicInteger::get)
+                    .tag("provider", providerTag)
+                    .description("Status polls scheduled on this node and not yet due")
+                    .register(registry);
+            FunctionCounter.builder(POLLS_METRIC_NAME, metrics.dispatched, LongAdder::sum)
+                    .tag("provider", providerTag)
+                    .tag("result", "dispatched")
+                    .description("Status polls handed over to the status polling executor")
+                    .register(registry);
+            FunctionCounter.builder(POLLS_METRIC_NAME, metrics.coalesced, LongAdder::sum)
+                    .tag("provider", providerTag)
+                    .tag("result", "coalesced")
+                    .description("Status polls coalesced with a poll already scheduled for the same session")
+                    .register(registry);
+            FunctionCounter.builder(POLLS_METRIC_NAME, metrics.overflowed, LongAdder::sum)
+                    .tag("provider", providerTag)
+                    .tag("result", "overflow")
+                    .description("Status polls left for reprocessing because the polling backlog was full")
+                    .register(registry);
+            FunctionCounter.builder(LATENESS_METRIC_NAME, metrics.latenessMillis, LongAdder::sum)
+                    .tag("provider", providerTag)
+                    .baseUnit("milliseconds")
+                    .description("Total time status polls were handed over after they were due")
+                    .register(registry);
+            Gauge.builder(BACKOFF_METRIC_NAME, metrics.backoffMillis, AtomicLong::get)
+                    .tag("provider", providerTag)
+                    .baseUnit("milliseconds")
+                    .description("Current backoff of status polls after consecutive polling failures")
+                    .register(registry);
+        });
+    }
+
+    private ProviderMetrics get(SigningType provider) {
+        return providerMetrics.get(provider);
+    }
+
+    private static class ProviderMetrics {
+        private final AtomicInteger backlog = new AtomicInteger();
+        private final LongAdder dispatched = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder overflowed = new LongAdder();
+        private final LongAdder latenessMillis = new LongAdder();
+        private final AtomicLong backoffMillis = new AtomicLong();
+    }
+}
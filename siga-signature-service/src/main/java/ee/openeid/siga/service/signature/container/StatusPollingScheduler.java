@@ -0,0 +1,186 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules Mobile-ID and Smart-ID status polls by due time, and hands them over to the {@link StatusPollingExecutor}
+ * when they are due. Pending polls are held in a priority queue by a single dispatcher thread.
+ * <p>
+ * Polls of the same signature or certificate session are coalesced into the earliest one. After consecutive polling
+ * failures of a provider, its polls are delayed with exponential backoff, and all polls are spread with random
+ * jitter. The number of pending polls is bounded, and polls over the bound are not scheduled, but left for
+ * SessionStatusReprocessingService.
+ */
+@Slf4j
+@Component
+public class StatusPollingScheduler {
+    private final StatusPollingExecutor statusPollingExecutor;
+    private final StatusPollingProperties statusPollingProperties;
+    private final StatusPollingMetrics statusPollingMetrics;
+    private final PriorityQueue<ScheduledPoll> dueQueue = new PriorityQueue<>(Comparator.comparingLong(ScheduledPoll::dueNanos));
+    private final Map<String, ScheduledPoll> pendingPolls = new HashMap<>();
+    private final Map<SigningType, AtomicInteger> consecutiveFailures = new EnumMap<>(SigningType.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pollAvailable = lock.newCondition();
+    private final Thread dispatcher;
+
+    public StatusPollingScheduler(StatusPollingExecutor statusPollingExecutor, StatusPollingProperties statusPollingProperties,
+                                  StatusPollingMetrics statusPollingMetrics) {
+        this.statusPollingExecutor = statusPollingExecutor;
+        this.statusPollingProperties = statusPollingProperties;
+        this.statusPollingMetrics = statusPollingMetrics;
+        for (SigningType provider : SigningType.values()) {
+            consecutiveFailures.put(provider, new AtomicInteger());
+        }
+        this.dispatcher = new Thread(this::dispatch, "status-polling-scheduler");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * @param pollId   ID of the signature or certificate session, so that its polls are coalesced
+     * @param provider Mobile-ID or Smart-ID
+     * @return {@code false} if the polling backlog is full, and the poll is left for re-processing
+     */
+    public boolean schedule(String pollId, SigningType provider, Duration delay, Runnable poll) {
+        long dueNanos = System.nanoTime() + delay.toNanos() + getBackoff(provider).toNanos() + getJitterNanos();
+        lock.lock();
+        try {
+            ScheduledPoll pendingPoll = pendingPolls.get(pollId);
+            if (pendingPoll != null) {
+                statusPollingMetrics.recordCoalesced(provider);
+                if (pendingPoll.dueNanos() - dueNanos <= 0) {
+                    return true;
+                }
+            } else if (pendingPolls.size() >= statusPollingProperties.getMaxBacklog()) {
+                statusPollingMetrics.recordOverflow(provider);
+                log.warn("Status polling backlog is full. Status of id: {} will be re-processed", pollId);
+                return false;
+            } else {
+                statusPollingMetrics.recordScheduled(provider);
+            }
+            // Superseded poll is left in the due queue and skipped when it is due
+            ScheduledPoll scheduledPoll = new ScheduledPoll(pollId, provider, dueNanos, poll);
+            pendingPolls.put(pollId, scheduledPoll);
+            dueQueue.add(scheduledPoll);
+            if (dueQueue.peek() == scheduledPoll) {
+                pollAvailable.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adapts the backoff of the provider to the result of its last status poll.
+     */
+    public void recordPollResult(SigningType provider, boolean successful) {
+        AtomicInteger failures = consecutiveFailures.get(provider);
+        if (successful) {
+            failures.set(0);
+        } else {
+            failures.incrementAndGet();
+        }
+        statusPollingMetrics.recordBackoff(provider, getBackoff(provider));
+    }
+
+    /**
+     * @return delay added to the polls of the provider after its consecutive polling failures
+     */
+    public Duration getBackoff(SigningType provider) {
+        int failures = consecutiveFailures.get(provider).get();
+        if (failures == 0) {
+            return Duration.ZERO;
+        }
+        Duration maxDelay = statusPollingProperties.getBackoffMaxDelay();
+        Duration backoff = statusPollingProperties.getBackoffInitialDelay().multipliedBy(1L << Math.min(failures - 1, 30));
+        return backoff.compareTo(maxDelay) > 0 ? maxDelay : backoff;
+    }
+
+    /**
+     * @return number of polls scheduled and not yet due
+     */
+    public int getBacklog() {
+        lock.lock();
+        try {
+            return pendingPolls.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void onDestroy() {
+        dispatcher.interrupt();
+    }
+
+    private long getJitterNanos() {
+        long jitterNanos = statusPollingProperties.getJitter().toNanos();
+        return jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ScheduledPoll duePoll;
+            try {
+                duePoll = takeDuePoll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            statusPollingMetrics.recordDispatched(duePoll.provider(), Duration.ofNanos(System.nanoTime() - duePoll.dueNanos()));
+            try {
+                statusPollingExecutor.execute(duePoll.poll());
+            } catch (TaskRejectedException e) {
+                log.warn("Status polling rejected for id: {}. Status will be re-processed", duePoll.pollId());
+            } catch (RuntimeException e) {
+                log.error("Unable to start status polling for id: {}", duePoll.pollId(), e);
+            }
+        }
+    }
+
+    private ScheduledPoll takeDuePoll() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                ScheduledPoll nextPoll = dueQueue.peek();
+                if (nextPoll == null) {
+                    pollAvailable.await();
+                    continue;
+                }
+                long remainingNanos = nextPoll.dueNanos() - System.nanoTime();
+                if (remainingNanos > 0) {
+                    pollAvailable.awaitNanos(remainingNanos);
+                    continue;
+                }
+                dueQueue.poll();
+                if (pendingPolls.get(nextPoll.pollId()) == nextPoll) {
+                    pendingPolls.remove(nextPoll.pollId());
+                    return nextPoll;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record ScheduledPoll(String pollId, SigningType provider, long dueNanos, Runnable poll) {
+    }
+}
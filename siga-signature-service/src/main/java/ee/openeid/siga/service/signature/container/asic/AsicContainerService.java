@@ -9,21 +9,18 @@ import ee.openeid.siga.common.model.ContainerInfo;
 import ee.openeid.siga.common.model.DataFile;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.Signature;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.session.AsicSessionHolder;
 import ee.openeid.siga.service.signature.util.ContainerUtil;
 import ee.openeid.siga.session.SessionService;
-import eu.europa.esig.dss.enumerations.MimeType;
-import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.Container;
 import org.digidoc4j.ContainerBuilder;
-import org.digidoc4j.Timestamp;
 import org.digidoc4j.exceptions.DigiDoc4JException;
 import org.digidoc4j.exceptions.NotSupportedException;
 import org.digidoc4j.impl.asic.asics.AsicSCompositeContainer;
@@ -31,7 +28,6 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -39,8 +35,11 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
+import static ee.openeid.siga.service.signature.util.ContainerUtil.getDataFilesFromContainerSpecificDepth;
 import static org.digidoc4j.Constant.ASICE_CONTAINER_TYPE;
 import static org.digidoc4j.Constant.ASICS_CONTAINER_TYPE;
 import static org.digidoc4j.Constant.BDOC_CONTAINER_TYPE;
@@ -56,22 +55,22 @@ public class AsicContainerService implements AsicSessionHolder {
     private final SessionService sessionService;
     private final AsicContainerAugmentationService asicContainerAugmentationService;
     private final Configuration configuration;
+    private final ParsedContainerCache parsedContainerCache;
+    private final DataFileDocumentFactory dataFileDocumentFactory;
 
     public String createContainer(String containerName, List<DataFile> dataFiles) {
         ContainerBuilder containerBuilder = ContainerBuilder.
                 aContainer(ASICE).withConfiguration(configuration);
 
-        dataFiles.forEach(dataFile -> containerBuilder.withDataFile(
-                new ByteArrayInputStream(Base64.getDecoder().decode(dataFile.getContent().getBytes())),
-                dataFile.getFileName(),
-                MimeType.fromFileName(dataFile.getFileName()).getMimeTypeString()
-        ));
+        try (DataFileDocumentFactory.DataFiles digidoc4jDataFiles = dataFileDocumentFactory.open()) {
+            dataFiles.forEach(dataFile -> containerBuilder.withDataFile(digidoc4jDataFiles.create(dataFile)));
 
-        Container container = containerBuilder.build();
-        String containerId = generateContainerId();
-        Session session = transformContainerToSession(containerName, containerId, container);
-        sessionService.update(session);
-        return containerId;
+            Container container = containerBuilder.build();
+            String containerId = generateContainerId();
+            Session session = transformContainerToSession(containerName, containerId, container);
+            sessionService.update(session);
+            return containerId;
+        }
     }
 
     public String uploadContainer(String containerName, String base64container) {
@@ -92,7 +91,7 @@ public class AsicContainerService implements AsicSessionHolder {
     }
 
     public ContainerInfo getContainer(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
 
         ContainerInfo containerInfo = new ContainerInfo();
         containerInfo.setContainerName(sessionHolder.getContainerName());
@@ -101,30 +100,29 @@ public class AsicContainerService implements AsicSessionHolder {
     }
 
     public List<Signature> getSignatures(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container container = createContainerFromSession(sessionHolder);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of());
+        AsicContainerMetadata containerMetadata = getContainerMetadata(sessionHolder);
 
         List<Signature> signatures = new ArrayList<>();
-        getSignaturesFromContainerSpecificDepth(container)
-                .forEach(sessionSignature -> sessionHolder.getSignatureIdHolder()
+        containerMetadata.getSignatures()
+                .forEach(signatureMetadata -> sessionHolder.getSignatureIdHolder()
                         .forEach((generatedSignatureId, hashcode) -> {
-                            if (Arrays.hashCode(sessionSignature.getAdESSignature()) == hashcode) {
-                                signatures.add(transformSignature(generatedSignatureId, sessionSignature));
+                            if (signatureMetadata.getSignatureHashCode() == hashcode) {
+                                signatures.add(transformSignature(generatedSignatureId, signatureMetadata));
                             }
                         }));
         return signatures;
     }
 
-    public List<Timestamp> getTimestamps(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container container = createContainerFromSession(sessionHolder);
-        return getTimestampsFromContainerSpecificDepth(container);
+    public List<AsicContainerMetadata.TimestampMetadata> getTimestamps(String containerId) {
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of());
+        return getContainerMetadata(sessionHolder).getTimestamps();
     }
 
     public org.digidoc4j.Signature getSignature(String containerId, String signatureId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
         Integer signatureHashCode = sessionHolder.getSignatureIdHolder().get(signatureId);
-        Container container = createContainerFromSession(sessionHolder);
+        Container container = parsedContainerCache.get(sessionHolder);
 
         Optional<org.digidoc4j.Signature> digidoc4jSignature = container.getSignatures().stream()
                 .filter(signature -> signatureHashCode == Arrays.hashCode(signature.getAdESSignature()))
@@ -137,65 +135,58 @@ public class AsicContainerService implements AsicSessionHolder {
     }
 
     public List<DataFile> getDataFiles(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container container = createContainerFromSession(sessionHolder);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        Container container = parsedContainerCache.get(sessionHolder);
 
         List<org.digidoc4j.DataFile> dataFiles = getDataFilesFromContainerSpecificDepth(container);
         return dataFiles.stream().map(AsicContainerService::transformDataFile).collect(Collectors.toList());
     }
 
     public Result addDataFiles(String containerId, List<DataFile> dataFiles) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container container = createContainerFromSession(sessionHolder);
-        validateIfSessionMutable(container);
-
-        dataFiles.forEach(dataFile -> addDataFileToContainer(container, dataFile));
-
-        updateContainerInSession(sessionHolder, container);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        try (DataFileDocumentFactory.DataFiles digidoc4jDataFiles = dataFileDocumentFactory.open()) {
+            updateContainerInSession(sessionHolder, session -> {
+                Container container = createContainerFromSession(session);
+                validateIfSessionMutable(container);
+                dataFiles.forEach(dataFile -> addDataFileToContainer(container, dataFile, digidoc4jDataFiles));
+                return container;
+            });
+        }
         return Result.OK;
     }
 
     public Result removeDataFile(String containerId, String datafileName) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-
-        Container container = createContainerFromSession(sessionHolder);
-        validateIfSessionMutable(container);
-        Optional<org.digidoc4j.DataFile> dataFile = getDataFilesFromContainerSpecificDepth(container).stream()
-                .filter(df -> df.getName().equals(datafileName))
-                .findAny();
-        if (dataFile.isEmpty()) {
-            throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
-        }
-        try {
-            container.removeDataFile(dataFile.get());
-        } catch (NotSupportedException e) {
-            if (container instanceof AsicSCompositeContainer) {
-                throw new InvalidSessionDataException("Modifying the contents of composite ASiC-S container is not allowed.");
-            } else {
-                throw new InvalidSessionDataException("Removing datafile not supported for container type: " + container.getType());
-            }
-        }
-
-        updateContainerInSession(sessionHolder, container);
-
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        updateContainerInSession(sessionHolder, session -> {
+            Container container = createContainerFromSession(session);
+            validateIfSessionMutable(container);
+            removeDataFileFromContainer(container, datafileName);
+            return container;
+        });
         return Result.OK;
     }
 
     public Result augmentContainer(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container augmentedContainer = asicContainerAugmentationService.augmentContainer(sessionHolder.getContainer(), sessionHolder.getContainerName());
-        renameToAsicsIfNecessary(sessionHolder, augmentedContainer);
-        addSignaturesToSession(augmentedContainer, sessionHolder);
-        updateContainerInSession(sessionHolder, augmentedContainer);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        updateContainerInSession(sessionHolder, session -> {
+            Container augmentedContainer = asicContainerAugmentationService.augmentContainer(session.getContainer(), session.getContainerName());
+            renameToAsicsIfNecessary(session, augmentedContainer);
+            addSignaturesToSession(augmentedContainer, session);
+            return augmentedContainer;
+        });
         return Result.OK;
     }
 
+    /**
+     * @return copy of the container of the session to be modified
+     */
     Container createContainerFromSession(AsicContainerSession sessionHolder) {
         return ContainerUtil.createContainer(sessionHolder.getContainer(), configuration);
     }
 
     public String closeSession(String containerId) {
         sessionService.removeByContainerId(containerId);
+        parsedContainerCache.invalidate(sessionService.getSessionId(containerId));
         return Result.OK.name();
     }
 
@@ -230,19 +221,43 @@ public class AsicContainerService implements AsicSessionHolder {
         }
     }
 
-    private void updateContainerInSession(AsicContainerSession sessionHolder, Container container) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        container.save(outputStream);
-        sessionHolder.setContainer(outputStream.toByteArray());
-        sessionService.update(sessionHolder);
+    /**
+     * Stores the container returned by the modification in the session. If the session has been modified concurrently,
+     * the modification is applied again to the freshly read session, so that concurrent modifications of the same
+     * container are not lost.
+     */
+    private void updateContainerInSession(AsicContainerSession sessionHolder, Function<AsicContainerSession, Container> modification) {
+        sessionService.update(sessionHolder, session -> {
+            AsicContainerSession asicContainerSession = (AsicContainerSession) session;
+            Container container = modification.apply(asicContainerSession);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            container.save(outputStream);
+            asicContainerSession.setContainer(outputStream.toByteArray());
+            asicContainerSession.setContainerMetadata(ContainerUtil.createContainerMetadata(container));
+        });
     }
 
-    private static void addDataFileToContainer(Container container, DataFile dataFile) {
+    private static void removeDataFileFromContainer(Container container, String datafileName) {
+        Optional<org.digidoc4j.DataFile> dataFile = getDataFilesFromContainerSpecificDepth(container).stream()
+                .filter(df -> df.getName().equals(datafileName))
+                .findAny();
+        if (dataFile.isEmpty()) {
+            throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
+        }
+        try {
+            container.removeDataFile(dataFile.get());
+        } catch (NotSupportedException e) {
+            if (container instanceof AsicSCompositeContainer) {
+                throw new InvalidSessionDataException("Modifying the contents of composite ASiC-S container is not allowed.");
+            } else {
+                throw new InvalidSessionDataException("Removing datafile not supported for container type: " + container.getType());
+            }
+        }
+    }
+
+    private static void addDataFileToContainer(Container container, DataFile dataFile, DataFileDocumentFactory.DataFiles digidoc4jDataFiles) {
         try {
-            org.digidoc4j.DataFile digidoc4jDataFile = new org.digidoc4j.DataFile();
-            DSSDocument dssDocument = new InMemoryDocument(Base64.getDecoder().decode(dataFile.getContent().getBytes()), dataFile.getFileName());
-            digidoc4jDataFile.setDocument(dssDocument);
-            container.addDataFile(digidoc4jDataFile);
+            container.addDataFile(digidoc4jDataFiles.create(dataFile));
         } catch (org.digidoc4j.exceptions.DuplicateDataFileException e) {
             throw new DuplicateDataFileException("Duplicate data files not allowed: " + dataFile.getFileName());
         } catch (DigiDoc4JException e) {
@@ -260,12 +275,22 @@ public class AsicContainerService implements AsicSessionHolder {
         }
     }
 
-    private static Signature transformSignature(String generatedSignatureId, org.digidoc4j.Signature dd4jSignature) {
+    /**
+     * Container metadata is created from the container only for sessions stored without it.
+     */
+    private AsicContainerMetadata getContainerMetadata(AsicContainerSession sessionHolder) {
+        AsicContainerMetadata containerMetadata = sessionHolder.getContainerMetadata();
+        return containerMetadata != null
+                ? containerMetadata
+                : ContainerUtil.createContainerMetadata(parsedContainerCache.get(sessionHolder));
+    }
+
+    private static Signature transformSignature(String generatedSignatureId, AsicContainerMetadata.SignatureMetadata signatureMetadata) {
         Signature signature = new Signature();
         signature.setGeneratedSignatureId(generatedSignatureId);
-        signature.setId(dd4jSignature.getId());
-        signature.setSignerInfo(dd4jSignature.getSigningCertificate().getSubjectName());
-        signature.setSignatureProfile(dd4jSignature.getProfile().name());
+        signature.setId(signatureMetadata.getId());
+        signature.setSignerInfo(signatureMetadata.getSignerInfo());
+        signature.setSignatureProfile(signatureMetadata.getSignatureProfile());
         return signature;
     }
 
@@ -288,6 +313,7 @@ public class AsicContainerService implements AsicSessionHolder {
                 .serviceName(authenticatedUser.getServiceName())
                 .serviceUuid(authenticatedUser.getServiceUuid())
                 .container(outputStream.toByteArray())
+                .containerMetadata(ContainerUtil.createContainerMetadata(container))
                 .build();
         container.getSignatures().forEach(signature ->
                 sessionHolder.addSignatureId(UUIDGenerator.generateUUID(), Arrays.hashCode(signature.getAdESSignature()))
@@ -302,32 +328,4 @@ public class AsicContainerService implements AsicSessionHolder {
         }
     }
 
-    private static List<org.digidoc4j.DataFile> getDataFilesFromContainerSpecificDepth(Container container) {
-        if (container instanceof AsicSCompositeContainer) {
-            return ((AsicSCompositeContainer) container).getNestedContainerDataFiles();
-        } else {
-            return container.getDataFiles();
-        }
-    }
-
-    private static List<org.digidoc4j.Signature> getSignaturesFromContainerSpecificDepth(Container container) {
-        if (container instanceof AsicSCompositeContainer) {
-            List<org.digidoc4j.Signature> signatures = new ArrayList<>(container.getSignatures());
-            signatures.addAll(((AsicSCompositeContainer) container).getNestedContainerSignatures());
-            return signatures;
-        } else {
-            return container.getSignatures();
-        }
-    }
-
-    private static List<Timestamp> getTimestampsFromContainerSpecificDepth(Container container) {
-        if (container instanceof AsicSCompositeContainer) {
-            List<Timestamp> timestamps = new ArrayList<>(container.getTimestamps());
-            timestamps.addAll(((AsicSCompositeContainer) container).getNestedContainerTimestamps());
-            return timestamps;
-        } else {
-            return container.getTimestamps();
-        }
-    }
-
 }
@@ -1,11 +1,14 @@
 package ee.openeid.siga.service.signature.container.asic;
 
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.session.AsicSessionHolder;
 import ee.openeid.siga.service.signature.util.ContainerUtil;
+import ee.openeid.siga.session.SessionPart;
+import lombok.Setter;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.digidoc4j.Constant;
 import org.digidoc4j.Container;
@@ -14,53 +17,84 @@ import org.digidoc4j.DataToSign;
 import org.digidoc4j.DigestAlgorithm;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureBuilder;
+import org.digidoc4j.SignatureContainerMatcherValidator;
+import org.digidoc4j.SignatureFinalizerBuilder;
 import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.impl.SignatureFinalizer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Comparator;
-import java.util.Optional;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Profile("datafileContainer")
 public class AsicContainerSigningService extends ContainerSigningService implements AsicSessionHolder {
+    @Setter(onMethod_ = {@Autowired})
+    private ParsedContainerCache parsedContainerCache;
 
     @Override
     protected DataToSign buildDataToSign(Session session, SignatureParameters signatureParameters) {
-        AsicContainerSession asicContainerSession = (AsicContainerSession) session;
-        Container container = ContainerUtil.createContainer(asicContainerSession.getContainer(), configuration);
+        Container container = parsedContainerCache.get((AsicContainerSession) session);
 
         SignatureBuilder signatureBuilder = buildSignatureBuilder(container, signatureParameters);
         return signatureBuilder.buildDataToSign();
     }
 
     @Override
-    protected Session getSession(String containerId) {
-        return getSessionHolder(containerId);
+    protected SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters) {
+        Container container = parsedContainerCache.get((AsicContainerSession) session);
+        return SignatureFinalizerBuilder.aFinalizer(container, signatureParameters);
+    }
+
+    @Override
+    protected Session getSession(String containerId, Set<SessionPart> parts) {
+        return getSessionHolder(containerId, parts);
     }
 
     @Override
     protected void addSignatureToSession(Session sessionHolder, Signature signature, String signatureId) {
         AsicContainerSession asicContainerSession = (AsicContainerSession) sessionHolder;
-        Container container = ContainerUtil.createContainer(asicContainerSession.getContainer(), configuration);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        container.addSignature(signature);
-        container.save(byteArrayOutputStream);
-        asicContainerSession.setContainer(byteArrayOutputStream.toByteArray());
+        AsicContainerMetadata containerMetadata = asicContainerSession.getContainerMetadata();
+        if (containerMetadata != null && isSignatureAppendable(asicContainerSession, signature)) {
+            asicContainerSession.setContainer(AsicSignatureAppender.appendSignature(asicContainerSession.getContainer(), signature.getAdESSignature()));
+            List<AsicContainerMetadata.SignatureMetadata> signatures = new ArrayList<>(containerMetadata.getSignatures());
+            signatures.add(ContainerUtil.createSignatureMetadata(signature));
+            containerMetadata.setSignatures(signatures);
+        } else {
+            Container container = ContainerUtil.createContainer(asicContainerSession.getContainer(), configuration);
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            container.addSignature(signature);
+            container.save(byteArrayOutputStream);
+            asicContainerSession.setContainer(byteArrayOutputStream.toByteArray());
+            asicContainerSession.setContainerMetadata(ContainerUtil.createContainerMetadata(container));
+        }
         asicContainerSession.addSignatureId(signatureId, Arrays.hashCode(signature.getAdESSignature()));
         asicContainerSession.clearSigningSession(signatureId);
     }
 
+    /**
+     * Signatures are appended at ZIP level to ASiC-E containers only. Other container types and BDOC specific
+     * signature profiles are added by digidoc4j, which validates them against the container type.
+     */
+    private boolean isSignatureAppendable(AsicContainerSession session, Signature signature) {
+        Container container = parsedContainerCache.get(session);
+        return Constant.ASICE_CONTAINER_TYPE.equals(container.getType())
+                && !SignatureContainerMatcherValidator.isBDocOnlySignature(signature.getProfile());
+    }
+
     @Override
     protected void verifySigningObjectExistence(Session session) {
         AsicContainerSession sessionHolder = (AsicContainerSession) session;
-        Container container = Optional
-                .ofNullable(sessionHolder.getContainer())
-                .map(bytes -> ContainerUtil.createContainer(bytes, configuration))
-                .orElse(null);
+        Container container = sessionHolder.getContainer() == null ? null : parsedContainerCache.get(sessionHolder);
         verifyContainerExistence(container);
         verifyContainerContainsNoEmptyDataFiles(container);
         verifyContainerType(container);
@@ -72,12 +106,27 @@ public class AsicContainerSigningService extends ContainerSigningService impleme
         }
     }
 
+    /**
+     * Data files hash is generated from the data file digests stored in the container metadata, so the data files are
+     * not digested again when signing starts and when the signature is finalized. Sessions stored without container
+     * metadata are digested from the parsed container.
+     */
     @Override
     public String generateDataFilesHash(Session session) {
-        Container container = ContainerUtil.createContainer(((AsicContainerSession) session).getContainer(), configuration);
-        String joinedDataFiles = container.getDataFiles().stream()
-                .sorted(Comparator.comparing(DataFile::getName))
-                .map(dataFile -> dataFile.getName() + new String(dataFile.calculateDigest()))
+        AsicContainerSession asicContainerSession = (AsicContainerSession) session;
+        AsicContainerMetadata containerMetadata = asicContainerSession.getContainerMetadata();
+        if (containerMetadata != null) {
+            return generateDataFilesHash(containerMetadata.getDataFiles(), AsicContainerMetadata.DataFileMetadata::getFileName,
+                    dataFile -> Base64.getDecoder().decode(dataFile.getFileHashSha256()));
+        }
+        Container container = parsedContainerCache.get(asicContainerSession);
+        return generateDataFilesHash(container.getDataFiles(), DataFile::getName, DataFile::calculateDigest);
+    }
+
+    private static <T> String generateDataFilesHash(List<T> dataFiles, Function<T, String> fileName, Function<T, byte[]> digest) {
+        String joinedDataFiles = dataFiles.stream()
+                .sorted(Comparator.comparing(fileName))
+                .map(dataFile -> fileName.apply(dataFile) + new String(digest.apply(dataFile)))
                 .collect(Collectors.joining());
         return new String(DigestUtils.sha256(joinedDataFiles));
     }
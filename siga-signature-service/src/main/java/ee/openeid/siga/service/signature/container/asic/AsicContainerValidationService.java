@@ -10,6 +10,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.util.Base64;
+import java.util.Set;
+
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
 
 @Service
 @Profile("datafileContainer")
@@ -23,7 +26,7 @@ public class AsicContainerValidationService implements AsicSessionHolder {
     }
 
     public ValidationConclusion validateExistingContainer(String containerId) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
+        AsicContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
 
         String container = new String(Base64.getEncoder().encode(sessionHolder.getContainer()));
         return sivaClient.validateContainer(sessionHolder.getContainerName(), container);
@@ -0,0 +1,72 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.common.exception.TechnicalException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+/**
+ * Adds a signature to an ASiC-E container at ZIP level. Existing entries (mimetype, manifest, data files and
+ * signatures) are copied in their compressed form without inflating and deflating them again, and only the new
+ * {@code META-INF/signaturesN.xml} entry is compressed. Copying the entries costs a single pass over the container
+ * bytes, while saving a parsed container recompresses every data file.
+ */
+final class AsicSignatureAppender {
+    static final String SIGNATURE_FILE_PREFIX = "META-INF/signatures";
+    private static final String SIGNATURE_FILE_EXTENSION = ".xml";
+    private static final int CENTRAL_DIRECTORY_RESERVE = 1024;
+
+    private AsicSignatureAppender() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param signature XAdES signatures document of the signature, as returned by
+     *                  {@link org.digidoc4j.Signature#getAdESSignature()}
+     * @return container with the signature added as the last entry
+     */
+    static byte[] appendSignature(byte[] container, byte[] signature) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(container.length + signature.length + CENTRAL_DIRECTORY_RESERVE);
+        try (SeekableInMemoryByteChannel byteChannel = new SeekableInMemoryByteChannel(container);
+             ZipFile zipFile = new ZipFile(byteChannel);
+             ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(outputStream)) {
+            Set<String> entryNames = new HashSet<>();
+            String comment = null;
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
+                try (InputStream rawInputStream = zipFile.getRawInputStream(entry)) {
+                    zipOutputStream.addRawArchiveEntry(entry, rawInputStream);
+                }
+                entryNames.add(entry.getName());
+                comment = comment == null ? entry.getComment() : comment;
+            }
+            // Containers created by digidoc4j carry the same comment on the archive and on every entry
+            ZipArchiveEntry signatureEntry = new ZipArchiveEntry(getNextSignatureEntryName(entryNames));
+            signatureEntry.setMethod(ZipEntry.DEFLATED);
+            signatureEntry.setComment(comment);
+            zipOutputStream.putArchiveEntry(signatureEntry);
+            zipOutputStream.write(signature);
+            zipOutputStream.closeArchiveEntry();
+            zipOutputStream.setComment(comment);
+        } catch (IOException e) {
+            throw new TechnicalException("Unable to add signature to container", e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static String getNextSignatureEntryName(Set<String> entryNames) {
+        int index = 0;
+        while (entryNames.contains(SIGNATURE_FILE_PREFIX + index + SIGNATURE_FILE_EXTENSION)) {
+            index++;
+        }
+        return SIGNATURE_FILE_PREFIX + index + SIGNATURE_FILE_EXTENSION;
+    }
+}
@@ -0,0 +1,104 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.common.model.DataFile;
+import ee.openeid.siga.service.signature.configuration.DataFileStorageProperties;
+import eu.europa.esig.dss.enumerations.MimeType;
+import eu.europa.esig.dss.model.CommonDocument;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Creates digidoc4j data files from the base64 encoded data files of requests. Data files larger than
+ * {@link DataFileStorageProperties#getFileThreshold()} are decoded chunk by chunk straight to temporary files and
+ * read from there by digidoc4j, so that the decoded content of large data files is not held in heap while the
+ * container is built and saved.
+ */
+@Slf4j
+@Component
+@Profile("datafileContainer")
+@EnableConfigurationProperties(DataFileStorageProperties.class)
+public class DataFileDocumentFactory {
+    static final String TEMPORARY_FILE_PREFIX = "siga-datafile-";
+    // Multiple of 4, so that every chunk is a complete base64 encoded block
+    private static final int DECODE_CHUNK_LENGTH = 64 * 1024;
+    private final long fileThreshold;
+    private final Path temporaryDirectory;
+
+    public DataFileDocumentFactory(DataFileStorageProperties dataFileStorageProperties) {
+        this.fileThreshold = dataFileStorageProperties.getFileThreshold().toBytes();
+        this.temporaryDirectory = dataFileStorageProperties.getTemporaryDirectory();
+    }
+
+    /**
+     * @return data files whose temporary files are deleted when closed, after the container has been saved
+     */
+    public DataFiles open() {
+        return new DataFiles();
+    }
+
+    public final class DataFiles implements AutoCloseable {
+        private final List<Path> temporaryFiles = new ArrayList<>();
+
+        private DataFiles() {
+        }
+
+        public org.digidoc4j.DataFile create(DataFile dataFile) {
+            String content = dataFile.getContent();
+            CommonDocument document = getDecodedLength(content) > fileThreshold
+                    ? new FileDocument(decodeToTemporaryFile(content).toFile())
+                    : new InMemoryDocument(Base64.getDecoder().decode(content.getBytes()));
+            document.setName(dataFile.getFileName());
+            document.setMimeType(MimeType.fromFileName(dataFile.getFileName()));
+            org.digidoc4j.DataFile digidoc4jDataFile = new org.digidoc4j.DataFile();
+            digidoc4jDataFile.setDocument(document);
+            return digidoc4jDataFile;
+        }
+
+        private Path decodeToTemporaryFile(String content) {
+            try {
+                Path temporaryFile = temporaryDirectory == null
+                        ? Files.createTempFile(TEMPORARY_FILE_PREFIX, null)
+                        : Files.createTempFile(temporaryDirectory, TEMPORARY_FILE_PREFIX, null);
+                temporaryFiles.add(temporaryFile);
+                try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+                    Base64.Decoder decoder = Base64.getDecoder();
+                    for (int start = 0; start < content.length(); start += DECODE_CHUNK_LENGTH) {
+                        outputStream.write(decoder.decode(content.substring(start, Math.min(content.length(), start + DECODE_CHUNK_LENGTH))));
+                    }
+                }
+                return temporaryFile;
+            } catch (IOException e) {
+                throw new TechnicalException("Unable to store data file", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Path temporaryFile : temporaryFiles) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException e) {
+                    log.warn("Unable to delete temporary data file {}", temporaryFile, e);
+                }
+            }
+            temporaryFiles.clear();
+        }
+    }
+
+    private static long getDecodedLength(String content) {
+        return content.length() / 4L * 3;
+    }
+}
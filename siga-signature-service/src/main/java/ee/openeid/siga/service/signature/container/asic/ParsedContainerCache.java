@@ -0,0 +1,142 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.service.signature.configuration.ContainerCacheProperties;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.DataFile;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds parsed containers of the sessions recently used on this node, so that the container of a session is not
+ * parsed again on every request. A cached container is used only while the container of the session is unchanged,
+ * as the entries are matched by the hash of the container.
+ * <p>
+ * Cached containers are shared between requests and must only be read. Requests modifying the container must parse
+ * their own copy with {@link ContainerUtil#createContainer(byte[], Configuration)}.
+ */
+@Component
+@Profile("datafileContainer")
+@EnableConfigurationProperties(ContainerCacheProperties.class)
+public class ParsedContainerCache implements MeterBinder {
+    static final String REQUESTS_METRIC_NAME = "siga.container.cache.requests";
+    static final String EVICTIONS_METRIC_NAME = "siga.container.cache.evictions";
+    static final String WEIGHT_METRIC_NAME = "siga.container.cache.weight";
+    static final String SIZE_METRIC_NAME = "siga.container.cache.size";
+    private final Configuration configuration;
+    private final boolean enabled;
+    private final Cache<String, ParsedContainer> containers;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong weight = new AtomicLong();
+
+    public ParsedContainerCache(Configuration configuration, ContainerCacheProperties containerCacheProperties) {
+        this.configuration = configuration;
+        long maxWeight = containerCacheProperties.getMaxWeight().toBytes();
+        this.enabled = maxWeight > 0;
+        // Single segment, so that containers up to the maximum weight are cached
+        this.containers = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(Math.max(0, maxWeight))
+                .weigher((String sessionId, ParsedContainer parsedContainer) -> parsedContainer.weight())
+                .expireAfterAccess(containerCacheProperties.getExpireAfterAccess())
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * @return parsed container of the session, which must not be modified
+     */
+    public Container get(AsicContainerSession session) {
+        byte[] containerBytes = session.getContainer();
+        if (!enabled || session.getSessionId() == null) {
+            return ContainerUtil.createContainer(containerBytes, configuration);
+        }
+        HashCode contentHash = Hashing.murmur3_128().hashBytes(containerBytes);
+        ParsedContainer cached = containers.getIfPresent(session.getSessionId());
+        if (cached != null && cached.contentHash().equals(contentHash)) {
+            hits.increment();
+            return cached.container();
+        }
+        misses.increment();
+        Container container = ContainerUtil.createContainer(containerBytes, configuration);
+        ParsedContainer parsedContainer = new ParsedContainer(contentHash, container, weigh(containerBytes, container));
+        weight.addAndGet(parsedContainer.weight());
+        containers.put(session.getSessionId(), parsedContainer);
+        return container;
+    }
+
+    public void invalidate(String sessionId) {
+        containers.invalidate(sessionId);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Parsed containers served from the cache")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Containers parsed because the session had no cached container or its container had changed")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS_METRIC_NAME, evictions, LongAdder::sum)
+                .description("Parsed containers evicted because of the weight limit or expiry")
+                .register(registry);
+        Gauge.builder(WEIGHT_METRIC_NAME, weight, AtomicLong::get)
+                .baseUnit("bytes")
+                .description("Estimated memory held by cached parsed containers")
+                .register(registry);
+        Gauge.builder(SIZE_METRIC_NAME, containers, Cache::size)
+                .description("Parsed containers cached on this node")
+                .register(registry);
+    }
+
+    private void onRemoval(RemovalNotification<String, ParsedContainer> notification) {
+        weight.addAndGet(-notification.getValue().weight());
+        if (notification.wasEvicted()) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Parsed container holds the data files in memory in addition to the container itself.
+     */
+    private static int weigh(byte[] containerBytes, Container container) {
+        long dataFilesSize = container.getDataFiles().stream()
+                .mapToLong(DataFile::getFileSize)
+                .sum();
+        return (int) Math.min(Integer.MAX_VALUE, containerBytes.length + dataFilesSize);
+    }
+
+    private record ParsedContainer(HashCode contentHash, Container container, int weight) {
+    }
+}
@@ -27,6 +27,9 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
 
 @Service
 @RequiredArgsConstructor
@@ -57,7 +60,7 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
     }
 
     public String getContainer(String containerId) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
 
         HashcodeContainer hashcodeContainer = new HashcodeContainer();
         sessionHolder.getSignatures().forEach(signatureWrapper -> hashcodeContainer.getSignatures().add(signatureWrapper));
@@ -77,14 +80,14 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
     }
 
     public List<Signature> getSignatures(String containerId) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
         List<Signature> signatures = new ArrayList<>();
         sessionHolder.getSignatures().forEach(signatureWrapper -> signatures.add(transformSignature(signatureWrapper)));
         return signatures;
     }
 
     public org.digidoc4j.Signature getSignature(String containerId, String signatureId) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
         Optional<HashcodeSignatureWrapper> signatureWrapper = sessionHolder.getSignatures().stream()
                 .filter(wrapper -> wrapper.getGeneratedSignatureId().equals(signatureId))
                 .findAny();
@@ -96,30 +99,34 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
     }
 
     public List<HashcodeDataFile> getDataFiles(String containerId) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
         return sessionHolder.getDataFiles();
     }
 
     public Result addDataFiles(String containerId, List<HashcodeDataFile> dataFiles) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
-        validateIfSessionMutable(sessionHolder);
-        dataFiles.forEach(dataFile -> {
-            validateNotDuplicateFile(dataFile, sessionHolder);
-            updateMimeTypeIfNotSet(dataFile);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        sessionService.update(sessionHolder, session -> {
+            HashcodeContainerSession hashcodeContainerSession = (HashcodeContainerSession) session;
+            validateIfSessionMutable(hashcodeContainerSession);
+            dataFiles.forEach(dataFile -> {
+                validateNotDuplicateFile(dataFile, hashcodeContainerSession);
+                updateMimeTypeIfNotSet(dataFile);
+            });
+            hashcodeContainerSession.getDataFiles().addAll(dataFiles);
         });
-        sessionHolder.getDataFiles().addAll(dataFiles);
-        sessionService.update(sessionHolder);
         return Result.OK;
     }
 
     public Result removeDataFile(String containerId, String datafileName) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
-        validateIfSessionMutable(sessionHolder);
-        if (sessionHolder.getDataFiles().stream().noneMatch(dataFile -> dataFile.getFileName().equals(datafileName))) {
-            throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
-        }
-        sessionHolder.getDataFiles().removeIf(dataFile -> dataFile.getFileName().equals(datafileName));
-        sessionService.update(sessionHolder);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
+        sessionService.update(sessionHolder, session -> {
+            HashcodeContainerSession hashcodeContainerSession = (HashcodeContainerSession) session;
+            validateIfSessionMutable(hashcodeContainerSession);
+            if (hashcodeContainerSession.getDataFiles().stream().noneMatch(dataFile -> dataFile.getFileName().equals(datafileName))) {
+                throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
+            }
+            hashcodeContainerSession.getDataFiles().removeIf(dataFile -> dataFile.getFileName().equals(datafileName));
+        });
         return Result.OK;
     }
 
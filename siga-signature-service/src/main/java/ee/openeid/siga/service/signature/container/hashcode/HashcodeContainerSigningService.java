@@ -12,16 +12,21 @@ import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.hashcode.SignatureDataFilesParser;
 import ee.openeid.siga.service.signature.session.HashcodeSessionHolder;
 import ee.openeid.siga.service.signature.util.ContainerUtil;
+import ee.openeid.siga.session.SessionPart;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.digidoc4j.Container;
+import org.digidoc4j.DataFile;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.DetachedXadesSignatureBuilder;
 import org.digidoc4j.DigestAlgorithm;
 import org.digidoc4j.DigestDataFile;
 import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureFinalizerBuilder;
 import org.digidoc4j.SignatureParameters;
 import org.digidoc4j.exceptions.TechnicalException;
+import org.digidoc4j.impl.SignatureFinalizer;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -29,6 +34,7 @@ import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -42,9 +48,21 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
         return signatureBuilder.buildDataToSign();
     }
 
+    /**
+     * Data files are converted with the signature digest algorithm of the signature parameters, which is the digest
+     * algorithm that was determined for the service when the data to sign was built.
+     */
     @Override
-    protected Session getSession(String containerId) {
-        return getSessionHolder(containerId);
+    protected SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters) {
+        List<DataFile> dataFiles = ((HashcodeContainerSession) session).getDataFiles().stream()
+                .map(dataFile -> convertDataFile(dataFile, signatureParameters.getSignatureDigestAlgorithm()))
+                .collect(Collectors.toList());
+        return SignatureFinalizerBuilder.aFinalizer(dataFiles, signatureParameters, configuration, Container.DocumentType.ASICE);
+    }
+
+    @Override
+    protected Session getSession(String containerId, Set<SessionPart> parts) {
+        return getSessionHolder(containerId, parts);
     }
 
     @Override
@@ -86,7 +104,7 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
                 .withPostalCode(signatureParameters.getPostalCode());
 
         for (HashcodeDataFile hashcodeDataFile : dataFiles) {
-            builder = builder.withDataFile(convertDataFile(hashcodeDataFile));
+            builder = builder.withDataFile(convertDataFile(hashcodeDataFile, signatureDigestAlgorithm));
         }
         if (signatureParameters.getRoles() != null && !signatureParameters.getRoles().isEmpty()) {
             String[] roles = new String[signatureParameters.getRoles().size()];
@@ -128,10 +146,8 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
         return signatureWrapper;
     }
 
-    private DigestDataFile convertDataFile(HashcodeDataFile hashcodeDataFile) {
+    private DigestDataFile convertDataFile(HashcodeDataFile hashcodeDataFile, DigestAlgorithm digestAlgorithm) {
         String fileName = hashcodeDataFile.getFileName();
-        DigestAlgorithm digestAlgorithm = determineDigestAlgorithm();
-
         String mimeType = hashcodeDataFile.getMimeType();
         return new DigestDataFile(fileName, digestAlgorithm, getDigest(hashcodeDataFile, digestAlgorithm), mimeType);
     }
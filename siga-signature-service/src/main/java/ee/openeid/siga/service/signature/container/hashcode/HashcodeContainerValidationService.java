@@ -19,8 +19,11 @@ import org.springframework.stereotype.Service;
 
 import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
+import static ee.openeid.siga.session.SessionPart.CONTAINER;
+
 @Service
 @RequiredArgsConstructor
 public class HashcodeContainerValidationService implements HashcodeSessionHolder {
@@ -52,7 +55,7 @@ public class HashcodeContainerValidationService implements HashcodeSessionHolder
     }
 
     public ValidationConclusion validateExistingContainer(String containerId) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        HashcodeContainerSession sessionHolder = getSessionHolder(containerId, Set.of(CONTAINER));
         validateContainerSignatures(sessionHolder.getSignatures());
         return createHashcodeContainerValidationConclusion(sessionHolder.getSignatures(), sessionHolder.getDataFiles());
     }
@@ -6,25 +6,26 @@ import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
-import ee.openeid.siga.session.CacheName;
+import ee.openeid.siga.service.signature.container.StatusPollingExecutor;
 import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStore;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.binary.BinaryObject;
-import org.apache.ignite.cache.query.QueryCursor;
-import org.apache.ignite.cache.query.ScanQuery;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
+import static ee.openeid.siga.session.SessionPart.CERTIFICATE_SESSIONS;
+import static ee.openeid.siga.session.SessionPart.SIGNATURE_SESSIONS;
 import static java.time.Duration.ZERO;
 
 @Slf4j
@@ -32,27 +33,30 @@ import static java.time.Duration.ZERO;
 @RequiredArgsConstructor
 @EnableConfigurationProperties(SessionStatusReprocessingProperties.class)
 public class SessionStatusReprocessingService {
-    private final ThreadPoolTaskExecutor taskExecutor;
-    private final Ignite ignite;
+    private final StatusPollingExecutor statusPollingExecutor;
+    private final StatusPollingProperties statusPollingProperties;
+    private final SessionStore sessionStore;
     private final ContainerSigningServiceSelector containerSigningServiceSelector;
     private final SessionService sessionService;
     private final SessionStatusReprocessingProperties reprocessingProperties;
+    private final StatusReprocessingPartitionAssignment partitionAssignment;
+    private final StatusReprocessingMetrics reprocessingMetrics;
 
     @Scheduled(fixedRateString = "${siga.status-reprocessing.fixed-rate:5000}", initialDelayString = "${siga.status-reprocessing.initial-delay:5000}")
     public void processFailedStatusRequests() {
         SignatureStatusRequestFilter filter = new SignatureStatusRequestFilter(
                 reprocessingProperties.getMaxProcessingAttempts(),
                 reprocessingProperties.getProcessingTimeout(), reprocessingProperties.getExceptionTimeout());
-        ScanQuery<String, Map<String, BinaryObject>> query = new ScanQuery<>(filter);
-        try (QueryCursor<String> queryCursor = ignite.getOrCreateCache(CacheName.SIGNATURE_SESSION.name())
-                .withKeepBinary()
-                .query(query, new SessionIdQueryTransformer())) {
-            queryCursor.forEach(sessionId -> processFailedContainerSession(filter, sessionId));
-        }
+        AtomicInteger backlog = new AtomicInteger();
+        sessionStore.forEachSessionIdWithSignatureStatus(filter, partitionAssignment.assignPartitions(), sessionId -> {
+            backlog.incrementAndGet();
+            processFailedContainerSession(filter, sessionId);
+        });
+        reprocessingMetrics.recordSignatureBacklog(backlog.get());
     }
 
     void processFailedContainerSession(SignatureStatusRequestFilter filter, String sessionId) {
-        Session session = sessionService.getContainerBySessionId(sessionId);
+        Session session = sessionService.getContainerBySessionId(sessionId, Set.of(SIGNATURE_SESSIONS));
         ContainerSigningService containerSigningService = containerSigningServiceSelector
                 .getContainerSigningServiceFor(session);
 
@@ -81,16 +85,16 @@ public class SessionStatusReprocessingService {
         CertificateStatusRequestFilter filter = new CertificateStatusRequestFilter(
                 reprocessingProperties.getMaxProcessingAttempts(),
                 reprocessingProperties.getProcessingTimeout(), reprocessingProperties.getExceptionTimeout());
-        ScanQuery<String, Map<String, BinaryObject>> query = new ScanQuery<>(filter);
-        try (QueryCursor<String> queryCursor = ignite.getOrCreateCache(CacheName.CERTIFICATE_SESSION.name())
-                .withKeepBinary()
-                .query(query, new SessionIdQueryTransformer())) {
-            queryCursor.forEach(sessionId -> processFailedCertificateStatusRequest(filter, sessionId));
-        }
+        AtomicInteger backlog = new AtomicInteger();
+        sessionStore.forEachSessionIdWithCertificateStatus(filter, partitionAssignment.assignPartitions(), sessionId -> {
+            backlog.incrementAndGet();
+            processFailedCertificateStatusRequest(filter, sessionId);
+        });
+        reprocessingMetrics.recordCertificateBacklog(backlog.get());
     }
 
     void processFailedCertificateStatusRequest(CertificateStatusRequestFilter filter, String sessionId) {
-        Session session = sessionService.getContainerBySessionId(sessionId);
+        Session session = sessionService.getContainerBySessionId(sessionId, Set.of(CERTIFICATE_SESSIONS));
         ContainerSigningService containerSigningService = containerSigningServiceSelector
                 .getContainerSigningServiceFor(session);
 
@@ -112,14 +116,8 @@ public class SessionStatusReprocessingService {
     @PreDestroy
     @SneakyThrows
     public void onDestroy() {
-        long timeout = 300;
-        long currentCount = 0;
         log.info("Graceful shutdown in progress!");
-        while (taskExecutor.getActiveCount() != 0 && currentCount++ <= timeout) {
-            log.info("Nr. of active status polling jobs left: {}. Timeout in: {}", taskExecutor.getActiveCount(),
-                    timeout - currentCount);
-            Thread.sleep(1000);
-        }
+        statusPollingExecutor.awaitActiveTasks(statusPollingProperties.getShutdownTimeout());
         log.info("Continuing shutdown!");
     }
 
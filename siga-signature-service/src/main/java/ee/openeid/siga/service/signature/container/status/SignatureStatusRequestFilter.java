@@ -2,19 +2,11 @@ package ee.openeid.siga.service.signature.container.status;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Map;
-
-import org.apache.ignite.binary.BinaryObject;
-import org.apache.ignite.internal.binary.BinaryEnumObjectImpl;
-import org.apache.ignite.lang.IgniteBiPredicate;
 
 import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.session.SessionStatusFilter;
 
-/**
- * NB: This class is loaded into Ignite server nodes via peer class loading.
- * If possible, avoid making changes in this class and in its dependencies!
- */
-public class SignatureStatusRequestFilter implements IgniteBiPredicate<String, Map<String, BinaryObject>> {
+public class SignatureStatusRequestFilter implements SessionStatusFilter {
     private final long maxProcessingRetries;
     private final LocalDateTime processingTimeout;
     private final LocalDateTime exceptionTimeout;
@@ -27,17 +19,18 @@ public class SignatureStatusRequestFilter implements IgniteBiPredicate<String, M
     }
 
     @Override
-    public boolean apply(String containerSessionId, Map<String, BinaryObject> signatureSessions) {
-        return signatureSessions.values().stream()
-                .map(s -> (BinaryObject) s.field("sessionStatus"))
-                .anyMatch(sessionStatus -> {
-                    int statusOrdinal = sessionStatus.<BinaryEnumObjectImpl>field("processingStatus").enumOrdinal();
-                    ProcessingStatus processingStatus = ProcessingStatus
-                            .values()[statusOrdinal];
-                    LocalDateTime statusTimestamp = sessionStatus.field("processingStatusTimestamp");
-                    int processingCounter = sessionStatus.field("processingCounter");
-                    return isApplyFilter(this, processingStatus, statusTimestamp, processingCounter);
-                });
+    public boolean isApplicable(ProcessingStatus processingStatus, LocalDateTime processingStatusTimestamp,
+            int processingCounter) {
+        return isApplyFilter(this, processingStatus, processingStatusTimestamp, processingCounter);
+    }
+
+    @Override
+    public LocalDateTime getLatestApplicableTimestamp(ProcessingStatus processingStatus) {
+        return switch (processingStatus) {
+            case PROCESSING -> processingTimeout;
+            case EXCEPTION -> exceptionTimeout;
+            default -> null;
+        };
     }
 
     static boolean isApplyFilter(SignatureStatusRequestFilter filter, ProcessingStatus processingStatus,
@@ -0,0 +1,50 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class StatusReprocessingMetrics implements MeterBinder {
+    static final String NODES_METRIC_NAME = "siga.status.reprocessing.nodes";
+    static final String PARTITIONS_METRIC_NAME = "siga.status.reprocessing.partitions";
+    static final String BACKLOG_METRIC_NAME = "siga.status.reprocessing.backlog";
+    private final AtomicInteger nodes = new AtomicInteger();
+    private final AtomicInteger assignedPartitions = new AtomicInteger();
+    private final AtomicInteger signatureBacklog = new AtomicInteger();
+    private final AtomicInteger certificateBacklog = new AtomicInteger();
+
+    public void recordAssignment(int nodeCount, int partitionCount) {
+        nodes.set(nodeCount);
+        assignedPartitions.set(partitionCount);
+    }
+
+    public void recordSignatureBacklog(int sessionCount) {
+        signatureBacklog.set(sessionCount);
+    }
+
+    public void recordCertificateBacklog(int sessionCount) {
+        certificateBacklog.set(sessionCount);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(NODES_METRIC_NAME, nodes, AtomicInteger::get)
+                .description("SiGa nodes taking part in status reprocessing")
+                .register(registry);
+        Gauge.builder(PARTITIONS_METRIC_NAME, assignedPartitions, AtomicInteger::get)
+                .description("Status partitions reprocessed by this node")
+                .register(registry);
+        Gauge.builder(BACKLOG_METRIC_NAME, signatureBacklog, AtomicInteger::get)
+                .tag("type", "signature")
+                .description("Container sessions with signature statuses due for reprocessing by this node at the last run")
+                .register(registry);
+        Gauge.builder(BACKLOG_METRIC_NAME, certificateBacklog, AtomicInteger::get)
+                .tag("type", "certificate")
+                .description("Container sessions with certificate statuses due for reprocessing by this node at the last run")
+                .register(registry);
+    }
+}
@@ -0,0 +1,68 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import com.google.common.hash.Hashing;
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
+import ee.openeid.siga.session.SessionStatusPartitions;
+import ee.openeid.siga.session.SessionStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns {@link SessionStatusPartitions status partitions} to the SiGa nodes taking part in status reprocessing with
+ * rendezvous hashing, so that each partition is reprocessed by a single node, and only the partitions of a node that
+ * joins or leaves are reassigned.
+ * <p>
+ * Nodes are known by their leases in the session store, renewed on every assignment. Partitions of a node that stops
+ * without releasing its lease are not reprocessed until the lease expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatusReprocessingPartitionAssignment {
+    private final String nodeId = UUIDGenerator.generateUUID();
+    private final SessionStore sessionStore;
+    private final SessionStatusReprocessingProperties reprocessingProperties;
+    private final StatusReprocessingMetrics reprocessingMetrics;
+    private volatile Set<Integer> assignedPartitions = Set.of();
+
+    /**
+     * @return partitions to be reprocessed by this node
+     */
+    public Set<Integer> assignPartitions() {
+        Set<String> nodeIds = sessionStore.renewReprocessingLease(nodeId, reprocessingProperties.getNodeLeaseDuration());
+        Set<Integer> partitions = SessionStatusPartitions.ALL.stream()
+                .filter(partition -> nodeId.equals(getOwner(partition, nodeIds)))
+                .collect(Collectors.toSet());
+        if (!partitions.equals(assignedPartitions)) {
+            log.info("Status reprocessing partitions reassigned. Node: {}, nodes: {}, partitions: {}",
+                    nodeId, nodeIds.size(), partitions.size());
+        }
+        assignedPartitions = partitions;
+        reprocessingMetrics.recordAssignment(nodeIds.size(), partitions.size());
+        return partitions;
+    }
+
+    @PreDestroy
+    public void onDestroy() {
+        sessionStore.releaseReprocessingLease(nodeId);
+    }
+
+    static String getOwner(int partition, Set<String> nodeIds) {
+        return nodeIds.stream()
+                .max(Comparator.<String>comparingInt(nodeId -> getWeight(nodeId, partition))
+                        .thenComparing(Comparator.naturalOrder()))
+                .orElse(null);
+    }
+
+    private static int getWeight(String nodeId, int partition) {
+        return Hashing.murmur3_32_fixed().hashString(nodeId + ":" + partition, StandardCharsets.UTF_8).asInt();
+    }
+}
@@ -7,12 +7,15 @@ import ee.openeid.siga.common.exception.MobileIdApiException;
 import ee.openeid.siga.common.model.MobileIdInformation;
 import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.service.signature.client.SessionCompletionPoller;
+import ee.openeid.siga.service.signature.client.SharedClient;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.sk.mid.MidClient;
 import ee.sk.mid.MidHashToSign;
 import ee.sk.mid.MidHashType;
 import ee.sk.mid.MidLanguage;
 import ee.sk.mid.exception.*;
+import ee.sk.mid.rest.MidLoggingFilter;
 import ee.sk.mid.rest.dao.MidSessionStatus;
 import ee.sk.mid.rest.dao.request.MidCertificateRequest;
 import ee.sk.mid.rest.dao.request.MidSignatureRequest;
@@ -26,13 +29,19 @@ import org.glassfish.jersey.client.ClientProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.ws.rs.ServerErrorException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
 import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.cert.X509Certificate;
 import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
 import static java.lang.String.format;
 
@@ -56,11 +65,15 @@ public class MobileIdApiClient {
 
     private final MobileIdClientConfigurationProperties configurationProperties;
     private final ResourceLoader resourceLoader;
+    private final Map<RelyingPartyInfo, MidClient> midClients = new ConcurrentHashMap<>();
+    private KeyStore midTruststore;
+    private Client sharedClient;
+    private SessionCompletionPoller sessionCompletionPoller;
 
     @SigaEventLog(eventName = SigaEventName.MID_GET_MOBILE_CERTIFICATE,
             logStaticParameters = {@LogParam(name = SigaEventName.EventParam.REQUEST_URL, value = "${siga.midrest.url}")})
     public X509Certificate getCertificate(RelyingPartyInfo relyingPartyInfo, MobileIdInformation mobileIdInformation) {
-        MidClient midClient = createMidRestClient(relyingPartyInfo);
+        MidClient midClient = getMidClient(relyingPartyInfo);
         MidCertificateRequest request = MidCertificateRequest.newBuilder()
                 .withPhoneNumber(mobileIdInformation.getPhoneNo())
                 .withNationalIdentityNumber(mobileIdInformation.getPersonIdentifier())
@@ -100,7 +113,7 @@ public class MobileIdApiClient {
                 .withLanguage(midLanguage)
                 .withDisplayText(mobileIdInformation.getMessageToDisplay())
                 .build();
-        MidClient midClient = createMidRestClient(relyingPartyInfo);
+        MidClient midClient = getMidClient(relyingPartyInfo);
         try {
             MidSignatureResponse midSignatureResponse = midClient.getMobileIdConnector().sign(request);
 
@@ -120,7 +133,7 @@ public class MobileIdApiClient {
     public MobileIdStatusResponse getSignatureStatus(RelyingPartyInfo relyingPartyInfo, String sessionCode) {
         MobileIdStatusResponse response = new MobileIdStatusResponse();
         try {
-            MidClient midClient = createMidRestClient(relyingPartyInfo);
+            MidClient midClient = getMidClient(relyingPartyInfo);
             MidSessionStatus sessionStatus = midClient.getSessionStatusPoller().fetchFinalSessionStatus(sessionCode, format("/signature/session/%s", sessionCode));
             response.setStatus(mapToMidStatus(sessionStatus.getState(), sessionStatus.getResult()));
             if (response.getStatus() == MobileIdSessionStatus.SIGNATURE) {
@@ -134,6 +147,25 @@ public class MobileIdApiClient {
         return response;
     }
 
+    /**
+     * Waits without blocking a thread until the signing session is no longer running, so that its final status can
+     * then be fetched with {@link #getSignatureStatus} without waiting.
+     *
+     * @param beforeEachPoll called before every status request. Waiting stops if it returns {@code false}.
+     */
+    public Mono<Void> awaitSignatureCompletion(String sessionCode, BooleanSupplier beforeEachPoll) {
+        return getSessionCompletionPoller().awaitCompletion(sessionCode, beforeEachPoll);
+    }
+
+    private synchronized SessionCompletionPoller getSessionCompletionPoller() {
+        if (sessionCompletionPoller == null) {
+            sessionCompletionPoller = new SessionCompletionPoller(configurationProperties.getUrl(), getMidTruststore(),
+                    configurationProperties.getConnectTimeout(), configurationProperties.getLongPollingTimeout(),
+                    "/signature/session/{sessionCode}");
+        }
+        return sessionCompletionPoller;
+    }
+
     private MidLanguage getLanguage(String language) {
         if (language == null) {
             return MidLanguage.EST;
@@ -154,14 +186,41 @@ public class MobileIdApiClient {
         throw new IllegalArgumentException("Invalid mid hash type");
     }
 
+    @PreDestroy
+    public synchronized void onDestroy() {
+        if (sharedClient != null) {
+            sharedClient.close();
+        }
+    }
+
+    /**
+     * @return Mobile-ID client of the relying party, created once and shared between requests
+     */
+    private MidClient getMidClient(RelyingPartyInfo relyingPartyInfo) {
+        return midClients.computeIfAbsent(relyingPartyInfo, this::createMidRestClient);
+    }
+
     private MidClient createMidRestClient(RelyingPartyInfo relyingPartyInfo) {
-        return MidClient.newBuilder().withHostUrl(configurationProperties.getUrl())
+        MidClient midClient = MidClient.newBuilder().withHostUrl(configurationProperties.getUrl())
                 .withTrustStore(getMidTruststore())
                 .withLongPollingTimeoutSeconds((int) configurationProperties.getLongPollingTimeout().toSeconds())
-                .withNetworkConnectionConfig(clientConfig())
+                .withConfiguredClient(getSharedClient())
                 .withRelyingPartyName(relyingPartyInfo.getName())
                 .withRelyingPartyUUID(relyingPartyInfo.getUuid())
                 .build();
+        midClient.getMobileIdConnector();
+        return midClient;
+    }
+
+    private synchronized Client getSharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new SharedClient(ClientBuilder.newBuilder()
+                    .withConfig(clientConfig())
+                    .trustStore(getMidTruststore())
+                    .build()
+                    .register(new MidLoggingFilter()));
+        }
+        return sharedClient;
     }
 
     private ClientConfig clientConfig() {
@@ -171,15 +230,17 @@ public class MobileIdApiClient {
         return clientConfig;
     }
 
-    private KeyStore getMidTruststore() {
-        try {
-            KeyStore keyStore = KeyStore.getInstance("PKCS12");
-            InputStream is = resourceLoader.getResource(configurationProperties.getTruststorePath()).getInputStream();
-            keyStore.load(is, configurationProperties.getTruststorePassword().toCharArray());
-            return keyStore;
-        } catch (Exception e) {
-            throw new IllegalArgumentException(e);
+    private synchronized KeyStore getMidTruststore() {
+        if (midTruststore == null) {
+            try (InputStream is = resourceLoader.getResource(configurationProperties.getTruststorePath()).getInputStream()) {
+                KeyStore keyStore = KeyStore.getInstance("PKCS12");
+                keyStore.load(is, configurationProperties.getTruststorePassword().toCharArray());
+                midTruststore = keyStore;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e);
+            }
         }
+        return midTruststore;
     }
 
     private static MobileIdSessionStatus mapToMidStatus(String state, String result) {
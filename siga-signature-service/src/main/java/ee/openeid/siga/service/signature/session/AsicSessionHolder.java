@@ -3,11 +3,18 @@ package ee.openeid.siga.service.signature.session;
 import ee.openeid.siga.common.exception.TechnicalException;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.session.SessionPart;
+
+import java.util.Set;
 
 public interface AsicSessionHolder extends DataFileSessionHolder {
 
     default AsicContainerSession getSessionHolder(String containerId) {
-        Session session = getContainerSession(containerId);
+        return getSessionHolder(containerId, SessionPart.ALL);
+    }
+
+    default AsicContainerSession getSessionHolder(String containerId, Set<SessionPart> parts) {
+        Session session = getContainerSession(containerId, parts);
         if (session instanceof AsicContainerSession) {
             return (AsicContainerSession) session;
         }
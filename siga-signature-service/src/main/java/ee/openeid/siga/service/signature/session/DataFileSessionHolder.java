@@ -1,13 +1,20 @@
 package ee.openeid.siga.service.signature.session;
 
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.session.SessionPart;
 import ee.openeid.siga.session.SessionService;
 
+import java.util.Set;
+
 public interface DataFileSessionHolder {
 
     default Session getContainerSession(String containerId) {
         return getSessionService().getContainer(containerId);
     }
 
+    default Session getContainerSession(String containerId, Set<SessionPart> parts) {
+        return getSessionService().getContainer(containerId, parts);
+    }
+
     SessionService getSessionService();
 }
@@ -3,11 +3,18 @@ package ee.openeid.siga.service.signature.session;
 import ee.openeid.siga.common.exception.TechnicalException;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.session.SessionPart;
+
+import java.util.Set;
 
 public interface HashcodeSessionHolder extends DataFileSessionHolder {
 
     default HashcodeContainerSession getSessionHolder(String containerId) {
-        Session session = getContainerSession(containerId);
+        return getSessionHolder(containerId, SessionPart.ALL);
+    }
+
+    default HashcodeContainerSession getSessionHolder(String containerId, Set<SessionPart> parts) {
+        Session session = getContainerSession(containerId, parts);
         if (session instanceof HashcodeContainerSession) {
             return (HashcodeContainerSession) session;
         }
@@ -11,6 +11,8 @@ import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.SmartIdInformation;
 import ee.openeid.siga.common.util.CertificateUtil;
 import ee.openeid.siga.common.util.TokenGenerator;
+import ee.openeid.siga.service.signature.client.SessionCompletionPoller;
+import ee.openeid.siga.service.signature.client.SharedClient;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
 import ee.sk.smartid.HashType;
 import ee.sk.smartid.SignableHash;
@@ -24,6 +26,7 @@ import ee.sk.smartid.exception.useraccount.PersonShouldViewSmartIdPortalExceptio
 import ee.sk.smartid.exception.useraccount.UserAccountNotFoundException;
 import ee.sk.smartid.exception.useraction.SessionTimeoutException;
 import ee.sk.smartid.exception.useraction.UserRefusedException;
+import ee.sk.smartid.rest.LoggingFilter;
 import ee.sk.smartid.rest.SessionStatusPoller;
 import ee.sk.smartid.rest.SmartIdConnector;
 import ee.sk.smartid.rest.dao.CertificateRequest;
@@ -41,9 +44,13 @@ import org.glassfish.jersey.client.ClientProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.ServerErrorException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
 import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.cert.X509Certificate;
@@ -52,7 +59,9 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 
 @Slf4j
@@ -88,6 +97,10 @@ public class SmartIdApiClient {
 
     private final ResourceLoader resourceLoader;
     private final SmartIdClientConfigurationProperties smartIdClientConfigurationProperties;
+    private final Map<RelyingPartyInfo, SmartIdClient> smartIdClients = new ConcurrentHashMap<>();
+    private KeyStore sidTruststore;
+    private Client sharedClient;
+    private SessionCompletionPoller sessionCompletionPoller;
 
     @SigaEventLog(eventName = SigaEventName.SMART_ID_CERTIFICATE_CHOICE,
             logParameters = {@Param(index = 0, fields = {@XPath(name = "relying_party_name", xpath = "name")})},
@@ -96,7 +109,7 @@ public class SmartIdApiClient {
         SemanticsIdentifier semanticsIdentifier = new SemanticsIdentifier(createSemanticsIdentifier(smartIdInformation.getCountry(),
                 smartIdInformation.getPersonIdentifier()));
         CertificateRequest certificateRequest = createCertificateRequest(relyingPartyInfo);
-        SmartIdClient smartIdClient = createSmartIdClient(relyingPartyInfo);
+        SmartIdClient smartIdClient = getSmartIdClient(relyingPartyInfo);
         SmartIdConnector connector = smartIdClient.getSmartIdConnector();
         try {
             return connector.getCertificate(semanticsIdentifier, certificateRequest).getSessionID();
@@ -115,7 +128,7 @@ public class SmartIdApiClient {
             logStaticParameters = {@LogParam(name = SigaEventName.EventParam.REQUEST_URL, value = "${siga.sid.url}")})
     public SmartIdCertificate getCertificate(RelyingPartyInfo relyingPartyInfo, SmartIdInformation smartIdInformation) {
         try {
-            SmartIdClient smartIdClient = createSmartIdClient(relyingPartyInfo);
+            SmartIdClient smartIdClient = getSmartIdClient(relyingPartyInfo);
             return smartIdClient
                     .getCertificate()
                     .withCertificateLevel(SMART_ID_CERTIFICATE_LEVEL)
@@ -144,7 +157,7 @@ public class SmartIdApiClient {
             logReturnObject = {@XPath(name = "sid_session_id", xpath = "sessionCode")},
             logStaticParameters = {@LogParam(name = SigaEventName.EventParam.REQUEST_URL, value = "${siga.sid.url}")})
     public InitSmartIdSignatureResponse initSmartIdSigning(RelyingPartyInfo relyingPartyInfo, SmartIdInformation smartIdInformation, DataToSign dataToSign) {
-        SmartIdClient smartIdClient = createSmartIdClient(relyingPartyInfo);
+        SmartIdClient smartIdClient = getSmartIdClient(relyingPartyInfo);
         SignableHash signableHash = createSignableHash(dataToSign);
         List<Interaction> allowedInteractionsOrder = createAllowedInteractionsOrder(smartIdInformation.getMessageToDisplay());
         String challengeId = signableHash.calculateVerificationCode();
@@ -188,7 +201,7 @@ public class SmartIdApiClient {
 
     SmartIdStatusResponse getSessionStatus(RelyingPartyInfo relyingPartyInfo, String sessionCode) {
         try {
-            SmartIdClient smartIdClient = createSmartIdClient(relyingPartyInfo);
+            SmartIdClient smartIdClient = getSmartIdClient(relyingPartyInfo);
             SmartIdConnector smartIdConnector = smartIdClient.getSmartIdConnector();
             SessionStatusPoller sessionStatusPoller = new SessionStatusPoller(smartIdConnector);
             SessionStatus sessionStatus = sessionStatusPoller.fetchFinalSessionStatus(sessionCode);
@@ -201,6 +214,26 @@ public class SmartIdApiClient {
         }
     }
 
+    /**
+     * Waits without blocking a thread until the signing or certificate choice session is no longer running, so that
+     * its final status can then be fetched with {@link #getSignatureStatus} or {@link #getCertificateStatus} without
+     * waiting.
+     *
+     * @param beforeEachPoll called before every status request. Waiting stops if it returns {@code false}.
+     */
+    public Mono<Void> awaitSessionCompletion(String sessionCode, BooleanSupplier beforeEachPoll) {
+        return getSessionCompletionPoller().awaitCompletion(sessionCode, beforeEachPoll);
+    }
+
+    private synchronized SessionCompletionPoller getSessionCompletionPoller() {
+        if (sessionCompletionPoller == null) {
+            sessionCompletionPoller = new SessionCompletionPoller(smartIdClientConfigurationProperties.getUrl(),
+                    getSidTruststore(), smartIdClientConfigurationProperties.getConnectTimeout(),
+                    smartIdClientConfigurationProperties.getSessionStatusResponseSocketOpenTime(), "/session/{sessionCode}");
+        }
+        return sessionCompletionPoller;
+    }
+
     private String createSemanticsIdentifier(String country, String identityNumber) {
         return PERSON_SEMANTICS_IDENTIFIER + country + "-" + identityNumber;
     }
@@ -238,17 +271,42 @@ public class SmartIdApiClient {
         }
     }
 
+    @PreDestroy
+    public synchronized void onDestroy() {
+        if (sharedClient != null) {
+            sharedClient.close();
+        }
+    }
+
+    /**
+     * @return Smart-ID client of the relying party, created once and shared between requests
+     */
+    private SmartIdClient getSmartIdClient(RelyingPartyInfo relyingPartyInfo) {
+        return smartIdClients.computeIfAbsent(relyingPartyInfo, this::createSmartIdClient);
+    }
+
     private SmartIdClient createSmartIdClient(RelyingPartyInfo relyingPartyInfo) {
         SmartIdClient client = new SmartIdClient();
-        client.setTrustStore(getSidTruststore());
         client.setHostUrl(smartIdClientConfigurationProperties.getUrl());
         client.setSessionStatusResponseSocketOpenTime(TimeUnit.MILLISECONDS, smartIdClientConfigurationProperties.getSessionStatusResponseSocketOpenTime().toMillis());
-        client.setNetworkConnectionConfig(clientConfig());
+        client.setConfiguredClient(getSharedClient());
         client.setRelyingPartyName(relyingPartyInfo.getName());
         client.setRelyingPartyUUID(relyingPartyInfo.getUuid());
+        client.getSmartIdConnector();
         return client;
     }
 
+    private synchronized Client getSharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new SharedClient(ClientBuilder.newBuilder()
+                    .withConfig(clientConfig())
+                    .trustStore(getSidTruststore())
+                    .build()
+                    .register(new LoggingFilter()));
+        }
+        return sharedClient;
+    }
+
     private ClientConfig clientConfig() {
         ClientConfig clientConfig = new ClientConfig();
         clientConfig.property(ClientProperties.CONNECT_TIMEOUT, (int) smartIdClientConfigurationProperties.getConnectTimeout().toMillis());
@@ -256,15 +314,17 @@ public class SmartIdApiClient {
         return clientConfig;
     }
 
-    private KeyStore getSidTruststore() {
-        try {
-            KeyStore keyStore = KeyStore.getInstance("PKCS12");
-            InputStream is = resourceLoader.getResource(smartIdClientConfigurationProperties.getTruststorePath()).getInputStream();
-            keyStore.load(is, smartIdClientConfigurationProperties.getTruststorePassword().toCharArray());
-            return keyStore;
-        } catch (Exception e) {
-            throw new IllegalArgumentException(e);
+    private synchronized KeyStore getSidTruststore() {
+        if (sidTruststore == null) {
+            try (InputStream is = resourceLoader.getResource(smartIdClientConfigurationProperties.getTruststorePath()).getInputStream()) {
+                KeyStore keyStore = KeyStore.getInstance("PKCS12");
+                keyStore.load(is, smartIdClientConfigurationProperties.getTruststorePassword().toCharArray());
+                sidTruststore = keyStore;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e);
+            }
         }
+        return sidTruststore;
     }
 
     private SmartIdStatusResponse mapToSmartIdStatusResponse(SessionStatus sessionStatus) {
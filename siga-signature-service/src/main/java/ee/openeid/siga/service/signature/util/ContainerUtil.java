@@ -2,12 +2,22 @@ package ee.openeid.siga.service.signature.util;
 
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.Container;
 import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.Signature;
+import org.digidoc4j.Timestamp;
+import org.digidoc4j.impl.asic.asics.AsicSCompositeContainer;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ContainerUtil {
 
@@ -31,4 +41,62 @@ public class ContainerUtil {
                 .fromStream(new ByteArrayInputStream(container))
                 .build();
     }
+
+    public static AsicContainerMetadata createContainerMetadata(Container container) {
+        return AsicContainerMetadata.builder()
+                .dataFiles(getDataFilesFromContainerSpecificDepth(container).stream()
+                        .map(dataFile -> AsicContainerMetadata.DataFileMetadata.builder()
+                                .fileName(dataFile.getName())
+                                .fileSize(dataFile.getFileSize())
+                                .fileHashSha256(Base64.getEncoder().encodeToString(dataFile.calculateDigest()))
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .signatures(getSignaturesFromContainerSpecificDepth(container).stream()
+                        .map(ContainerUtil::createSignatureMetadata)
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .timestamps(getTimestampsFromContainerSpecificDepth(container).stream()
+                        .map(timestamp -> AsicContainerMetadata.TimestampMetadata.builder()
+                                .id(timestamp.getUniqueId())
+                                .creationTime(timestamp.getCreationTime())
+                                .build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+
+    public static AsicContainerMetadata.SignatureMetadata createSignatureMetadata(Signature signature) {
+        return AsicContainerMetadata.SignatureMetadata.builder()
+                .id(signature.getId())
+                .signatureHashCode(Arrays.hashCode(signature.getAdESSignature()))
+                .signerInfo(signature.getSigningCertificate().getSubjectName())
+                .signatureProfile(signature.getProfile().name())
+                .build();
+    }
+
+    public static List<DataFile> getDataFilesFromContainerSpecificDepth(Container container) {
+        if (container instanceof AsicSCompositeContainer) {
+            return ((AsicSCompositeContainer) container).getNestedContainerDataFiles();
+        } else {
+            return container.getDataFiles();
+        }
+    }
+
+    public static List<Signature> getSignaturesFromContainerSpecificDepth(Container container) {
+        if (container instanceof AsicSCompositeContainer) {
+            List<Signature> signatures = new ArrayList<>(container.getSignatures());
+            signatures.addAll(((AsicSCompositeContainer) container).getNestedContainerSignatures());
+            return signatures;
+        } else {
+            return container.getSignatures();
+        }
+    }
+
+    public static List<Timestamp> getTimestampsFromContainerSpecificDepth(Container container) {
+        if (container instanceof AsicSCompositeContainer) {
+            List<Timestamp> timestamps = new ArrayList<>(container.getTimestamps());
+            timestamps.addAll(((AsicSCompositeContainer) container).getNestedContainerTimestamps());
+            return timestamps;
+        } else {
+            return container.getTimestamps();
+        }
+    }
 }
@@ -60,6 +60,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -93,7 +95,7 @@ class SignatureFinalizingTest {
         Mockito.when(authentication.getPrincipal()).thenReturn(SigaUserDetails.builder().build());
         SecurityContextHolder.setContext(securityContext);
         configuration.setPreferAiaOcsp(true);
-        when(sessionService.getContainer(CONTAINER_ID)).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
         signingService.setSessionService(sessionService);
         signingService.setSigaEventLogger(sigaEventLogger);
     }
@@ -300,11 +302,12 @@ class SignatureFinalizingTest {
 
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(), SignatureSession.builder()
-                .dataToSign(dataToSign)
+                .dataToSign(dataToSign.getDataToSign())
+                .signatureParameters(dataToSign.getSignatureParameters())
                 .signingType(SigningType.REMOTE)
                 .dataFilesHash(signingService.generateDataFilesHash(sessionHolder))
                 .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         return Pair.of(dataToSign.getSignatureParameters().getSignatureId(), new String(Base64.getEncoder().encode(signatureRaw)));
     }
@@ -0,0 +1,154 @@
+package ee.openeid.siga.service.signature.callback;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import ee.openeid.siga.auth.filter.hmac.HmacSignature;
+import ee.openeid.siga.auth.service.SigaUserDetailsService;
+import ee.openeid.siga.common.auth.SigaUserDetails;
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.configuration.SigningCallbackProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.FIVE_SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@WireMockTest
+class SigningCallbackNotifierTest {
+    private static final String SESSION_ID = "v1_service1_container1";
+    private static final String CALLBACK_PATH = "/siga/callback";
+    private static final String SIGNING_SECRET = "746573745365637265744b6579303031";
+    private SigningCallbackNotifier signingCallbackNotifier;
+    private String callbackUrl;
+
+    @BeforeEach
+    void setUp(WireMockRuntimeInfo wireMockServer) {
+        SigningCallbackProperties signingCallbackProperties = new SigningCallbackProperties();
+        signingCallbackProperties.setBatchInterval(Duration.ofMillis(200));
+        signingCallbackProperties.setRetryDelay(Duration.ofMillis(100));
+        SigaUserDetailsService userDetailsService = Mockito.mock(SigaUserDetailsService.class);
+        Mockito.when(userDetailsService.loadUserByUsername("service1")).thenReturn(SigaUserDetails.builder()
+                .serviceUuid("service1")
+                .signingSecret(SIGNING_SECRET)
+                .build());
+        signingCallbackNotifier = new SigningCallbackNotifier(signingCallbackProperties, userDetailsService);
+        callbackUrl = wireMockServer.getHttpBaseUrl() + CALLBACK_PATH;
+    }
+
+    @AfterEach
+    void tearDown() {
+        signingCallbackNotifier.onDestroy();
+        WireMock.reset();
+    }
+
+    @Test
+    void completionEventsSentInBatch() {
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH).willReturn(WireMock.ok()));
+
+        signingCallbackNotifier.notifySigningCompleted(SESSION_ID, "signature1", createSignatureSession("SIGNATURE", callbackUrl));
+        signingCallbackNotifier.notifyCertificateChoiceCompleted(SESSION_ID, "certificate1", createCertificateSession("CERTIFICATE", callbackUrl));
+
+        await().atMost(FIVE_SECONDS).untilAsserted(() -> WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH))
+                .withHeader("Content-Type", WireMock.containing("application/json"))
+                .withRequestBody(WireMock.matchingJsonPath("$.events.length()", WireMock.equalTo("2")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[0].type", WireMock.equalTo("SIGNATURE")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[0].containerId", WireMock.equalTo("container1")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[0].id", WireMock.equalTo("signature1")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[0].signingType", WireMock.equalTo("MOBILE_ID")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[0].status", WireMock.equalTo("SIGNATURE")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[1].type", WireMock.equalTo("CERTIFICATE_CHOICE")))
+                .withRequestBody(WireMock.matchingJsonPath("$.events[1].id", WireMock.equalTo("certificate1")))));
+    }
+
+    @Test
+    void completionEventsSignedWithServiceSigningSecret() throws Exception {
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH).willReturn(WireMock.ok()));
+
+        signingCallbackNotifier.notifySigningCompleted(SESSION_ID, "signature1", createSignatureSession("EXPIRED_TRANSACTION", callbackUrl));
+
+        await().atMost(FIVE_SECONDS).untilAsserted(() -> WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH))
+                .withHeader("X-Authorization-ServiceUUID", WireMock.equalTo("service1"))
+                .withHeader("X-Authorization-Hmac-Algorithm", WireMock.equalTo("HmacSHA256"))
+                .withHeader("X-Authorization-Timestamp", WireMock.matching("[0-9]{10}"))
+                .withHeader("X-Authorization-Signature", WireMock.matching("[0-9a-f]{64}"))));
+        List<LoggedRequest> requests = WireMock.findAll(WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH)));
+        LoggedRequest request = requests.get(0);
+        String expectedSignature = HmacSignature.builder()
+                .macAlgorithm("HmacSHA256")
+                .serviceUuid("service1")
+                .requestMethod("POST")
+                .uri(CALLBACK_PATH)
+                .timestamp(request.getHeader("X-Authorization-Timestamp"))
+                .payload(request.getBody())
+                .build()
+                .getSignature(SIGNING_SECRET);
+        assertEquals(expectedSignature, request.getHeader("X-Authorization-Signature"));
+    }
+
+    @Test
+    void completionEventRetriedOnServerError() {
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH)
+                .inScenario("retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(WireMock.serverError())
+                .willSetStateTo("available"));
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH)
+                .inScenario("retry")
+                .whenScenarioStateIs("available")
+                .willReturn(WireMock.ok()));
+
+        signingCallbackNotifier.notifySigningCompleted(SESSION_ID, "signature1", createSignatureSession("SIGNATURE", callbackUrl));
+
+        await().atMost(FIVE_SECONDS).untilAsserted(() -> WireMock.verify(2, WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH))));
+    }
+
+    @Test
+    void completionEventNotRetriedOnClientError() {
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH).willReturn(WireMock.badRequest()));
+
+        signingCallbackNotifier.notifySigningCompleted(SESSION_ID, "signature1", createSignatureSession("SIGNATURE", callbackUrl));
+
+        await().atMost(FIVE_SECONDS).untilAsserted(() -> WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH))));
+        await().during(500, MILLISECONDS).atMost(FIVE_SECONDS).untilAsserted(() ->
+                WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlEqualTo(CALLBACK_PATH))));
+    }
+
+    @Test
+    void noCompletionEventSentWithoutCallbackUrl() {
+        WireMock.stubFor(WireMock.post(CALLBACK_PATH).willReturn(WireMock.ok()));
+
+        signingCallbackNotifier.notifySigningCompleted(SESSION_ID, "signature1", createSignatureSession("SIGNATURE", null));
+
+        await().during(500, MILLISECONDS).atMost(FIVE_SECONDS).untilAsserted(() ->
+                WireMock.verify(0, WireMock.postRequestedFor(WireMock.anyUrl())));
+    }
+
+    private static SignatureSession createSignatureSession(String status, String callbackUrl) {
+        SignatureSession signatureSession = SignatureSession.builder()
+                .signingType(SigningType.MOBILE_ID)
+                .callbackUrl(callbackUrl)
+                .build();
+        signatureSession.getSessionStatus().setStatus(status);
+        return signatureSession;
+    }
+
+    private static CertificateSession createCertificateSession(String status, String callbackUrl) {
+        CertificateSession certificateSession = CertificateSession.builder()
+                .callbackUrl(callbackUrl)
+                .build();
+        certificateSession.getSessionStatus().setStatus(status);
+        return certificateSession;
+    }
+}
@@ -3,8 +3,10 @@ package ee.openeid.siga.service.signature.container;
 import ee.openeid.siga.common.auth.SigaUserDetails;
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.model.*;
+import ee.openeid.siga.common.session.CertificateSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.mobileid.InitMidSignatureResponse;
 import ee.openeid.siga.service.signature.mobileid.MobileIdApiClient;
 import ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus;
@@ -30,10 +32,12 @@ import org.mockito.Mockito;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Base64;
+import java.util.function.Consumer;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static java.time.Duration.ZERO;
@@ -41,6 +45,7 @@ import static org.awaitility.Awaitility.await;
 import static org.awaitility.Durations.FIVE_SECONDS;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -56,7 +61,7 @@ public abstract class ContainerSigningServiceTest {
     @Mock
     protected SessionService sessionService;
     @Mock
-    private MobileIdApiClient mobileIdApiClient;
+    protected MobileIdApiClient mobileIdApiClient;
     @Mock
     private SmartIdApiClient smartIdApiClient;
     @Mock
@@ -71,6 +76,14 @@ public abstract class ContainerSigningServiceTest {
         SecurityContextHolder.setContext(securityContext);
     }
 
+    @BeforeEach
+    public void setUpSessionUpdates() {
+        Mockito.lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Session>>getArgument(1).accept(invocation.getArgument(0));
+            return null;
+        }).when(sessionService).update(any(Session.class), any());
+    }
+
     protected void assertCreateDataToSignSuccessful() {
         DataToSign dataToSign = getSigningService().createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate())).getDataToSign();
         assertEquals(DigestAlgorithm.SHA512, dataToSign.getDigestAlgorithm());
@@ -155,20 +168,22 @@ public abstract class ContainerSigningServiceTest {
     protected void assertSuccessfulMobileIdSignatureProcessing(ContainerSigningService containerSigningService) throws IOException, URISyntaxException {
         Mockito.when(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).thenReturn(createDefaultUserDetails());
         Session session = getSessionHolder();
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         SignatureParameters signatureParameters = createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate());
         DataToSign dataToSign = getSigningService().buildDataToSign(session, signatureParameters);
         byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, dataToSign.getDataToSign());
         MobileIdStatusResponse response = new MobileIdStatusResponse();
         response.setSignature(signatureRaw);
         response.setStatus(MobileIdSessionStatus.SIGNATURE);
+        Mockito.when(mobileIdApiClient.awaitSignatureCompletion(any(), any())).thenReturn(Mono.empty());
         Mockito.when(mobileIdApiClient.getSignatureStatus(any(), any())).thenReturn(response);
         RelyingPartyInfo relyingPartyInfo = MobileIdSigningDelegate.getRelyingPartyInfo();
         session.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
                         .relyingPartyInfo(relyingPartyInfo)
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.MOBILE_ID)
                         .sessionCode("2342384932")
                         .dataFilesHash(getSigningService().generateDataFilesHash(session))
@@ -179,7 +194,11 @@ public abstract class ContainerSigningServiceTest {
         await().atMost(FIVE_SECONDS)
                 .untilAsserted(() -> assertEquals("SIGNATURE",
                         getSigningService().getMobileIdSignatureStatus(CONTAINER_ID, dataToSign.getSignatureParameters().getSignatureId())));
-        Mockito.verify(sessionService, Mockito.times(2)).update(session);
+        Mockito.verify(sessionService, Mockito.times(1)).updateSignatureSession(eq(CONTAINER_SESSION_ID),
+                eq(dataToSign.getSignatureParameters().getSignatureId()), any());
+        Mockito.verify(sessionService, Mockito.times(1)).update(eq(session), any());
+        Mockito.verify(sessionService, Mockito.times(1)).removeSignatureSession(CONTAINER_SESSION_ID,
+                dataToSign.getSignatureParameters().getSignatureId());
         Mockito.verify(containerSigningService, Mockito.times(1)).finalizeSignature(eq(session), anyString(), any());
     }
 
@@ -188,18 +207,18 @@ public abstract class ContainerSigningServiceTest {
         Mockito.when(smartIdApiClient.initiateCertificateChoice(any(), any())).thenReturn(SMART_ID_SESSION_ID);
         Mockito.when(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).thenReturn(createDefaultUserDetails());
         String certificateSessionId = getSigningService().initSmartIdCertificateChoice(CONTAINER_ID, smartIdInformation);
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.verify(sessionService, Mockito.times(1)).update(sessionCaptor.capture());
-        Session updatedSession = sessionCaptor.getValue();
-        MatcherAssert.assertThat(updatedSession.getSessionId(), equalTo(CONTAINER_SESSION_ID));
+        ArgumentCaptor<CertificateSession> certificateSessionCaptor = ArgumentCaptor.forClass(CertificateSession.class);
+        Mockito.verify(sessionService, Mockito.times(1))
+                .addCertificateSession(eq(CONTAINER_SESSION_ID), eq(certificateSessionId), certificateSessionCaptor.capture());
+        assertEquals(SMART_ID_SESSION_ID, certificateSessionCaptor.getValue().getSessionCode());
         assertEquals(36, certificateSessionId.length());
     }
 
     @SneakyThrows
     protected void assertSuccessfulCertificateChoiceProcessing() {
         Session session = getSessionHolder();
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         SmartIdCertificate smartIdCertificate = new SmartIdCertificate();
         smartIdCertificate.setCertificate(pkcs12Esteid2018SignatureToken.getCertificate());
         smartIdCertificate.setDocumentNumber(DOCUMENT_NUMBER);
@@ -207,6 +226,7 @@ public abstract class ContainerSigningServiceTest {
                 .status(SmartIdSessionStatus.OK)
                 .smartIdCertificate(smartIdCertificate)
                 .build();
+        Mockito.when(smartIdApiClient.awaitSessionCompletion(any(), any())).thenReturn(Mono.empty());
         Mockito.when(smartIdApiClient.getCertificateStatus(any(), any())).thenReturn(statusResponse);
 
         getSigningService().pollSmartIdCertificateStatus(session.getSessionId(), CERTIFICATE_ID, ZERO);
@@ -216,7 +236,10 @@ public abstract class ContainerSigningServiceTest {
             assertEquals(SmartIdSessionStatus.OK.getSigaCertificateMessage(), certificateStatus.getStatus());
             assertEquals(DOCUMENT_NUMBER, certificateStatus.getDocumentNumber());
         });
-        Mockito.verify(sessionService, Mockito.times(2)).update(session);
+        Mockito.verify(sessionService, Mockito.times(1)).updateCertificateSession(eq(CONTAINER_SESSION_ID), eq(CERTIFICATE_ID), any());
+        Mockito.verify(sessionService, Mockito.times(1)).update(eq(session), any());
+        Mockito.verify(sessionService, Mockito.times(1)).removeCertificateSession(CONTAINER_SESSION_ID, CERTIFICATE_ID);
+        assertEquals(pkcs12Esteid2018SignatureToken.getCertificate(), session.getCertificate(DOCUMENT_NUMBER));
     }
 
     protected void assertSuccessfulSmartIdSigningWithoutSessionCert() {
@@ -249,7 +272,7 @@ public abstract class ContainerSigningServiceTest {
 
         Session sessionHolder = getSessionHolder();
         sessionHolder.addCertificate(DOCUMENT_NUMBER, pkcs12Esteid2018SignatureToken.getCertificate());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         SignatureParameters signatureParameters = createSignatureParameters(null);
         SmartIdInformation smartIdInformation = RequestUtil.createSmartIdInformation();
@@ -268,6 +291,7 @@ public abstract class ContainerSigningServiceTest {
                 .status(SmartIdSessionStatus.OK)
                 .signature(signature)
                 .build();
+        Mockito.when(smartIdApiClient.awaitSessionCompletion(any(), any())).thenReturn(Mono.empty());
         Mockito.when(smartIdApiClient.getSignatureStatus(any(), any())).thenReturn(statusResponse);
         getSigningService().pollSmartIdSignatureStatus(sessionHolder.getSessionId(), dataToSign.getSignatureParameters().getSignatureId(), ZERO);
 
@@ -275,10 +299,9 @@ public abstract class ContainerSigningServiceTest {
                 .untilAsserted(() -> assertEquals(SmartIdSessionStatus.OK.getSigaSigningMessage(),
                         getSigningService().getSmartIdSignatureStatus(CONTAINER_ID, dataToSign.getSignatureParameters().getSignatureId())));
 
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.verify(sessionService, Mockito.times(3)).update(sessionCaptor.capture());
-        Session updatedSession = sessionCaptor.getValue();
-        MatcherAssert.assertThat(updatedSession, equalTo(sessionHolder));
+        Mockito.verify(sessionService, Mockito.times(1)).updateSignatureSession(eq(sessionHolder.getSessionId()),
+                eq(dataToSign.getSignatureParameters().getSignatureId()), any());
+        Mockito.verify(sessionService, Mockito.times(1)).update(eq(sessionHolder), any());
         Mockito.verify(containerSigningService, Mockito.times(1)).finalizeSignature(eq(sessionHolder), anyString(), any());
     }
 
@@ -348,17 +371,58 @@ public abstract class ContainerSigningServiceTest {
                 .build();
         session.addSignatureSession(SIG_ID, signatureSession);
 
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.doNothing().when(sessionService).update(sessionCaptor.capture());
-
         InvalidSessionDataException e = assertThrows(InvalidSessionDataException.class, () -> {
             getSigningService().finalizeSignature(session, SIG_ID, "b64".getBytes());
         });
 
         MatcherAssert.assertThat(e.getMessage(), equalTo("Unable to finalize signature. Container data files have been changed after signing was initiated. Repeat signing process"));
-        Session updatedSession = sessionCaptor.getValue();
-        assertEquals(CONTAINER_SESSION_ID, updatedSession.getSessionId());
-        assertNull(updatedSession.getSignatureSession(SIG_ID));
+        ArgumentCaptor<SignatureSession> signatureSessionCaptor = ArgumentCaptor.forClass(SignatureSession.class);
+        Mockito.verify(sessionService).updateSignatureSession(eq(CONTAINER_SESSION_ID), eq(SIG_ID), signatureSessionCaptor.capture());
+        assertNull(signatureSessionCaptor.getValue().getDataFilesHash());
+        assertNull(signatureSessionCaptor.getValue().getDataToSign());
+        assertNull(session.getSignatureSession(SIG_ID));
+    }
+
+    @SneakyThrows
+    protected void assertBackgroundFinalizationAddsSignatureToContainer() {
+        enableBackgroundFinalization();
+        Session session = getSessionHolder();
+        Signature signature = Mockito.mock(Signature.class);
+        byte[] signatureValue = "b64".getBytes();
+        Mockito.when(sessionService.getContainerBySessionId(eq(session.getSessionId()), any())).thenReturn(session);
+        Mockito.doReturn(signature).when(getSigningService()).finalizeSignature(session, SIG_ID, signatureValue);
+        Mockito.doNothing().when(getSigningService()).addSignatureToSession(session, signature, SIG_ID);
+
+        assertTrue(getSigningService().finalizeSignatureInBackground(session.getSessionId(), SIG_ID, signatureValue));
+
+        Mockito.verify(getSigningService()).addSignatureToSession(session, signature, SIG_ID);
+    }
+
+    protected void assertFailedBackgroundFinalizationLeftForStatusRequest() {
+        enableBackgroundFinalization();
+        Session session = getSimpleSessionHolderBuilder()
+                .addDataFile("datafile.txt", "data")
+                .build();
+        session.addSignatureSession(SIG_ID, SignatureSession.builder()
+                .dataFilesHash("someRandomHashFromBefore")
+                .build());
+        Mockito.when(sessionService.getContainerBySessionId(eq(session.getSessionId()), any())).thenReturn(session);
+
+        assertFalse(getSigningService().finalizeSignatureInBackground(session.getSessionId(), SIG_ID, "b64".getBytes()));
+
+        Mockito.verify(sessionService, Mockito.never()).update(any(Session.class), any());
+    }
+
+    protected void assertBackgroundFinalizationDisabledByDefault() {
+        assertFalse(getSigningService().finalizeSignatureInBackground(CONTAINER_SESSION_ID, SIG_ID, "b64".getBytes()));
+
+        Mockito.verifyNoInteractions(sessionService);
+    }
+
+    private void enableBackgroundFinalization() {
+        StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+        statusPollingProperties.setBackgroundFinalization(true);
+        getSigningService().setStatusPollingProperties(statusPollingProperties);
     }
 
     private SigaUserDetails createDefaultUserDetails() {
@@ -4,6 +4,7 @@ import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.exception.SigaApiException;
 import ee.openeid.siga.common.model.SigningType;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.ProcessingStatus;
 import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
@@ -17,10 +18,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.function.Consumer;
+
 import static ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus.OUTSTANDING_TRANSACTION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,7 +47,7 @@ class MobileIdSigningDelegateTest {
     void getMobileIdSignatureStatus_WhenContainerHasOutstandingMidSignatureSession_ReturnsOutstandingTransactionStatus() {
         SessionStatusReprocessingProperties reprocessingProperties = new SessionStatusReprocessingProperties();
         HashcodeContainerSession session = createHashcodeContainerSession();
-        when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
         when(containerSigningService.getReprocessingProperties()).thenReturn(reprocessingProperties);
 
         String signatureStatus = mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
@@ -57,17 +63,39 @@ class MobileIdSigningDelegateTest {
         SessionStatus sessionStatus = signatureSession.getSessionStatus();
         sessionStatus.setStatus(SmartIdSessionStatus.OK.getSigaSigningMessage());
         sessionStatus.setProcessingStatus(ProcessingStatus.RESULT);
-        when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
         when(containerSigningService.getSessionService()).thenReturn(sessionService);
         when(containerSigningService.finalizeSignature(session, SIGNATURE_ID, signature)).thenReturn(this.signature);
+        doAnswer(invocation -> {
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            return null;
+        }).when(sessionService).update(eq(session), any());
 
         String signatureStatus = mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
 
         assertEquals(SmartIdSessionStatus.OK.getSigaSigningMessage(), signatureStatus);
-        assertNull(session.getSignatureSession(SIGNATURE_ID));
         verify(containerSigningService).finalizeSignature(session, SIGNATURE_ID, signature);
         verify(containerSigningService).addSignatureToSession(session, this.signature, SIGNATURE_ID);
-        verify(sessionService).update(session);
+        verify(sessionService).removeSignatureSession(session.getSessionId(), SIGNATURE_ID);
+    }
+
+    @Test
+    void getMobileIdSignatureStatus_WhenSignatureIsFinalizedInBackground_DoesNotFinalizeAgain() {
+        HashcodeContainerSession session = createHashcodeContainerSession();
+        SignatureSession signatureSession = session.getSignatureSession(SIGNATURE_ID);
+        signatureSession.setFinalized(true);
+        SessionStatus sessionStatus = signatureSession.getSessionStatus();
+        sessionStatus.setStatus(SmartIdSessionStatus.OK.getSigaSigningMessage());
+        sessionStatus.setProcessingStatus(ProcessingStatus.RESULT);
+        when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
+        when(containerSigningService.getSessionService()).thenReturn(sessionService);
+
+        String signatureStatus = mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
+
+        assertEquals(SmartIdSessionStatus.OK.getSigaSigningMessage(), signatureStatus);
+        verify(containerSigningService, never()).finalizeSignature(any(), any(), any());
+        verify(sessionService, never()).update(any(Session.class), any());
+        verify(sessionService).removeSignatureSession(session.getSessionId(), SIGNATURE_ID);
     }
 
     @Test
@@ -77,7 +105,7 @@ class MobileIdSigningDelegateTest {
         SessionStatus sessionStatus = session.getSignatureSession(SIGNATURE_ID).getSessionStatus();
         sessionStatus.setProcessingCounter(10);
         sessionStatus.setStatusError("INTERNAL_SERVER_ERROR", "error");
-        when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
         when(containerSigningService.getReprocessingProperties()).thenReturn(reprocessingProperties);
 
         SigaApiException caughtException = assertThrows(
@@ -92,7 +120,7 @@ class MobileIdSigningDelegateTest {
     void getMobileIdSignatureStatus_WhenSigningTypeIsNotMobileId_ThrowsInternalServerError() {
         HashcodeContainerSession session = createHashcodeContainerSession();
         session.getSignatureSession(SIGNATURE_ID).setSigningType(SigningType.SMART_ID);
-        when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
 
         InvalidSessionDataException caughtException = assertThrows(
                 InvalidSessionDataException.class, () -> mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID)
@@ -0,0 +1,96 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus;
+import ee.openeid.siga.session.SessionService;
+import lombok.extern.slf4j.Slf4j;
+import org.digidoc4j.Signature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the p99 latency of Mobile-ID signature status requests when the signature is finalized on the status
+ * request and when it has already been finalized by the status polling task. The OCSP and TSA requests and the
+ * signature validation of the finalization are simulated with a fixed delay.
+ * <p>
+ * Run with {@code mvn test -pl siga-signature-service -am -Dtest=SignatureStatusLatencyBenchmarkTest -Dsiga.benchmark=true}.
+ */
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@EnabledIfSystemProperty(named = "siga.benchmark", matches = "true")
+class SignatureStatusLatencyBenchmarkTest {
+    private static final String CONTAINER_ID = "container1";
+    private static final String SIGNATURE_ID = "signature1";
+    private static final int STATUS_REQUESTS = 50;
+    private static final Duration FINALIZATION_DURATION = Duration.ofMillis(500);
+    @Mock
+    private ContainerSigningService containerSigningService;
+    @Mock
+    private SessionService sessionService;
+    @Mock
+    private Signature signature;
+
+    @Test
+    void statusRequestLatency() {
+        when(containerSigningService.getSessionService()).thenReturn(sessionService);
+        lenient().when(containerSigningService.finalizeSignature(any(), eq(SIGNATURE_ID), any())).thenAnswer(invocation -> {
+            Thread.sleep(FINALIZATION_DURATION.toMillis());
+            return signature;
+        });
+        MobileIdSigningDelegate mobileIdSigningDelegate = new MobileIdSigningDelegate(containerSigningService);
+
+        Duration finalizedOnStatusRequest = measureStatusRequestP99(mobileIdSigningDelegate, false);
+        Duration finalizedInBackground = measureStatusRequestP99(mobileIdSigningDelegate, true);
+
+        log.info("Status request p99 of {} requests: {} ms when finalized on status request, {} ms when finalized in background",
+                STATUS_REQUESTS, finalizedOnStatusRequest.toMillis(), finalizedInBackground.toMillis());
+        assertTrue(finalizedInBackground.compareTo(finalizedOnStatusRequest) < 0);
+    }
+
+    private Duration measureStatusRequestP99(MobileIdSigningDelegate mobileIdSigningDelegate, boolean finalizedInBackground) {
+        long[] latencies = new long[STATUS_REQUESTS];
+        for (int request = 0; request < STATUS_REQUESTS; request++) {
+            HashcodeContainerSession session = createSessionWithSignatureResult(finalizedInBackground);
+            when(containerSigningService.getSession(eq(CONTAINER_ID), any())).thenReturn(session);
+            long start = System.nanoTime();
+            mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
+            latencies[request] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return Duration.ofNanos(latencies[(int) Math.ceil(STATUS_REQUESTS * 0.99) - 1]);
+    }
+
+    private static HashcodeContainerSession createSessionWithSignatureResult(boolean finalized) {
+        SignatureSession signatureSession = SignatureSession.builder()
+                .dataFilesHash("hash1")
+                .signingType(SigningType.MOBILE_ID)
+                .signature(new byte[]{1, 2, 3, 4})
+                .finalized(finalized)
+                .build();
+        signatureSession.getSessionStatus().setStatus(MobileIdSessionStatus.SIGNATURE.name());
+        signatureSession.setPollingStatus(ProcessingStatus.RESULT);
+        HashcodeContainerSession session = HashcodeContainerSession.builder()
+                .clientName("client1")
+                .serviceName("service1")
+                .serviceUuid("1c4ff3aa-afa6-11ee-8415-9790cd3b9cad")
+                .sessionId("session1")
+                .build();
+        session.addSignatureSession(SIGNATURE_ID, signatureSession);
+        return session;
+    }
+}
@@ -0,0 +1,93 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares how many signing sessions can be polled concurrently, and how much heap each polled session takes, with the
+ * status polling executor running on the application task executor pool configured as in production and with the
+ * executor running on virtual threads. Every signing session occupies its thread for a blocking status request.
+ * <p>
+ * Run with {@code mvn test -pl siga-signature-service -am -Dtest=StatusPollingExecutorBenchmarkTest -Dsiga.benchmark=true}.
+ * Virtual threads are only measured when running on Java 21 or later. On earlier Java versions, the comparison is
+ * deferred: the virtual threads benchmark is skipped and only the thread pool is measured.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "siga.benchmark", matches = "true")
+class StatusPollingExecutorBenchmarkTest {
+    private static final int SIGNING_SESSIONS = 10000;
+    private static final Duration STATUS_REQUEST_DURATION = Duration.ofSeconds(5);
+
+    @Test
+    void threadPoolConcurrentSessions() throws InterruptedException {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(128);
+        taskExecutor.setMaxPoolSize(256);
+        taskExecutor.setQueueCapacity(128);
+        taskExecutor.initialize();
+        try {
+            runBenchmark("Thread pool", new StatusPollingExecutor(taskExecutor, new StatusPollingProperties()));
+        } finally {
+            taskExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualThreadsConcurrentSessions() throws InterruptedException {
+        if (Runtime.version().feature() < 21) {
+            log.info("Virtual threads: not measured on Java {}, comparison with thread pool deferred until run on Java 21 or later",
+                    Runtime.version().feature());
+        }
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21 or later");
+        StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+        statusPollingProperties.setVirtualThreads(true);
+        runBenchmark("Virtual threads", new StatusPollingExecutor(new ThreadPoolTaskExecutor(), statusPollingProperties));
+    }
+
+    private static void runBenchmark(String executorType, StatusPollingExecutor statusPollingExecutor) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        int rejected = 0;
+        long usedHeapBefore = getUsedHeap();
+        for (int session = 0; session < SIGNING_SESSIONS; session++) {
+            try {
+                statusPollingExecutor.execute(() -> {
+                    running.incrementAndGet();
+                    try {
+                        release.await(STATUS_REQUEST_DURATION.toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                rejected++;
+            }
+        }
+        TimeUnit.SECONDS.sleep(1);
+        int concurrentSessions = running.get();
+        long heapPerSession = (getUsedHeap() - usedHeapBefore) / Math.max(1, concurrentSessions);
+        release.countDown();
+
+        log.info("{}: {} of {} signing sessions polled concurrently, {} rejected, ~{} bytes of heap per polled session",
+                executorType, concurrentSessions, SIGNING_SESSIONS, rejected, heapPerSession);
+        assertTrue(statusPollingExecutor.awaitActiveTasks(STATUS_REQUEST_DURATION.multipliedBy(2)));
+    }
+
+    private static long getUsedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
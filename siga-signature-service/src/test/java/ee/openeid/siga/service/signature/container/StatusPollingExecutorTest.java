@@ -0,0 +1,104 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPollingExecutorTest {
+    private ThreadPoolTaskExecutor taskExecutor;
+    private StatusPollingExecutor statusPollingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.initialize();
+        statusPollingExecutor = new StatusPollingExecutor(taskExecutor, new StatusPollingProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void activeTasksAwaitedUntilFinished() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        statusPollingExecutor.execute(() -> awaitUninterruptibly(release));
+
+        assertEquals(1, statusPollingExecutor.getActiveCount());
+        assertFalse(statusPollingExecutor.awaitActiveTasks(Duration.ofMillis(100)));
+        release.countDown();
+        assertTrue(statusPollingExecutor.awaitActiveTasks(Duration.ofSeconds(5)));
+        assertEquals(0, statusPollingExecutor.getActiveCount());
+    }
+
+    @Test
+    void rejectedTaskReportedToCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        statusPollingExecutor.execute(() -> awaitUninterruptibly(release));
+
+        assertThrows(TaskRejectedException.class, () -> statusPollingExecutor.execute(() -> {
+        }));
+        assertEquals(1, statusPollingExecutor.getActiveCount());
+        release.countDown();
+        assertTrue(statusPollingExecutor.awaitActiveTasks(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void tasksRunOnVirtualThreadsWhenEnabled() throws InterruptedException {
+        StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+        statusPollingProperties.setVirtualThreads(true);
+        StatusPollingExecutor virtualThreadExecutor = new StatusPollingExecutor(taskExecutor, statusPollingProperties);
+        AtomicReference<String> threadName = new AtomicReference<>();
+
+        virtualThreadExecutor.execute(() -> threadName.set(Thread.currentThread().getName()));
+
+        assertTrue(virtualThreadExecutor.awaitActiveTasks(Duration.ofSeconds(5)));
+        assertTrue(threadName.get().startsWith("status-polling-"));
+        assertEquals(0, taskExecutor.getThreadPoolExecutor().getCompletedTaskCount());
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void startupFailsWhenVirtualThreadsEnabledBeforeJava21() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(StatusPollingPropertiesConfiguration.class)
+                .withPropertyValues("siga.status-polling.virtual-threads=true")
+                .run(context -> assertTrue(ExceptionUtils.getThrowableList(context.getStartupFailure()).stream()
+                        .anyMatch(e -> StringUtils.contains(e.getMessage(), "siga.status-polling.virtual-threads requires Java 21 or later"))));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EnableConfigurationProperties(StatusPollingProperties.class)
+    static class StatusPollingPropertiesConfiguration {
+    }
+}
@@ -0,0 +1,149 @@
+package ee.openeid.siga.service.signature.container;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ee.openeid.siga.common.model.SigningType.MOBILE_ID;
+import static ee.openeid.siga.common.model.SigningType.SMART_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPollingSchedulerTest {
+    private ThreadPoolTaskExecutor taskExecutor;
+    private StatusPollingExecutor statusPollingExecutor;
+    private StatusPollingProperties statusPollingProperties;
+    private StatusPollingMetrics statusPollingMetrics;
+    private StatusPollingScheduler statusPollingScheduler;
+
+    @BeforeEach
+    void setUp() {
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.initialize();
+        statusPollingProperties = new StatusPollingProperties();
+        statusPollingProperties.setJitter(Duration.ZERO);
+        statusPollingProperties.setMaxBacklog(2);
+        statusPollingExecutor = new StatusPollingExecutor(taskExecutor, statusPollingProperties);
+        statusPollingMetrics = new StatusPollingMetrics();
+        statusPollingScheduler = new StatusPollingScheduler(statusPollingExecutor, statusPollingProperties, statusPollingMetrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statusPollingScheduler.onDestroy();
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void delayedPollDoesNotOccupyTaskExecutorThread() throws InterruptedException {
+        CountDownLatch executed = new CountDownLatch(1);
+
+        assertTrue(statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofMillis(300), executed::countDown));
+
+        assertEquals(1, statusPollingScheduler.getBacklog());
+        assertEquals(0, statusPollingExecutor.getActiveCount());
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, statusPollingScheduler.getBacklog());
+        assertEquals(0, statusPollingMetrics.getBacklog(MOBILE_ID));
+    }
+
+    @Test
+    void pollsDispatchedInDueOrder() throws InterruptedException {
+        StringBuffer dispatchOrder = new StringBuffer();
+        CountDownLatch executed = new CountDownLatch(2);
+
+        statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofMillis(400), () -> {
+            dispatchOrder.append('1');
+            executed.countDown();
+        });
+        statusPollingScheduler.schedule("signature-2", SMART_ID, Duration.ofMillis(100), () -> {
+            dispatchOrder.append('2');
+            executed.countDown();
+        });
+
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        assertEquals("21", dispatchOrder.toString());
+    }
+
+    @Test
+    void pollsOfSameSessionCoalescedIntoEarliest() throws InterruptedException {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch executed = new CountDownLatch(1);
+
+        statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofSeconds(10), executions::incrementAndGet);
+        statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofMillis(100), () -> {
+            executions.incrementAndGet();
+            executed.countDown();
+        });
+        statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofSeconds(10), executions::incrementAndGet);
+
+        assertEquals(1, statusPollingScheduler.getBacklog());
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, statusPollingScheduler.getBacklog());
+        assertEquals(2, statusPollingMetrics.getCoalescedCount(MOBILE_ID));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void pollOverBacklogLeftForReprocessing() {
+        assertTrue(statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ofSeconds(10), () -> {
+        }));
+        assertTrue(statusPollingScheduler.schedule("signature-2", MOBILE_ID, Duration.ofSeconds(10), () -> {
+        }));
+
+        assertFalse(statusPollingScheduler.schedule("signature-3", SMART_ID, Duration.ofSeconds(10), () -> {
+        }));
+        assertEquals(2, statusPollingScheduler.getBacklog());
+        assertEquals(1, statusPollingMetrics.getOverflowCount(SMART_ID));
+    }
+
+    @Test
+    void rejectedPollNotReportedToCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        statusPollingExecutor.execute(() -> awaitUninterruptibly(release));
+        CountDownLatch executed = new CountDownLatch(1);
+
+        assertTrue(statusPollingScheduler.schedule("signature-1", MOBILE_ID, Duration.ZERO, executed::countDown));
+
+        assertFalse(executed.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(0, statusPollingScheduler.getBacklog());
+        release.countDown();
+        assertTrue(statusPollingExecutor.awaitActiveTasks(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void providerBackoffGrowsOnConsecutiveFailures() {
+        statusPollingProperties.setBackoffInitialDelay(Duration.ofSeconds(1));
+        statusPollingProperties.setBackoffMaxDelay(Duration.ofSeconds(3));
+
+        statusPollingScheduler.recordPollResult(SMART_ID, false);
+        assertEquals(Duration.ofSeconds(1), statusPollingScheduler.getBackoff(SMART_ID));
+        statusPollingScheduler.recordPollResult(SMART_ID, false);
+        assertEquals(Duration.ofSeconds(2), statusPollingScheduler.getBackoff(SMART_ID));
+        statusPollingScheduler.recordPollResult(SMART_ID, false);
+        assertEquals(Duration.ofSeconds(3), statusPollingScheduler.getBackoff(SMART_ID));
+        assertEquals(Duration.ZERO, statusPollingScheduler.getBackoff(MOBILE_ID));
+
+        statusPollingScheduler.recordPollResult(SMART_ID, true);
+        assertEquals(Duration.ZERO, statusPollingScheduler.getBackoff(SMART_ID));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,8 +11,11 @@ import ee.openeid.siga.common.model.ContainerInfo;
 import ee.openeid.siga.common.model.DataFile;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.Signature;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.service.signature.configuration.ContainerCacheProperties;
+import ee.openeid.siga.service.signature.configuration.DataFileStorageProperties;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.service.signature.test.TestUtil;
 import ee.openeid.siga.session.SessionService;
@@ -21,7 +24,6 @@ import org.digidoc4j.Configuration;
 import org.digidoc4j.Container;
 import org.digidoc4j.ContainerBuilder;
 import org.digidoc4j.SignatureProfile;
-import org.digidoc4j.Timestamp;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -45,10 +47,12 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.CLIENT_NAME;
 import static ee.openeid.siga.service.signature.test.RequestUtil.CONTAINER_ID;
@@ -85,6 +89,10 @@ class AsicContainerServiceTest {
 
     @Spy
     private Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+    @Spy
+    private ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, new ContainerCacheProperties());
+    @Spy
+    private DataFileDocumentFactory dataFileDocumentFactory = new DataFileDocumentFactory(new DataFileStorageProperties());
 
     @Captor
     private ArgumentCaptor<Session> sessionCaptor;
@@ -102,6 +110,12 @@ class AsicContainerServiceTest {
         SecurityContextHolder.setContext(securityContext);
         Mockito.lenient().doReturn(CONTAINER_ID).when(containerService).generateContainerId();
         Mockito.lenient().when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.lenient().doAnswer(invocation -> {
+            Session session = invocation.getArgument(0);
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            sessionService.update(session);
+            return null;
+        }).when(sessionService).update(any(Session.class), any());
     }
 
     @Test
@@ -112,6 +126,21 @@ class AsicContainerServiceTest {
         assertFalse(StringUtils.isBlank(containerId));
     }
 
+    @Test
+    void createContainerStoresContainerMetadata() {
+        containerService.createContainer("test.asice", createDataFileListWithOneFile());
+
+        Mockito.verify(sessionService).update(sessionCaptor.capture());
+        AsicContainerMetadata containerMetadata = ((AsicContainerSession) sessionCaptor.getValue()).getContainerMetadata();
+        assertEquals(1, containerMetadata.getDataFiles().size());
+        AsicContainerMetadata.DataFileMetadata dataFile = containerMetadata.getDataFiles().get(0);
+        assertEquals("test.txt", dataFile.getFileName());
+        assertEquals(32, dataFile.getFileSize());
+        assertFalse(StringUtils.isBlank(dataFile.getFileHashSha256()));
+        assertEquals(0, containerMetadata.getSignatures().size());
+        assertEquals(0, containerMetadata.getTimestamps().size());
+    }
+
     @Test
     void successfulUploadContainer() throws Exception {
         String container = new String(Base64.getEncoder().encode(TestUtil.getFileInputStream(VALID_ASICE).readAllBytes()));
@@ -121,7 +150,7 @@ class AsicContainerServiceTest {
 
     @Test
     void successfulGetContainer() throws Exception {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createAsicSessionHolder());
         ContainerInfo containerInfo = containerService.getContainer(CONTAINER_ID);
         InputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(containerInfo.getContainer().getBytes()));
         Container container = ContainerBuilder.aContainer(ASICE).fromStream(inputStream).build();
@@ -130,7 +159,7 @@ class AsicContainerServiceTest {
 
     @Test
     void successfulGetSignatures() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createAsicSessionHolder());
         List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
         assertEquals("id-8c2a30729f251c6cb8336844b97f0657", signatures.get(0).getId());
         assertEquals("LT", signatures.get(0).getSignatureProfile());
@@ -138,10 +167,46 @@ class AsicContainerServiceTest {
         assertEquals("SERIALNUMBER=11404176865, GIVENNAME=MÄRÜ-LÖÖZ, SURNAME=ŽÕRINÜWŠKY, CN=\"ŽÕRINÜWŠKY,MÄRÜ-LÖÖZ,11404176865\", OU=digital signature, O=ESTEID, C=EE", signatures.get(0).getSignerInfo());
     }
 
+    @Test
+    void getSignaturesFromContainerMetadataWithoutParsingContainer() {
+        AsicContainerSession session = getContainerSession(ContainerBuilder.aContainer(ASICE).build());
+        session.addSignatureId("generatedSignatureId", 123);
+        session.setContainerMetadata(AsicContainerMetadata.builder()
+                .signatures(List.of(new AsicContainerMetadata.SignatureMetadata("S0", 123, "CN=signer", "LT")))
+                .build());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
+
+        List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
+
+        assertEquals(1, signatures.size());
+        assertEquals("S0", signatures.get(0).getId());
+        assertEquals("generatedSignatureId", signatures.get(0).getGeneratedSignatureId());
+        assertEquals("CN=signer", signatures.get(0).getSignerInfo());
+        assertEquals("LT", signatures.get(0).getSignatureProfile());
+        Mockito.verify(parsedContainerCache, Mockito.never()).get(any());
+    }
+
+    @Test
+    void getTimestampsFromContainerMetadataWithoutParsingContainer() {
+        AsicContainerSession session = getContainerSession(ContainerBuilder.aContainer(ASICE).build());
+        Date creationTime = new Date();
+        session.setContainerMetadata(AsicContainerMetadata.builder()
+                .timestamps(List.of(new AsicContainerMetadata.TimestampMetadata("T-1", creationTime)))
+                .build());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
+
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
+
+        assertEquals(1, timestamps.size());
+        assertEquals("T-1", timestamps.get(0).getId());
+        assertEquals(creationTime, timestamps.get(0).getCreationTime());
+        Mockito.verify(parsedContainerCache, Mockito.never()).get(any());
+    }
+
     @Test
     void successfulGetSignaturesFromNonCompositeSignedAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder("asicsContainerWithLtSignatureWithoutTST.scs", ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
 
@@ -155,7 +220,7 @@ class AsicContainerServiceTest {
     @Test
     void successfulGetSignaturesFromCompositeAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder(VALID_COMPOSITE_ASICS, ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
 
@@ -169,7 +234,7 @@ class AsicContainerServiceTest {
     @Test
     void successfulGetSignaturesFrom2ndLevelOfDeeplyNestedCompositeAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder("1xTST-recursive-asics-datafile.asics", ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
 
@@ -181,7 +246,7 @@ class AsicContainerServiceTest {
         AsicContainerSession session = createAsicSessionHolder();
         AtomicReference<String> signatureId = new AtomicReference<>();
         session.getSignatureIdHolder().forEach((sigId, integer) -> signatureId.set(sigId));
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         org.digidoc4j.Signature signature = containerService.getSignature(CONTAINER_ID, signatureId.get());
 
@@ -191,59 +256,51 @@ class AsicContainerServiceTest {
     @Test
     void successfulGetTimestampsFromCompositeAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder(VALID_COMPOSITE_ASICS, ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(CONTAINER_ID);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
 
         assertEquals(1, timestamps.size());
-        Timestamp timestamp = timestamps.get(0);
-        assertEquals("T-519156403B8A19A11569455AA86FD01165C0209F55D6DB244333C001313AA5C9", timestamp.getUniqueId());
+        AsicContainerMetadata.TimestampMetadata timestamp = timestamps.get(0);
+        assertEquals("T-519156403B8A19A11569455AA86FD01165C0209F55D6DB244333C001313AA5C9", timestamp.getId());
         assertEquals("2024-09-09T12:13:34Z", timestamp.getCreationTime().toInstant().toString());
-        assertEquals("C=EE, O=SK ID Solutions AS, OID.2.5.4.97=NTREE-10747013, CN=DEMO SK TIMESTAMPING AUTHORITY 2023E",
-                timestamp.getCertificate().getSubjectName());
     }
 
     @Test
     void successfulGetTimestampsFromNonCompositeAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder("TXTinsideAsics.asics", ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(CONTAINER_ID);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
 
         assertEquals(1, timestamps.size());
-        Timestamp timestamp = timestamps.get(0);
-        assertEquals("T-C527730442EEA7F33D5F4DDAD710FD5314032A5EE5CF4858AF488A9FBD432D9F", timestamp.getUniqueId());
+        AsicContainerMetadata.TimestampMetadata timestamp = timestamps.get(0);
+        assertEquals("T-C527730442EEA7F33D5F4DDAD710FD5314032A5EE5CF4858AF488A9FBD432D9F", timestamp.getId());
         assertEquals("2017-08-25T09:56:33Z", timestamp.getCreationTime().toInstant().toString());
-        assertEquals("CN=SK TIMESTAMPING AUTHORITY, OU=TSA, O=AS Sertifitseerimiskeskus, C=EE",
-                timestamp.getCertificate().getSubjectName());
     }
 
     @Test
     void successfulGetTimestampsFromFirst2LevelsOfDeeplyNestedCompositeAsicsContainer() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder("1xTST-recursive-asics-datafile.asics", ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(CONTAINER_ID);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
 
         assertEquals(2, timestamps.size());
-        Timestamp timestamp1 = timestamps.get(0);
-        assertEquals("T-D82B7E293A8E01DDDA4C9C61024A9C4E1FF7E7E7724196F8ED3CA48CD97055B7", timestamp1.getUniqueId());
+        AsicContainerMetadata.TimestampMetadata timestamp1 = timestamps.get(0);
+        assertEquals("T-D82B7E293A8E01DDDA4C9C61024A9C4E1FF7E7E7724196F8ED3CA48CD97055B7", timestamp1.getId());
         assertEquals("2024-09-05T12:20:24Z", timestamp1.getCreationTime().toInstant().toString());
-        assertEquals("C=EE, O=SK ID Solutions AS, OID.2.5.4.97=NTREE-10747013, CN=DEMO SK TIMESTAMPING AUTHORITY 2023E",
-                timestamp1.getCertificate().getSubjectName());
-        Timestamp timestamp2 = timestamps.get(1);
-        assertEquals("T-02EF9B1E76AF94BF55BF39EE7ED541F0703EDD9BA56EAB0AAE2DA85A99733DF7", timestamp2.getUniqueId());
+        AsicContainerMetadata.TimestampMetadata timestamp2 = timestamps.get(1);
+        assertEquals("T-02EF9B1E76AF94BF55BF39EE7ED541F0703EDD9BA56EAB0AAE2DA85A99733DF7", timestamp2.getId());
         assertEquals("2024-09-05T12:20:23Z", timestamp2.getCreationTime().toInstant().toString());
-        assertEquals("C=EE, O=SK ID Solutions AS, OID.2.5.4.97=NTREE-10747013, CN=DEMO SK TIMESTAMPING AUTHORITY 2023E",
-                timestamp2.getCertificate().getSubjectName());
     }
 
     @Test
     void getTimestampsFromAsicsContainerWithoutTimestampsReturnsEmptyList() throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder("asicsContainerWithLtSignatureWithoutTST.scs", ASICS);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(CONTAINER_ID);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
 
         assertEquals(0, timestamps.size());
     }
@@ -256,16 +313,16 @@ class AsicContainerServiceTest {
     })
     void getTimestampsFromNotSupportedContainerTypesReturnEmptyList(String filename, Container.DocumentType containerType) throws IOException, URISyntaxException {
         AsicContainerSession session = RequestUtil.createAsicSessionHolder(filename, containerType);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(CONTAINER_ID);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(CONTAINER_ID);
 
         assertEquals(0, timestamps.size());
     }
 
     @Test
     void successfulGetDataFiles() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createAsicSessionHolder());
         List<DataFile> dataFiles = containerService.getDataFiles(CONTAINER_ID);
         assertEquals("test.txt", dataFiles.get(0).getFileName());
         assertEquals("c2VlIG9uIHRlc3RmYWls", dataFiles.get(0).getContent());
@@ -278,7 +335,7 @@ class AsicContainerServiceTest {
                 .withDataFile(new org.digidoc4j.DataFile("test content".getBytes(StandardCharsets.UTF_8),
                         "test.xml", "text/plain")).build();
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<DataFile> dataFiles = containerService.getDataFiles(CONTAINER_ID);
 
@@ -291,7 +348,7 @@ class AsicContainerServiceTest {
     void successfulGetDataFilesFromCompositeAsicsContainer() throws IOException, URISyntaxException {
         Container container = TestUtil.getContainer(getFile(VALID_COMPOSITE_ASICS));
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<DataFile> dataFiles = containerService.getDataFiles(CONTAINER_ID);
 
@@ -304,7 +361,7 @@ class AsicContainerServiceTest {
     void successfulGetDataFilesFrom2ndLevelOfDeeplyNestedCompositeAsicsContainer() throws IOException, URISyntaxException {
         Container container = TestUtil.getContainer(getFile("1xTST-recursive-asics-datafile.asics"));
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         List<DataFile> dataFiles = containerService.getDataFiles(CONTAINER_ID);
 
@@ -315,7 +372,7 @@ class AsicContainerServiceTest {
 
     @Test
     void addDataFileButSignatureExists() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createAsicSessionHolder());
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> containerService.addDataFiles(CONTAINER_ID, createDataFileListWithOneFile())
@@ -330,7 +387,7 @@ class AsicContainerServiceTest {
                 .withDataFile(new org.digidoc4j.DataFile("test content".getBytes(),
                         "test.xml", "text/plain")).build();
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> containerService.addDataFiles(CONTAINER_ID, createDataFileListWithOneFile())
@@ -342,7 +399,7 @@ class AsicContainerServiceTest {
     void addDataFileToCompositeAsicsContainerFails() throws IOException, URISyntaxException {
         Container container = TestUtil.getContainer(getFile(VALID_COMPOSITE_ASICS));
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> containerService.addDataFiles(CONTAINER_ID, createDataFileListWithOneFile())
@@ -356,7 +413,7 @@ class AsicContainerServiceTest {
         AsicContainerSession session = getContainerSession(container);
 
         container.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
         List<DataFile> dataFiles = createDataFileListWithOneFile();
         dataFiles.get(0).setFileName("test.pdf");
         Result result = containerService.addDataFiles(CONTAINER_ID, dataFiles);
@@ -370,7 +427,7 @@ class AsicContainerServiceTest {
                 .withDataFile(new org.digidoc4j.DataFile("DxZzjr7TcMXFLuCtlt7I9Fn7kBwspOKFIR7d+QO/FZa".getBytes(), "test2.xml", "text/plain"))
                 .build();
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         Result result = containerService.removeDataFile(CONTAINER_ID, "test1.xml");
         assertEquals(Result.OK, result);
@@ -382,7 +439,7 @@ class AsicContainerServiceTest {
                 .withDataFile(new org.digidoc4j.DataFile("D0Zzjr7TcMXFLuCtlt7I9Fn7kBwspOKFIR7d+QO/FZg".getBytes(), "test.xml1", "text/plain"))
                 .build();
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         ResourceNotFoundException caughtException = assertThrows(
             ResourceNotFoundException.class, () -> {
@@ -400,7 +457,7 @@ class AsicContainerServiceTest {
                 .withDataFile(new org.digidoc4j.DataFile("test content".getBytes(),
                         "test.xml", "text/plain")).build();
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         Result result = containerService.removeDataFile(CONTAINER_ID, "test.xml");
         assertEquals(Result.OK, result);
@@ -410,7 +467,7 @@ class AsicContainerServiceTest {
     void removeDdocFileFromCompositeAsicsContainerFails() throws IOException, URISyntaxException {
         Container container = TestUtil.getContainer(getFile(VALID_COMPOSITE_ASICS));
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> containerService.removeDataFile(CONTAINER_ID, "container.ddoc")
@@ -423,7 +480,7 @@ class AsicContainerServiceTest {
     void removeInnerDataFileFromCompositeAsicsContainerFails() throws IOException, URISyntaxException {
         Container container = TestUtil.getContainer(getFile(VALID_COMPOSITE_ASICS));
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         InvalidSessionDataException caughtException = assertThrows(
                 InvalidSessionDataException.class, () -> containerService.removeDataFile(CONTAINER_ID, "test.txt")
@@ -436,7 +493,7 @@ class AsicContainerServiceTest {
     void successfulAugmentContainer() {
         Container container = TestUtil.createSignedContainer(SignatureProfile.LTA);
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
         Mockito.when(augmentationService.augmentContainer(any(byte[].class), anyString())).thenReturn(container);
 
         Result result = containerService.augmentContainer(CONTAINER_ID);
@@ -451,7 +508,7 @@ class AsicContainerServiceTest {
     void unsuccessfulAugmentContainerThrows() {
         Container container = TestUtil.createSignedContainer(SignatureProfile.LTA);
         AsicContainerSession session = getContainerSession(container);
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
         Mockito.doThrow(new InvalidSessionDataException("Unable to augment")).when(augmentationService).augmentContainer(any(byte[].class), anyString());
 
         InvalidSessionDataException exception = assertThrows(
@@ -507,7 +564,7 @@ class AsicContainerServiceTest {
                 .build();
         AsicContainerSession session = getContainerSession(container);
         container.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
         List<DataFile> dataFiles = createDataFileListWithOneFile();
         dataFiles.get(0).setFileName("test.xml");
 
@@ -11,17 +11,25 @@ import ee.openeid.siga.common.model.SmartIdInformation;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.callback.SigningCallbackNotifier;
+import ee.openeid.siga.service.signature.configuration.ContainerCacheProperties;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.container.ContainerSigningServiceTest;
+import ee.openeid.siga.service.signature.container.StatusPollingExecutor;
+import ee.openeid.siga.service.signature.container.StatusPollingMetrics;
+import ee.openeid.siga.service.signature.container.StatusPollingScheduler;
 import ee.openeid.siga.service.signature.container.MobileIdSigningDelegate;
 import ee.openeid.siga.service.signature.container.SmartIdSigningDelegate;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.service.signature.test.TestUtil;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSemaphore;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionResultNotifier;
+import ee.openeid.siga.session.SessionStore;
 import org.digidoc4j.*;
 import org.digidoc4j.signers.PKCS12SignatureToken;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +48,7 @@ import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.digidoc4j.Container.DocumentType.ASICE;
@@ -61,20 +70,31 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
 
     @Mock
     private SigaEventLogger sigaEventLogger;
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
     @Spy
-    private ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private StatusPollingExecutor statusPollingExecutor = new StatusPollingExecutor(taskExecutor, new StatusPollingProperties());
+    @Spy
+    private StatusPollingScheduler statusPollingScheduler = new StatusPollingScheduler(statusPollingExecutor, new StatusPollingProperties(), new StatusPollingMetrics());
+    @Spy
+    private StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+    @Mock
+    private SigningCallbackNotifier signingCallbackNotifier;
     @Mock
-    private Ignite ignite;
+    private SessionStore sessionStore;
     @Mock
-    private IgniteSemaphore igniteSemaphore;
+    private SessionLock sessionLock;
     @Mock
     private MobileIdClientConfigurationProperties mobileIdConfigurationProperties;
     @Mock
     private SmartIdClientConfigurationProperties smartIdConfigurationProperties;
     @Mock
     private SessionStatusReprocessingProperties reprocessingProperties;
+    @Mock
+    private SessionResultNotifier sessionResultNotifier;
     @Spy
     private Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+    @Spy
+    private ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, new ContainerCacheProperties());
 
     @BeforeEach
     void setUp() throws IOException, URISyntaxException {
@@ -84,13 +104,12 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         Mockito.lenient().when(signingService.getMobileIdSigningDelegate()).thenReturn(mobileIdSigningDelegate);
         SmartIdSigningDelegate smartIdSigningDelegate = new SmartIdSigningDelegate((signingService));
         Mockito.lenient().when(signingService.getSmartIdSigningDelegate()).thenReturn(smartIdSigningDelegate);
-        Mockito.lenient().when(sessionService.getContainer(CONTAINER_ID)).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.lenient().when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(RequestUtil.createAsicSessionHolder());
         taskExecutor.initialize();
         Mockito.lenient().when(mobileIdConfigurationProperties.getStatusPollingDelay()).thenReturn(Duration.ofSeconds(0));
         Mockito.lenient().when(smartIdConfigurationProperties.getStatusPollingDelay()).thenReturn(Duration.ofSeconds(0));
-        Mockito.lenient().when(igniteSemaphore.tryAcquire()).thenReturn(true);
-        Mockito.lenient().when(igniteSemaphore.tryAcquire(anyLong(), any())).thenReturn(true);
-        Mockito.lenient().when(ignite.semaphore(anyString(), anyInt(), anyBoolean(), anyBoolean())).thenReturn(igniteSemaphore);
+        Mockito.lenient().when(sessionStore.tryLock(anyString())).thenReturn(Optional.of(sessionLock));
+        Mockito.lenient().when(sessionLock.renew()).thenReturn(true);
     }
 
     @Test
@@ -111,7 +130,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         AsicContainerSession sessionHolder = Mockito.mock(AsicContainerSession.class);
         SignatureParameters signatureParameters = createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate());
         Mockito.when(sessionHolder.getContainer()).thenReturn(null);
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
                 InvalidSessionDataException.class,
@@ -125,7 +144,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     void containerWithEmptyDataFilesInSession() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
         sessionHolder.setContainer(TestUtil.getFile(ASICE_CONTAINER_WITH_EMPTY_DATAFILES));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate()))
@@ -136,7 +155,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     @Test
     void CompositeAsicsContainerInSession() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder(VALID_COMPOSITE_ASICS, ASICS);
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate()))
@@ -147,7 +166,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     @Test
     void NonCompositeAsicsContainerInSession() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder("asicsContainerWithLtSignatureWithoutTST.scs", ASICS);
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate()))
@@ -215,7 +234,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     void containerWithEmptyDataFilesInSessionStartMobileSigning() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
         sessionHolder.setContainer(TestUtil.getFile(ASICE_CONTAINER_WITH_EMPTY_DATAFILES));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.startMobileIdSigning(CONTAINER_ID, Mockito.mock(MobileIdInformation.class),
@@ -253,7 +272,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     void containerWithEmptyDataFilesInSessionInitSmartIdSigning() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
         sessionHolder.setContainer(TestUtil.getFile(ASICE_CONTAINER_WITH_EMPTY_DATAFILES));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.initSmartIdCertificateChoice(CONTAINER_ID, Mockito.mock(SmartIdInformation.class))
@@ -265,7 +284,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
     void containerWithEmptyDataFilesInSessionStartSmartIdSigning() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
         sessionHolder.setContainer(TestUtil.getFile(ASICE_CONTAINER_WITH_EMPTY_DATAFILES));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.startSmartIdSigning(CONTAINER_ID, Mockito.mock(SmartIdInformation.class),
@@ -289,6 +308,20 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertSameDataButDifferentFileNameGeneratesDifferentHash();
     }
 
+    @Test
+    void generateDataFilesHash_fromContainerMetadataEqualsHashOfParsedDataFiles() {
+        AsicContainerSession session = new SimpleAsicContainerSessionBuilder()
+                .addDataFile("datafile1.txt", "data1")
+                .addDataFile("datafile2.txt", "data2")
+                .build();
+        String parsedDataFilesHash = signingService.generateDataFilesHash(session);
+        session.setContainerMetadata(ContainerUtil.createContainerMetadata(ContainerUtil.createContainer(session.getContainer(), configuration)));
+        Mockito.clearInvocations(parsedContainerCache);
+
+        assertEquals(parsedDataFilesHash, signingService.generateDataFilesHash(session));
+        Mockito.verify(parsedContainerCache, Mockito.never()).get(any());
+    }
+
     @Test
     void finalizeSignatureWithContainerDataFilesChangedThrows() {
         InvalidSessionDataException caughtException = assertThrows(
@@ -318,11 +351,12 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
         sessionHolder.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.REMOTE)
                         .dataFilesHash(signingService.generateDataFilesHash(sessionHolder))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
     }
 
     @Override
@@ -331,13 +365,14 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         session.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
                         .relyingPartyInfo(MobileIdSigningDelegate.getRelyingPartyInfo())
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.MOBILE_ID)
                         .sessionCode("2342384932")
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         return session;
     }
 
@@ -347,13 +382,14 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         session.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
                         .relyingPartyInfo(SmartIdSigningDelegate.getRelyingPartyInfo())
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.SMART_ID)
                         .sessionCode("2342384932")
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         return session;
     }
 
@@ -39,7 +39,7 @@ class AsicContainerValidationServiceTest {
     void setUp() throws IOException, URISyntaxException {
         ValidationConclusion validationConclusion = RequestUtil.createValidationResponse().getValidationReport().getValidationConclusion();
         Mockito.lenient().when(sivaClient.validateContainer(any(), any())).thenReturn(validationConclusion);
-        Mockito.lenient().when(sessionService.getContainer(any())).thenReturn(RequestUtil.createAsicSessionHolder());
+        Mockito.lenient().when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createAsicSessionHolder());
     }
 
     @Test
@@ -0,0 +1,75 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.service.signature.test.TestUtil;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureBuilder;
+import org.digidoc4j.SignatureProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+
+import static ee.openeid.siga.service.signature.test.TestUtil.pkcs12Esteid2018SignatureToken;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares adding a signature to a 100 MB ASiC-E container by parsing, signing and saving the container with digidoc4j
+ * and by appending the signature at ZIP level. The data file is incompressible, as documents usually are.
+ * <p>
+ * Run with {@code mvn test -pl siga-signature-service -am -Dtest=AsicSignatureAppenderBenchmarkTest -Dsiga.benchmark=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "siga.benchmark", matches = "true")
+class AsicSignatureAppenderBenchmarkTest {
+    private static final int DATA_FILE_SIZE = 100 * 1024 * 1024;
+    private static final int ITERATIONS = 5;
+
+    @Test
+    void addSignatureTo100MbContainer() throws IOException {
+        Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+        byte[] content = new byte[DATA_FILE_SIZE];
+        new Random(1).nextBytes(content);
+        Container container = ContainerBuilder.aContainer()
+                .withConfiguration(configuration)
+                .withDataFile(new DataFile(content, "document.bin", "application/octet-stream"))
+                .build();
+        Signature signature = SignatureBuilder.aSignature(container)
+                .withSignatureProfile(SignatureProfile.B_BES)
+                .withSignatureToken(pkcs12Esteid2018SignatureToken)
+                .invokeSigning();
+        byte[] containerBytes = TestUtil.getBytesFromContainer(container);
+
+        Duration resaved = measure(() -> {
+            Container parsedContainer = ContainerUtil.createContainer(containerBytes, configuration);
+            parsedContainer.addSignature(signature);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            parsedContainer.save(outputStream);
+        });
+        Duration appended = measure(() -> AsicSignatureAppender.appendSignature(containerBytes, signature.getAdESSignature()));
+
+        log.info("Adding a signature to a {} MB container: {} ms when resaved by digidoc4j, {} ms when appended at ZIP level",
+                DATA_FILE_SIZE / 1024 / 1024, resaved.toMillis(), appended.toMillis());
+        assertTrue(appended.compareTo(resaved) < 0);
+    }
+
+    /**
+     * @return average duration of the measured iterations after a warm-up iteration
+     */
+    private static Duration measure(Runnable addSignature) {
+        addSignature.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            addSignature.run();
+        }
+        return Duration.ofNanos((System.nanoTime() - start) / ITERATIONS);
+    }
+}
@@ -0,0 +1,103 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.service.signature.test.TestUtil;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureBuilder;
+import org.digidoc4j.SignatureProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+import static ee.openeid.siga.service.signature.test.RequestUtil.VALID_ASICE;
+import static ee.openeid.siga.service.signature.test.TestUtil.pkcs12Esteid2018SignatureToken;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsicSignatureAppenderTest {
+    private static final byte[] SIGNATURE = "<asic:XAdESSignatures/>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void existingEntriesCopiedUnchanged() throws IOException, URISyntaxException {
+        byte[] container = TestUtil.getFile(VALID_ASICE);
+
+        byte[] updatedContainer = AsicSignatureAppender.appendSignature(container, SIGNATURE);
+
+        try (ZipFile zipFile = openZipFile(container); ZipFile updatedZipFile = openZipFile(updatedContainer)) {
+            List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntriesInPhysicalOrder());
+            List<ZipArchiveEntry> updatedEntries = Collections.list(updatedZipFile.getEntriesInPhysicalOrder());
+            assertEquals(entries.size() + 1, updatedEntries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                ZipArchiveEntry entry = entries.get(i);
+                ZipArchiveEntry updatedEntry = updatedEntries.get(i);
+                assertEquals(entry.getName(), updatedEntry.getName());
+                assertEquals(entry.getMethod(), updatedEntry.getMethod());
+                assertEquals(entry.getComment(), updatedEntry.getComment());
+                assertArrayEquals(readRaw(zipFile, entry), readRaw(updatedZipFile, updatedEntry));
+            }
+        }
+    }
+
+    @Test
+    void signatureAddedAsNextSignatureEntry() throws IOException, URISyntaxException {
+        byte[] container = TestUtil.getFile(VALID_ASICE);
+
+        byte[] updatedContainer = AsicSignatureAppender.appendSignature(container, SIGNATURE);
+
+        try (ZipFile zipFile = openZipFile(updatedContainer)) {
+            List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntriesInPhysicalOrder());
+            ZipArchiveEntry signatureEntry = entries.get(entries.size() - 1);
+            assertEquals("mimetype", entries.get(0).getName());
+            assertEquals(ZipEntry.STORED, entries.get(0).getMethod());
+            assertEquals("META-INF/signatures1.xml", signatureEntry.getName());
+            assertEquals(ZipEntry.DEFLATED, signatureEntry.getMethod());
+            assertEquals(entries.get(0).getComment(), signatureEntry.getComment());
+            try (InputStream inputStream = zipFile.getInputStream(signatureEntry)) {
+                assertArrayEquals(SIGNATURE, inputStream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void appendedSignatureReadByDigidoc4j() throws IOException {
+        Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+        Container container = ContainerBuilder.aContainer()
+                .withConfiguration(configuration)
+                .withDataFile(new DataFile("content".getBytes(), "test.txt", "text/plain"))
+                .build();
+        Signature signature = SignatureBuilder.aSignature(container)
+                .withSignatureProfile(SignatureProfile.B_BES)
+                .withSignatureToken(pkcs12Esteid2018SignatureToken)
+                .invokeSigning();
+
+        byte[] updatedContainer = AsicSignatureAppender.appendSignature(TestUtil.getBytesFromContainer(container), signature.getAdESSignature());
+
+        Container parsedContainer = ContainerUtil.createContainer(updatedContainer, configuration);
+        assertEquals(1, parsedContainer.getDataFiles().size());
+        assertEquals(1, parsedContainer.getSignatures().size());
+        assertEquals(signature.getId(), parsedContainer.getSignatures().get(0).getId());
+    }
+
+    private static ZipFile openZipFile(byte[] container) throws IOException {
+        return new ZipFile(new SeekableInMemoryByteChannel(container));
+    }
+
+    private static byte[] readRaw(ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+        try (InputStream inputStream = zipFile.getRawInputStream(entry)) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
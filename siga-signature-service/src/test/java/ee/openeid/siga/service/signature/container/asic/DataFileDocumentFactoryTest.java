@@ -0,0 +1,122 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.common.model.DataFile;
+import ee.openeid.siga.service.signature.configuration.DataFileStorageProperties;
+import ee.openeid.siga.service.signature.test.TestUtil;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
+import eu.europa.esig.dss.enumerations.MimeTypeEnum;
+import eu.europa.esig.dss.model.FileDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.ContainerBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class DataFileDocumentFactoryTest {
+    // Larger than a single decoded chunk and not a multiple of 3, so that the last chunk is padded
+    private static final int LARGE_CONTENT_SIZE = 200 * 1024 + 1;
+
+    @TempDir
+    private Path temporaryDirectory;
+
+    @Test
+    void dataFileBelowThresholdKeptInMemory() {
+        DataFileDocumentFactory dataFileDocumentFactory = createDataFileDocumentFactory(DataSize.ofMegabytes(1));
+
+        try (DataFileDocumentFactory.DataFiles dataFiles = dataFileDocumentFactory.open()) {
+            org.digidoc4j.DataFile dataFile = dataFiles.create(createDataFile("test.txt", "content".getBytes()));
+
+            assertInstanceOf(InMemoryDocument.class, dataFile.getDocument());
+            assertEquals("test.txt", dataFile.getName());
+            assertEquals(MimeTypeEnum.TEXT.getMimeTypeString(), dataFile.getMediaType());
+            assertArrayEquals("content".getBytes(), dataFile.getBytes());
+        }
+    }
+
+    @Test
+    void dataFileAboveThresholdDecodedToTemporaryFile() throws IOException {
+        DataFileDocumentFactory dataFileDocumentFactory = createDataFileDocumentFactory(DataSize.ofKilobytes(1));
+        byte[] content = createContent();
+
+        try (DataFileDocumentFactory.DataFiles dataFiles = dataFileDocumentFactory.open()) {
+            org.digidoc4j.DataFile dataFile = dataFiles.create(createDataFile("test.pdf", content));
+
+            FileDocument document = assertInstanceOf(FileDocument.class, dataFile.getDocument());
+            assertEquals(temporaryDirectory, document.getFile().toPath().getParent());
+            assertEquals("test.pdf", dataFile.getName());
+            assertEquals(MimeTypeEnum.PDF.getMimeTypeString(), dataFile.getMediaType());
+            assertArrayEquals(content, Files.readAllBytes(document.getFile().toPath()));
+        }
+    }
+
+    @Test
+    void temporaryFilesDeletedWhenClosed() throws IOException {
+        DataFileDocumentFactory dataFileDocumentFactory = createDataFileDocumentFactory(DataSize.ofBytes(0));
+        DataFileDocumentFactory.DataFiles dataFiles = dataFileDocumentFactory.open();
+        dataFiles.create(createDataFile("test1.txt", "content1".getBytes()));
+        dataFiles.create(createDataFile("test2.txt", "content2".getBytes()));
+        try (var files = Files.list(temporaryDirectory)) {
+            assertEquals(2, files.count());
+        }
+
+        dataFiles.close();
+
+        try (var files = Files.list(temporaryDirectory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    void containerWithFileBackedDataFileSavedBeforeClosing() throws IOException {
+        Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+        DataFileDocumentFactory dataFileDocumentFactory = createDataFileDocumentFactory(DataSize.ofBytes(0));
+        byte[] content = createContent();
+        byte[] containerBytes;
+
+        try (DataFileDocumentFactory.DataFiles dataFiles = dataFileDocumentFactory.open()) {
+            Container container = ContainerBuilder.aContainer()
+                    .withConfiguration(configuration)
+                    .withDataFile(dataFiles.create(createDataFile("test.bin", content)))
+                    .build();
+            containerBytes = TestUtil.getBytesFromContainer(container);
+        }
+
+        Container container = ContainerUtil.createContainer(containerBytes, configuration);
+        assertEquals(1, container.getDataFiles().size());
+        assertEquals("test.bin", container.getDataFiles().get(0).getName());
+        assertArrayEquals(content, container.getDataFiles().get(0).getBytes());
+    }
+
+    private DataFileDocumentFactory createDataFileDocumentFactory(DataSize fileThreshold) {
+        DataFileStorageProperties dataFileStorageProperties = new DataFileStorageProperties();
+        dataFileStorageProperties.setFileThreshold(fileThreshold);
+        dataFileStorageProperties.setTemporaryDirectory(temporaryDirectory);
+        return new DataFileDocumentFactory(dataFileStorageProperties);
+    }
+
+    private static DataFile createDataFile(String fileName, byte[] content) {
+        DataFile dataFile = new DataFile();
+        dataFile.setFileName(fileName);
+        dataFile.setContent(Base64.getEncoder().encodeToString(content));
+        return dataFile;
+    }
+
+    private static byte[] createContent() {
+        byte[] content = new byte[LARGE_CONTENT_SIZE];
+        new Random(1).nextBytes(content);
+        return content;
+    }
+}
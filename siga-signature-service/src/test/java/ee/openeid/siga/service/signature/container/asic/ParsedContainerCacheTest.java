@@ -0,0 +1,121 @@
+package ee.openeid.siga.service.signature.container.asic;
+
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.service.signature.configuration.ContainerCacheProperties;
+import ee.openeid.siga.service.signature.test.TestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+
+import static ee.openeid.siga.service.signature.test.RequestUtil.CLIENT_NAME;
+import static ee.openeid.siga.service.signature.test.RequestUtil.CONTAINER_SESSION_ID;
+import static ee.openeid.siga.service.signature.test.RequestUtil.SERVICE_NAME;
+import static ee.openeid.siga.service.signature.test.RequestUtil.SERVICE_UUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ParsedContainerCacheTest {
+    private final Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+    private ContainerCacheProperties containerCacheProperties;
+    private AsicContainerSession session;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        containerCacheProperties = new ContainerCacheProperties();
+        session = AsicContainerSession.builder()
+                .containerName("test.asice")
+                .clientName(CLIENT_NAME)
+                .serviceName(SERVICE_NAME)
+                .serviceUuid(SERVICE_UUID)
+                .sessionId(CONTAINER_SESSION_ID)
+                .container(createContainer("test.txt"))
+                .build();
+    }
+
+    @Test
+    void unchangedContainerParsedOnce() {
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+
+        Container container = parsedContainerCache.get(session);
+
+        assertSame(container, parsedContainerCache.get(session));
+        assertEquals(1, container.getDataFiles().size());
+        assertEquals(1, parsedContainerCache.getHitCount());
+        assertEquals(1, parsedContainerCache.getMissCount());
+    }
+
+    @Test
+    void changedContainerParsedAgain() throws IOException {
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+        Container container = parsedContainerCache.get(session);
+
+        session.setContainer(createContainer("test2.txt"));
+
+        assertNotSame(container, parsedContainerCache.get(session));
+        assertEquals(0, parsedContainerCache.getHitCount());
+        assertEquals(2, parsedContainerCache.getMissCount());
+    }
+
+    @Test
+    void invalidatedContainerParsedAgain() {
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+        Container container = parsedContainerCache.get(session);
+
+        parsedContainerCache.invalidate(session.getSessionId());
+
+        assertNotSame(container, parsedContainerCache.get(session));
+    }
+
+    @Test
+    void containerOverMaxWeightEvicted() {
+        containerCacheProperties.setMaxWeight(DataSize.ofBytes(session.getContainer().length - 1L));
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+
+        Container container = parsedContainerCache.get(session);
+
+        assertNotSame(container, parsedContainerCache.get(session));
+        assertEquals(2, parsedContainerCache.getEvictionCount());
+    }
+
+    @Test
+    void zeroMaxWeightDisablesCache() {
+        containerCacheProperties.setMaxWeight(DataSize.ofBytes(0));
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+
+        Container container = parsedContainerCache.get(session);
+
+        assertNotSame(container, parsedContainerCache.get(session));
+        assertEquals(0, parsedContainerCache.getMissCount());
+    }
+
+    @Test
+    void metricsRegistered() {
+        ParsedContainerCache parsedContainerCache = new ParsedContainerCache(configuration, containerCacheProperties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        parsedContainerCache.bindTo(registry);
+
+        parsedContainerCache.get(session);
+        parsedContainerCache.get(session);
+
+        assertEquals(1, registry.get(ParsedContainerCache.REQUESTS_METRIC_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get(ParsedContainerCache.REQUESTS_METRIC_NAME).tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get(ParsedContainerCache.SIZE_METRIC_NAME).gauge().value());
+        assertEquals(0, registry.get(ParsedContainerCache.EVICTIONS_METRIC_NAME).functionCounter().count());
+    }
+
+    private byte[] createContainer(String dataFileName) throws IOException {
+        Container container = ContainerBuilder.aContainer()
+                .withConfiguration(configuration)
+                .withDataFile(new DataFile("content".getBytes(), dataFileName, "text/plain"))
+                .build();
+        return TestUtil.getBytesFromContainer(container);
+    }
+}
@@ -8,9 +8,12 @@ import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.Signature;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.service.signature.test.TestUtil;
+import ee.openeid.siga.session.InMemorySessionStore;
 import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
 import eu.europa.esig.dss.enumerations.MimeType;
 import eu.europa.esig.dss.enumerations.MimeTypeEnum;
 import org.apache.commons.lang3.StringUtils;
@@ -29,8 +32,15 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -66,6 +76,12 @@ class HashcodeContainerServiceTest {
         SecurityContextHolder.setContext(securityContext);
         Mockito.lenient().doReturn(CONTAINER_ID).when(containerService).generateContainerId();
         Mockito.lenient().when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.lenient().doAnswer(invocation -> {
+            Session session = invocation.getArgument(0);
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            sessionService.update(session);
+            return null;
+        }).when(sessionService).update(any(Session.class), any());
     }
 
     @Test
@@ -104,14 +120,14 @@ class HashcodeContainerServiceTest {
 
     @Test
     void successfulGetContainer() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
         String container = containerService.getContainer(CONTAINER_ID);
         assertFalse(StringUtils.isBlank(container));
     }
 
     @Test
     void successfulGetDataFiles() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
         List<HashcodeDataFile> dataFiles = containerService.getDataFiles(CONTAINER_ID);
         assertEquals("test.txt", dataFiles.get(0).getFileName());
         assertEquals(Integer.valueOf(10), dataFiles.get(0).getFileSize());
@@ -121,7 +137,7 @@ class HashcodeContainerServiceTest {
 
     @Test
     void successfulGetSignatures() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
         List<Signature> signatures = containerService.getSignatures(CONTAINER_ID);
         assertEquals("id-a9fae00496ae203a6a8b92adbe762bd3", signatures.get(0).getId());
         assertEquals("LT", signatures.get(0).getSignatureProfile());
@@ -132,14 +148,14 @@ class HashcodeContainerServiceTest {
     @Test
     void successfulGetSignature() throws IOException, URISyntaxException {
         HashcodeContainerSession session = createHashcodeSessionHolder();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
         org.digidoc4j.Signature signature = containerService.getSignature(CONTAINER_ID, session.getSignatures().get(0).getGeneratedSignatureId());
         assertEquals("id-a9fae00496ae203a6a8b92adbe762bd3", signature.getId());
     }
 
     @Test
     void addDataFileButSignatureExists() throws IOException, URISyntaxException {
-        Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> containerService.addDataFiles(CONTAINER_ID, createHashcodeDataFileListWithOneFile())
@@ -152,7 +168,7 @@ class HashcodeContainerServiceTest {
         HashcodeContainerSession session = createHashcodeSessionHolder();
 
         session.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         Result result = containerService.addDataFiles(CONTAINER_ID, createHashcodeDataFileListWithOneFile("test1.txt"));
         assertEquals(Result.OK, result);
@@ -163,7 +179,7 @@ class HashcodeContainerServiceTest {
         HashcodeContainerSession session = createHashcodeSessionHolder();
 
         session.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         Result result = containerService.removeDataFile(CONTAINER_ID, "test.txt");
         assertEquals(Result.OK, result);
@@ -173,7 +189,7 @@ class HashcodeContainerServiceTest {
     void removeDataFileNoDataFile() throws IOException, URISyntaxException {
         HashcodeContainerSession session = createHashcodeSessionHolder();
         session.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         ResourceNotFoundException caughtException = assertThrows(
             ResourceNotFoundException.class, () -> containerService.removeDataFile(CONTAINER_ID, "test.xml")
@@ -221,7 +237,7 @@ class HashcodeContainerServiceTest {
     void addDuplicateDataFileThrows() throws IOException, URISyntaxException {
         HashcodeContainerSession session = createHashcodeSessionHolder();
         session.getSignatures().clear();
-        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getContainer(any(), any())).thenReturn(session);
 
         DuplicateDataFileException caughtException = assertThrows(
             DuplicateDataFileException.class, () -> containerService.addDataFiles(CONTAINER_ID, createHashcodeDataFileListWithOneFile())
@@ -229,6 +245,46 @@ class HashcodeContainerServiceTest {
         assertEquals("Duplicate data files not allowed: test.txt", caughtException.getMessage());
     }
 
+    @Test
+    void concurrentDataFileAdditionsToSameContainerBothStored() throws Exception {
+        SessionConfigurationProperties sessionConfigurationProperties = new SessionConfigurationProperties();
+        InMemorySessionStore sessionStore = Mockito.spy(new InMemorySessionStore(sessionConfigurationProperties,
+                sessionId -> {}, (cacheName, sessionId, entryId, sessionStatus) -> {}));
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        AtomicInteger reads = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            Object session = invocation.callRealMethod();
+            if (reads.incrementAndGet() <= 2) {
+                bothRead.await(10, TimeUnit.SECONDS);
+            }
+            return session;
+        }).when(sessionStore).findSession(any(), any());
+        HashcodeContainerService service = new HashcodeContainerService(
+                new SessionService(sessionStore, sessionConfigurationProperties), configuration);
+        String containerId = service.createContainer(createHashcodeDataFileListWithOneFile("test.txt"));
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Future<Result>> additions = Stream.of("test1.txt", "test2.txt")
+                    .map(fileName -> executor.submit(() -> {
+                        SecurityContextHolder.setContext(securityContext);
+                        return service.addDataFiles(containerId, createHashcodeDataFileListWithOneFile(fileName));
+                    }))
+                    .toList();
+            for (Future<Result> addition : additions) {
+                assertEquals(Result.OK, addition.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(List.of("test.txt", "test1.txt", "test2.txt"), service.getDataFiles(containerId).stream()
+                .map(HashcodeDataFile::getFileName)
+                .sorted()
+                .toList());
+    }
+
     private void verifySessionServiceUpdateCalled(String expectedContainerId, Consumer<HashcodeContainerSession> sessionValidator) {
         ArgumentCaptor<HashcodeContainerSession> sessionCaptor = ArgumentCaptor.forClass(HashcodeContainerSession.class);
         Mockito.verify(sessionService, Mockito.times(1)).update(sessionCaptor.capture());
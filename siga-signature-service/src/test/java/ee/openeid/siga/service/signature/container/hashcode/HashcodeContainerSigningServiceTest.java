@@ -9,25 +9,35 @@ import ee.openeid.siga.common.model.MobileIdInformation;
 import ee.openeid.siga.common.model.SigningType;
 import ee.openeid.siga.common.model.SmartIdInformation;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.callback.SigningCallbackNotifier;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.container.ContainerSigningServiceTest;
+import ee.openeid.siga.service.signature.container.StatusPollingExecutor;
+import ee.openeid.siga.service.signature.container.StatusPollingMetrics;
+import ee.openeid.siga.service.signature.container.StatusPollingScheduler;
 import ee.openeid.siga.service.signature.container.MobileIdSigningDelegate;
 import ee.openeid.siga.service.signature.container.SmartIdSigningDelegate;
 import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.session.CacheName;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionResultNotifier;
+import ee.openeid.siga.session.SessionStore;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.SignatureParameters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -36,19 +46,26 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
+    private static final String SIGNATURE_ID = "signature1";
     private static final String EXPECTED_DATATOSIGN_PREFIX = "<ds:SignedInfo xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\"><ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"></ds:CanonicalizationMethod><ds:SignatureMethod Algorithm=\"http://www.w3.org/2001/04/xmldsig-more#ecdsa-sha512\"></ds:SignatureMethod><ds:Reference";
 
     @Spy
@@ -63,18 +80,27 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     private Authentication authentication;
     @Mock
     private SecurityContext securityContext;
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
     @Spy
-    private ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private StatusPollingExecutor statusPollingExecutor = new StatusPollingExecutor(taskExecutor, new StatusPollingProperties());
+    @Spy
+    private StatusPollingScheduler statusPollingScheduler = new StatusPollingScheduler(statusPollingExecutor, new StatusPollingProperties(), new StatusPollingMetrics());
+    @Spy
+    private StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+    @Mock
+    private SigningCallbackNotifier signingCallbackNotifier;
     @Mock
-    private Ignite ignite;
+    private SessionStore sessionStore;
     @Mock
-    private IgniteSemaphore igniteSemaphore;
+    private SessionLock sessionLock;
     @Mock
     private MobileIdClientConfigurationProperties mobileIdConfigurationProperties;
     @Mock
     private SmartIdClientConfigurationProperties smartIdConfigurationProperties;
-    @Mock
-    private SessionStatusReprocessingProperties reprocessingProperties;
+    @Spy
+    private SessionStatusReprocessingProperties reprocessingProperties = new SessionStatusReprocessingProperties();
+    @Spy
+    private SessionResultNotifier sessionResultNotifier = new SessionResultNotifier();
 
     @BeforeEach
     void setUp() throws IOException, URISyntaxException {
@@ -85,11 +111,10 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         Mockito.lenient().when(signingService.getSmartIdSigningDelegate()).thenReturn(smartIdSigningDelegate);
         Mockito.lenient().when(sigaEventLogger.logStartEvent(any())).thenReturn(SigaEvent.builder().timestamp(0L).build());
         Mockito.lenient().when(sigaEventLogger.logEndEventFor(any())).thenReturn(SigaEvent.builder().timestamp(0L).build());
-        Mockito.lenient().when(sessionService.getContainer(CONTAINER_ID)).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.lenient().when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
         taskExecutor.initialize();
-        Mockito.lenient().when(igniteSemaphore.tryAcquire()).thenReturn(true);
-        Mockito.lenient().when(igniteSemaphore.tryAcquire(anyLong(), any())).thenReturn(true);
-        Mockito.lenient().when(ignite.semaphore(anyString(),anyInt(),anyBoolean(), anyBoolean())).thenReturn(igniteSemaphore);
+        Mockito.lenient().when(sessionStore.tryLock(anyString())).thenReturn(Optional.of(sessionLock));
+        Mockito.lenient().when(sessionLock.renew()).thenReturn(true);
     }
 
     @Test
@@ -109,7 +134,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     void noDataFilesInSession() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.getDataFiles().clear();
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate()))
@@ -121,7 +146,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     void emptyDataFilesInSession() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.getDataFiles().add(RequestUtil.createHashcodeDataFileFrom("empty.file", "application/octet-stream"));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate()))
@@ -183,7 +208,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     void emptyDataFilesInSessionStartMobileSigning() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.getDataFiles().add(RequestUtil.createHashcodeDataFileFrom("empty.file", "application/octet-stream"));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.startMobileIdSigning(CONTAINER_ID, Mockito.mock(MobileIdInformation.class),
@@ -202,6 +227,21 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertSuccessfulCertificateChoiceProcessing();
     }
 
+    @Test
+    void backgroundFinalizationAddsSignatureToContainer() {
+        assertBackgroundFinalizationAddsSignatureToContainer();
+    }
+
+    @Test
+    void failedBackgroundFinalizationLeftForStatusRequest() {
+        assertFailedBackgroundFinalizationLeftForStatusRequest();
+    }
+
+    @Test
+    void backgroundFinalizationDisabledByDefault() {
+        assertBackgroundFinalizationDisabledByDefault();
+    }
+
     @Test
     void successfulSmartIdSigningWithSessionCert() throws IOException, URISyntaxException {
         assertSuccessfulSmartIdSigningWithSessionCert();
@@ -221,7 +261,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     void emptyDataFilesInSessionInitSmartIdSigning() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.getDataFiles().add(RequestUtil.createHashcodeDataFileFrom("empty.file", "application/octet-stream"));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.initSmartIdCertificateChoice(CONTAINER_ID, Mockito.mock(SmartIdInformation.class))
@@ -233,7 +273,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     void emptyDataFilesInSessionStartSmartIdSigning() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.getDataFiles().add(RequestUtil.createHashcodeDataFileFrom("empty.file", "application/octet-stream"));
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
 
         InvalidSessionDataException caughtException = assertThrows(
             InvalidSessionDataException.class, () -> signingService.startSmartIdSigning(CONTAINER_ID, Mockito.mock(SmartIdInformation.class),
@@ -271,6 +311,71 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertFinalizeSignatureWithContainerDataFilesChangedClearsDataToSign();
     }
 
+    @Test
+    void awaitSignatureStatusCompletedOnResult() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        session.addSignatureSession(SIGNATURE_ID, SignatureSession.builder().signingType(SigningType.MOBILE_ID).build());
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+
+        CompletableFuture<Void> result = signingService.awaitSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
+        assertFalse(result.isDone());
+
+        SessionStatus sessionStatus = SessionStatus.builder().processingStatus(ProcessingStatus.RESULT).build();
+        sessionResultNotifier.onResult(CacheName.SIGNATURE_SESSION, CONTAINER_SESSION_ID, SIGNATURE_ID, sessionStatus);
+        assertTrue(result.isDone());
+        assertEquals(0, sessionResultNotifier.getAwaitedSessionCount());
+    }
+
+    @Test
+    void mobileIdSignatureStatusNotPolledWhenLockLeaseExpired() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        session.addSignatureSession(SIGNATURE_ID, SignatureSession.builder()
+                .signingType(SigningType.MOBILE_ID)
+                .sessionCode("2342384932")
+                .dataFilesHash("dataFilesHash")
+                .build());
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
+        Mockito.when(mobileIdApiClient.awaitSignatureCompletion(any(), any())).thenReturn(Mono.empty());
+        Mockito.when(sessionLock.renew()).thenReturn(false);
+
+        signingService.pollMobileIdSignatureStatus(CONTAINER_SESSION_ID, SIGNATURE_ID, Duration.ZERO);
+
+        Mockito.verify(sessionLock, Mockito.timeout(5000)).close();
+        Mockito.verify(mobileIdApiClient, Mockito.never()).getSignatureStatus(any(), any());
+    }
+
+    @Test
+    void mobileIdSigningCallbackSentWhenStatusPollingFails() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        session.addSignatureSession(SIGNATURE_ID, SignatureSession.builder()
+                .signingType(SigningType.MOBILE_ID)
+                .sessionCode("2342384932")
+                .dataFilesHash("dataFilesHash")
+                .build());
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
+        Mockito.when(mobileIdApiClient.awaitSignatureCompletion(any(), any())).thenReturn(Mono.empty());
+        Mockito.when(mobileIdApiClient.getSignatureStatus(any(), any())).thenThrow(new IllegalStateException("Status not available"));
+
+        signingService.pollMobileIdSignatureStatus(CONTAINER_SESSION_ID, SIGNATURE_ID, Duration.ZERO);
+
+        ArgumentCaptor<SignatureSession> signatureSession = ArgumentCaptor.forClass(SignatureSession.class);
+        Mockito.verify(signingCallbackNotifier, Mockito.timeout(5000))
+                .notifySigningCompleted(eq(CONTAINER_SESSION_ID), eq(SIGNATURE_ID), signatureSession.capture());
+        assertEquals(ProcessingStatus.EXCEPTION, signatureSession.getValue().getSessionStatus().getProcessingStatus());
+        assertEquals("Status not available", signatureSession.getValue().getSessionStatus().getStatusError().getErrorMessage());
+    }
+
+    @Test
+    void awaitCertificateStatusCompletedWhenCertificateSessionMissing() {
+        Mockito.when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+
+        CompletableFuture<Void> result = signingService.awaitCertificateStatus(CONTAINER_ID, "certificate1");
+
+        assertTrue(result.isDone());
+        assertEquals(0, sessionResultNotifier.getAwaitedSessionCount());
+    }
+
     @Override
     protected ContainerSigningService getSigningService() {
         return signingService;
@@ -286,11 +391,12 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
         sessionHolder.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.REMOTE)
                         .dataFilesHash(signingService.generateDataFilesHash(sessionHolder))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(sessionHolder);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(sessionHolder);
     }
 
     @Override
@@ -299,13 +405,14 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         session.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
                         .relyingPartyInfo(MobileIdSigningDelegate.getRelyingPartyInfo())
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.MOBILE_ID)
                         .sessionCode("2342384932")
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         return session;
     }
 
@@ -315,13 +422,14 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         session.addSignatureSession(dataToSign.getSignatureParameters().getSignatureId(),
                 SignatureSession.builder()
                         .relyingPartyInfo(SmartIdSigningDelegate.getRelyingPartyInfo())
-                        .dataToSign(dataToSign)
+                        .dataToSign(dataToSign.getDataToSign())
+                        .signatureParameters(dataToSign.getSignatureParameters())
                         .signingType(SigningType.SMART_ID)
                         .sessionCode("2342384932")
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
-        Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
+        Mockito.when(sessionService.getContainer(eq(CONTAINER_ID), any())).thenReturn(session);
+        Mockito.when(sessionService.getContainerBySessionId(eq(CONTAINER_SESSION_ID), any())).thenReturn(session);
         return session;
     }
 
@@ -46,7 +46,7 @@ class HashcodeContainerValidationServiceTest {
         ValidationConclusion validationConclusion = RequestUtil.createValidationResponse().getValidationReport().getValidationConclusion();
         Mockito.lenient().when(sivaClient.validateContainer(any(), any())).thenReturn(validationConclusion);
         Mockito.lenient().when(sivaClient.validateHashcodeContainer(any(), any())).thenReturn(hashcodeValidationConclusion);
-        Mockito.lenient().when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
+        Mockito.lenient().when(sessionService.getContainer(any(), any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
     }
 
     @Test
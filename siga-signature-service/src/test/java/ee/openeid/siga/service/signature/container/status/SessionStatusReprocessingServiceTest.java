@@ -420,7 +420,7 @@ public class SessionStatusReprocessingServiceTest {
     private void mockSuccessfulMidSignatureStatusResponse(String containerSessionId, SigningChallenge signingChallenge) {
         Session containerSession = sessionService.getContainerBySessionId(containerSessionId);
         SignatureSession signatureSession = containerSession.getSignatureSession(signingChallenge.getGeneratedSignatureId());
-        byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, signatureSession.getDataToSign().getDataToSign());
+        byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, signatureSession.getDataToSign());
         String responseBody = "{" +
                 " \"state\": \"COMPLETE\"," +
                 " \"result\": \"OK\"," +
@@ -442,7 +442,7 @@ public class SessionStatusReprocessingServiceTest {
     private void mockSuccessfulSidSignatureStatusResponse(String containerSessionId, SigningChallenge signingChallenge) {
         Session containerSession = sessionService.getContainerBySessionId(containerSessionId);
         SignatureSession signatureSession = containerSession.getSignatureSession(signingChallenge.getGeneratedSignatureId());
-        byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, signatureSession.getDataToSign().getDataToSign());
+        byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, signatureSession.getDataToSign());
         String responseBody = "{\n" +
                 "    \"state\": \"COMPLETE\",\n" +
                 "    \"result\": {\n" +
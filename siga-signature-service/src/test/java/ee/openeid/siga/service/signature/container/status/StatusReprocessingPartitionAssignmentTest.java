@@ -0,0 +1,55 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
+import ee.openeid.siga.session.SessionStatusPartitions;
+import ee.openeid.siga.session.SessionStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatusReprocessingPartitionAssignmentTest {
+
+    @Test
+    void assignPartitions_WhenSingleNode_AllPartitionsAssigned() {
+        SessionStore sessionStore = mock(SessionStore.class);
+        when(sessionStore.renewReprocessingLease(anyString(), any()))
+                .thenAnswer(invocation -> Set.of(invocation.<String>getArgument(0)));
+        StatusReprocessingPartitionAssignment partitionAssignment = new StatusReprocessingPartitionAssignment(
+                sessionStore, new SessionStatusReprocessingProperties(), new StatusReprocessingMetrics());
+
+        assertEquals(SessionStatusPartitions.ALL, partitionAssignment.assignPartitions());
+        verify(sessionStore).renewReprocessingLease(anyString(), any());
+    }
+
+    @Test
+    void getOwner_WhenNodeJoins_OnlyPartitionsTakenByJoiningNodeReassigned() {
+        Set<String> nodeIds = Set.of("node-1", "node-2", "node-3");
+        Set<String> nodeIdsAfterJoin = Set.of("node-1", "node-2", "node-3", "node-4");
+
+        for (int partition : SessionStatusPartitions.ALL) {
+            String owner = StatusReprocessingPartitionAssignment.getOwner(partition, nodeIds);
+            String ownerAfterJoin = StatusReprocessingPartitionAssignment.getOwner(partition, nodeIdsAfterJoin);
+            assertTrue(nodeIds.contains(owner));
+            assertTrue(ownerAfterJoin.equals(owner) || ownerAfterJoin.equals("node-4"));
+        }
+    }
+
+    @Test
+    void getOwner_WhenMultipleNodes_PartitionsSpreadBetweenNodes() {
+        Set<String> nodeIds = Set.of("node-1", "node-2");
+
+        long node1Partitions = SessionStatusPartitions.ALL.stream()
+                .filter(partition -> "node-1".equals(StatusReprocessingPartitionAssignment.getOwner(partition, nodeIds)))
+                .count();
+
+        assertTrue(node1Partitions > 0 && node1Partitions < SessionStatusPartitions.COUNT);
+    }
+}
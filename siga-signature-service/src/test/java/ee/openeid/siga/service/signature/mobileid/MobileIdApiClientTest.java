@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import ee.openeid.siga.common.exception.ClientException;
 import ee.openeid.siga.common.exception.MobileIdApiException;
 import ee.openeid.siga.common.model.MobileIdInformation;
@@ -36,6 +37,7 @@ import java.time.Duration;
 import java.util.Base64;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -133,10 +135,9 @@ class MobileIdApiClientTest {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubCertificateRequestErrorResponse(status.value());
             try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
                 mobileIdApiClient.getCertificate(createRPInfo(), createDefaultMobileIdInformation());
                 fail("Should not reach here");
-            } catch (ClientException | IOException e) {
+            } catch (ClientException e) {
                 assertEquals("Mobile-ID service error", e.getMessage());
             }
             WireMock.reset();
@@ -157,10 +158,9 @@ class MobileIdApiClientTest {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubSigningInitiationErrorResponse(status.value());
             try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
                 mobileIdApiClient.initMobileSigning(createRPInfo(), mockDataToSign(DEFAULT_MOCK_DATA_TO_SIGN), createDefaultMobileIdInformation());
                 fail("Should not reach here");
-            } catch (ClientException | IOException e) {
+            } catch (ClientException e) {
                 assertEquals("Mobile-ID service error", e.getMessage());
             }
             WireMock.reset();
@@ -303,16 +303,68 @@ class MobileIdApiClientTest {
     void getStatus_midRestReturns5XX() {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubGetStatusErrorResponse(status.value());
-            try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
-            } catch (IOException e) {
-                throw new IllegalArgumentException(e);
-            }
             assertThrows(ServerErrorException.class, () -> mobileIdApiClient.getSignatureStatus(createRPInfo(), DEFAULT_MOCK_SESSION_CODE));
             WireMock.reset();
         });
     }
 
+    @Test
+    void clientAndTruststoreReusedBetweenRequests() {
+        stubCertificateRequestOkResponse("{\"result\": \"NOT_FOUND\"}");
+        stubGetStatusOkResponse("{\"state\": \"COMPLETE\", \"result\": \"USER_CANCELLED\"}");
+
+        assertThrows(MobileIdApiException.class, () -> mobileIdApiClient.getCertificate(createRPInfo(), createDefaultMobileIdInformation()));
+        mobileIdApiClient.getSignatureStatus(createRPInfo(), DEFAULT_MOCK_SESSION_CODE);
+        mobileIdApiClient.getSignatureStatus(createRPInfo(), DEFAULT_MOCK_SESSION_CODE);
+
+        Mockito.verify(resourceLoader, Mockito.times(1)).getResource(Mockito.anyString());
+    }
+
+    @Test
+    void awaitSignatureCompletion_completesWhenSessionIsNoLongerRunning() {
+        Mockito.when(configurationProperties.getConnectTimeout()).thenReturn(Duration.ofSeconds(5));
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE))
+                .withQueryParam("timeoutMs", WireMock.equalTo("30000"))
+                .inScenario("Long-poll").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(WireMock.okJson("{\"state\": \"RUNNING\"}"))
+                .willSetStateTo("Complete"));
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE))
+                .withQueryParam("timeoutMs", WireMock.equalTo("30000"))
+                .inScenario("Long-poll").whenScenarioStateIs("Complete")
+                .willReturn(WireMock.okJson("{\"state\": \"COMPLETE\", \"result\": \"OK\"}")));
+
+        AtomicInteger renewals = new AtomicInteger();
+
+        mobileIdApiClient.awaitSignatureCompletion(DEFAULT_MOCK_SESSION_CODE, () -> renewals.incrementAndGet() > 0)
+                .block(Duration.ofSeconds(10));
+
+        WireMock.verify(2, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE)));
+        assertEquals(2, renewals.get());
+    }
+
+    @Test
+    void awaitSignatureCompletion_stopsWhenNotAllowedToPollAgain() {
+        Mockito.when(configurationProperties.getConnectTimeout()).thenReturn(Duration.ofSeconds(5));
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE))
+                .willReturn(WireMock.okJson("{\"state\": \"RUNNING\"}")));
+        AtomicInteger polls = new AtomicInteger();
+
+        mobileIdApiClient.awaitSignatureCompletion(DEFAULT_MOCK_SESSION_CODE, () -> polls.incrementAndGet() < 2)
+                .block(Duration.ofSeconds(10));
+
+        WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE)));
+    }
+
+    @Test
+    void awaitSignatureCompletion_completesWhenMidRestReturnsError() {
+        Mockito.when(configurationProperties.getConnectTimeout()).thenReturn(Duration.ofSeconds(5));
+        stubGetStatusErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR.value());
+
+        mobileIdApiClient.awaitSignatureCompletion(DEFAULT_MOCK_SESSION_CODE, () -> true).block(Duration.ofSeconds(10));
+
+        WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/signature/session/" + DEFAULT_MOCK_SESSION_CODE)));
+    }
+
     private MobileIdInformation createDefaultMobileIdInformation() {
         return MobileIdInformation.builder()
                 .personIdentifier(DEFAULT_MOCK_NATIONAL_IDENTITY_NUMBER)
@@ -0,0 +1,150 @@
+package ee.openeid.siga.service.signature.session;
+
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.SignatureSession;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.internal.binary.BinaryObjectImpl;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.DataToSign;
+import org.digidoc4j.DetachedXadesSignatureBuilder;
+import org.digidoc4j.DigestAlgorithm;
+import org.digidoc4j.DigestDataFile;
+import org.digidoc4j.SignatureFinalizerBuilder;
+import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.SignatureProfile;
+import org.digidoc4j.signers.PKCS12SignatureToken;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class SignatureSessionEncodingTest {
+    private static final int ITERATIONS = 200;
+    private static final PKCS12SignatureToken SIGNATURE_TOKEN = new PKCS12SignatureToken("src/test/resources/p12/sign_ECC_from_TEST_of_ESTEID2018.p12", "1234".toCharArray());
+    private static Ignite ignite;
+
+    private final Configuration configuration = Configuration.of(Configuration.Mode.TEST);
+    private List<DataFile> dataFiles;
+    private DataToSign dataToSign;
+
+    @BeforeAll
+    static void startIgnite() {
+        TcpDiscoveryVmIpFinder ipFinder = new TcpDiscoveryVmIpFinder();
+        ipFinder.setAddresses(List.of("127.0.0.1:47600..47609"));
+        ignite = Ignition.start(new IgniteConfiguration()
+                .setIgniteInstanceName("siga-signature-session-encoding")
+                .setDiscoverySpi(new TcpDiscoverySpi().setLocalPort(47600).setIpFinder(ipFinder)));
+    }
+
+    @AfterAll
+    static void stopIgnite() {
+        ignite.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        dataFiles = List.of(new DigestDataFile("test.txt", DigestAlgorithm.SHA512, DigestUtils.sha512("test"), "text/plain"));
+        dataToSign = DetachedXadesSignatureBuilder.withConfiguration(configuration)
+                .withDataFile(dataFiles.get(0))
+                .withSigningCertificate(SIGNATURE_TOKEN.getCertificate())
+                .withSignatureProfile(SignatureProfile.LT)
+                .withSignatureDigestAlgorithm(DigestAlgorithm.SHA512)
+                .withDataFileDigestAlgorithm(DigestAlgorithm.SHA512)
+                .withCity("Tallinn")
+                .withCountry("Estonia")
+                .withRoles("Manager")
+                .buildDataToSign();
+    }
+
+    @Test
+    void decodedSignatureSessionRebuildsSameDataToSign() {
+        BinaryObject binarySession = ignite.binary().toBinary(createSignatureSession());
+        SignatureSession decodedSession = binarySession.deserialize();
+
+        assertArrayEquals(dataToSign.getDataToSign(), decodedSession.getDataToSign());
+        SignatureParameters decodedParameters = decodedSession.getSignatureParameters();
+        assertEquals(dataToSign.getSignatureParameters().getSignatureId(), decodedParameters.getSignatureId());
+        assertEquals(dataToSign.getSignatureParameters().getClaimedSigningDate(), decodedParameters.getClaimedSigningDate());
+        assertEquals(List.of("Manager"), decodedParameters.getRoles());
+        byte[] rebuiltDataToSign = SignatureFinalizerBuilder
+                .aFinalizer(dataFiles, decodedParameters, configuration, Container.DocumentType.ASICE)
+                .getDataToBeSigned();
+        assertArrayEquals(dataToSign.getDataToSign(), rebuiltDataToSign);
+    }
+
+    @Test
+    void signatureSessionWithLegacySerializedDataToSignDecoded() {
+        BinaryObject legacySession = ignite.binary().builder(SignatureSession.class.getName())
+                .setField("dataToSignSerialized", SerializationUtils.serialize(dataToSign))
+                .setField("dataFilesHash", "hash")
+                .build();
+        SignatureSession decodedSession = legacySession.deserialize();
+
+        assertArrayEquals(dataToSign.getDataToSign(), decodedSession.getDataToSign());
+        assertEquals(dataToSign.getSignatureParameters().getSignatureId(), decodedSession.getSignatureParameters().getSignatureId());
+        assertEquals("hash", decodedSession.getDataFilesHash());
+        byte[] rebuiltDataToSign = SignatureFinalizerBuilder
+                .aFinalizer(dataFiles, decodedSession.getSignatureParameters(), configuration, Container.DocumentType.ASICE)
+                .getDataToBeSigned();
+        assertArrayEquals(dataToSign.getDataToSign(), rebuiltDataToSign);
+    }
+
+    @Test
+    void compactEncodingIsSmallerThanJavaSerialization() {
+        int serializedSize = SerializationUtils.serialize(dataToSign).length;
+        int encodedSessionSize = ((BinaryObjectImpl) ignite.binary().toBinary(createSignatureSession())).length();
+
+        log.info("Java serialized data to sign: {} bytes, compact encoded signature session: {} bytes",
+                serializedSize, encodedSessionSize);
+        assertTrue(encodedSessionSize < serializedSize);
+    }
+
+    @Test
+    void compareEncodingThroughput() {
+        SignatureSession signatureSession = createSignatureSession();
+
+        long serializationStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            DataToSign deserialized = SerializationUtils.deserialize(SerializationUtils.serialize(dataToSign));
+            assertEquals(dataToSign.getDataToSign().length, deserialized.getDataToSign().length);
+        }
+        long serializationNanos = System.nanoTime() - serializationStart;
+
+        long encodingStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            BinaryObject encoded = ignite.binary().toBinary(signatureSession);
+            SignatureSession decoded = encoded.deserialize();
+            assertEquals(dataToSign.getDataToSign().length, decoded.getDataToSign().length);
+        }
+        long encodingNanos = System.nanoTime() - encodingStart;
+
+        log.info("Round trips per second. Java serialized data to sign: {}, compact encoded signature session: {}",
+                ITERATIONS * 1_000_000_000L / serializationNanos, ITERATIONS * 1_000_000_000L / encodingNanos);
+    }
+
+    private SignatureSession createSignatureSession() {
+        return SignatureSession.builder()
+                .dataToSign(dataToSign.getDataToSign())
+                .signatureParameters(dataToSign.getSignatureParameters())
+                .signingType(SigningType.REMOTE)
+                .dataFilesHash("hash")
+                .build();
+    }
+}
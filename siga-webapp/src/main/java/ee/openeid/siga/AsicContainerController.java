@@ -9,6 +9,7 @@ import ee.openeid.siga.common.event.XPath;
 import ee.openeid.siga.common.model.ContainerInfo;
 import ee.openeid.siga.common.model.DataToSignWrapper;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.service.signature.container.asic.AsicContainerService;
 import ee.openeid.siga.service.signature.container.asic.AsicContainerSigningService;
 import ee.openeid.siga.service.signature.container.asic.AsicContainerValidationService;
@@ -40,7 +41,6 @@ import ee.openeid.siga.webapp.json.ValidationConclusion;
 import lombok.RequiredArgsConstructor;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.SignatureParameters;
-import org.digidoc4j.Timestamp;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -183,7 +183,7 @@ public class AsicContainerController {
     public GetContainerTimestampsResponse getTimestampList(@PathVariable(value = "containerId") String containerId) {
         validator.validateContainerId(containerId);
 
-        List<Timestamp> timestamps = containerService.getTimestamps(containerId);
+        List<AsicContainerMetadata.TimestampMetadata> timestamps = containerService.getTimestamps(containerId);
         GetContainerTimestampsResponse response = new GetContainerTimestampsResponse();
         response.getTimestamps().addAll(RequestTransformer.transformTimestampsForResponse(timestamps));
         return response;
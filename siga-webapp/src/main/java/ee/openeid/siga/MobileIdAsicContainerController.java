@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 
@@ -29,6 +30,7 @@ import java.util.List;
 public class MobileIdAsicContainerController {
     private final AsicContainerSigningService signingService;
     private final RequestValidator validator;
+    private final StatusLongPolling statusLongPolling;
 
     @SigaEventLog(eventName = SigaEventName.MOBILE_ID_SIGNING_INIT)
     @PostMapping(value = "/containers/{containerId}/mobileidsigning", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -65,6 +67,15 @@ public class MobileIdAsicContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.MOBILE_ID_SIGNING_STATUS)
+    @GetMapping(value = "/containers/{containerId}/mobileidsigning/{signatureId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetContainerMobileIdSigningStatusResponse> awaitMobileSigningStatus(@PathVariable(value = "containerId") String containerId, @PathVariable(value = "signatureId") String signatureId) {
+        validator.validateContainerId(containerId);
+        validator.validateSignatureId(signatureId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitSignatureStatus(containerId, signatureId),
+                () -> getMobileSigningStatus(containerId, signatureId));
+    }
+
     private MobileIdInformation getMobileIdInformation(CreateContainerMobileIdSigningRequest createMobileIdSigningRequest) {
         String language = createMobileIdSigningRequest.getLanguage();
         String messageToDisplay = createMobileIdSigningRequest.getMessageToDisplay();
@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 
@@ -28,6 +29,7 @@ import java.util.List;
 public class MobileIdHashcodeContainerController {
     private final HashcodeContainerSigningService signingService;
     private final RequestValidator validator;
+    private final StatusLongPolling statusLongPolling;
 
     @SigaEventLog(eventName = SigaEventName.HC_MOBILE_ID_SIGNING_INIT)
     @PostMapping(value = "/hashcodecontainers/{containerId}/mobileidsigning", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -65,6 +67,15 @@ public class MobileIdHashcodeContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.HC_MOBILE_ID_SIGNING_STATUS)
+    @GetMapping(value = "/hashcodecontainers/{containerId}/mobileidsigning/{signatureId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetHashcodeContainerMobileIdSigningStatusResponse> awaitMobileSigningStatus(@PathVariable(value = "containerId") String containerId, @PathVariable(value = "signatureId") String signatureId) {
+        validator.validateContainerId(containerId);
+        validator.validateSignatureId(signatureId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitSignatureStatus(containerId, signatureId),
+                () -> getMobileSigningStatus(containerId, signatureId));
+    }
+
     private MobileIdInformation getMobileIdInformation(CreateHashcodeContainerMobileIdSigningRequest createMobileIdSigningRequest) {
         String language = createMobileIdSigningRequest.getLanguage();
         String messageToDisplay = createMobileIdSigningRequest.getMessageToDisplay();
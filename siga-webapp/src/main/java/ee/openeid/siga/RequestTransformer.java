@@ -5,6 +5,7 @@ import ee.openeid.siga.common.model.DataFile;
 import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.MobileIdInformation;
 import ee.openeid.siga.common.model.SmartIdInformation;
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.common.util.CertificateUtil;
 import ee.openeid.siga.util.SupportedCertificateEncoding;
 import ee.openeid.siga.webapp.json.GetContainerSignatureDetailsResponse;
@@ -70,12 +71,12 @@ public class RequestTransformer {
         return signatures;
     }
 
-    static List<Timestamp> transformTimestampsForResponse(List<org.digidoc4j.Timestamp> requestTimestamps) {
+    static List<Timestamp> transformTimestampsForResponse(List<AsicContainerMetadata.TimestampMetadata> requestTimestamps) {
         List<Timestamp> timestamps = new ArrayList<>();
         requestTimestamps.forEach(
                 ts -> {
                     Timestamp timestamp = new Timestamp();
-                    timestamp.setId(ts.getUniqueId());
+                    timestamp.setId(ts.getId());
                     timestamp.setCreationTime(ts.getCreationTime().toInstant().toString());
                     timestamps.add(timestamp);
                 });
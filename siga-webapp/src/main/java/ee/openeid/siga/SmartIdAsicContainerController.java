@@ -26,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 
@@ -35,6 +36,7 @@ import java.util.List;
 public class SmartIdAsicContainerController {
     private final AsicContainerSigningService signingService;
     private final RequestValidator validator;
+    private final StatusLongPolling statusLongPolling;
 
     @SigaEventLog(eventName = SigaEventName.SMART_ID_CERTIFICATE_CHOICE_INIT)
     @PostMapping(value = "/containers/{containerId}/smartidsigning/certificatechoice", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -68,6 +70,17 @@ public class SmartIdAsicContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.SMART_ID_CERTIFICATE_CHOICE_STATUS)
+    @GetMapping(value = "/containers/{containerId}/smartidsigning/certificatechoice/{certificateId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetContainerSmartIdCertificateChoiceStatusResponse> awaitSmartIdCertificateChoiceStatus(
+            @PathVariable(value = "containerId") String containerId,
+            @PathVariable(value = "certificateId") String certificateId) {
+        validator.validateContainerId(containerId);
+        validator.validateCertificateId(certificateId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitCertificateStatus(containerId, certificateId),
+                () -> getSmartIdCertificateChoiceStatus(containerId, certificateId));
+    }
+
     @SigaEventLog(eventName = SigaEventName.SMART_ID_SIGNING_INIT)
     @PostMapping(value = "/containers/{containerId}/smartidsigning", produces = MediaType.APPLICATION_JSON_VALUE)
     public CreateContainerSmartIdSigningResponse createContainerSmartIdSigning(@PathVariable(value = "containerId") String containerId, @RequestBody CreateContainerSmartIdSigningRequest createSmartIdSigningRequest) {
@@ -104,6 +117,15 @@ public class SmartIdAsicContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.SMART_ID_SIGNING_STATUS)
+    @GetMapping(value = "/containers/{containerId}/smartidsigning/{signatureId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetContainerSmartIdSigningStatusResponse> awaitSmartIdSigningStatus(@PathVariable(value = "containerId") String containerId, @PathVariable(value = "signatureId") String signatureId) {
+        validator.validateContainerId(containerId);
+        validator.validateSignatureId(signatureId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitSignatureStatus(containerId, signatureId),
+                () -> getSmartIdSigningStatus(containerId, signatureId));
+    }
+
     private SmartIdInformation getSmartIdInformation(CreateContainerSmartIdSigningRequest request) {
         return RequestTransformer.transformSmartIdInformation(request.getDocumentNumber(),
                 null, request.getMessageToDisplay(), null);
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 
@@ -33,6 +34,7 @@ import java.util.List;
 public class SmartIdHashcodeContainerController {
     private final HashcodeContainerSigningService signingService;
     private final RequestValidator validator;
+    private final StatusLongPolling statusLongPolling;
 
     @SigaEventLog(eventName = SigaEventName.HC_SMART_ID_CERTIFICATE_CHOICE_INIT)
     @PostMapping(value = "/hashcodecontainers/{containerId}/smartidsigning/certificatechoice", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -66,6 +68,17 @@ public class SmartIdHashcodeContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.HC_SMART_ID_CERTIFICATE_CHOICE_STATUS)
+    @GetMapping(value = "/hashcodecontainers/{containerId}/smartidsigning/certificatechoice/{certificateId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetHashcodeContainerSmartIdCertificateChoiceStatusResponse> awaitSmartIdCertificateChoiceStatus(
+            @PathVariable(value = "containerId") String containerId,
+            @PathVariable(value = "certificateId") String certificateId) {
+        validator.validateContainerId(containerId);
+        validator.validateCertificateId(certificateId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitCertificateStatus(containerId, certificateId),
+                () -> getSmartIdCertificateChoiceStatus(containerId, certificateId));
+    }
+
     @SigaEventLog(eventName = SigaEventName.HC_SMART_ID_SIGNING_INIT)
     @PostMapping(value = "/hashcodecontainers/{containerId}/smartidsigning", produces = MediaType.APPLICATION_JSON_VALUE)
     public CreateHashcodeContainerSmartIdSigningResponse createHashcodeContainerSmartIdSigning(
@@ -105,6 +118,17 @@ public class SmartIdHashcodeContainerController {
         return response;
     }
 
+    @SigaEventLog(eventName = SigaEventName.HC_SMART_ID_SIGNING_STATUS)
+    @GetMapping(value = "/hashcodecontainers/{containerId}/smartidsigning/{signatureId}/status", params = "wait=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<GetHashcodeContainerSmartIdSigningStatusResponse> awaitSmartIdSigningStatus(
+            @PathVariable(value = "containerId") String containerId,
+            @PathVariable(value = "signatureId") String signatureId) {
+        validator.validateContainerId(containerId);
+        validator.validateSignatureId(signatureId);
+        return statusLongPolling.respondWhenCompleted(signingService.awaitSignatureStatus(containerId, signatureId),
+                () -> getSmartIdSigningStatus(containerId, signatureId));
+    }
+
     private SmartIdInformation getSmartIdInformation(CreateHashcodeContainerSmartIdSigningRequest request) {
         return RequestTransformer.transformSmartIdInformation(request.getDocumentNumber(),
                 null, request.getMessageToDisplay(), null);
@@ -0,0 +1,55 @@
+package ee.openeid.siga;
+
+import ee.openeid.siga.common.event.SigaEventLogger;
+import ee.openeid.siga.service.signature.container.StatusPollingExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Holds MID/SID status requests with the {@code wait=true} query parameter open without occupying a request thread,
+ * until the awaited signature or certificate session reaches its final status or
+ * {@code siga.status-polling.long-polling-timeout} passes. The status response is then built on the status polling
+ * executor.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatusLongPolling {
+    private final StatusPollingExecutor statusPollingExecutor;
+    private final SigaEventLogger sigaEventLogger;
+
+    public <T> DeferredResult<T> respondWhenCompleted(CompletableFuture<Void> statusCompletion, Supplier<T> statusResponse) {
+        // No async request timeout, as the status completion times out by itself
+        DeferredResult<T> result = new DeferredResult<>(0L);
+        result.onCompletion(() -> statusCompletion.cancel(false));
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        statusCompletion.whenComplete((ignored, e) -> {
+            if (statusCompletion.isCancelled() || result.isSetOrExpired()) {
+                return;
+            }
+            try {
+                statusPollingExecutor.execute(new DelegatingSecurityContextRunnable(() -> respond(result, statusResponse), securityContext));
+            } catch (TaskRejectedException ex) {
+                result.setErrorResult(ex);
+            }
+        });
+        return result;
+    }
+
+    private <T> void respond(DeferredResult<T> result, Supplier<T> statusResponse) {
+        try {
+            result.setResult(statusResponse.get());
+        } catch (Exception e) {
+            result.setErrorResult(e);
+        } finally {
+            sigaEventLogger.logEvents();
+        }
+    }
+}
@@ -5,10 +5,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.UUID;
 
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -33,4 +37,19 @@ class MobileIdHashcodeApplicationTests extends MobileIdBaseApplicationTests {
         );
     }
 
+    @Test
+    void mobileIdHashcodeAwaitMobileIdSigningStatusFailsWith400ForUnknownSignature() throws Exception {
+        String containerId = uploadHashcodeContainer();
+        MvcResult result = getRequest(
+                "/hashcodecontainers/" + containerId + "/mobileidsigning/" + UUID.randomUUID() + "/status?wait=true",
+                request().asyncStarted()
+        ).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_SESSION_DATA_EXCEPTION"));
+        assertInfoIsLoggedOnce(".*event_type=FINISH, event_name=REQUEST, client_name=client1, .*request_uri=/hashcodecontainers/"
+                + containerId + "/mobileidsigning/.*/status,.* status_code=400, result=SUCCESS.*");
+    }
+
 }
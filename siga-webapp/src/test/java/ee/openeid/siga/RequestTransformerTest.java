@@ -1,5 +1,6 @@
 package ee.openeid.siga;
 
+import ee.openeid.siga.common.session.AsicContainerMetadata;
 import ee.openeid.siga.webapp.json.GetContainerSignatureDetailsResponse;
 import ee.openeid.siga.webapp.json.Timestamp;
 import org.digidoc4j.Configuration;
@@ -38,7 +39,11 @@ class RequestTransformerTest {
         InputStream inputStream = new ByteArrayInputStream(Files.readAllBytes(documentPath));
         Container container = ContainerBuilder.aContainer().withConfiguration(Configuration.of(Configuration.Mode.TEST)).fromStream(inputStream).build();
 
-        List<Timestamp> timestamps = RequestTransformer.transformTimestampsForResponse(container.getTimestamps());
+        List<AsicContainerMetadata.TimestampMetadata> timestampMetadata = container.getTimestamps().stream()
+                .map(timestamp -> new AsicContainerMetadata.TimestampMetadata(timestamp.getUniqueId(), timestamp.getCreationTime()))
+                .toList();
+
+        List<Timestamp> timestamps = RequestTransformer.transformTimestampsForResponse(timestampMetadata);
         assertEquals(1, timestamps.size());
         assertEquals("T-519156403B8A19A11569455AA86FD01165C0209F55D6DB244333C001313AA5C9", timestamps.get(0).getId());
         assertEquals("2024-09-09T12:13:34Z", timestamps.get(0).getCreationTime());